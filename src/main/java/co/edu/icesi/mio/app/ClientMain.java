@@ -75,9 +75,14 @@ public class ClientMain {
         co.edu.icesi.mio.repository.ArcVelocityRepository velocityRepo =
                 new co.edu.icesi.mio.repository.ArcVelocityRepository();
         velocityRepo.saveAll(velocityCalc.calculateStatistics());
+        velocityRepo.saveProfiles(velocityCalc.calculateQuarterHourProfiles());
 
         co.edu.icesi.mio.service.routing.RouteCalculatorService routeCalculator =
                 new co.edu.icesi.mio.service.routing.RouteCalculatorService(grafoMIO, velocityRepo);
+        // Los eventos con ubicación (trancones, marchas, choques) encarecen o cierran los arcos cercanos
+        eventHandler.addListener(routeCalculator.getIncidentLayer());
+        co.edu.icesi.mio.service.routing.AsyncRouteService asyncRouteService =
+                new co.edu.icesi.mio.service.routing.AsyncRouteService(routeCalculator);
 
         co.edu.icesi.mio.service.realtime.ETACalculatorService etaCalculator =
                 new co.edu.icesi.mio.service.realtime.ETACalculatorService(grafoMIO, velocityRepo);
@@ -95,7 +100,7 @@ public class ClientMain {
                 adminClient,
                 eventHandler,
                 grafoMIO,
-                routeCalculator,
+                asyncRouteService,
                 etaCalculator
         );
         System.out.println("✓ Enrutador de consola inicializado");
@@ -113,6 +118,7 @@ public class ClientMain {
         // 11. Cleanup al cerrar
         System.out.println("\n✓ Cerrando aplicación...");
         adminClient.close();
+        asyncRouteService.shutdown();
         concurrencyManager.shutdown();
         System.out.println("✓ Sistema cerrado correctamente");
     }
@@ -0,0 +1,225 @@
+package co.edu.icesi.mio.app;
+
+import co.edu.icesi.mio.infra.csv.GrafoMIO;
+import co.edu.icesi.mio.model.analytics.ArcIdentifier;
+import co.edu.icesi.mio.model.analytics.ArcVelocityStats;
+import co.edu.icesi.mio.model.routing.CalculatedRoute;
+import co.edu.icesi.mio.repository.ArcVelocityRepository;
+import co.edu.icesi.mio.service.analytics.ArcVelocityCalculator;
+import co.edu.icesi.mio.service.routing.RouteCalculatorService;
+import co.edu.icesi.mio.service.routing.RoutingAlgorithm;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Programa de prueba para la jerarquía de contracción y A* con landmarks (ALT).
+ * Construye la jerarquía, la guarda en disco, la vuelve a cargar y compara
+ * sus rutas y tiempos, junto con los de ALT, contra el Dijkstra tradicional.
+ * Además verifica la jerarquía sobre una red sintética llena de caminos de igual costo.
+ */
+public class TestContractionHierarchy {
+
+    private static final String HIERARCHY_FILE = "target/contraction-hierarchy.bin";
+    private static final int NUM_QUERIES = 1000;
+    private static final String TIES_DIR = "target/ch-ties/";
+    private static final int TIES_DIAMONDS = 30;
+
+    public static void main(String[] args) {
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.println("  TEST DE JERARQUÍA DE CONTRACCIÓN - SITM-MIO");
+        System.out.println("═══════════════════════════════════════════════════════════\n");
+
+        try {
+            // FASE 1: Cargar grafo y velocidades
+            System.out.println("FASE 1: Cargando grafo del MIO...\n");
+            GrafoMIO grafo = loadGrafo();
+            ArcVelocityRepository velocityRepo = calculateVelocities();
+            RouteCalculatorService routeService = new RouteCalculatorService(grafo, velocityRepo);
+
+            // FASE 2: Preprocesamiento y serialización
+            System.out.println("\nFASE 2: Preprocesando jerarquía...\n");
+            Path file = Path.of(HIERARCHY_FILE);
+            Files.createDirectories(file.getParent());
+            routeService.saveContractionHierarchy(file);
+            System.out.printf("✓ Jerarquía guardada en %s (%,d bytes)\n", file, Files.size(file));
+
+            routeService.loadContractionHierarchy(file);
+            System.out.println("✓ Jerarquía cargada desde disco");
+
+            // FASE 3: Comparación contra Dijkstra
+            System.out.println("\nFASE 3: Comparando contra Dijkstra...\n");
+            List<int[]> pairs = randomPairs(grafo, NUM_QUERIES);
+
+            routeService.rebuildLandmarkIndex();
+
+            List<CalculatedRoute> dijkstraRoutes = new ArrayList<>();
+            long dijkstraNanos = runQueries(routeService, pairs, RoutingAlgorithm.DIJKSTRA, dijkstraRoutes);
+
+            List<CalculatedRoute> chRoutes = new ArrayList<>();
+            long chNanos = runQueries(routeService, pairs, RoutingAlgorithm.CONTRACTION_HIERARCHY, chRoutes);
+
+            List<CalculatedRoute> altRoutes = new ArrayList<>();
+            long altNanos = runQueries(routeService, pairs, RoutingAlgorithm.ALT, altRoutes);
+
+            System.out.printf("Consultas: %,d\n", pairs.size());
+            System.out.printf("Dijkstra:  %.3f ms/consulta\n", dijkstraNanos / 1e6 / pairs.size());
+            System.out.printf("CH:        %.3f ms/consulta (%.1fx)\n", chNanos / 1e6 / pairs.size(),
+                    dijkstraNanos / (double) Math.max(chNanos, 1));
+            System.out.printf("ALT:       %.3f ms/consulta (%.1fx)\n", altNanos / 1e6 / pairs.size(),
+                    dijkstraNanos / (double) Math.max(altNanos, 1));
+            System.out.printf("Diferencias de tiempo total (CH):  %d\n", countMismatches(dijkstraRoutes, chRoutes));
+            System.out.printf("Diferencias de tiempo total (ALT): %d\n", countMismatches(dijkstraRoutes, altRoutes));
+
+            // FASE 4: Recalcular landmarks tras un cambio de velocidades
+            System.out.println("\nFASE 4: Recalculando landmarks tras cambio de velocidades...\n");
+            velocityRepo.clear();
+            long reweightStart = System.currentTimeMillis();
+            routeService.rebuildLandmarkIndex();
+            System.out.printf("✓ Tablas de landmarks recalculadas en %d ms\n",
+                    System.currentTimeMillis() - reweightStart);
+
+            // FASE 5: Red con caminos de igual costo
+            System.out.println("\nFASE 5: Verificando jerarquía con caminos de igual costo...\n");
+            verifyTies();
+
+            System.out.println("\n═══════════════════════════════════════════════════════════");
+            System.out.println("  PRUEBA COMPLETADA");
+            System.out.println("═══════════════════════════════════════════════════════════");
+
+        } catch (IOException | InterruptedException e) {
+            System.err.println("✗ Error: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static long runQueries(RouteCalculatorService routeService, List<int[]> pairs,
+                                   RoutingAlgorithm algorithm, List<CalculatedRoute> routes) {
+        long start = System.nanoTime();
+        for (int[] pair : pairs) {
+            routes.add(routeService.calculateFastestRoute(pair[0], pair[1], algorithm));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static int countMismatches(List<CalculatedRoute> expectedRoutes, List<CalculatedRoute> actualRoutes) {
+        int mismatches = 0;
+        for (int i = 0; i < expectedRoutes.size(); i++) {
+            CalculatedRoute expected = expectedRoutes.get(i);
+            CalculatedRoute actual = actualRoutes.get(i);
+            if (expected.isFound() != actual.isFound()
+                    || Math.abs(expected.getTotalTime() - actual.getTotalTime()) > 0.01) {
+                mismatches++;
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * Red sintética de rombos simétricos: entre cada par de paradas del eje hay dos caminos
+     * de igual tiempo (por el este y por el oeste). Las paradas intermedias se contraen en la
+     * misma ronda, así que una búsqueda de testigos que pase por la otra dejaría la jerarquía
+     * sin camino. Se comparan todas las parejas contra Dijkstra.
+     */
+    private static void verifyTies() throws IOException {
+        Path dir = Path.of(TIES_DIR);
+        Files.createDirectories(dir);
+
+        List<String> stops = new ArrayList<>();
+        stops.add("STOPID,PLANVERSIONID,SHORTNAME,LONGNAME,GPS_X,GPS_Y,DECIMALLONGITUDE,DECIMALLATITUDE");
+        List<String> lineStops = new ArrayList<>();
+        lineStops.add("LINESTOPID,STOPSEQUENCE,ORIENTATION,LINEID,STOPID");
+        for (int k = 0; k <= TIES_DIAMONDS; k++) {
+            stops.add(String.format(Locale.ROOT, "%d,241,E%d,Eje %d,0,0,-76.5,%.4f",
+                    1000 + k, k, k, 3.4 + 0.02 * k));
+        }
+        int lineStopId = 1;
+        for (int side = 0; side < 2; side++) {
+            int lineId = side + 1;
+            double lon = side == 0 ? -76.49 : -76.51;
+            int sequence = 0;
+            for (int k = 0; k < TIES_DIAMONDS; k++) {
+                int stopId = 2000 + side * 1000 + k;
+                stops.add(String.format(Locale.ROOT, "%d,241,R%d,Rombo %d,0,0,%.4f,%.4f",
+                        stopId, stopId, stopId, lon, 3.41 + 0.02 * k));
+                lineStops.add(lineStopId++ + "," + sequence++ + ",0," + lineId + "," + (1000 + k));
+                lineStops.add(lineStopId++ + "," + sequence++ + ",0," + lineId + "," + stopId);
+            }
+            lineStops.add(lineStopId++ + "," + sequence + ",0," + lineId + "," + (1000 + TIES_DIAMONDS));
+        }
+        Files.write(dir.resolve("stops.csv"), stops);
+        Files.write(dir.resolve("lines.csv"), List.of("LINEID,PLANVERSIONID,SHORTNAME,DESCRIPTION",
+                "1,241,ESTE,Rombos por el este", "2,241,OESTE,Rombos por el oeste"));
+        Files.write(dir.resolve("linestops.csv"), lineStops);
+
+        GrafoMIO grafo = new GrafoMIO();
+        grafo.cargarParadas(TIES_DIR + "stops.csv");
+        grafo.cargarRutas(TIES_DIR + "lines.csv");
+        grafo.cargarLineStopsYConstruirArcos(TIES_DIR + "linestops.csv");
+        RouteCalculatorService routeService = new RouteCalculatorService(grafo, new ArcVelocityRepository());
+
+        List<int[]> pairs = new ArrayList<>();
+        for (int origin : grafo.getParadas().keySet()) {
+            for (int destination : grafo.getParadas().keySet()) {
+                pairs.add(new int[]{origin, destination});
+            }
+        }
+
+        List<CalculatedRoute> dijkstraRoutes = new ArrayList<>();
+        runQueries(routeService, pairs, RoutingAlgorithm.DIJKSTRA, dijkstraRoutes);
+        List<CalculatedRoute> chRoutes = new ArrayList<>();
+        runQueries(routeService, pairs, RoutingAlgorithm.CONTRACTION_HIERARCHY, chRoutes);
+
+        int mismatches = countMismatches(dijkstraRoutes, chRoutes);
+        System.out.printf("Consultas: %,d | Diferencias (CH): %d\n", pairs.size(), mismatches);
+        System.out.println(mismatches == 0
+                ? "✓ La jerarquía conserva todas las distancias"
+                : "✗ La jerarquía perdió distancias con caminos de igual costo");
+    }
+
+    private static GrafoMIO loadGrafo() throws IOException {
+        GrafoMIO grafo = new GrafoMIO();
+
+        String basePath = "src/main/resources/data/";
+        grafo.cargarParadas(basePath + "stops-241.csv");
+        grafo.cargarRutas(basePath + "lines-241.csv");
+        grafo.cargarLineStopsYConstruirArcos(basePath + "linestops-241.csv");
+
+        System.out.println("✓ Grafo cargado exitosamente");
+        return grafo;
+    }
+
+    private static ArcVelocityRepository calculateVelocities() {
+        ArcVelocityRepository repository = new ArcVelocityRepository();
+        try {
+            ArcVelocityCalculator calculator = new ArcVelocityCalculator();
+            calculator.processDatagramFile("src/main/resources/data/datagrams4streaming.csv");
+            Map<ArcIdentifier, ArcVelocityStats> stats = calculator.calculateStatistics();
+            repository.saveAll(stats);
+            System.out.println("✓ Velocidades calculadas y almacenadas");
+        } catch (IOException e) {
+            System.out.println("⚠️  Sin datagramas históricos, se usan velocidades por defecto");
+        }
+        return repository;
+    }
+
+    private static List<int[]> randomPairs(GrafoMIO grafo, int count) {
+        List<Integer> stopIds = new ArrayList<>(grafo.getParadas().keySet());
+        Random random = new Random(42);
+        List<int[]> pairs = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            int origin = stopIds.get(random.nextInt(stopIds.size()));
+            int destination = stopIds.get(random.nextInt(stopIds.size()));
+            pairs.add(new int[]{origin, destination});
+        }
+
+        return pairs;
+    }
+}
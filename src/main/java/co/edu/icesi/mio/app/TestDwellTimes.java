@@ -0,0 +1,70 @@
+package co.edu.icesi.mio.app;
+
+import co.edu.icesi.mio.infra.csv.GrafoMIO;
+import co.edu.icesi.mio.model.analytics.StopDwellStats;
+import co.edu.icesi.mio.service.analytics.DwellTimeAnalyzer;
+import co.edu.icesi.mio.service.realtime.LineSequenceIndex;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Programa de prueba para el análisis de tiempos de permanencia en paradas.
+ * Recorre el histórico de datagramas con el detector de paradas y muestra las paradas
+ * donde los buses permanecen más tiempo.
+ */
+public class TestDwellTimes {
+
+    private static final String DATA_PATH = "src/main/resources/data/datagrams4streaming.csv";
+    private static final int TOP_STOPS = 15;
+
+    public static void main(String[] args) {
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.println("  TEST DE TIEMPOS DE PERMANENCIA EN PARADAS - SITM-MIO");
+        System.out.println("═══════════════════════════════════════════════════════════\n");
+
+        String dataPath = args.length > 0 ? args[0] : DATA_PATH;
+
+        try {
+            // FASE 1: Cargar grafo
+            System.out.println("FASE 1: Cargando grafo del MIO...\n");
+            LineSequenceIndex lineIndex = LineSequenceIndex.build(loadGrafo());
+
+            // FASE 2: Analizar el histórico
+            System.out.println("\nFASE 2: Analizando histórico...\n");
+            DwellTimeAnalyzer analyzer = new DwellTimeAnalyzer(lineIndex);
+            analyzer.analyze(dataPath);
+
+            // FASE 3: Paradas con mayor permanencia
+            System.out.println("FASE 3: Paradas con mayor permanencia (mediana)\n");
+            List<StopDwellStats> stopStats = analyzer.getStopStats();
+            System.out.println("  Parada    Permanencias  Mediana    P90     Máx   Nombre");
+            stopStats.stream()
+                    .filter(stats -> stats.getDwellCount() >= 10)
+                    .limit(TOP_STOPS)
+                    .forEach(stats -> System.out.printf("  %-8d  %,12d  %5.0f s  %5.0f s  %5.0f s  %s\n",
+                            stats.getStopId(), stats.getDwellCount(), stats.getMedianSeconds(),
+                            stats.getP90Seconds(), stats.getMaxSeconds(), stats.getStopName()));
+
+            System.out.println("\n═══════════════════════════════════════════════════════════");
+            System.out.println("  PRUEBA COMPLETADA");
+            System.out.println("═══════════════════════════════════════════════════════════");
+
+        } catch (IOException e) {
+            System.err.println("✗ Error de I/O: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static GrafoMIO loadGrafo() throws IOException {
+        GrafoMIO grafo = new GrafoMIO();
+
+        String basePath = "src/main/resources/data/";
+        grafo.cargarParadas(basePath + "stops-241.csv");
+        grafo.cargarRutas(basePath + "lines-241.csv");
+        grafo.cargarLineStopsYConstruirArcos(basePath + "linestops-241.csv");
+
+        System.out.println("✓ Grafo cargado exitosamente");
+        return grafo;
+    }
+}
@@ -0,0 +1,231 @@
+package co.edu.icesi.mio.app;
+
+import co.edu.icesi.mio.concurrency.ConcurrencyManager;
+import co.edu.icesi.mio.infra.csv.Arco;
+import co.edu.icesi.mio.infra.csv.GrafoMIO;
+import co.edu.icesi.mio.infra.csv.Parada;
+import co.edu.icesi.mio.model.events.BusEvent;
+import co.edu.icesi.mio.model.events.BusEventStore;
+import co.edu.icesi.mio.model.events.EventType;
+import co.edu.icesi.mio.model.routing.CalculatedRoute;
+import co.edu.icesi.mio.model.routing.RouteSegment;
+import co.edu.icesi.mio.repository.ArcVelocityRepository;
+import co.edu.icesi.mio.service.ingestion.BusEventHandler;
+import co.edu.icesi.mio.service.notifications.NotificationService;
+import co.edu.icesi.mio.service.routing.IncidentLayer;
+import co.edu.icesi.mio.service.routing.RouteCalculatorService;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Programa de prueba para los incidentes en el cálculo de rutas.
+ * Reporta eventos con ubicación a través del manejador de eventos de buses (el mismo camino
+ * que usa el cliente) y verifica que la capa de incidentes los recibe, que un trancón
+ * encarece la ruta, que una marcha obliga a evitar los arcos cerrados (también a la ruta más
+ * corta) y que los arcos peatonales nunca quedan afectados.
+ */
+public class TestIncidentRouting {
+
+    private static final int MIN_SEGMENTS = 6;
+    private static final int MAX_ATTEMPTS = 500;
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.println("  TEST DE INCIDENTES EN RUTAS - SITM-MIO");
+        System.out.println("═══════════════════════════════════════════════════════════\n");
+
+        ConcurrencyManager concurrencyManager = new ConcurrencyManager(2, 1);
+        try {
+            // FASE 1: Cargar grafo y servicios
+            System.out.println("FASE 1: Cargando grafo del MIO...\n");
+            GrafoMIO grafo = loadGrafo();
+            RouteCalculatorService routeService = new RouteCalculatorService(grafo, new ArcVelocityRepository());
+            IncidentLayer incidentLayer = routeService.getIncidentLayer();
+
+            BusEventHandler eventHandler = new BusEventHandler(concurrencyManager, new BusEventStore(),
+                    new NotificationService(concurrencyManager));
+            eventHandler.addListener(incidentLayer);
+            System.out.println("✓ Capa de incidentes suscrita al manejador de eventos");
+
+            // FASE 2: Ruta de referencia
+            System.out.println("\nFASE 2: Buscando una ruta de referencia...\n");
+            CalculatedRoute baseline = findLongRoute(grafo, routeService);
+            if (baseline == null) {
+                System.out.println("✗ No se encontró una ruta con al menos " + MIN_SEGMENTS + " tramos");
+                return;
+            }
+            int originId = baseline.getOrigin().getStopId();
+            int destinationId = baseline.getDestination().getStopId();
+            printRoute("Sin incidentes", baseline);
+            RouteSegment affected = busSegmentInMiddle(baseline);
+
+            // FASE 3: Trancón sobre un tramo de la ruta
+            System.out.println("\nFASE 3: Reportando un trancón sobre la ruta...\n");
+            long version = incidentLayer.getVersion();
+            reportAt(eventHandler, EventType.TRANCON, affected);
+            waitForVersion(incidentLayer, version);
+            report(incidentLayer.getActiveIncidents().size() == 1,
+                    "El evento llegó a la capa de incidentes: " + incidentLayer.getActiveIncidents().get(0),
+                    "El evento no llegó a la capa de incidentes");
+
+            CalculatedRoute withJam = routeService.calculateFastestRoute(originId, destinationId);
+            printRoute("Con trancón", withJam);
+            report(withJam.isFound() && withJam.getTotalTime() > baseline.getTotalTime() + 0.01,
+                    "El trancón aumentó el tiempo de la ruta",
+                    "El trancón no cambió la ruta");
+
+            // FASE 4: Marcha que cierra los arcos cercanos
+            System.out.println("\nFASE 4: Reportando una marcha sobre la ruta...\n");
+            version = incidentLayer.getVersion();
+            reportAt(eventHandler, EventType.MARCHA, affected);
+            waitForVersion(incidentLayer, version);
+
+            Set<Integer> closed = closedArcs(incidentLayer);
+            CalculatedRoute withMarch = routeService.calculateFastestRoute(originId, destinationId);
+            printRoute("Con marcha", withMarch);
+            boolean avoidsClosure = true;
+            for (RouteSegment segment : withMarch.getSegments()) {
+                avoidsClosure &= !closed.contains(incidentLayer.indexOf(segment.getArco()));
+            }
+            report(avoidsClosure && !sameArcs(baseline, withMarch),
+                    "La ruta evita los " + closed.size() + " arcos cerrados por la marcha",
+                    "La ruta usa arcos cerrados por la marcha");
+
+            CalculatedRoute shortest = routeService.calculateShortestRoute(originId, destinationId);
+            printRoute("Más corta", shortest);
+            boolean shortestAvoidsClosure = true;
+            for (RouteSegment segment : shortest.getSegments()) {
+                shortestAvoidsClosure &= !closed.contains(incidentLayer.indexOf(segment.getArco()));
+            }
+            report(shortestAvoidsClosure,
+                    "La ruta más corta también evita los arcos cerrados",
+                    "La ruta más corta usa arcos cerrados por la marcha");
+
+            boolean walkingClosed = false;
+            List<Arco> arcos = grafo.getArcosRuteables();
+            for (int a : closed) {
+                walkingClosed |= arcos.get(a).isWalking();
+            }
+            System.out.printf("Arcos peatonales en el grafo: %,d\n", grafo.getArcosPeatonales().size());
+            report(!walkingClosed,
+                    "Ningún arco peatonal quedó cerrado",
+                    "La marcha cerró arcos peatonales");
+
+            System.out.println("\n═══════════════════════════════════════════════════════════");
+            System.out.println("  PRUEBA COMPLETADA");
+            System.out.println("═══════════════════════════════════════════════════════════");
+
+        } catch (IOException e) {
+            System.err.println("✗ Error de I/O: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            concurrencyManager.shutdown();
+        }
+    }
+
+    private static GrafoMIO loadGrafo() throws IOException {
+        GrafoMIO grafo = new GrafoMIO();
+
+        String basePath = "src/main/resources/data/";
+        grafo.cargarParadas(basePath + "stops-241.csv");
+        grafo.cargarRutas(basePath + "lines-241.csv");
+        grafo.cargarLineStopsYConstruirArcos(basePath + "linestops-241.csv");
+        grafo.generarArcosPeatonales(GrafoMIO.RADIO_PEATONAL_DEFECTO);
+
+        System.out.println("✓ Grafo cargado exitosamente");
+        return grafo;
+    }
+
+    /**
+     * Busca un par de paradas cuya ruta más rápida tenga varios tramos
+     */
+    private static CalculatedRoute findLongRoute(GrafoMIO grafo, RouteCalculatorService routeService) {
+        List<Integer> stopIds = new ArrayList<>(grafo.getParadas().keySet());
+        Random random = new Random(42);
+
+        for (int i = 0; i < MAX_ATTEMPTS; i++) {
+            int origin = stopIds.get(random.nextInt(stopIds.size()));
+            int destination = stopIds.get(random.nextInt(stopIds.size()));
+            CalculatedRoute route = routeService.calculateFastestRoute(origin, destination);
+            if (route.getSegmentCount() >= MIN_SEGMENTS) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private static RouteSegment busSegmentInMiddle(CalculatedRoute route) {
+        List<RouteSegment> segments = route.getSegments();
+        for (int i = segments.size() / 2; i < segments.size(); i++) {
+            if (!segments.get(i).getArco().isWalking()) {
+                return segments.get(i);
+            }
+        }
+        return segments.get(segments.size() / 2);
+    }
+
+    /**
+     * Reporta un evento en el punto medio del tramo, como lo haría un bus en streaming
+     */
+    private static void reportAt(BusEventHandler eventHandler, EventType type, RouteSegment segment) {
+        Parada from = segment.getOrigin();
+        Parada to = segment.getDestination();
+        double latitude = (from.getDecimalLatitude() + to.getDecimalLatitude()) / 2;
+        double longitude = (from.getDecimalLongitude() + to.getDecimalLongitude()) / 2;
+
+        BusEvent event = new BusEvent(999, type, type.getCategory(), type.getPriority(),
+                type.getDescription() + " simulado", LocalDateTime.now(), latitude, longitude);
+        eventHandler.onBusEvent(event);
+    }
+
+    /**
+     * El manejador procesa los eventos de forma asíncrona: espera a que la capa cambie de versión
+     */
+    private static void waitForVersion(IncidentLayer incidentLayer, long version) throws InterruptedException {
+        for (int i = 0; i < 50 && incidentLayer.getVersion() == version; i++) {
+            Thread.sleep(100);
+        }
+    }
+
+    private static Set<Integer> closedArcs(IncidentLayer incidentLayer) {
+        Set<Integer> closed = new HashSet<>();
+        float[] factors = incidentLayer.getArcFactors();
+        for (int a = 0; factors != null && a < factors.length; a++) {
+            if (factors[a] == IncidentLayer.CLOSED) {
+                closed.add(a);
+            }
+        }
+        return closed;
+    }
+
+    private static boolean sameArcs(CalculatedRoute first, CalculatedRoute second) {
+        if (first.getSegmentCount() != second.getSegmentCount()) {
+            return false;
+        }
+        for (int i = 0; i < first.getSegmentCount(); i++) {
+            if (first.getSegments().get(i).getArco() != second.getSegments().get(i).getArco()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void printRoute(String label, CalculatedRoute route) {
+        if (!route.isFound()) {
+            System.out.printf("  %-15s sin ruta\n", label + ":");
+            return;
+        }
+        System.out.printf("  %-15s %.1f min, %d tramos, líneas %s\n", label + ":",
+                route.getTotalTime(), route.getSegmentCount(), route.getLinesUsed());
+    }
+
+    private static void report(boolean ok, String success, String failure) {
+        System.out.println(ok ? "✓ " + success : "✗ " + failure);
+    }
+}
@@ -0,0 +1,130 @@
+package co.edu.icesi.mio.app;
+
+import co.edu.icesi.mio.infra.csv.GrafoMIO;
+import co.edu.icesi.mio.infra.csv.Parada;
+import co.edu.icesi.mio.model.analytics.Zone;
+import co.edu.icesi.mio.model.routing.CalculatedRoute;
+import co.edu.icesi.mio.model.routing.Isochrone;
+import co.edu.icesi.mio.model.routing.ReachabilityGrid;
+import co.edu.icesi.mio.repository.ArcVelocityRepository;
+import co.edu.icesi.mio.service.routing.IsochroneService;
+import co.edu.icesi.mio.service.routing.RouteCalculatorService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Programa de prueba para isocronas.
+ * Calcula las paradas alcanzables en 20 minutos desde una parada, verifica los tiempos
+ * contra el Dijkstra tradicional y arma un mapa de calor con varias isocronas.
+ */
+public class TestIsochrones {
+
+    private static final double BUDGET_MINUTES = 20.0;
+    private static final int NUM_ORIGINS = 50;
+    private static final double CELL_SIZE_METERS = 1000.0;
+
+    public static void main(String[] args) {
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.println("  TEST DE ISOCRONAS - SITM-MIO");
+        System.out.println("═══════════════════════════════════════════════════════════\n");
+
+        try {
+            // FASE 1: Cargar grafo
+            System.out.println("FASE 1: Cargando grafo del MIO...\n");
+            GrafoMIO grafo = loadGrafo();
+            RouteCalculatorService routeService = new RouteCalculatorService(grafo, new ArcVelocityRepository());
+            IsochroneService isochroneService = new IsochroneService(grafo, routeService);
+
+            // Orígenes: paradas con más arcos salientes (terminales y estaciones)
+            List<Integer> origins = grafo.getArcos().stream()
+                    .collect(Collectors.groupingBy(arco -> arco.getParadaOrigen().getStopId(), Collectors.counting()))
+                    .entrySet().stream()
+                    .sorted((a, b) -> Long.compare(b.getValue(), a.getValue()))
+                    .limit(NUM_ORIGINS)
+                    .map(entry -> entry.getKey())
+                    .collect(Collectors.toList());
+
+            // FASE 2: Isocrona de un origen
+            System.out.println("\nFASE 2: Isocrona de una parada...\n");
+            int originId = origins.get(0);
+            long start = System.nanoTime();
+            Isochrone isochrone = isochroneService.calculateIsochrone(originId, BUDGET_MINUTES);
+            long isochroneNanos = System.nanoTime() - start;
+
+            System.out.println("Origen: " + grafo.getParadas().get(originId).getLongName());
+            System.out.println(isochrone);
+            System.out.printf("Tiempo de cálculo: %.2f ms\n", isochroneNanos / 1e6);
+
+            // Verificar contra Dijkstra punto a punto (más lento: una búsqueda por parada)
+            start = System.nanoTime();
+            int mismatches = 0;
+            for (int i = 0; i < isochrone.size(); i++) {
+                int stopId = isochrone.getStopId(i);
+                if (stopId == originId) continue;
+                CalculatedRoute route = routeService.calculateFastestRoute(originId, stopId);
+                if (Math.abs(route.getTotalTime() - isochrone.getTravelTime(i)) > 0.01) {
+                    mismatches++;
+                }
+            }
+            long dijkstraNanos = System.nanoTime() - start;
+            System.out.printf("Dijkstra por parada: %.2f ms | Diferencias: %d\n", dijkstraNanos / 1e6, mismatches);
+
+            // FASE 3: Isocronas en lote y mapa de calor
+            System.out.println("\nFASE 3: Isocronas en lote...\n");
+            List<Isochrone> isochrones = isochroneService.calculateIsochrones(origins, BUDGET_MINUTES,
+                    Runtime.getRuntime().availableProcessors());
+
+            double avgReachable = isochrones.stream().mapToInt(Isochrone::size).average().orElse(0);
+            System.out.printf("Paradas alcanzables promedio: %.1f\n", avgReachable);
+
+            ReachabilityGrid grid = isochroneService.buildReachabilityGrid(isochrones,
+                    coveringZone(grafo), CELL_SIZE_METERS);
+            System.out.println(grid);
+            System.out.println(grid.toHeatmapString());
+
+            System.out.println("═══════════════════════════════════════════════════════════");
+            System.out.println("  PRUEBA COMPLETADA");
+            System.out.println("═══════════════════════════════════════════════════════════");
+
+        } catch (IOException e) {
+            System.err.println("✗ Error de I/O: " + e.getMessage());
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            System.err.println("✗ Error de concurrencia: " + e.getMessage());
+            e.printStackTrace();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Zona que cubre todas las paradas del sistema
+     */
+    private static Zone coveringZone(GrafoMIO grafo) {
+        List<Parada> paradas = new ArrayList<>(grafo.getParadas().values());
+        double south = paradas.stream().min(Comparator.comparingDouble(Parada::getDecimalLatitude))
+                .get().getDecimalLatitude();
+        double north = paradas.stream().max(Comparator.comparingDouble(Parada::getDecimalLatitude))
+                .get().getDecimalLatitude();
+        double west = paradas.stream().min(Comparator.comparingDouble(Parada::getDecimalLongitude))
+                .get().getDecimalLongitude();
+        double east = paradas.stream().max(Comparator.comparingDouble(Parada::getDecimalLongitude))
+                .get().getDecimalLongitude();
+        return Zone.createCustomZone("CALI", "Cali completa", south, north, west, east);
+    }
+
+    private static GrafoMIO loadGrafo() throws IOException {
+        GrafoMIO grafo = new GrafoMIO();
+
+        String basePath = "src/main/resources/data/";
+        grafo.cargarParadas(basePath + "stops-241.csv");
+        grafo.cargarRutas(basePath + "lines-241.csv");
+        grafo.cargarLineStopsYConstruirArcos(basePath + "linestops-241.csv");
+
+        System.out.println("✓ Grafo cargado exitosamente");
+        return grafo;
+    }
+}
@@ -4,13 +4,17 @@ import co.edu.icesi.mio.concurrency.route.RouteCalculationResult;
 import co.edu.icesi.mio.infra.csv.GrafoMIO;
 import co.edu.icesi.mio.model.analytics.ArcIdentifier;
 import co.edu.icesi.mio.model.analytics.ArcVelocityStats;
+import co.edu.icesi.mio.model.routing.RouteMatrix;
 import co.edu.icesi.mio.model.routing.RoutePair;
 import co.edu.icesi.mio.repository.ArcVelocityRepository;
 import co.edu.icesi.mio.service.analytics.ArcVelocityCalculator;
 import co.edu.icesi.mio.service.routing.MassiveRouteCalculator;
 import co.edu.icesi.mio.service.routing.RouteCalculatorService;
+import co.edu.icesi.mio.service.routing.RouteResultFileWriter;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 
@@ -189,6 +193,64 @@ public class TestMassiveRouteCalculation {
             System.out.printf("   - Tiempo estimado (8 workers): ~%.0f minutos\n",
                     ((par8Duration / numPairs) * totalPairs) / 60);
 
+            // MODO MATRIZ: una búsqueda por origen en lugar de una por par
+            System.out.println("\n╔══════════════════════════════════════════════════════════╗");
+            System.out.println("║  TEST 5: MATRIZ DE CONECTIVIDAD (50 PARADAS POPULARES)   ║");
+            System.out.println("╚══════════════════════════════════════════════════════════╝\n");
+
+            List<RoutePair> popularPairs = calculator8.generatePopularPairs(50);
+
+            long pairsStart = System.currentTimeMillis();
+            Map<String, RouteCalculationResult> popularResults = calculator8.calculateRoutes(popularPairs);
+            double pairsDuration = (System.currentTimeMillis() - pairsStart) / 1000.0;
+
+            long matrixStart = System.currentTimeMillis();
+            RouteMatrix matrix = calculator8.calculateMatrix(popularPairs);
+            double matrixDuration = (System.currentTimeMillis() - matrixStart) / 1000.0;
+
+            int mismatches = 0;
+            for (RouteCalculationResult result : popularResults.values()) {
+                RoutePair pair = result.getRoutePair();
+                float matrixTime = matrix.getTravelTime(pair.getOriginStopId(), pair.getDestinationStopId());
+                boolean matrixFound = matrixTime != Float.POSITIVE_INFINITY;
+                if (result.isSuccess() != matrixFound
+                        || (matrixFound && Math.abs(result.getRoute().getTotalTime() - matrixTime) > 0.01)) {
+                    mismatches++;
+                }
+            }
+
+            Path matrixFile = Path.of("target/route-matrix.bin");
+            Files.createDirectories(matrixFile.getParent());
+            matrix.writeTo(matrixFile);
+
+            System.out.printf("Pares: %,d\n", popularPairs.size());
+            System.out.printf("Modo por pares: %.2f segundos\n", pairsDuration);
+            System.out.printf("Modo matriz:    %.2f segundos (%.1fx)\n", matrixDuration,
+                    pairsDuration / Math.max(matrixDuration, 0.001));
+            System.out.printf("Diferencias de tiempo: %d\n", mismatches);
+            System.out.printf("✓ Matriz guardada en %s (%,d bytes)\n", matrixFile, Files.size(matrixFile));
+
+            // MODO STREAMING: resultados compactos a disco sin guardar las rutas en memoria
+            System.out.println("\n╔══════════════════════════════════════════════════════════╗");
+            System.out.println("║  TEST 6: CÁLCULO MASIVO CON RESULTADOS A DISCO           ║");
+            System.out.println("╚══════════════════════════════════════════════════════════╝\n");
+
+            Path resultsFile = Path.of("target/route-results.bin");
+            MassiveRouteCalculator.RouteStatistics streamingStats;
+            try (RouteResultFileWriter writer = new RouteResultFileWriter(resultsFile,
+                    RouteResultFileWriter.Format.BINARY, true)) {
+                streamingStats = calculator8.calculateRoutes(randomPairs, writer, true);
+            }
+
+            long[] readBack = new long[1];
+            RouteResultFileWriter.readBinary(resultsFile, summary -> readBack[0]++);
+
+            System.out.println(streamingStats);
+            System.out.printf("Misma media de tiempo que en memoria: %s\n",
+                    Math.abs(streamingStats.avgTime - stats8.avgTime) < 0.01 ? "sí" : "no");
+            System.out.printf("✓ %,d resultados guardados en %s (%,d bytes)\n",
+                    readBack[0], resultsFile, Files.size(resultsFile));
+
             // MOSTRAR ALGUNAS RUTAS CALCULADAS
             System.out.println("\n═══════════════════════════════════════════════════════════");
             System.out.println("  EJEMPLOS DE RUTAS CALCULADAS");
@@ -0,0 +1,76 @@
+package co.edu.icesi.mio.app;
+
+import co.edu.icesi.mio.infra.csv.GrafoMIO;
+import co.edu.icesi.mio.model.analytics.NetworkCentrality;
+import co.edu.icesi.mio.repository.ArcVelocityRepository;
+import co.edu.icesi.mio.service.routing.BetweennessCentrality;
+import co.edu.icesi.mio.service.routing.RouteCalculatorService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Programa de prueba para la centralidad de la red.
+ * Calcula la betweenness de todas las paradas y arcos con los tiempos actuales, muestra
+ * las más centrales y exporta los rankings completos a CSV.
+ */
+public class TestNetworkCentrality {
+
+    private static final int TOP_K = 15;
+    private static final String OUTPUT_DIR = "target";
+
+    public static void main(String[] args) {
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.println("  TEST DE CENTRALIDAD DE LA RED - SITM-MIO");
+        System.out.println("═══════════════════════════════════════════════════════════\n");
+
+        try {
+            // FASE 1: Cargar grafo
+            System.out.println("FASE 1: Cargando grafo del MIO...\n");
+            GrafoMIO grafo = loadGrafo();
+            RouteCalculatorService routeService = new RouteCalculatorService(grafo, new ArcVelocityRepository());
+
+            // FASE 2: Betweenness de toda la red
+            System.out.println("\nFASE 2: Calculando betweenness...\n");
+            BetweennessCentrality betweenness = new BetweennessCentrality(routeService);
+            NetworkCentrality centrality = betweenness.calculate(Runtime.getRuntime().availableProcessors());
+
+            System.out.println(centrality);
+            System.out.println(centrality.toRankingString(TOP_K));
+
+            // FASE 3: Exportar rankings
+            System.out.println("FASE 3: Exportando rankings...\n");
+            Path outputDir = Paths.get(OUTPUT_DIR);
+            Files.createDirectories(outputDir);
+            Path stopsFile = outputDir.resolve("centrality-stops.csv");
+            Path arcsFile = outputDir.resolve("centrality-arcs.csv");
+            centrality.writeStopRanking(stopsFile);
+            centrality.writeArcRanking(arcsFile);
+            System.out.println("✓ Ranking de paradas: " + stopsFile);
+            System.out.println("✓ Ranking de arcos: " + arcsFile);
+
+            System.out.println("\n═══════════════════════════════════════════════════════════");
+            System.out.println("  PRUEBA COMPLETADA");
+            System.out.println("═══════════════════════════════════════════════════════════");
+
+        } catch (IOException e) {
+            System.err.println("✗ Error de I/O: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static GrafoMIO loadGrafo() throws IOException {
+        GrafoMIO grafo = new GrafoMIO();
+
+        String basePath = "src/main/resources/data/";
+        grafo.cargarParadas(basePath + "stops-241.csv");
+        grafo.cargarRutas(basePath + "lines-241.csv");
+        grafo.cargarLineStopsYConstruirArcos(basePath + "linestops-241.csv");
+        grafo.generarArcosPeatonales(GrafoMIO.RADIO_PEATONAL_DEFECTO);
+
+        System.out.println("✓ Grafo cargado exitosamente");
+        return grafo;
+    }
+}
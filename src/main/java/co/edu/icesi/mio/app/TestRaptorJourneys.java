@@ -0,0 +1,126 @@
+package co.edu.icesi.mio.app;
+
+import co.edu.icesi.mio.infra.csv.GrafoMIO;
+import co.edu.icesi.mio.model.routing.CalculatedRoute;
+import co.edu.icesi.mio.model.routing.ParetoJourney;
+import co.edu.icesi.mio.repository.ArcVelocityRepository;
+import co.edu.icesi.mio.service.routing.RouteCalculatorService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Programa de prueba para el motor de viajes por rondas (RAPTOR).
+ * Muestra el conjunto de Pareto (tiempo vs. transbordos) de un par de paradas y compara
+ * el viaje más rápido de cada consulta contra el Dijkstra tradicional.
+ */
+public class TestRaptorJourneys {
+
+    private static final int NUM_QUERIES = 1000;
+    // Dijkstra no penaliza transbordos: su ruta más rápida puede usar más de 20 buses
+    private static final int MAX_TRANSFERS = 30;
+
+    public static void main(String[] args) {
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.println("  TEST DE VIAJES DE PARETO (RAPTOR) - SITM-MIO");
+        System.out.println("═══════════════════════════════════════════════════════════\n");
+
+        try {
+            // FASE 1: Cargar grafo
+            System.out.println("FASE 1: Cargando grafo del MIO...\n");
+            GrafoMIO grafo = loadGrafo();
+            RouteCalculatorService routeService = new RouteCalculatorService(grafo, new ArcVelocityRepository());
+            List<int[]> pairs = randomPairs(grafo, NUM_QUERIES);
+
+            // FASE 2: Ejemplo de conjunto de Pareto
+            System.out.println("\nFASE 2: Conjunto de Pareto de ejemplo...\n");
+            for (int[] pair : pairs) {
+                List<ParetoJourney> journeys = routeService.calculateParetoJourneys(pair[0], pair[1]);
+                if (journeys.size() > 1) {
+                    System.out.printf("Origen: %s | Destino: %s\n",
+                            grafo.getParadas().get(pair[0]).getShortName(),
+                            grafo.getParadas().get(pair[1]).getShortName());
+                    for (ParetoJourney journey : journeys) {
+                        System.out.println("  " + journey);
+                    }
+                    break;
+                }
+            }
+
+            // FASE 3: Benchmark contra Dijkstra
+            System.out.println("\nFASE 3: Comparando contra Dijkstra...\n");
+
+            long dijkstraStart = System.nanoTime();
+            List<CalculatedRoute> dijkstraRoutes = new ArrayList<>();
+            for (int[] pair : pairs) {
+                dijkstraRoutes.add(routeService.calculateFastestRoute(pair[0], pair[1]));
+            }
+            long dijkstraNanos = System.nanoTime() - dijkstraStart;
+
+            long raptorStart = System.nanoTime();
+            List<List<ParetoJourney>> raptorJourneys = new ArrayList<>();
+            for (int[] pair : pairs) {
+                raptorJourneys.add(routeService.calculateParetoJourneys(pair[0], pair[1], MAX_TRANSFERS));
+            }
+            long raptorNanos = System.nanoTime() - raptorStart;
+
+            int mismatches = 0;
+            int totalJourneys = 0;
+            for (int i = 0; i < pairs.size(); i++) {
+                CalculatedRoute expected = dijkstraRoutes.get(i);
+                List<ParetoJourney> journeys = raptorJourneys.get(i);
+                totalJourneys += journeys.size();
+
+                boolean found = !journeys.isEmpty();
+                double fastest = found ? journeys.get(journeys.size() - 1).getTravelTime() : 0;
+                if (expected.isFound() != found
+                        || (found && Math.abs(expected.getTotalTime() - fastest) > 0.01)) {
+                    mismatches++;
+                }
+            }
+
+            System.out.printf("Consultas: %,d\n", pairs.size());
+            System.out.printf("Dijkstra:  %.3f ms/consulta\n", dijkstraNanos / 1e6 / pairs.size());
+            System.out.printf("RAPTOR:    %.3f ms/consulta (%.1fx)\n", raptorNanos / 1e6 / pairs.size(),
+                    dijkstraNanos / (double) Math.max(raptorNanos, 1));
+            System.out.printf("Viajes de Pareto por consulta: %.2f\n", totalJourneys / (double) pairs.size());
+            System.out.printf("Diferencias con el tiempo de Dijkstra: %d\n", mismatches);
+
+            System.out.println("\n═══════════════════════════════════════════════════════════");
+            System.out.println("  PRUEBA COMPLETADA");
+            System.out.println("═══════════════════════════════════════════════════════════");
+
+        } catch (IOException e) {
+            System.err.println("✗ Error: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static GrafoMIO loadGrafo() throws IOException {
+        GrafoMIO grafo = new GrafoMIO();
+
+        String basePath = "src/main/resources/data/";
+        grafo.cargarParadas(basePath + "stops-241.csv");
+        grafo.cargarRutas(basePath + "lines-241.csv");
+        grafo.cargarLineStopsYConstruirArcos(basePath + "linestops-241.csv");
+
+        System.out.println("✓ Grafo cargado exitosamente");
+        return grafo;
+    }
+
+    private static List<int[]> randomPairs(GrafoMIO grafo, int count) {
+        List<Integer> stopIds = new ArrayList<>(grafo.getParadas().keySet());
+        Random random = new Random(42);
+        List<int[]> pairs = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            int origin = stopIds.get(random.nextInt(stopIds.size()));
+            int destination = stopIds.get(random.nextInt(stopIds.size()));
+            pairs.add(new int[]{origin, destination});
+        }
+
+        return pairs;
+    }
+}
@@ -1,18 +1,39 @@
 package co.edu.icesi.mio.app;
 
 import co.edu.icesi.mio.concurrency.ConcurrencyManager;
+import co.edu.icesi.mio.infra.csv.GrafoMIO;
+import co.edu.icesi.mio.infra.csv.Parada;
+import co.edu.icesi.mio.model.analytics.Geofence;
+import co.edu.icesi.mio.model.analytics.Zone;
 import co.edu.icesi.mio.model.events.BusEventStore;
 import co.edu.icesi.mio.model.notifications.Notification;
 import co.edu.icesi.mio.model.notifications.NotificationListener;
 import co.edu.icesi.mio.model.realtime.BusPosition;
+import co.edu.icesi.mio.model.realtime.NearbyBus;
+import co.edu.icesi.mio.model.realtime.StopArrival;
+import co.edu.icesi.mio.model.realtime.Trajectory;
+import co.edu.icesi.mio.repository.ArcVelocityRepository;
 import co.edu.icesi.mio.service.notifications.NotificationService;
+import co.edu.icesi.mio.service.realtime.ArrivalBoardService;
+import co.edu.icesi.mio.service.realtime.ETACalculatorService;
+import co.edu.icesi.mio.service.realtime.ETAUpdateScheduler;
+import co.edu.icesi.mio.service.realtime.LineSequenceIndex;
+import co.edu.icesi.mio.service.realtime.PositionSnapper;
+import co.edu.icesi.mio.service.realtime.TrajectoryStore;
+import co.edu.icesi.mio.service.streaming.DwellDetector;
+import co.edu.icesi.mio.service.streaming.GeofenceEngine;
+import co.edu.icesi.mio.service.streaming.HeadwayMonitor;
 import co.edu.icesi.mio.service.streaming.RealtimeStreamingService;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.TreeMap;
 
 /**
  * Aplicación de prueba para el sistema de streaming en tiempo real.
@@ -71,6 +92,35 @@ public class TestRealtimeStreaming {
                 notificationService
         );
 
+        // Ubicar cada posición sobre la geometría de su línea y mantener tableros de llegadas
+        ArrivalBoardService arrivalBoards = null;
+        ETAUpdateScheduler etaScheduler = null;
+        HeadwayMonitor headwayMonitor = null;
+        GeofenceEngine geofenceEngine = null;
+        DwellDetector dwellDetector = null;
+        TrajectoryStore trajectories = new TrajectoryStore();
+        streamingService.addPositionListener(trajectories::onPosition);
+        try {
+            GrafoMIO grafo = loadGrafo();
+            ETACalculatorService etaService = new ETACalculatorService(grafo, new ArcVelocityRepository());
+            PositionSnapper snapper = new PositionSnapper(etaService.getLineIndex());
+            streamingService.setPositionSnapper(snapper);
+            arrivalBoards = new ArrivalBoardService(etaService);
+            etaScheduler = new ETAUpdateScheduler(etaService.getLineIndex(), arrivalBoards::onPosition);
+            watchSampleStops(etaService.getLineIndex(), etaScheduler);
+            streamingService.addPositionListener(etaScheduler::submit);
+            etaScheduler.start();
+            headwayMonitor = new HeadwayMonitor(etaService.getLineIndex());
+            streamingService.setHeadwayMonitor(headwayMonitor);
+            geofenceEngine = new GeofenceEngine(buildGeofences(grafo));
+            streamingService.setGeofenceEngine(geofenceEngine);
+            dwellDetector = new DwellDetector(etaService.getLineIndex());
+            streamingService.setDwellDetector(dwellDetector);
+            System.out.println("✓ " + snapper + "\n");
+        } catch (IOException e) {
+            System.err.println("⚠️  No se pudo cargar el grafo; las posiciones no tendrán paradas: " + e.getMessage());
+        }
+
         // Configuración del streaming
         System.out.println("═══════════════════════════════════════════════════════════════");
         System.out.println("  CONFIGURACIÓN DEL STREAMING");
@@ -149,17 +199,83 @@ public class TestRealtimeStreaming {
         // 7. Detener
         streamingService.stop();
         concurrencyManager.shutdown();
+        if (etaScheduler != null) {
+            etaScheduler.stop();
+        }
 
         long endTime = System.currentTimeMillis();
         double totalSeconds = (endTime - startTime) / 1000.0;
 
         // 8. Mostrar resultados finales
         showFinalResults(streamingService, eventStore, listener, totalSeconds);
+        if (arrivalBoards != null) {
+            showArrivalBoards(streamingService, arrivalBoards);
+        }
+        if (etaScheduler != null) {
+            System.out.println("═══ RECÁLCULO DE ETAS ═══");
+            System.out.println(etaScheduler.getStats());
+            System.out.println();
+        }
+        if (headwayMonitor != null) {
+            System.out.println("═══ INTERVALOS ENTRE BUSES ═══");
+            System.out.println(headwayMonitor.getStats());
+            System.out.println();
+        }
+        if (geofenceEngine != null) {
+            System.out.println("═══ GEOCERCAS ═══");
+            System.out.println(geofenceEngine.getStats());
+            System.out.println();
+        }
+        if (dwellDetector != null) {
+            System.out.println("═══ PERMANENCIA EN PARADAS ═══");
+            System.out.println(dwellDetector.getStats());
+            System.out.println();
+        }
+        showNearbyBuses(streamingService);
+        showTrajectories(streamingService, trajectories);
 
         System.out.println();
         System.out.println("✓ Prueba completada");
     }
 
+    private static GrafoMIO loadGrafo() throws IOException {
+        GrafoMIO grafo = new GrafoMIO();
+
+        String basePath = "src/main/resources/data/";
+        grafo.cargarParadas(basePath + "stops-241.csv");
+        grafo.cargarRutas(basePath + "lines-241.csv");
+        grafo.cargarLineStopsYConstruirArcos(basePath + "linestops-241.csv");
+        return grafo;
+    }
+
+    /**
+     * Geocercas de prueba: un rectángulo alrededor de las paradas de cada terminal
+     * (p. ej. "Terminal Menga C2" -> "Terminal Menga") y los sectores de Cali
+     */
+    private static List<Geofence> buildGeofences(GrafoMIO grafo) {
+        Map<String, double[]> terminals = new TreeMap<>(); // nombre -> {sur, norte, oeste, este}
+        for (Parada parada : grafo.getParadas().values()) {
+            String name = parada.getLongName().trim();
+            if (!name.startsWith("Terminal ") || name.lastIndexOf(' ') <= "Terminal".length()) continue;
+
+            String terminal = name.substring(0, name.lastIndexOf(' '));
+            double[] box = terminals.computeIfAbsent(terminal, t -> new double[]{90, -90, 180, -180});
+            box[0] = Math.min(box[0], parada.getDecimalLatitude());
+            box[1] = Math.max(box[1], parada.getDecimalLatitude());
+            box[2] = Math.min(box[2], parada.getDecimalLongitude());
+            box[3] = Math.max(box[3], parada.getDecimalLongitude());
+        }
+
+        List<Geofence> fences = new ArrayList<>();
+        double margin = 0.001; // ~110 m alrededor de las paradas
+        terminals.forEach((name, box) -> fences.add(Geofence.rectangle("T" + (fences.size() + 1), name,
+                Geofence.Kind.TERMINAL, box[0] - margin, box[1] + margin, box[2] - margin, box[3] + margin)));
+        for (Zone zone : Zone.createCaliZones()) {
+            fences.add(Geofence.fromZone(zone, Geofence.Kind.SECTOR));
+        }
+        return fences;
+    }
+
     /**
      * Monitorea el progreso del streaming cada 5 segundos
      */
@@ -240,6 +356,94 @@ public class TestRealtimeStreaming {
                     System.out.printf("Bus %d: Ruta %d, Línea %d, Pos=(%.4f, %.4f), Vel=%.1f km/h\n",
                             pos.getBusId(), pos.getRouteId(), pos.getLineId(),
                             pos.getLatitude(), pos.getLongitude(), pos.getVelocity());
+                    if (pos.hasStops()) {
+                        System.out.printf("        Parada %d -> %d (%.0f%% del tramo)\n",
+                                pos.getCurrentStopId(), pos.getNextStopId(), pos.getProgress() * 100);
+                    }
+                });
+        System.out.println();
+    }
+
+    /**
+     * Simula consolas con tableros abiertos: observa la parada central de algunas líneas
+     */
+    private static void watchSampleStops(LineSequenceIndex lineIndex, ETAUpdateScheduler etaScheduler) {
+        lineIndex.getSequences().stream()
+                .filter(sequence -> sequence.size() > 0)
+                .limit(5)
+                .forEach(sequence -> etaScheduler.watchStop(sequence.getStop(sequence.size() / 2).getStopId()));
+    }
+
+    /**
+     * Muestra el tablero de llegadas de la próxima parada de algunos buses rastreados
+     */
+    private static void showArrivalBoards(RealtimeStreamingService streamingService,
+                                          ArrivalBoardService arrivalBoards) {
+        System.out.println("═══ TABLEROS DE LLEGADAS ═══");
+        System.out.println(arrivalBoards.getStats());
+        System.out.printf("Hora del tablero: %s\n", arrivalBoards.getClock());
+        System.out.println();
+
+        streamingService.getAllPositions().values().stream()
+                .filter(BusPosition::hasStops)
+                .map(BusPosition::getNextStopId)
+                .distinct()
+                .limit(3)
+                .forEach(stopId -> {
+                    System.out.printf("Parada %d - próximas llegadas:\n", stopId);
+                    List<StopArrival> arrivals = arrivalBoards.getNextArrivals(stopId, 5);
+                    if (arrivals.isEmpty()) {
+                        System.out.println("  (Sin llegadas estimadas)");
+                    }
+                    for (StopArrival arrival : arrivals) {
+                        System.out.printf("  Bus %d (línea %d) en %.1f min\n",
+                                arrival.getBusId(), arrival.getLineId(), arrival.getMinutesAway());
+                    }
+                });
+        System.out.println();
+    }
+
+    /**
+     * Consulta el índice espacial alrededor de la posición de un bus rastreado (incidente simulado)
+     */
+    private static void showNearbyBuses(RealtimeStreamingService streamingService) {
+        BusPosition reference = streamingService.getAllPositions().values().stream()
+                .findFirst()
+                .orElse(null);
+        if (reference == null) {
+            return;
+        }
+
+        System.out.println("═══ BUSES CERCANOS ═══");
+        System.out.printf("Punto de consulta: bus %d en (%.5f, %.5f)\n",
+                reference.getBusId(), reference.getLatitude(), reference.getLongitude());
+
+        System.out.println("5 buses más cercanos:");
+        for (NearbyBus nearby : streamingService.findNearestBuses(reference.getLatitude(), reference.getLongitude(), 5)) {
+            System.out.printf("  Bus %d (línea %d) a %.0f m\n",
+                    nearby.getBusId(), nearby.getLineId(), nearby.getDistanceMeters());
+        }
+
+        List<NearbyBus> within = streamingService.findBusesWithin(reference.getLatitude(), reference.getLongitude(), 500);
+        System.out.printf("Buses a menos de 500 m: %d\n", within.size());
+        System.out.println(streamingService.getSpatialIndex().getStats());
+        System.out.println();
+    }
+
+    /**
+     * Muestra la trayectoria de los últimos 30 minutos de algunos buses, completa y simplificada
+     */
+    private static void showTrajectories(RealtimeStreamingService streamingService, TrajectoryStore trajectories) {
+        System.out.println("═══ TRAYECTORIAS RECIENTES (30 min) ═══");
+        System.out.println(trajectories.getStats());
+        streamingService.getAllPositions().keySet().stream()
+                .limit(3)
+                .forEach(busId -> {
+                    Trajectory trajectory = trajectories.getTrajectory(busId, Duration.ofMinutes(30));
+                    Trajectory simplified = trajectory.simplify(15);
+                    System.out.println("  " + trajectory);
+                    System.out.printf("    Simplificada (15 m): %d de %d posiciones\n",
+                            simplified.size(), trajectory.size());
                 });
         System.out.println();
     }
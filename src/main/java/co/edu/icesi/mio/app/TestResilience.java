@@ -0,0 +1,108 @@
+package co.edu.icesi.mio.app;
+
+import co.edu.icesi.mio.infra.csv.Arco;
+import co.edu.icesi.mio.infra.csv.GrafoMIO;
+import co.edu.icesi.mio.model.analytics.NetworkCentrality;
+import co.edu.icesi.mio.model.analytics.ResilienceReport;
+import co.edu.icesi.mio.repository.ArcVelocityRepository;
+import co.edu.icesi.mio.service.routing.BetweennessCentrality;
+import co.edu.icesi.mio.service.routing.ResilienceAnalyzer;
+import co.edu.icesi.mio.service.routing.RouteCalculatorService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Programa de prueba para la simulación de resiliencia.
+ * Toma como candidatos las paradas y arcos de mayor betweenness, simula el cierre de cada
+ * uno sobre una matriz origen-destino muestreada y muestra los de mayor impacto.
+ */
+public class TestResilience {
+
+    private static final int NUM_CANDIDATES = 40;
+    private static final int SAMPLE_SIZE = 300;
+    private static final long SEED = 42L;
+    private static final int TOP_K = 10;
+    private static final String OUTPUT_DIR = "target";
+
+    public static void main(String[] args) {
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.println("  TEST DE RESILIENCIA DE LA RED - SITM-MIO");
+        System.out.println("═══════════════════════════════════════════════════════════\n");
+
+        try {
+            // FASE 1: Cargar grafo
+            System.out.println("FASE 1: Cargando grafo del MIO...\n");
+            GrafoMIO grafo = loadGrafo();
+            RouteCalculatorService routeService = new RouteCalculatorService(grafo, new ArcVelocityRepository());
+            int numThreads = Runtime.getRuntime().availableProcessors();
+
+            // FASE 2: Candidatos según centralidad
+            System.out.println("\nFASE 2: Seleccionando candidatos por betweenness...\n");
+            NetworkCentrality centrality = new BetweennessCentrality(routeService).calculate(numThreads);
+
+            List<Integer> stopCandidates = new ArrayList<>();
+            int[] stopRanking = centrality.rankStops();
+            for (int r = 0; r < Math.min(NUM_CANDIDATES, stopRanking.length); r++) {
+                stopCandidates.add(centrality.getStop(stopRanking[r]).getStopId());
+            }
+
+            List<Arco> arcCandidates = new ArrayList<>();
+            int[] arcRanking = centrality.rankArcs();
+            for (int r = 0; r < arcRanking.length && arcCandidates.size() < NUM_CANDIDATES; r++) {
+                Arco arco = centrality.getArc(arcRanking[r]);
+                if (!arco.isWalking()) {
+                    arcCandidates.add(arco);
+                }
+            }
+
+            // FASE 3: Simular cierres
+            System.out.println("FASE 3: Simulando cierres...\n");
+            ResilienceAnalyzer analyzer = new ResilienceAnalyzer(routeService);
+
+            ResilienceReport stopReport = analyzer.analyzeStops(stopCandidates, SAMPLE_SIZE, SEED, numThreads);
+            System.out.println(stopReport);
+            System.out.println(stopReport.toRankingString(TOP_K));
+
+            ResilienceReport arcReport = analyzer.analyzeArcs(arcCandidates, SAMPLE_SIZE, SEED, numThreads);
+            System.out.println(arcReport);
+            System.out.println(arcReport.toRankingString(TOP_K));
+
+            // FASE 4: Exportar
+            Path outputDir = Paths.get(OUTPUT_DIR);
+            Files.createDirectories(outputDir);
+            stopReport.writeCsv(outputDir.resolve("resilience-stops.csv"));
+            arcReport.writeCsv(outputDir.resolve("resilience-arcs.csv"));
+            System.out.println("✓ Rankings exportados en " + outputDir);
+
+            System.out.println("\n═══════════════════════════════════════════════════════════");
+            System.out.println("  PRUEBA COMPLETADA");
+            System.out.println("═══════════════════════════════════════════════════════════");
+
+        } catch (IOException e) {
+            System.err.println("✗ Error de I/O: " + e.getMessage());
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            System.err.println("✗ Error de concurrencia: " + e.getMessage());
+            e.printStackTrace();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static GrafoMIO loadGrafo() throws IOException {
+        GrafoMIO grafo = new GrafoMIO();
+
+        String basePath = "src/main/resources/data/";
+        grafo.cargarParadas(basePath + "stops-241.csv");
+        grafo.cargarRutas(basePath + "lines-241.csv");
+        grafo.cargarLineStopsYConstruirArcos(basePath + "linestops-241.csv");
+        grafo.generarArcosPeatonales(GrafoMIO.RADIO_PEATONAL_DEFECTO);
+
+        System.out.println("✓ Grafo cargado exitosamente");
+        return grafo;
+    }
+}
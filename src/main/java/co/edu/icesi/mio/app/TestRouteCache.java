@@ -0,0 +1,223 @@
+package co.edu.icesi.mio.app;
+
+import co.edu.icesi.mio.model.routing.CalculatedRoute;
+import co.edu.icesi.mio.service.routing.RouteCache;
+import co.edu.icesi.mio.service.routing.RouteStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Programa de prueba para la caché de rutas.
+ * Verifica con cálculos simulados que la caché respeta su capacidad aun con fallos e
+ * invalidaciones concurrentes, que los pedidos simultáneos de la misma ruta se resuelven
+ * con un solo cálculo, que un cambio de época descarta las rutas guardadas y que un cálculo
+ * que termina con un Error no deja a nadie esperando.
+ */
+public class TestRouteCache {
+
+    private static final int CAPACITY = 100;
+    private static final int THREADS = 8;
+    private static final int REQUESTS_PER_THREAD = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.println("  TEST DE CACHÉ DE RUTAS - SITM-MIO");
+        System.out.println("═══════════════════════════════════════════════════════════\n");
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            // FASE 1: Capacidad con fallos, expulsiones e invalidaciones concurrentes
+            System.out.println("FASE 1: Capacidad bajo carga concurrente...\n");
+            testBound(executor);
+
+            // FASE 2: Pedidos simultáneos de la misma ruta
+            System.out.println("\nFASE 2: Pedidos simultáneos de la misma ruta...\n");
+            testCoalescing(executor);
+
+            // FASE 3: Invalidación por cambio de época
+            System.out.println("\nFASE 3: Invalidación por cambio de velocidades...\n");
+            testEpochInvalidation();
+
+            // FASE 4: Cálculo que termina con un Error
+            System.out.println("\nFASE 4: Cálculo que termina con un Error...\n");
+            testErrorDoesNotBlock(executor);
+
+            System.out.println("\n═══════════════════════════════════════════════════════════");
+            System.out.println("  PRUEBA COMPLETADA");
+            System.out.println("═══════════════════════════════════════════════════════════");
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void testBound(ExecutorService executor) throws Exception {
+        AtomicLong epoch = new AtomicLong(0);
+        RouteCache cache = new RouteCache(CAPACITY, epoch::get);
+        AtomicInteger maxSeen = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            tasks.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                    int origin = random.nextInt(50);
+                    int destination = random.nextInt(50);
+                    try {
+                        // Uno de cada cuatro cálculos falla y no debe quedar en la caché
+                        cache.get(origin, destination, RouteStrategy.FASTEST,
+                                () -> (origin + destination) % 4 == 0 ? fail() : emptyRoute());
+                    } catch (IllegalStateException e) {
+                        failures.incrementAndGet();
+                    }
+                    maxSeen.accumulateAndGet(cache.size(), Math::max);
+
+                    if (thread == 0 && i % 1000 == 0) {
+                        cache.invalidateAll();
+                    }
+                    if (thread == 1 && i % 1500 == 0) {
+                        epoch.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get();
+        }
+
+        RouteCache.Stats stats = cache.getStats();
+        System.out.println(stats);
+        System.out.printf("Cálculos fallidos: %,d\n", failures.get());
+        System.out.printf("Tamaño máximo observado: %,d (capacidad %,d)\n", maxSeen.get(), CAPACITY);
+        report(maxSeen.get() <= CAPACITY && cache.size() <= CAPACITY,
+                "La caché nunca superó su capacidad",
+                "La caché superó su capacidad");
+    }
+
+    private static void testCoalescing(ExecutorService executor) throws Exception {
+        RouteCache cache = new RouteCache(CAPACITY, () -> 0);
+        AtomicInteger calculations = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        Supplier<CalculatedRoute> slowCalculation = () -> {
+            calculations.incrementAndGet();
+            sleep(200);
+            return emptyRoute();
+        };
+
+        List<Future<CalculatedRoute>> requests = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            requests.add(executor.submit(() -> {
+                start.await();
+                return cache.get(1, 2, RouteStrategy.FASTEST, slowCalculation);
+            }));
+        }
+        start.countDown();
+        CalculatedRoute first = requests.get(0).get();
+        boolean sameRoute = true;
+        for (Future<CalculatedRoute> request : requests) {
+            sameRoute &= request.get() == first;
+        }
+
+        System.out.println(cache.getStats());
+        System.out.printf("Pedidos: %d | Cálculos: %d\n", THREADS, calculations.get());
+        report(calculations.get() == 1 && sameRoute,
+                "Los pedidos simultáneos compartieron un solo cálculo",
+                "Se calculó la misma ruta más de una vez");
+    }
+
+    private static void testEpochInvalidation() {
+        AtomicLong epoch = new AtomicLong(0);
+        RouteCache cache = new RouteCache(CAPACITY, epoch::get);
+        AtomicInteger calculations = new AtomicInteger();
+        Supplier<CalculatedRoute> calculation = () -> {
+            calculations.incrementAndGet();
+            return emptyRoute();
+        };
+
+        cache.get(1, 2, RouteStrategy.FASTEST, calculation);
+        cache.get(1, 2, RouteStrategy.FASTEST, calculation);
+        int beforeChange = calculations.get();
+
+        epoch.incrementAndGet();
+        cache.get(1, 2, RouteStrategy.FASTEST, calculation);
+        cache.get(1, 2, RouteStrategy.FASTEST, calculation);
+
+        RouteCache.Stats stats = cache.getStats();
+        System.out.println(stats);
+        System.out.printf("Cálculos antes del cambio: %d | después: %d\n",
+                beforeChange, calculations.get() - beforeChange);
+        report(beforeChange == 1 && calculations.get() == 2 && stats.getInvalidations() == 1,
+                "El cambio de época descartó la ruta guardada una sola vez",
+                "La caché no se invalidó correctamente al cambiar la época");
+    }
+
+    private static void testErrorDoesNotBlock(ExecutorService executor) throws Exception {
+        RouteCache cache = new RouteCache(CAPACITY, () -> 0);
+        CountDownLatch start = new CountDownLatch(1);
+
+        Supplier<CalculatedRoute> failingCalculation = () -> {
+            sleep(200);
+            throw new StackOverflowError("Error simulado");
+        };
+
+        List<Future<CalculatedRoute>> requests = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            requests.add(executor.submit(() -> {
+                start.await();
+                return cache.get(1, 2, RouteStrategy.FASTEST, failingCalculation);
+            }));
+        }
+        start.countDown();
+
+        int failed = 0;
+        for (Future<CalculatedRoute> request : requests) {
+            try {
+                request.get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                failed++;
+            }
+        }
+        CalculatedRoute retried = cache.get(1, 2, RouteStrategy.FASTEST, TestRouteCache::emptyRoute);
+
+        System.out.println(cache.getStats());
+        System.out.printf("Pedidos fallidos: %d de %d\n", failed, THREADS);
+        report(failed == THREADS && retried != null && cache.size() == 1,
+                "Ningún pedido quedó esperando y el siguiente volvió a calcular la ruta",
+                "El Error dejó pedidos bloqueados o quedó guardado en la caché");
+    }
+
+    private static CalculatedRoute emptyRoute() {
+        return new CalculatedRoute(null, null, new ArrayList<>());
+    }
+
+    private static CalculatedRoute fail() {
+        throw new IllegalStateException("Cálculo simulado fallido");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void report(boolean ok, String success, String failure) {
+        System.out.println(ok ? "✓ " + success : "✗ " + failure);
+    }
+}
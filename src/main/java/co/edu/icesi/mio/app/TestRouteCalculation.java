@@ -120,11 +120,13 @@ public class TestRouteCalculation {
         grafo.cargarParadas(basePath + "stops-241.csv");
         grafo.cargarRutas(basePath + "lines-241.csv");
         grafo.cargarLineStopsYConstruirArcos(basePath + "linestops-241.csv");
+        grafo.generarArcosPeatonales(GrafoMIO.RADIO_PEATONAL_DEFECTO);
 
         System.out.println("✓ Grafo cargado exitosamente");
         System.out.printf("  Paradas: %d\n", grafo.getParadas().size());
         System.out.printf("  Rutas: %d\n", grafo.getRutas().size());
         System.out.printf("  Arcos: %d\n", grafo.getArcos().size());
+        System.out.printf("  Tramos a pie: %d\n", grafo.getArcosPeatonales().size());
 
         return grafo;
     }
@@ -0,0 +1,126 @@
+package co.edu.icesi.mio.app;
+
+import co.edu.icesi.mio.infra.csv.GrafoMIO;
+import co.edu.icesi.mio.model.routing.CalculatedRoute;
+import co.edu.icesi.mio.repository.ArcVelocityRepository;
+import co.edu.icesi.mio.service.analytics.ArcVelocityCalculator;
+import co.edu.icesi.mio.service.routing.RouteCalculatorService;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Programa de prueba para las rutas dependientes de la hora de salida.
+ * Calcula las velocidades y los perfiles por franja horaria a partir del histórico y compara
+ * la misma ruta saliendo en hora pico y fuera de ella: con los perfiles cargados, los tiempos
+ * de llegada deben diferir.
+ */
+public class TestTimeDependentRoutes {
+
+    private static final String DATA_PATH = "src/main/resources/data/datagrams4streaming.csv";
+    private static final int MAX_DATAGRAMS = 1_000_000;
+    private static final int NUM_PAIRS = 200;
+    private static final LocalTime PEAK_DEPARTURE = LocalTime.of(7, 30);
+    private static final LocalTime OFF_PEAK_DEPARTURE = LocalTime.of(12, 0);
+
+    public static void main(String[] args) {
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.println("  TEST DE RUTAS SEGÚN HORA DE SALIDA - SITM-MIO");
+        System.out.println("═══════════════════════════════════════════════════════════\n");
+
+        String dataPath = args.length > 0 ? args[0] : DATA_PATH;
+
+        try {
+            // FASE 1: Cargar grafo
+            System.out.println("FASE 1: Cargando grafo del MIO...\n");
+            GrafoMIO grafo = loadGrafo();
+
+            // FASE 2: Velocidades y perfiles por franja horaria
+            System.out.println("\nFASE 2: Calculando velocidades y perfiles horarios...\n");
+            ArcVelocityCalculator calculator = new ArcVelocityCalculator();
+            calculator.processDatagramFile(dataPath, MAX_DATAGRAMS);
+            ArcVelocityRepository velocityRepo = new ArcVelocityRepository();
+            velocityRepo.saveAll(calculator.calculateStatistics());
+            velocityRepo.saveProfiles(calculator.calculateQuarterHourProfiles());
+            RouteCalculatorService routeService = new RouteCalculatorService(grafo, velocityRepo);
+
+            // FASE 3: Comparar horas de salida
+            System.out.printf("\nFASE 3: Comparando salidas a las %s y a las %s...\n\n",
+                    PEAK_DEPARTURE, OFF_PEAK_DEPARTURE);
+            LocalDate day = LocalDate.of(2019, 5, 27);
+            LocalDateTime peak = LocalDateTime.of(day, PEAK_DEPARTURE);
+            LocalDateTime offPeak = LocalDateTime.of(day, OFF_PEAK_DEPARTURE);
+
+            int found = 0;
+            int different = 0;
+            double peakTotal = 0;
+            double offPeakTotal = 0;
+            for (int[] pair : randomPairs(grafo, NUM_PAIRS)) {
+                CalculatedRoute peakRoute = routeService.calculateFastestRoute(pair[0], pair[1], peak);
+                CalculatedRoute offPeakRoute = routeService.calculateFastestRoute(pair[0], pair[1], offPeak);
+                if (!peakRoute.isFound() || !offPeakRoute.isFound()) continue;
+
+                found++;
+                peakTotal += peakRoute.getTotalTime();
+                offPeakTotal += offPeakRoute.getTotalTime();
+                if (Math.abs(peakRoute.getTotalTime() - offPeakRoute.getTotalTime()) > 0.01) {
+                    different++;
+                    if (different <= 5) {
+                        System.out.printf("  %d -> %d: llega en %.1f min saliendo a las %s, en %.1f min a las %s\n",
+                                pair[0], pair[1], peakRoute.getTotalTime(), PEAK_DEPARTURE,
+                                offPeakRoute.getTotalTime(), OFF_PEAK_DEPARTURE);
+                    }
+                }
+            }
+
+            System.out.printf("\nRutas encontradas: %d de %d\n", found, NUM_PAIRS);
+            if (found > 0) {
+                System.out.printf("Tiempo promedio: %.1f min (%s) | %.1f min (%s)\n",
+                        peakTotal / found, PEAK_DEPARTURE, offPeakTotal / found, OFF_PEAK_DEPARTURE);
+            }
+            System.out.printf("Rutas con distinto tiempo de llegada: %d\n", different);
+            System.out.println(different > 0
+                    ? "✓ La hora de salida cambia los tiempos de llegada"
+                    : "✗ Los tiempos no dependen de la hora de salida");
+
+            System.out.println("\n═══════════════════════════════════════════════════════════");
+            System.out.println("  PRUEBA COMPLETADA");
+            System.out.println("═══════════════════════════════════════════════════════════");
+
+        } catch (IOException e) {
+            System.err.println("✗ Error de I/O: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static GrafoMIO loadGrafo() throws IOException {
+        GrafoMIO grafo = new GrafoMIO();
+
+        String basePath = "src/main/resources/data/";
+        grafo.cargarParadas(basePath + "stops-241.csv");
+        grafo.cargarRutas(basePath + "lines-241.csv");
+        grafo.cargarLineStopsYConstruirArcos(basePath + "linestops-241.csv");
+
+        System.out.println("✓ Grafo cargado exitosamente");
+        return grafo;
+    }
+
+    private static List<int[]> randomPairs(GrafoMIO grafo, int count) {
+        List<Integer> stopIds = new ArrayList<>(grafo.getParadas().keySet());
+        Random random = new Random(42);
+        List<int[]> pairs = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            int origin = stopIds.get(random.nextInt(stopIds.size()));
+            int destination = stopIds.get(random.nextInt(stopIds.size()));
+            pairs.add(new int[]{origin, destination});
+        }
+
+        return pairs;
+    }
+}
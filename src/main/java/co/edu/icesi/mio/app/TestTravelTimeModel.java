@@ -0,0 +1,111 @@
+package co.edu.icesi.mio.app;
+
+import co.edu.icesi.mio.infra.csv.GrafoMIO;
+import co.edu.icesi.mio.model.analytics.TravelTimeModel;
+import co.edu.icesi.mio.model.realtime.BusETA;
+import co.edu.icesi.mio.model.realtime.BusPosition;
+import co.edu.icesi.mio.model.realtime.LineSequence;
+import co.edu.icesi.mio.repository.ArcVelocityRepository;
+import co.edu.icesi.mio.service.analytics.TravelTimeModelTrainer;
+import co.edu.icesi.mio.service.realtime.ETACalculatorService;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Programa de prueba para el modelo de tiempos de viaje.
+ * Entrena el modelo con el histórico de datagramas (validando con el último día), lo guarda,
+ * lo vuelve a cargar y compara las ETAs con y sin modelo para un bus de ejemplo.
+ */
+public class TestTravelTimeModel {
+
+    private static final String DATA_PATH = "src/main/resources/data/datagrams4streaming.csv";
+    private static final Path MODEL_FILE = Paths.get("target", "travel-time-model.bin");
+    private static final int ETA_STOPS = 8;
+
+    public static void main(String[] args) {
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.println("  TEST DEL MODELO DE TIEMPOS DE VIAJE - SITM-MIO");
+        System.out.println("═══════════════════════════════════════════════════════════\n");
+
+        String dataPath = args.length > 0 ? args[0] : DATA_PATH;
+
+        try {
+            // FASE 1: Cargar grafo
+            System.out.println("FASE 1: Cargando grafo del MIO...\n");
+            GrafoMIO grafo = loadGrafo();
+            ETACalculatorService etaService = new ETACalculatorService(grafo, new ArcVelocityRepository());
+
+            // FASE 2: Entrenar con el histórico
+            System.out.println("\nFASE 2: Entrenando modelo...\n");
+            TravelTimeModelTrainer trainer = new TravelTimeModelTrainer(etaService.getLineIndex());
+            trainer.train(dataPath, Runtime.getRuntime().availableProcessors());
+
+            // FASE 3: Guardar y recargar
+            System.out.println("FASE 3: Guardando modelo...\n");
+            trainer.getModel().save(MODEL_FILE);
+            TravelTimeModel model = TravelTimeModel.load(MODEL_FILE);
+            System.out.printf("✓ Modelo guardado en %s (%,d bytes)\n", MODEL_FILE, MODEL_FILE.toFile().length());
+            System.out.println("  " + model);
+
+            // FASE 4: ETAs con y sin modelo
+            System.out.println("\nFASE 4: Comparando ETAs...\n");
+            LineSequence sequence = etaService.getLineIndex().getSequences().stream()
+                    .filter(s -> s.size() > ETA_STOPS + 1)
+                    .findFirst()
+                    .orElseThrow();
+            BusPosition position = new BusPosition.Builder()
+                    .busId(1)
+                    .lineId(sequence.getLineId())
+                    .latitude(sequence.getStop(0).getDecimalLatitude())
+                    .longitude(sequence.getStop(0).getDecimalLongitude())
+                    .velocity(20)
+                    .currentStopId(sequence.getStop(0).getStopId())
+                    .nextStopId(sequence.getStop(1).getStopId())
+                    .timestamp(LocalDateTime.now())
+                    .build();
+
+            List<BusETA> withoutModel = etaService.calculateMultipleETAs(position, ETA_STOPS);
+            etaService.setTravelTimeModel(model);
+            List<BusETA> withModel = etaService.calculateMultipleETAs(position, ETA_STOPS);
+
+            System.out.printf("Línea %d, orientación %d:\n", sequence.getLineId(), sequence.getOrientation());
+            System.out.println("  Parada      Sin modelo   Con modelo");
+            for (int i = 0; i < withModel.size(); i++) {
+                System.out.printf("  %-10d  %7.1f min  %7.1f min\n",
+                        withModel.get(i).getTargetStop().getStopId(),
+                        withoutModel.get(i).getEstimatedTimeMinutes(),
+                        withModel.get(i).getEstimatedTimeMinutes());
+            }
+            System.out.println();
+            System.out.println(etaService.getServiceInfo());
+
+            System.out.println("\n═══════════════════════════════════════════════════════════");
+            System.out.println("  PRUEBA COMPLETADA");
+            System.out.println("═══════════════════════════════════════════════════════════");
+
+        } catch (IOException e) {
+            System.err.println("✗ Error de I/O: " + e.getMessage());
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            System.err.println("✗ Error de concurrencia: " + e.getMessage());
+            e.printStackTrace();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static GrafoMIO loadGrafo() throws IOException {
+        GrafoMIO grafo = new GrafoMIO();
+
+        String basePath = "src/main/resources/data/";
+        grafo.cargarParadas(basePath + "stops-241.csv");
+        grafo.cargarRutas(basePath + "lines-241.csv");
+        grafo.cargarLineStopsYConstruirArcos(basePath + "linestops-241.csv");
+
+        System.out.println("✓ Grafo cargado exitosamente");
+        return grafo;
+    }
+}
@@ -0,0 +1,75 @@
+package co.edu.icesi.mio.concurrency.route;
+
+import co.edu.icesi.mio.concurrency.Worker;
+import co.edu.icesi.mio.model.routing.RouteMatrixRow;
+import co.edu.icesi.mio.service.routing.OneToManySearch;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.function.Consumer;
+
+/**
+ * Worker que calcula filas de una matriz de rutas.
+ * Cada trabajo es una parada origen; con una sola búsqueda obtiene los valores
+ * hacia todos los destinos de la matriz.
+ */
+public class RouteMatrixWorker implements Worker<Integer, List<RouteMatrixRow>> {
+
+    private final int workerId;
+    private final OneToManySearch search;
+    private final Consumer<RouteMatrixRow> rowConsumer;   // null para acumular las filas
+    private final Queue<Integer> workQueue;
+    private List<RouteMatrixRow> results;
+    private volatile boolean done;
+
+    /**
+     * @param rowConsumer Recibe cada fila apenas se calcula (debe ser thread-safe);
+     *                    si es null, las filas se devuelven en getResult()
+     */
+    public RouteMatrixWorker(int workerId, OneToManySearch search, Consumer<RouteMatrixRow> rowConsumer) {
+        this.workerId = workerId;
+        this.search = search;
+        this.rowConsumer = rowConsumer;
+        this.workQueue = new LinkedList<>();
+        this.results = new ArrayList<>();
+        this.done = false;
+    }
+
+    @Override
+    public void assignWork(Integer originStopId) {
+        workQueue.offer(originStopId);
+    }
+
+    @Override
+    public void run() {
+        results = new ArrayList<>();
+
+        while (!workQueue.isEmpty()) {
+            RouteMatrixRow row = search.computeRow(workQueue.poll());
+            if (rowConsumer != null) {
+                rowConsumer.accept(row);
+            } else {
+                results.add(row);
+            }
+        }
+
+        done = true;
+    }
+
+    @Override
+    public List<RouteMatrixRow> getResult() {
+        return results;
+    }
+
+    @Override
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public int getWorkerId() {
+        return workerId;
+    }
+}
@@ -0,0 +1,111 @@
+package co.edu.icesi.mio.concurrency.route;
+
+import co.edu.icesi.mio.concurrency.Worker;
+import co.edu.icesi.mio.infra.csv.Arco;
+import co.edu.icesi.mio.model.routing.CalculatedRoute;
+import co.edu.icesi.mio.model.routing.RoutePair;
+import co.edu.icesi.mio.model.routing.RouteSegment;
+import co.edu.icesi.mio.model.routing.RouteSummary;
+import co.edu.icesi.mio.service.routing.MassiveRouteCalculator;
+import co.edu.icesi.mio.service.routing.RouteCalculatorService;
+import co.edu.icesi.mio.service.routing.RouteResultSink;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Worker que calcula rutas y entrega cada resultado compacto a un sink apenas termina,
+ * sin guardar las rutas. Como resultado devuelve solo las estadísticas acumuladas.
+ */
+public class StreamingRouteWorker implements Worker<RoutePair, MassiveRouteCalculator.StatisticsAccumulator> {
+
+    private final int workerId;
+    private final RouteCalculatorService routeService;
+    private final RouteResultSink sink;
+    private final Map<Arco, Integer> arcIndex;     // null si no se guardan los caminos
+    private final Queue<RoutePair> workQueue;
+    private MassiveRouteCalculator.StatisticsAccumulator statistics;
+    private volatile boolean done;
+
+    /**
+     * @param arcIndex Índice de cada arco en grafo.getArcosRuteables(); null para no incluir caminos
+     */
+    public StreamingRouteWorker(int workerId, RouteCalculatorService routeService,
+                                RouteResultSink sink, Map<Arco, Integer> arcIndex) {
+        this.workerId = workerId;
+        this.routeService = routeService;
+        this.sink = sink;
+        this.arcIndex = arcIndex;
+        this.workQueue = new LinkedList<>();
+        this.statistics = new MassiveRouteCalculator.StatisticsAccumulator();
+        this.done = false;
+    }
+
+    @Override
+    public void assignWork(RoutePair work) {
+        workQueue.offer(work);
+    }
+
+    @Override
+    public void run() {
+        statistics = new MassiveRouteCalculator.StatisticsAccumulator();
+
+        while (!workQueue.isEmpty()) {
+            sink.accept(calculateRoute(workQueue.poll()));
+        }
+
+        done = true;
+    }
+
+    /**
+     * Calcula la ruta más rápida de un par y la resume
+     */
+    private RouteSummary calculateRoute(RoutePair pair) {
+        int originId = pair.getOriginStopId();
+        int destinationId = pair.getDestinationStopId();
+
+        CalculatedRoute route;
+        try {
+            route = routeService.calculateFastestRoute(originId, destinationId);
+        } catch (Exception e) {
+            route = null;
+        }
+
+        if (route == null || !route.isFound()) {
+            statistics.addFailure();
+            return RouteSummary.notFound(originId, destinationId);
+        }
+
+        statistics.add(route.getTotalTime(), route.getTotalDistance(),
+                route.getTransferCount(), route.getSegmentCount());
+
+        return new RouteSummary(originId, destinationId, (float) route.getTotalTime(),
+                (float) route.getTotalDistance(), route.getTransferCount(), route.getSegmentCount(),
+                arcIndex != null ? arcPath(route.getSegments()) : null);
+    }
+
+    private int[] arcPath(List<RouteSegment> segments) {
+        int[] path = new int[segments.size()];
+        for (int i = 0; i < path.length; i++) {
+            path[i] = arcIndex.get(segments.get(i).getArco());
+        }
+        return path;
+    }
+
+    @Override
+    public MassiveRouteCalculator.StatisticsAccumulator getResult() {
+        return statistics;
+    }
+
+    @Override
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public int getWorkerId() {
+        return workerId;
+    }
+}
@@ -9,7 +9,7 @@ import co.edu.icesi.mio.service.analytics.BusStatusService;
 import co.edu.icesi.mio.service.ingestion.BusEventHandler;
 import co.edu.icesi.mio.service.notifications.NotificationService;
 import co.edu.icesi.mio.service.realtime.ETACalculatorService;
-import co.edu.icesi.mio.service.routing.RouteCalculatorService;
+import co.edu.icesi.mio.service.routing.AsyncRouteService;
 
 import java.util.Scanner;
 
@@ -25,7 +25,7 @@ public class ConsoleRouter {
     private final AdminChannelClient adminClient;
     private final BusEventHandler eventHandler;
     private final GrafoMIO grafoMIO;
-    private final RouteCalculatorService routeCalculator;
+    private final AsyncRouteService routeCalculator;
     private final ETACalculatorService etaCalculator;
 
     public ConsoleRouter(BusEventSource busEventSource,
@@ -35,7 +35,7 @@ public class ConsoleRouter {
                          AdminChannelClient adminClient,
                          BusEventHandler eventHandler,
                          GrafoMIO grafoMIO,
-                         RouteCalculatorService routeCalculator,
+                         AsyncRouteService routeCalculator,
                          ETACalculatorService etaCalculator) {
         this.busEventSource = busEventSource;
         this.busEventStore = busEventStore;
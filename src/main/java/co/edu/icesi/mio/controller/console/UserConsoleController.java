@@ -6,25 +6,32 @@ import co.edu.icesi.mio.infra.ice.AdminChannelClient;
 import co.edu.icesi.mio.model.realtime.BusETA;
 import co.edu.icesi.mio.service.analytics.BusStatusService;
 import co.edu.icesi.mio.service.realtime.ETACalculatorService;
-import co.edu.icesi.mio.service.routing.RouteCalculatorService;
+import co.edu.icesi.mio.service.routing.AsyncRouteService;
+import co.edu.icesi.mio.service.routing.RouteStrategy;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 public class UserConsoleController {
 
+    // Tiempo máximo de espera por una ruta antes de descartar la consulta
+    private static final Duration ROUTE_DEADLINE = Duration.ofSeconds(10);
+
     private final Scanner scanner;
     private final BusStatusService busStatusService;
     private final AdminChannelClient adminClient;
     private final GrafoMIO grafoMIO;
-    private final RouteCalculatorService routeCalculator;
+    private final AsyncRouteService routeCalculator;
     private final ETACalculatorService etaCalculator;
 
     public UserConsoleController(Scanner scanner, BusStatusService busStatusService,
                                  AdminChannelClient adminClient, GrafoMIO grafoMIO,
-                                 RouteCalculatorService routeCalculator,
+                                 AsyncRouteService routeCalculator,
                                  ETACalculatorService etaCalculator) {
         this.scanner = scanner;
         this.busStatusService = busStatusService;
@@ -117,13 +124,28 @@ public class UserConsoleController {
         Parada paradaDestino = seleccionarParada(paradasDestino, "DESTINO");
         if (paradaDestino == null) return;
 
-        // Paso 3: Calcular ruta usando Dijkstra
-        System.out.println("\nCalculando ruta más rápida usando algoritmo de Dijkstra...\n");
+        // Paso 3: Calcular ruta (caché de rutas + jerarquía de contracción)
+        System.out.println("\nCalculando ruta más rápida usando jerarquía de contracción...\n");
 
-        co.edu.icesi.mio.model.routing.CalculatedRoute resultado = routeCalculator.calculateFastestRoute(
-                paradaOrigen.getStopId(),
-                paradaDestino.getStopId()
-        );
+        co.edu.icesi.mio.model.routing.CalculatedRoute resultado;
+        try {
+            resultado = routeCalculator.calculateRouteAsync(
+                    paradaOrigen.getStopId(),
+                    paradaDestino.getStopId(),
+                    RouteStrategy.FASTEST,
+                    ROUTE_DEADLINE
+            ).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                System.out.println("La consulta tardó demasiado y fue descartada; intente de nuevo");
+            } else {
+                System.out.println("No se pudo calcular la ruta: " + e.getCause().getMessage());
+            }
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
 
         if (resultado == null || !resultado.isFound()) {
             System.out.println("No se encontró una ruta entre estas paradas");
@@ -1,6 +1,10 @@
 package co.edu.icesi.mio.infra.csv;
 
 public class Arco {
+    // Línea ficticia de los arcos peatonales entre paradas cercanas
+    public static final int LINEA_PEATONAL = -1;
+    public static final String NOMBRE_PEATONAL = "A PIE";
+
     private Parada paradaOrigen;
     private Parada paradaDestino;
     private int lineId;
@@ -47,6 +51,10 @@ public class Arco {
         return this.sequenceDestino;
     }
 
+    public boolean isWalking() {
+        return this.lineId == LINEA_PEATONAL;
+    }
+
     public String getOrientationName() {
         return this.orientation == 0 ? "IDA" : "VUELTA";
     }
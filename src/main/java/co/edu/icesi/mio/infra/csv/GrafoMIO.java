@@ -6,15 +6,21 @@ import java.io.IOException;
 import java.util.*;
 
 public class GrafoMIO {
+    // Radio por defecto para caminar entre paradas cercanas (p. ej. a lado y lado de la vía)
+    public static final double RADIO_PEATONAL_DEFECTO = 150.0;
+
     private Map<Integer, Parada> paradas;
     private Map<Integer, Ruta> rutas;
     private List<Arco> arcos;
+    private List<Arco> arcosPeatonales;
+    private List<Arco> arcosRuteables;      // arcos + arcosPeatonales (se arma bajo demanda)
     private Map<Integer, List<ParadaEnRuta>> paradaPorRuta; // lineId -> lista de paradas ordenadas
 
     public GrafoMIO() {
         this.paradas = new HashMap<>();
         this.rutas = new HashMap<>();
         this.arcos = new ArrayList<>();
+        this.arcosPeatonales = new ArrayList<>();
         this.paradaPorRuta = new HashMap<>();
     }
 
@@ -154,6 +160,7 @@ public class GrafoMIO {
 
         // Construir arcos
         construirArcos();
+        arcosRuteables = null;
         System.out.println("Total arcos construidos: " + arcos.size());
     }
 
@@ -293,6 +300,155 @@ public class GrafoMIO {
         return arcos;
     }
 
+    /**
+     * Genera arcos peatonales (en ambos sentidos) entre todas las paradas a menos de
+     * radioMetros. Usa una grilla uniforme de celdas del tamaño del radio: cada parada solo
+     * se compara con las de su celda y las 8 vecinas.
+     *
+     * Se invoca una sola vez, antes de construir los servicios de rutas: las estructuras
+     * derivadas del grafo identifican los arcos por su posición en getArcosRuteables(), y
+     * regenerar los arcos peatonales las dejaría apuntando a arcos que ya no existen.
+     *
+     * @param radioMetros Distancia máxima a pie entre paradas (0 para no generar arcos)
+     * @return Número de arcos peatonales generados
+     * @throws IllegalStateException si ya hay arcos peatonales o ya se publicaron los arcos ruteables
+     */
+    public int generarArcosPeatonales(double radioMetros) {
+        if (!arcosPeatonales.isEmpty()) {
+            throw new IllegalStateException("Los arcos peatonales ya fueron generados ("
+                    + arcosPeatonales.size() + " arcos)");
+        }
+        if (arcosRuteables != null) {
+            throw new IllegalStateException("Los arcos ruteables ya están en uso: "
+                    + "los arcos peatonales deben generarse antes de calcular rutas");
+        }
+
+        long inicio = System.nanoTime();
+
+        List<Parada> lista = new ArrayList<>(paradas.values());
+        lista.sort(Comparator.comparingInt(Parada::getStopId));
+        if (radioMetros <= 0 || lista.isEmpty()) {
+            return 0;
+        }
+
+        double latMin = Double.MAX_VALUE, lonMin = Double.MAX_VALUE;
+        double latMax = -Double.MAX_VALUE, lonMax = -Double.MAX_VALUE;
+        for (Parada parada : lista) {
+            latMin = Math.min(latMin, parada.getDecimalLatitude());
+            latMax = Math.max(latMax, parada.getDecimalLatitude());
+            lonMin = Math.min(lonMin, parada.getDecimalLongitude());
+            lonMax = Math.max(lonMax, parada.getDecimalLongitude());
+        }
+
+        // Celdas de radioMetros de lado (1 grado de latitud ≈ 111 km)
+        double celdaLat = radioMetros / 111_000.0;
+        double celdaLon = radioMetros / (111_000.0 * Math.cos(Math.toRadians((latMin + latMax) / 2)));
+        int filas = (int) ((latMax - latMin) / celdaLat) + 1;
+        int columnas = (int) ((lonMax - lonMin) / celdaLon) + 1;
+
+        // Paradas agrupadas por celda: las de la celda c están en orden[inicioCelda[c]..inicioCelda[c + 1])
+        int n = lista.size();
+        int[] celda = new int[n];
+        int[] inicioCelda = new int[filas * columnas + 1];
+        for (int i = 0; i < n; i++) {
+            Parada parada = lista.get(i);
+            int fila = (int) ((parada.getDecimalLatitude() - latMin) / celdaLat);
+            int columna = (int) ((parada.getDecimalLongitude() - lonMin) / celdaLon);
+            celda[i] = fila * columnas + columna;
+            inicioCelda[celda[i] + 1]++;
+        }
+        for (int c = 0; c < filas * columnas; c++) {
+            inicioCelda[c + 1] += inicioCelda[c];
+        }
+        int[] orden = new int[n];
+        int[] siguiente = Arrays.copyOf(inicioCelda, filas * columnas);
+        for (int i = 0; i < n; i++) {
+            orden[siguiente[celda[i]]++] = i;
+        }
+
+        for (int i = 0; i < n; i++) {
+            Parada origen = lista.get(i);
+            int fila = celda[i] / columnas;
+            int columna = celda[i] % columnas;
+
+            for (int f = Math.max(0, fila - 1); f <= Math.min(filas - 1, fila + 1); f++) {
+                for (int c = Math.max(0, columna - 1); c <= Math.min(columnas - 1, columna + 1); c++) {
+                    int vecinaCelda = f * columnas + c;
+                    for (int k = inicioCelda[vecinaCelda]; k < inicioCelda[vecinaCelda + 1]; k++) {
+                        int j = orden[k];
+                        if (j == i) continue;
+
+                        Parada destino = lista.get(j);
+                        if (distanciaMetros(origen, destino) <= radioMetros) {
+                            arcosPeatonales.add(new Arco(origen, destino, Arco.LINEA_PEATONAL,
+                                    Arco.NOMBRE_PEATONAL, 0, 0, 0));
+                        }
+                    }
+                }
+            }
+        }
+
+        System.out.printf("Arcos peatonales generados: %d (radio %.0f m, %.1f ms)\n",
+                arcosPeatonales.size(), radioMetros, (System.nanoTime() - inicio) / 1e6);
+        return arcosPeatonales.size();
+    }
+
+    public List<Arco> getArcosPeatonales() {
+        return Collections.unmodifiableList(arcosPeatonales);
+    }
+
+    /**
+     * Arcos usados para calcular rutas: los arcos de las líneas seguidos de los peatonales.
+     * Las estructuras de rutas identifican cada arco por su posición en esta lista.
+     */
+    public List<Arco> getArcosRuteables() {
+        List<Arco> resultado = arcosRuteables;
+        if (resultado == null) {
+            List<Arco> todos = new ArrayList<>(arcos.size() + arcosPeatonales.size());
+            todos.addAll(arcos);
+            todos.addAll(arcosPeatonales);
+            resultado = Collections.unmodifiableList(todos);
+            arcosRuteables = resultado;
+        }
+        return resultado;
+    }
+
+    /**
+     * Distancia aproximada en metros entre dos paradas (Haversine)
+     */
+    private static double distanciaMetros(Parada p1, Parada p2) {
+        double dLat = Math.toRadians(p2.getDecimalLatitude() - p1.getDecimalLatitude());
+        double dLon = Math.toRadians(p2.getDecimalLongitude() - p1.getDecimalLongitude());
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(p1.getDecimalLatitude())) * Math.cos(Math.toRadians(p2.getDecimalLatitude()))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 6371000 * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    /**
+     * IDs de las líneas que tienen paradas asignadas
+     */
+    public Set<Integer> getLineasConParadas() {
+        return Collections.unmodifiableSet(paradaPorRuta.keySet());
+    }
+
+    /**
+     * Paradas de una línea en orden de recorrido para una orientación (0 = IDA, 1 = VUELTA)
+     */
+    public List<Integer> getParadasOrdenadas(int lineId, int orientation) {
+        List<Integer> resultado = new ArrayList<>();
+        List<ParadaEnRuta> paradasEnRuta = paradaPorRuta.get(lineId);
+        if (paradasEnRuta == null) {
+            return resultado;
+        }
+        for (ParadaEnRuta per : paradasEnRuta) { // Ya ordenadas por orientación y secuencia
+            if (per.orientation == orientation) {
+                resultado.add(per.stopId);
+            }
+        }
+        return resultado;
+    }
+
     public List<Arco> getArcosPorRuta(String lineShortName) {
         List<Arco> resultado = new ArrayList<>();
         if (lineShortName == null) {
@@ -0,0 +1,141 @@
+package co.edu.icesi.mio.model.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Geocerca: polígono geográfico (terminal, patio, zona restringida...) cuyas entradas y salidas
+ * de buses se vigilan en el stream. Los rectángulos como {@link Zone} son polígonos de 4 vértices.
+ */
+public class Geofence {
+
+    /**
+     * Tipo de geocerca; define la prioridad de sus eventos
+     */
+    public enum Kind {
+        TERMINAL("Terminal"),
+        PATIO("Patio"),
+        ZONA_RESTRINGIDA("Zona restringida"),
+        SECTOR("Sector");
+
+        private final String description;
+
+        Kind(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private final String fenceId;
+    private final String name;
+    private final Kind kind;
+    private final double[] latitudes;   // Vértices en orden (sin repetir el primero al final)
+    private final double[] longitudes;
+    private final double minLatitude;
+    private final double maxLatitude;
+    private final double minLongitude;
+    private final double maxLongitude;
+
+    public Geofence(String fenceId, String name, Kind kind, double[] latitudes, double[] longitudes) {
+        if (latitudes.length != longitudes.length || latitudes.length < 3) {
+            throw new IllegalArgumentException("Una geocerca necesita al menos 3 vértices: " + fenceId);
+        }
+        this.fenceId = fenceId;
+        this.name = name;
+        this.kind = kind;
+        this.latitudes = latitudes.clone();
+        this.longitudes = longitudes.clone();
+        this.minLatitude = Arrays.stream(latitudes).min().getAsDouble();
+        this.maxLatitude = Arrays.stream(latitudes).max().getAsDouble();
+        this.minLongitude = Arrays.stream(longitudes).min().getAsDouble();
+        this.maxLongitude = Arrays.stream(longitudes).max().getAsDouble();
+    }
+
+    /**
+     * Crea una geocerca rectangular
+     */
+    public static Geofence rectangle(String fenceId, String name, Kind kind,
+                                     double southLat, double northLat, double westLon, double eastLon) {
+        return new Geofence(fenceId, name, kind,
+                new double[]{southLat, southLat, northLat, northLat},
+                new double[]{westLon, eastLon, eastLon, westLon});
+    }
+
+    /**
+     * Crea una geocerca con los límites de una zona de análisis
+     */
+    public static Geofence fromZone(Zone zone, Kind kind) {
+        return rectangle(zone.getZoneId(), zone.getZoneName(), kind,
+                zone.getMinLatitude(), zone.getMaxLatitude(), zone.getMinLongitude(), zone.getMaxLongitude());
+    }
+
+    /**
+     * Verifica si un punto GPS está dentro del polígono (regla par-impar)
+     */
+    public boolean contains(double latitude, double longitude) {
+        if (latitude < minLatitude || latitude > maxLatitude
+                || longitude < minLongitude || longitude > maxLongitude) {
+            return false;
+        }
+        boolean inside = false;
+        for (int i = 0, j = latitudes.length - 1; i < latitudes.length; j = i++) {
+            if ((latitudes[i] > latitude) != (latitudes[j] > latitude)) {
+                double crossLon = longitudes[j] + (latitude - latitudes[j])
+                        * (longitudes[i] - longitudes[j]) / (latitudes[i] - latitudes[j]);
+                if (longitude < crossLon) {
+                    inside = !inside;
+                }
+            }
+        }
+        return inside;
+    }
+
+    public String getFenceId() {
+        return fenceId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getVertexCount() {
+        return latitudes.length;
+    }
+
+    public double getLatitude(int vertex) {
+        return latitudes[vertex];
+    }
+
+    public double getLongitude(int vertex) {
+        return longitudes[vertex];
+    }
+
+    public double getMinLatitude() {
+        return minLatitude;
+    }
+
+    public double getMaxLatitude() {
+        return maxLatitude;
+    }
+
+    public double getMinLongitude() {
+        return minLongitude;
+    }
+
+    public double getMaxLongitude() {
+        return maxLongitude;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Geofence[%s - %s (%s), %d vértices, Lat: %.4f-%.4f, Lon: %.4f-%.4f]",
+                fenceId, name, kind.getDescription(), latitudes.length,
+                minLatitude, maxLatitude, minLongitude, maxLongitude);
+    }
+}
@@ -0,0 +1,173 @@
+package co.edu.icesi.mio.model.analytics;
+
+import co.edu.icesi.mio.infra.csv.Arco;
+import co.edu.icesi.mio.infra.csv.Parada;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Centralidad de intermediación (betweenness) de las paradas y arcos de la red.
+ *
+ * El valor de una parada es la suma, sobre todos los pares (origen, destino) distintos de
+ * ella, de la fracción de caminos más rápidos entre el par que pasan por la parada. El de un
+ * arco es lo mismo contando los caminos que usan el arco. Valores altos indican los puntos
+ * cuya falla afecta a más viajes.
+ */
+public class NetworkCentrality {
+
+    private final List<Parada> stops;
+    private final double[] stopBetweenness;
+    private final List<Arco> arcs;
+    private final double[] arcBetweenness;
+    private final int sources;             // Orígenes procesados
+
+    public NetworkCentrality(List<Parada> stops, double[] stopBetweenness,
+                             List<Arco> arcs, double[] arcBetweenness, int sources) {
+        this.stops = stops;
+        this.stopBetweenness = stopBetweenness;
+        this.arcs = arcs;
+        this.arcBetweenness = arcBetweenness;
+        this.sources = sources;
+    }
+
+    public int getStopCount() {
+        return stops.size();
+    }
+
+    public Parada getStop(int i) {
+        return stops.get(i);
+    }
+
+    public double getStopBetweenness(int i) {
+        return stopBetweenness[i];
+    }
+
+    /**
+     * Betweenness normalizada a [0, 1] dividiendo por el número de pares (s, t) con s, t != v
+     */
+    public double getNormalizedStopBetweenness(int i) {
+        long n = stops.size();
+        return n > 2 ? stopBetweenness[i] / ((n - 1) * (n - 2)) : 0;
+    }
+
+    public int getArcCount() {
+        return arcs.size();
+    }
+
+    public Arco getArc(int i) {
+        return arcs.get(i);
+    }
+
+    public double getArcBetweenness(int i) {
+        return arcBetweenness[i];
+    }
+
+    public int getSources() {
+        return sources;
+    }
+
+    /**
+     * Índices de las paradas de mayor a menor betweenness
+     */
+    public int[] rankStops() {
+        return rank(stopBetweenness);
+    }
+
+    /**
+     * Índices de los arcos de mayor a menor betweenness
+     */
+    public int[] rankArcs() {
+        return rank(arcBetweenness);
+    }
+
+    private static int[] rank(double[] values) {
+        return IntStream.range(0, values.length).boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> values[i]).reversed())
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Exporta el ranking de paradas a CSV: puesto, id, nombre, betweenness y normalizada
+     */
+    public void writeStopRanking(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("rank,stop_id,short_name,long_name,betweenness,normalized");
+            writer.newLine();
+            int position = 1;
+            for (int i : rankStops()) {
+                Parada parada = stops.get(i);
+                writer.write(String.format(java.util.Locale.ROOT, "%d,%d,%s,%s,%.3f,%.6f", position++,
+                        parada.getStopId(), csv(parada.getShortName()), csv(parada.getLongName()),
+                        stopBetweenness[i], getNormalizedStopBetweenness(i)));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Exporta el ranking de arcos a CSV: puesto, línea, orientación, paradas y betweenness
+     */
+    public void writeArcRanking(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("rank,line,orientation,origin_stop_id,destination_stop_id,origin_name,destination_name,betweenness");
+            writer.newLine();
+            int position = 1;
+            for (int i : rankArcs()) {
+                Arco arco = arcs.get(i);
+                writer.write(String.format(java.util.Locale.ROOT, "%d,%s,%s,%d,%d,%s,%s,%.3f", position++,
+                        csv(arco.getLineShortName()), arco.getOrientationName(),
+                        arco.getParadaOrigen().getStopId(), arco.getParadaDestino().getStopId(),
+                        csv(arco.getParadaOrigen().getShortName()), csv(arco.getParadaDestino().getShortName()),
+                        arcBetweenness[i]));
+                writer.newLine();
+            }
+        }
+    }
+
+    private static String csv(String value) {
+        if (value == null) return "";
+        return value.contains(",") || value.contains("\"")
+                ? "\"" + value.replace("\"", "\"\"") + "\""
+                : value;
+    }
+
+    /**
+     * Texto con las k paradas y los k arcos más centrales
+     */
+    public String toRankingString(int k) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Paradas más centrales:\n");
+        int[] stopRanking = rankStops();
+        for (int r = 0; r < Math.min(k, stopRanking.length); r++) {
+            int i = stopRanking[r];
+            sb.append(String.format("  %2d. %-40s %12.0f (%.4f)\n", r + 1,
+                    stops.get(i).getLongName(), stopBetweenness[i], getNormalizedStopBetweenness(i)));
+        }
+
+        sb.append("Arcos más centrales:\n");
+        int[] arcRanking = rankArcs();
+        for (int r = 0; r < Math.min(k, arcRanking.length); r++) {
+            Arco arco = arcs.get(arcRanking[r]);
+            sb.append(String.format("  %2d. %-8s %-20s -> %-20s %12.0f\n", r + 1, arco.getLineShortName(),
+                    arco.getParadaOrigen().getShortName(), arco.getParadaDestino().getShortName(),
+                    arcBetweenness[arcRanking[r]]));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        double max = Arrays.stream(stopBetweenness).max().orElse(0);
+        return String.format("NetworkCentrality[paradas=%d, arcos=%d, orígenes=%d, máx. parada=%.0f]",
+                stops.size(), arcs.size(), sources, max);
+    }
+}
@@ -0,0 +1,89 @@
+package co.edu.icesi.mio.model.analytics;
+
+import co.edu.icesi.mio.infra.csv.Arco;
+import co.edu.icesi.mio.infra.csv.Parada;
+
+/**
+ * Impacto de cerrar un elemento de la red (un arco o una parada) sobre una matriz
+ * origen-destino muestreada: cuánto tiempo de viaje se agrega y cuántos pares quedan sin ruta.
+ */
+public class ResilienceImpact {
+
+    public enum ElementType { ARC, STOP }
+
+    private final ElementType type;
+    private final Arco arco;               // Solo si type == ARC
+    private final Parada parada;           // Solo si type == STOP
+    private final int affectedPairs;       // Pares cuyo tiempo aumentó
+    private final int disconnectedPairs;   // Pares que quedaron sin ruta
+    private final double addedMinutes;     // Tiempo agregado sumando los pares que siguen conectados
+    private final double impactScore;      // Minutos agregados más la penalización por desconexión
+
+    private ResilienceImpact(ElementType type, Arco arco, Parada parada, int affectedPairs,
+                             int disconnectedPairs, double addedMinutes, double impactScore) {
+        this.type = type;
+        this.arco = arco;
+        this.parada = parada;
+        this.affectedPairs = affectedPairs;
+        this.disconnectedPairs = disconnectedPairs;
+        this.addedMinutes = addedMinutes;
+        this.impactScore = impactScore;
+    }
+
+    public static ResilienceImpact forArc(Arco arco, int affectedPairs, int disconnectedPairs,
+                                          double addedMinutes, double impactScore) {
+        return new ResilienceImpact(ElementType.ARC, arco, null, affectedPairs, disconnectedPairs,
+                addedMinutes, impactScore);
+    }
+
+    public static ResilienceImpact forStop(Parada parada, int affectedPairs, int disconnectedPairs,
+                                           double addedMinutes, double impactScore) {
+        return new ResilienceImpact(ElementType.STOP, null, parada, affectedPairs, disconnectedPairs,
+                addedMinutes, impactScore);
+    }
+
+    public ElementType getType() {
+        return type;
+    }
+
+    public Arco getArco() {
+        return arco;
+    }
+
+    public Parada getParada() {
+        return parada;
+    }
+
+    public int getAffectedPairs() {
+        return affectedPairs;
+    }
+
+    public int getDisconnectedPairs() {
+        return disconnectedPairs;
+    }
+
+    public double getAddedMinutes() {
+        return addedMinutes;
+    }
+
+    public double getImpactScore() {
+        return impactScore;
+    }
+
+    /**
+     * Nombre legible del elemento cerrado
+     */
+    public String getDescription() {
+        if (type == ElementType.STOP) {
+            return "Parada " + parada.getLongName();
+        }
+        return String.format("Arco %s %s -> %s", arco.getLineShortName(),
+                arco.getParadaOrigen().getShortName(), arco.getParadaDestino().getShortName());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ResilienceImpact[%s, +%.1f min, afectados=%d, desconectados=%d]",
+                getDescription(), addedMinutes, affectedPairs, disconnectedPairs);
+    }
+}
@@ -0,0 +1,100 @@
+package co.edu.icesi.mio.model.analytics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Resultado de una simulación de resiliencia: el tiempo base de la matriz origen-destino
+ * muestreada y el impacto de cerrar cada elemento candidato, ordenado de mayor a menor.
+ */
+public class ResilienceReport {
+
+    private final int sampledStops;
+    private final int connectedPairs;      // Pares con ruta en la red completa
+    private final double baselineMinutes;  // Suma de tiempos de los pares conectados
+    private final List<ResilienceImpact> impacts;
+
+    public ResilienceReport(int sampledStops, int connectedPairs, double baselineMinutes,
+                            List<ResilienceImpact> impacts) {
+        this.sampledStops = sampledStops;
+        this.connectedPairs = connectedPairs;
+        this.baselineMinutes = baselineMinutes;
+
+        List<ResilienceImpact> ranked = new ArrayList<>(impacts);
+        ranked.sort(Comparator.comparingDouble(ResilienceImpact::getImpactScore).reversed());
+        this.impacts = Collections.unmodifiableList(ranked);
+    }
+
+    public int getSampledStops() {
+        return sampledStops;
+    }
+
+    public int getConnectedPairs() {
+        return connectedPairs;
+    }
+
+    public double getBaselineMinutes() {
+        return baselineMinutes;
+    }
+
+    /**
+     * Impactos ordenados de mayor a menor
+     */
+    public List<ResilienceImpact> getImpacts() {
+        return impacts;
+    }
+
+    /**
+     * Aumento porcentual del tiempo total de la matriz al cerrar el elemento
+     */
+    public double getIncreasePercent(ResilienceImpact impact) {
+        return baselineMinutes > 0 ? impact.getAddedMinutes() * 100.0 / baselineMinutes : 0;
+    }
+
+    /**
+     * Exporta el ranking a CSV
+     */
+    public void writeCsv(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("rank,type,element,affected_pairs,disconnected_pairs,added_minutes,increase_percent,impact_score");
+            writer.newLine();
+            int position = 1;
+            for (ResilienceImpact impact : impacts) {
+                writer.write(String.format(Locale.ROOT, "%d,%s,\"%s\",%d,%d,%.2f,%.4f,%.2f", position++,
+                        impact.getType(), impact.getDescription().replace("\"", "\"\""),
+                        impact.getAffectedPairs(), impact.getDisconnectedPairs(), impact.getAddedMinutes(),
+                        getIncreasePercent(impact), impact.getImpactScore()));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Texto con los k elementos de mayor impacto
+     */
+    public String toRankingString(int k) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Elementos críticos:\n");
+        for (int r = 0; r < Math.min(k, impacts.size()); r++) {
+            ResilienceImpact impact = impacts.get(r);
+            sb.append(String.format("  %2d. %-50s +%9.1f min (%5.2f%%) | afectados: %5d | sin ruta: %4d\n",
+                    r + 1, impact.getDescription(), impact.getAddedMinutes(), getIncreasePercent(impact),
+                    impact.getAffectedPairs(), impact.getDisconnectedPairs()));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ResilienceReport[paradas muestreadas=%d, pares=%d, tiempo base=%.0f min, candidatos=%d]",
+                sampledStops, connectedPairs, baselineMinutes, impacts.size());
+    }
+}
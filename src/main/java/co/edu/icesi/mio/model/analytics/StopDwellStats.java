@@ -0,0 +1,60 @@
+package co.edu.icesi.mio.model.analytics;
+
+/**
+ * Tiempos de permanencia de los buses en una parada, calculados sobre el histórico.
+ */
+public class StopDwellStats {
+
+    private final int stopId;
+    private final String stopName;
+    private final int dwellCount;
+    private final double meanSeconds;
+    private final double medianSeconds;
+    private final double p90Seconds;
+    private final double maxSeconds;
+
+    public StopDwellStats(int stopId, String stopName, int dwellCount, double meanSeconds,
+                          double medianSeconds, double p90Seconds, double maxSeconds) {
+        this.stopId = stopId;
+        this.stopName = stopName;
+        this.dwellCount = dwellCount;
+        this.meanSeconds = meanSeconds;
+        this.medianSeconds = medianSeconds;
+        this.p90Seconds = p90Seconds;
+        this.maxSeconds = maxSeconds;
+    }
+
+    public int getStopId() {
+        return stopId;
+    }
+
+    public String getStopName() {
+        return stopName;
+    }
+
+    public int getDwellCount() {
+        return dwellCount;
+    }
+
+    public double getMeanSeconds() {
+        return meanSeconds;
+    }
+
+    public double getMedianSeconds() {
+        return medianSeconds;
+    }
+
+    public double getP90Seconds() {
+        return p90Seconds;
+    }
+
+    public double getMaxSeconds() {
+        return maxSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StopDwellStats[parada=%d %s, permanencias=%d, media=%.0f s, mediana=%.0f s, p90=%.0f s, máx=%.0f s]",
+                stopId, stopName, dwellCount, meanSeconds, medianSeconds, p90Seconds, maxSeconds);
+    }
+}
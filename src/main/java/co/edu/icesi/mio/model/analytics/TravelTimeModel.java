@@ -0,0 +1,374 @@
+package co.edu.icesi.mio.model.analytics;
+
+import co.edu.icesi.mio.model.realtime.LineSequence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Modelo de tiempos de viaje parada a parada aprendido del histórico de datagramas.
+ *
+ * Para cada tramo de cada recorrido (línea, orientación) guarda la mediana y el percentil 90
+ * del tiempo de viaje por hora de la semana, más los valores del tramo sin distinguir hora
+ * para las horas con pocas muestras. Los tramos se numeran recorrido por recorrido, así que
+ * una predicción es una búsqueda del recorrido y luego un acceso a arreglo por parada.
+ * Los tiempos se guardan en segundos como char (0 = sin datos).
+ */
+public class TravelTimeModel {
+
+    public static final int HOURS_PER_WEEK = 168;
+
+    private static final int FILE_MAGIC = 0x4D494F54;     // "MIOT"
+    private static final int FILE_VERSION = 1;
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+    private static final int EPOCH_HOUR_OF_WEEK = 72;     // 1970-01-01 fue jueves
+
+    private final long[] sequenceKeys;        // (lineId << 1) | orientation, ordenadas
+    private final int[] firstArc;             // Primer tramo de cada recorrido
+    private final int[] firstStop;            // Primera parada de cada recorrido en stopIds
+    private final int[] stopIds;              // Paradas de los recorridos, para validar
+    private final char[] hourlyMedian;        // [tramo * 168 + hora]
+    private final char[] hourlyP90;
+    private final char[] arcMedian;           // Todas las horas
+    private final char[] arcP90;
+    private final int[] arcSamples;
+
+    private TravelTimeModel(long[] sequenceKeys, int[] firstArc, int[] firstStop, int[] stopIds,
+                            char[] hourlyMedian, char[] hourlyP90, char[] arcMedian, char[] arcP90,
+                            int[] arcSamples) {
+        this.sequenceKeys = sequenceKeys;
+        this.firstArc = firstArc;
+        this.firstStop = firstStop;
+        this.stopIds = stopIds;
+        this.hourlyMedian = hourlyMedian;
+        this.hourlyP90 = hourlyP90;
+        this.arcMedian = arcMedian;
+        this.arcP90 = arcP90;
+        this.arcSamples = arcSamples;
+    }
+
+    /**
+     * Hora de la semana (0 = lunes 00:00 a 00:59, 167 = domingo 23:00 a 23:59)
+     */
+    public static int hourOfWeek(LocalDateTime time) {
+        return (time.getDayOfWeek().getValue() - 1) * 24 + time.getHour();
+    }
+
+    /**
+     * Hora de la semana de un instante en milisegundos de época (hora local tomada como UTC)
+     */
+    public static int hourOfWeek(long epochMillis) {
+        return Math.floorMod(Math.floorDiv(epochMillis, MILLIS_PER_HOUR) + EPOCH_HOUR_OF_WEEK, HOURS_PER_WEEK);
+    }
+
+    /**
+     * Índice del primer tramo del recorrido; el tramo que sale de la posición p es ese índice + p
+     *
+     * @return Índice, o -1 si el modelo no tiene el recorrido
+     */
+    public int firstArcIndex(LineSequence sequence) {
+        int slot = slotOf(sequence);
+        return slot >= 0 ? firstArc[slot] : -1;
+    }
+
+    /**
+     * Indica si el modelo tiene el recorrido con exactamente las mismas paradas
+     */
+    public boolean matches(LineSequence sequence) {
+        int slot = slotOf(sequence);
+        if (slot < 0 || firstStop[slot + 1] - firstStop[slot] != sequence.size()) {
+            return false;
+        }
+        for (int i = 0; i < sequence.size(); i++) {
+            if (stopIds[firstStop[slot] + i] != sequence.getStop(i).getStopId()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indica si el modelo tiene el recorrido (aunque sus paradas no coincidan)
+     */
+    public boolean contains(LineSequence sequence) {
+        return slotOf(sequence) >= 0;
+    }
+
+    /**
+     * Tiempo de viaje esperado (mediana) del tramo a la hora de la semana dada
+     *
+     * @return Segundos, o -1 si no hay datos del tramo
+     */
+    public double predictSeconds(int arcIndex, int hourOfWeek) {
+        int seconds = hourlyMedian[arcIndex * HOURS_PER_WEEK + hourOfWeek];
+        if (seconds == 0) seconds = arcMedian[arcIndex];
+        return seconds > 0 ? seconds : -1;
+    }
+
+    /**
+     * Percentil 90 del tiempo de viaje del tramo a la hora de la semana dada
+     *
+     * @return Segundos, o -1 si no hay datos del tramo
+     */
+    public double predictP90Seconds(int arcIndex, int hourOfWeek) {
+        int seconds = hourlyP90[arcIndex * HOURS_PER_WEEK + hourOfWeek];
+        if (seconds == 0) seconds = arcP90[arcIndex];
+        return seconds > 0 ? seconds : -1;
+    }
+
+    public int getArcSampleCount(int arcIndex) {
+        return arcSamples[arcIndex];
+    }
+
+    public int getSequenceCount() {
+        return sequenceKeys.length;
+    }
+
+    public int getArcCount() {
+        return arcMedian.length;
+    }
+
+    /**
+     * Número de tramos con tiempo aprendido (en alguna hora o en general)
+     */
+    public int getArcsWithData() {
+        int count = 0;
+        for (char seconds : arcMedian) {
+            if (seconds > 0) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Número de pares (tramo, hora de la semana) con tiempo propio
+     */
+    public int getHourlyCellsWithData() {
+        int count = 0;
+        for (char seconds : hourlyMedian) {
+            if (seconds > 0) count++;
+        }
+        return count;
+    }
+
+    private int slotOf(LineSequence sequence) {
+        long key = ((long) sequence.getLineId() << 1) | sequence.getOrientation();
+        int lo = 0, hi = sequenceKeys.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sequenceKeys[mid] < key) lo = mid + 1;
+            else if (sequenceKeys[mid] > key) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    /**
+     * Guarda el modelo en formato binario. Las horas se escriben dispersas: solo las que
+     * tienen datos.
+     */
+    public void save(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+
+            out.writeInt(sequenceKeys.length);
+            for (int s = 0; s < sequenceKeys.length; s++) {
+                out.writeLong(sequenceKeys[s]);
+                out.writeInt(firstStop[s + 1] - firstStop[s]);
+                for (int i = firstStop[s]; i < firstStop[s + 1]; i++) {
+                    out.writeInt(stopIds[i]);
+                }
+            }
+
+            int arcCount = arcMedian.length;
+            out.writeInt(arcCount);
+            for (int a = 0; a < arcCount; a++) {
+                out.writeInt(arcSamples[a]);
+                out.writeChar(arcMedian[a]);
+                out.writeChar(arcP90[a]);
+            }
+
+            out.writeInt(getHourlyCellsWithData());
+            for (int cell = 0; cell < hourlyMedian.length; cell++) {
+                if (hourlyMedian[cell] > 0) {
+                    out.writeInt(cell);
+                    out.writeChar(hourlyMedian[cell]);
+                    out.writeChar(hourlyP90[cell]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Carga un modelo guardado con save()
+     */
+    public static TravelTimeModel load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC) {
+                throw new IOException("No es un modelo de tiempos de viaje: " + file);
+            }
+            int version = in.readInt();
+            if (version != FILE_VERSION) {
+                throw new IOException("Versión de modelo no soportada: " + version);
+            }
+
+            int sequenceCount = in.readInt();
+            long[] keys = new long[sequenceCount];
+            int[] firstArc = new int[sequenceCount + 1];
+            int[] firstStop = new int[sequenceCount + 1];
+            List<int[]> stopsBySequence = new ArrayList<>(sequenceCount);
+            for (int s = 0; s < sequenceCount; s++) {
+                keys[s] = in.readLong();
+                int[] stops = new int[in.readInt()];
+                for (int i = 0; i < stops.length; i++) {
+                    stops[i] = in.readInt();
+                }
+                stopsBySequence.add(stops);
+                firstStop[s + 1] = firstStop[s] + stops.length;
+                firstArc[s + 1] = firstArc[s] + Math.max(0, stops.length - 1);
+            }
+            int[] stopIds = new int[firstStop[sequenceCount]];
+            for (int s = 0; s < sequenceCount; s++) {
+                System.arraycopy(stopsBySequence.get(s), 0, stopIds, firstStop[s], stopsBySequence.get(s).length);
+            }
+
+            int arcCount = in.readInt();
+            if (arcCount != firstArc[sequenceCount]) {
+                throw new IOException("Modelo inconsistente: " + arcCount + " tramos para "
+                        + firstArc[sequenceCount] + " esperados");
+            }
+            int[] arcSamples = new int[arcCount];
+            char[] arcMedian = new char[arcCount];
+            char[] arcP90 = new char[arcCount];
+            for (int a = 0; a < arcCount; a++) {
+                arcSamples[a] = in.readInt();
+                arcMedian[a] = in.readChar();
+                arcP90[a] = in.readChar();
+            }
+
+            char[] hourlyMedian = new char[arcCount * HOURS_PER_WEEK];
+            char[] hourlyP90 = new char[arcCount * HOURS_PER_WEEK];
+            int cells = in.readInt();
+            for (int i = 0; i < cells; i++) {
+                int cell = in.readInt();
+                hourlyMedian[cell] = in.readChar();
+                hourlyP90[cell] = in.readChar();
+            }
+
+            return new TravelTimeModel(keys, firstArc, firstStop, stopIds,
+                    hourlyMedian, hourlyP90, arcMedian, arcP90, arcSamples);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TravelTimeModel[recorridos=%d, tramos=%d, tramos con datos=%d, celdas horarias=%,d]",
+                getSequenceCount(), getArcCount(), getArcsWithData(), getHourlyCellsWithData());
+    }
+
+    /**
+     * Arma un modelo sobre los recorridos dados. Fija la numeración de tramos (arcIndex) que
+     * usa el entrenamiento para acumular muestras.
+     */
+    public static class Builder {
+        private final List<LineSequence> sequences;
+        private final long[] sequenceKeys;
+        private final int[] firstArc;
+        private final char[] hourlyMedian;
+        private final char[] hourlyP90;
+        private final char[] arcMedian;
+        private final char[] arcP90;
+        private final int[] arcSamples;
+
+        public Builder(Collection<LineSequence> sequences) {
+            this.sequences = new ArrayList<>(sequences);
+            this.sequences.sort(Comparator.comparingLong(Builder::keyOf));
+
+            int count = this.sequences.size();
+            this.sequenceKeys = new long[count];
+            this.firstArc = new int[count + 1];
+            for (int s = 0; s < count; s++) {
+                LineSequence sequence = this.sequences.get(s);
+                sequenceKeys[s] = keyOf(sequence);
+                firstArc[s + 1] = firstArc[s] + Math.max(0, sequence.size() - 1);
+            }
+
+            int arcCount = firstArc[count];
+            this.hourlyMedian = new char[arcCount * HOURS_PER_WEEK];
+            this.hourlyP90 = new char[arcCount * HOURS_PER_WEEK];
+            this.arcMedian = new char[arcCount];
+            this.arcP90 = new char[arcCount];
+            this.arcSamples = new int[arcCount];
+        }
+
+        public int getArcCount() {
+            return arcMedian.length;
+        }
+
+        /**
+         * Índice del primer tramo del recorrido (-1 si no es uno de los recorridos del builder)
+         */
+        public int firstArcIndex(LineSequence sequence) {
+            int slot = Arrays.binarySearch(sequenceKeys, keyOf(sequence));
+            return slot >= 0 ? firstArc[slot] : -1;
+        }
+
+        public Builder hourly(int arcIndex, int hourOfWeek, double medianSeconds, double p90Seconds) {
+            int cell = arcIndex * HOURS_PER_WEEK + hourOfWeek;
+            hourlyMedian[cell] = toSeconds(medianSeconds);
+            hourlyP90[cell] = toSeconds(p90Seconds);
+            return this;
+        }
+
+        public Builder overall(int arcIndex, double medianSeconds, double p90Seconds, int samples) {
+            arcMedian[arcIndex] = toSeconds(medianSeconds);
+            arcP90[arcIndex] = toSeconds(p90Seconds);
+            arcSamples[arcIndex] = samples;
+            return this;
+        }
+
+        public TravelTimeModel build() {
+            int count = sequences.size();
+            int[] firstStop = new int[count + 1];
+            for (int s = 0; s < count; s++) {
+                firstStop[s + 1] = firstStop[s] + sequences.get(s).size();
+            }
+            int[] stopIds = new int[firstStop[count]];
+            for (int s = 0; s < count; s++) {
+                LineSequence sequence = sequences.get(s);
+                for (int i = 0; i < sequence.size(); i++) {
+                    stopIds[firstStop[s] + i] = sequence.getStop(i).getStopId();
+                }
+            }
+
+            return new TravelTimeModel(sequenceKeys.clone(), firstArc.clone(), firstStop, stopIds,
+                    hourlyMedian.clone(), hourlyP90.clone(), arcMedian.clone(), arcP90.clone(),
+                    arcSamples.clone());
+        }
+
+        private static long keyOf(LineSequence sequence) {
+            return ((long) sequence.getLineId() << 1) | sequence.getOrientation();
+        }
+
+        // Redondeo a segundos, al menos 1 para no confundirse con "sin datos"
+        private static char toSeconds(double seconds) {
+            return (char) Math.max(1, Math.min(Character.MAX_VALUE, Math.round(seconds)));
+        }
+    }
+}
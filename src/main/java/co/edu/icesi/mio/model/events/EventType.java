@@ -19,7 +19,13 @@ public enum EventType {
     // Eventos de streaming en tiempo real
     BUS_SPEEDING("Bus excede velocidad segura", EventCategory.OPERACIONAL, EventPriority.ALTA),
     BUS_STOPPED("Bus detenido", EventCategory.OPERACIONAL, EventPriority.BAJA),
-    POSITION_UPDATE("Actualización de posición", EventCategory.OPERACIONAL, EventPriority.BAJA);
+    POSITION_UPDATE("Actualización de posición", EventCategory.OPERACIONAL, EventPriority.BAJA),
+    BUS_BUNCHING("Buses agrupados en la línea", EventCategory.OPERACIONAL, EventPriority.MEDIA),
+    HEADWAY_GAP("Intervalo excesivo entre buses", EventCategory.OPERACIONAL, EventPriority.MEDIA),
+    GEOFENCE_ENTER("Bus entra a una geocerca", EventCategory.OPERACIONAL, EventPriority.BAJA),
+    GEOFENCE_EXIT("Bus sale de una geocerca", EventCategory.OPERACIONAL, EventPriority.BAJA),
+    BUS_STOP_ARRIVAL("Bus llega a una parada", EventCategory.OPERACIONAL, EventPriority.BAJA),
+    BUS_STOP_DEPARTURE("Bus sale de una parada", EventCategory.OPERACIONAL, EventPriority.BAJA);
 
     private final String description;
     private final EventCategory category;
@@ -16,11 +16,18 @@ public class BusPosition {
     private final double velocity;        // km/h
     private final int currentStopId;      // Última parada visitada
     private final int nextStopId;         // Próxima parada en la ruta
+    private final double progress;        // Fracción recorrida entre currentStopId y nextStopId (-1 si no se conoce)
     private final LocalDateTime timestamp;
 
     public BusPosition(int busId, int routeId, int lineId, double latitude,
                        double longitude, double velocity, int currentStopId,
                        int nextStopId, LocalDateTime timestamp) {
+        this(busId, routeId, lineId, latitude, longitude, velocity, currentStopId, nextStopId, -1, timestamp);
+    }
+
+    public BusPosition(int busId, int routeId, int lineId, double latitude,
+                       double longitude, double velocity, int currentStopId,
+                       int nextStopId, double progress, LocalDateTime timestamp) {
         this.busId = busId;
         this.routeId = routeId;
         this.lineId = lineId;
@@ -29,6 +36,7 @@ public class BusPosition {
         this.velocity = velocity;
         this.currentStopId = currentStopId;
         this.nextStopId = nextStopId;
+        this.progress = progress;
         this.timestamp = timestamp;
     }
 
@@ -64,6 +72,20 @@ public class BusPosition {
         return nextStopId;
     }
 
+    /**
+     * Fracción del tramo entre la parada actual y la próxima ya recorrida (0 a 1, -1 si no se conoce)
+     */
+    public double getProgress() {
+        return progress;
+    }
+
+    /**
+     * Indica si la posición está ubicada sobre un tramo de su línea
+     */
+    public boolean hasStops() {
+        return currentStopId >= 0 && nextStopId >= 0;
+    }
+
     public LocalDateTime getTimestamp() {
         return timestamp;
     }
@@ -100,6 +122,7 @@ public class BusPosition {
         private double velocity;
         private int currentStopId;
         private int nextStopId;
+        private double progress = -1;
         private LocalDateTime timestamp = LocalDateTime.now();
 
         public Builder busId(int busId) {
@@ -142,6 +165,11 @@ public class BusPosition {
             return this;
         }
 
+        public Builder progress(double progress) {
+            this.progress = progress;
+            return this;
+        }
+
         public Builder timestamp(LocalDateTime timestamp) {
             this.timestamp = timestamp;
             return this;
@@ -149,7 +177,7 @@ public class BusPosition {
 
         public BusPosition build() {
             return new BusPosition(busId, routeId, lineId, latitude, longitude,
-                    velocity, currentStopId, nextStopId, timestamp);
+                    velocity, currentStopId, nextStopId, progress, timestamp);
         }
     }
 }
@@ -0,0 +1,55 @@
+package co.edu.icesi.mio.model.realtime;
+
+/**
+ * Intervalo entre un bus y el que va adelante en el mismo recorrido (línea, orientación).
+ * Los minutos se estiman con la distancia por la línea y una velocidad comercial.
+ */
+public class Headway {
+
+    private final int lineId;
+    private final int orientation;
+    private final int followerBusId;
+    private final int leaderBusId;
+    private final double distanceMeters;
+    private final double minutes;
+
+    public Headway(int lineId, int orientation, int followerBusId, int leaderBusId,
+                   double distanceMeters, double minutes) {
+        this.lineId = lineId;
+        this.orientation = orientation;
+        this.followerBusId = followerBusId;
+        this.leaderBusId = leaderBusId;
+        this.distanceMeters = distanceMeters;
+        this.minutes = minutes;
+    }
+
+    public int getLineId() {
+        return lineId;
+    }
+
+    public int getOrientation() {
+        return orientation;
+    }
+
+    public int getFollowerBusId() {
+        return followerBusId;
+    }
+
+    public int getLeaderBusId() {
+        return leaderBusId;
+    }
+
+    public double getDistanceMeters() {
+        return distanceMeters;
+    }
+
+    public double getMinutes() {
+        return minutes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Headway[línea=%d/%d, bus %d -> bus %d, %.0f m, %.1f min]",
+                lineId, orientation, followerBusId, leaderBusId, distanceMeters, minutes);
+    }
+}
@@ -0,0 +1,145 @@
+package co.edu.icesi.mio.model.realtime;
+
+import co.edu.icesi.mio.infra.csv.Arco;
+import co.edu.icesi.mio.infra.csv.Parada;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recorrido de una línea en una orientación: sus paradas en orden de secuencia, el arco
+ * entre cada par consecutivo y la distancia acumulada desde la primera parada.
+ * La distancia entre dos posiciones del recorrido se obtiene en O(1) restando acumulados.
+ */
+public class LineSequence {
+
+    private final int lineId;
+    private final int orientation;
+    private final Parada[] stops;
+    private final Arco[] arcs;                     // arcs[i] va de stops[i] a stops[i + 1]
+    private final double[] cumulativeMeters;       // Distancia desde stops[0] hasta stops[i]
+    private final Map<Integer, Integer> positionByStopId;  // Primera aparición de cada parada
+
+    /**
+     * @param arcs Arcos en orden; el arco i debe unir las paradas i e i + 1
+     */
+    public LineSequence(int lineId, int orientation, List<Parada> stops, List<Arco> arcs) {
+        if (arcs.size() != Math.max(0, stops.size() - 1)) {
+            throw new IllegalArgumentException("La línea " + lineId + " tiene " + stops.size()
+                    + " paradas y " + arcs.size() + " arcos");
+        }
+
+        this.lineId = lineId;
+        this.orientation = orientation;
+        this.stops = stops.toArray(new Parada[0]);
+        this.arcs = arcs.toArray(new Arco[0]);
+        this.cumulativeMeters = new double[this.stops.length];
+        this.positionByStopId = new HashMap<>();
+
+        for (int i = 0; i < this.stops.length; i++) {
+            positionByStopId.putIfAbsent(this.stops[i].getStopId(), i);
+            if (i > 0) {
+                cumulativeMeters[i] = cumulativeMeters[i - 1] + haversineMeters(this.stops[i - 1], this.stops[i]);
+            }
+        }
+    }
+
+    public int getLineId() {
+        return lineId;
+    }
+
+    public int getOrientation() {
+        return orientation;
+    }
+
+    /**
+     * Número de paradas del recorrido
+     */
+    public int size() {
+        return stops.length;
+    }
+
+    public Parada getStop(int position) {
+        return stops[position];
+    }
+
+    /**
+     * Arco que sale de la parada en la posición dada (hasta size() - 2)
+     */
+    public Arco getArc(int position) {
+        return arcs[position];
+    }
+
+    /**
+     * Distancia en metros desde la primera parada hasta la de la posición dada
+     */
+    public double getCumulativeDistance(int position) {
+        return cumulativeMeters[position];
+    }
+
+    /**
+     * Distancia en metros recorriendo la línea entre dos posiciones (from <= to)
+     */
+    public double distanceBetween(int from, int to) {
+        return cumulativeMeters[to] - cumulativeMeters[from];
+    }
+
+    /**
+     * Largo total del recorrido en metros
+     */
+    public double getTotalDistance() {
+        return stops.length > 0 ? cumulativeMeters[stops.length - 1] : 0;
+    }
+
+    /**
+     * Primera posición de la parada en el recorrido (-1 si no está)
+     */
+    public int indexOf(int stopId) {
+        Integer position = positionByStopId.get(stopId);
+        return position != null ? position : -1;
+    }
+
+    /**
+     * Posición de la próxima parada de un bus que dejó currentStopId y va hacia nextStopId.
+     * Si la parada se repite (recorridos circulares) se usa la aparición que sigue a currentStopId.
+     *
+     * @return Posición de nextStopId, o -1 si no está en el recorrido
+     */
+    public int locateNextStop(int currentStopId, int nextStopId) {
+        int position = indexOf(nextStopId);
+        if (position <= 0 || stops[position - 1].getStopId() == currentStopId) {
+            return position;
+        }
+
+        for (int i = position + 1; i < stops.length; i++) {
+            if (stops[i].getStopId() == nextStopId && stops[i - 1].getStopId() == currentStopId) {
+                return i;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Indica si currentStopId y nextStopId son paradas consecutivas del recorrido
+     */
+    public boolean hasHop(int currentStopId, int nextStopId) {
+        int position = locateNextStop(currentStopId, nextStopId);
+        return position > 0 && stops[position - 1].getStopId() == currentStopId;
+    }
+
+    private static double haversineMeters(Parada p1, Parada p2) {
+        double dLat = Math.toRadians(p2.getDecimalLatitude() - p1.getDecimalLatitude());
+        double dLon = Math.toRadians(p2.getDecimalLongitude() - p1.getDecimalLongitude());
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(p1.getDecimalLatitude())) * Math.cos(Math.toRadians(p2.getDecimalLatitude()))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 6371000 * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LineSequence[línea=%d, orientación=%d, paradas=%d, largo=%.0f m]",
+                lineId, orientation, stops.length, getTotalDistance());
+    }
+}
@@ -0,0 +1,37 @@
+package co.edu.icesi.mio.model.realtime;
+
+/**
+ * Bus encontrado en una consulta espacial, con su última posición y la distancia al punto consultado.
+ */
+public class NearbyBus {
+
+    private final BusPosition position;
+    private final double distanceMeters;
+
+    public NearbyBus(BusPosition position, double distanceMeters) {
+        this.position = position;
+        this.distanceMeters = distanceMeters;
+    }
+
+    public BusPosition getPosition() {
+        return position;
+    }
+
+    public int getBusId() {
+        return position.getBusId();
+    }
+
+    public int getLineId() {
+        return position.getLineId();
+    }
+
+    public double getDistanceMeters() {
+        return distanceMeters;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("NearbyBus[bus=%d, línea=%d, %.0f m]",
+                position.getBusId(), position.getLineId(), distanceMeters);
+    }
+}
@@ -0,0 +1,56 @@
+package co.edu.icesi.mio.model.realtime;
+
+import java.time.LocalDateTime;
+
+/**
+ * Próxima llegada de un bus a una parada, tal como aparece en el tablero de la parada.
+ */
+public class StopArrival {
+
+    private final int stopId;
+    private final int busId;
+    private final int lineId;
+    private final LocalDateTime estimatedArrival;
+    private final double minutesAway;          // Minutos desde la hora de la consulta
+    private final LocalDateTime updatedAt;     // Hora de la posición con la que se estimó
+
+    public StopArrival(int stopId, int busId, int lineId, LocalDateTime estimatedArrival,
+                       double minutesAway, LocalDateTime updatedAt) {
+        this.stopId = stopId;
+        this.busId = busId;
+        this.lineId = lineId;
+        this.estimatedArrival = estimatedArrival;
+        this.minutesAway = minutesAway;
+        this.updatedAt = updatedAt;
+    }
+
+    public int getStopId() {
+        return stopId;
+    }
+
+    public int getBusId() {
+        return busId;
+    }
+
+    public int getLineId() {
+        return lineId;
+    }
+
+    public LocalDateTime getEstimatedArrival() {
+        return estimatedArrival;
+    }
+
+    public double getMinutesAway() {
+        return minutesAway;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StopArrival[parada=%d, bus=%d, línea=%d, en %.1f min (%s)]",
+                stopId, busId, lineId, minutesAway, estimatedArrival.toLocalTime());
+    }
+}
@@ -0,0 +1,159 @@
+package co.edu.icesi.mio.model.realtime;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Trayectoria reciente de un bus: sus posiciones en orden cronológico, en arreglos paralelos.
+ */
+public class Trajectory {
+
+    private static final double METERS_PER_DEGREE = 6371000.0 * Math.PI / 180.0;
+
+    private final int busId;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final long[] epochSeconds;   // Hora de cada posición (UTC, como en los datagramas)
+    private final int[] velocities;      // km/h
+
+    public Trajectory(int busId, double[] latitudes, double[] longitudes, long[] epochSeconds, int[] velocities) {
+        this.busId = busId;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.epochSeconds = epochSeconds;
+        this.velocities = velocities;
+    }
+
+    public int getBusId() {
+        return busId;
+    }
+
+    public int size() {
+        return latitudes.length;
+    }
+
+    public boolean isEmpty() {
+        return latitudes.length == 0;
+    }
+
+    public double getLatitude(int i) {
+        return latitudes[i];
+    }
+
+    public double getLongitude(int i) {
+        return longitudes[i];
+    }
+
+    public long getEpochSecond(int i) {
+        return epochSeconds[i];
+    }
+
+    public LocalDateTime getTimestamp(int i) {
+        return LocalDateTime.ofEpochSecond(epochSeconds[i], 0, ZoneOffset.UTC);
+    }
+
+    public int getVelocity(int i) {
+        return velocities[i];
+    }
+
+    /**
+     * Longitud recorrida sumando los tramos entre posiciones, en metros
+     */
+    public double getLengthMeters() {
+        double length = 0;
+        for (int i = 1; i < latitudes.length; i++) {
+            double cosLat = Math.cos(Math.toRadians((latitudes[i - 1] + latitudes[i]) / 2));
+            double dy = (latitudes[i] - latitudes[i - 1]) * METERS_PER_DEGREE;
+            double dx = (longitudes[i] - longitudes[i - 1]) * METERS_PER_DEGREE * cosLat;
+            length += Math.sqrt(dx * dx + dy * dy);
+        }
+        return length;
+    }
+
+    /**
+     * Versión simplificada para mostrar en mapas (Douglas-Peucker): conserva los extremos y las
+     * posiciones que se alejan más de toleranceMeters de la recta entre las que se conservan.
+     */
+    public Trajectory simplify(double toleranceMeters) {
+        int n = latitudes.length;
+        if (n <= 2 || toleranceMeters <= 0) {
+            return this;
+        }
+
+        // Proyección local a metros alrededor de la primera posición
+        double cosLat = Math.cos(Math.toRadians(latitudes[0]));
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = (longitudes[i] - longitudes[0]) * METERS_PER_DEGREE * cosLat;
+            ys[i] = (latitudes[i] - latitudes[0]) * METERS_PER_DEGREE;
+        }
+
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+        int kept = 2;
+
+        // Pila de tramos pendientes en lugar de recursión
+        int[] stack = new int[2 * n];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        double tolerance2 = toleranceMeters * toleranceMeters;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+
+            int farthest = -1;
+            double farthest2 = tolerance2;
+            for (int i = first + 1; i < last; i++) {
+                double d2 = segmentDistance2(xs[i], ys[i], xs[first], ys[first], xs[last], ys[last]);
+                if (d2 > farthest2) {
+                    farthest2 = d2;
+                    farthest = i;
+                }
+            }
+            if (farthest >= 0) {
+                keep[farthest] = true;
+                kept++;
+                stack[top++] = first;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = last;
+            }
+        }
+
+        double[] lats = new double[kept];
+        double[] lons = new double[kept];
+        long[] times = new long[kept];
+        int[] speeds = new int[kept];
+        for (int i = 0, j = 0; i < n; i++) {
+            if (!keep[i]) continue;
+            lats[j] = latitudes[i];
+            lons[j] = longitudes[i];
+            times[j] = epochSeconds[i];
+            speeds[j] = velocities[i];
+            j++;
+        }
+        return new Trajectory(busId, lats, lons, times, speeds);
+    }
+
+    private static double segmentDistance2(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double length2 = dx * dx + dy * dy;
+        double t = length2 == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / length2));
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return ex * ex + ey * ey;
+    }
+
+    @Override
+    public String toString() {
+        if (isEmpty()) {
+            return String.format("Trajectory[bus=%d, sin posiciones]", busId);
+        }
+        return String.format("Trajectory[bus=%d, posiciones=%d, %s -> %s, %.0f m]",
+                busId, size(), getTimestamp(0), getTimestamp(size() - 1), getLengthMeters());
+    }
+}
@@ -1,5 +1,6 @@
 package co.edu.icesi.mio.model.routing;
 
+import co.edu.icesi.mio.infra.csv.Arco;
 import co.edu.icesi.mio.infra.csv.Parada;
 
 import java.util.ArrayList;
@@ -43,14 +44,16 @@ public class CalculatedRoute {
         if (segments.isEmpty()) return 0;
 
         int transfers = 0;
-        for (int i = 1; i < segments.size(); i++) {
-            RouteSegment prev = segments.get(i - 1);
-            RouteSegment current = segments.get(i);
+        int currentLine = Arco.LINEA_PEATONAL;
+        for (RouteSegment segment : segments) {
+            // Los tramos a pie no son transbordos; se cuenta el cambio de bus que conectan
+            if (segment.getArco().isWalking()) continue;
 
             // Si cambia la línea, es un transbordo
-            if (prev.getLineId() != current.getLineId()) {
+            if (currentLine != Arco.LINEA_PEATONAL && currentLine != segment.getLineId()) {
                 transfers++;
             }
+            currentLine = segment.getLineId();
         }
         return transfers;
     }
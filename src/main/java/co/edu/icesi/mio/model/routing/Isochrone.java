@@ -0,0 +1,76 @@
+package co.edu.icesi.mio.model.routing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conjunto de paradas alcanzables desde un origen dentro de un tiempo máximo.
+ * Las paradas están ordenadas por tiempo de viaje creciente.
+ */
+public class Isochrone {
+
+    private final int originStopId;
+    private final double budgetMinutes;
+    private final int[] stopIds;
+    private final float[] travelTimes;     // Minutos desde el origen
+
+    public Isochrone(int originStopId, double budgetMinutes, int[] stopIds, float[] travelTimes) {
+        this.originStopId = originStopId;
+        this.budgetMinutes = budgetMinutes;
+        this.stopIds = stopIds;
+        this.travelTimes = travelTimes;
+    }
+
+    public int getOriginStopId() {
+        return originStopId;
+    }
+
+    public double getBudgetMinutes() {
+        return budgetMinutes;
+    }
+
+    /**
+     * Número de paradas alcanzables (incluye el origen)
+     */
+    public int size() {
+        return stopIds.length;
+    }
+
+    public int getStopId(int i) {
+        return stopIds[i];
+    }
+
+    public float getTravelTime(int i) {
+        return travelTimes[i];
+    }
+
+    /**
+     * Tiempo de viaje hasta la parada (infinito si no es alcanzable)
+     */
+    public float getTravelTimeTo(int stopId) {
+        for (int i = 0; i < stopIds.length; i++) {
+            if (stopIds[i] == stopId) {
+                return travelTimes[i];
+            }
+        }
+        return Float.POSITIVE_INFINITY;
+    }
+
+    public boolean isReachable(int stopId) {
+        return getTravelTimeTo(stopId) != Float.POSITIVE_INFINITY;
+    }
+
+    public List<Integer> getReachableStopIds() {
+        List<Integer> ids = new ArrayList<>(stopIds.length);
+        for (int stopId : stopIds) {
+            ids.add(stopId);
+        }
+        return ids;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Isocrona[origen=%d, %.0f min, paradas alcanzables=%d]",
+                originStopId, budgetMinutes, stopIds.length);
+    }
+}
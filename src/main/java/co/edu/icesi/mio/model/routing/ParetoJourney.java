@@ -0,0 +1,40 @@
+package co.edu.icesi.mio.model.routing;
+
+/**
+ * Viaje óptimo de Pareto entre dos paradas: ningún otro viaje llega antes
+ * con el mismo número de transbordos o menos.
+ */
+public class ParetoJourney {
+
+    private final CalculatedRoute route;
+    private final int trips;               // Número de buses abordados
+    private final double travelTime;       // Tiempo de viaje en minutos
+
+    public ParetoJourney(CalculatedRoute route, int trips, double travelTime) {
+        this.route = route;
+        this.trips = trips;
+        this.travelTime = travelTime;
+    }
+
+    public CalculatedRoute getRoute() {
+        return route;
+    }
+
+    public int getTrips() {
+        return trips;
+    }
+
+    public int getTransfers() {
+        return Math.max(trips - 1, 0);
+    }
+
+    public double getTravelTime() {
+        return travelTime;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Viaje[Transbordos: %d, Tiempo: %.1f min, Líneas: %s]",
+                getTransfers(), travelTime, route.getLinesUsed());
+    }
+}
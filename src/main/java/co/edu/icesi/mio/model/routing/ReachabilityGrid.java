@@ -0,0 +1,157 @@
+package co.edu.icesi.mio.model.routing;
+
+import co.edu.icesi.mio.infra.csv.Parada;
+import co.edu.icesi.mio.model.analytics.Zone;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Grilla regular sobre una zona que agrega la alcanzabilidad de varias isocronas,
+ * para dibujar mapas de calor por zona.
+ *
+ * Por cada celda guarda cuántas paradas contiene, cuántas veces alguna de ellas fue
+ * alcanzada y el menor tiempo de viaje desde cualquiera de los orígenes.
+ */
+public class ReachabilityGrid {
+
+    private final Zone bounds;
+    private final double cellSizeMeters;
+    private final int rows;
+    private final int columns;
+    private final double cellLatitude;     // Tamaño de celda en grados
+    private final double cellLongitude;
+
+    private final int[] stopCount;
+    private final int[] reachedCount;
+    private final float[] bestTime;
+    private int isochroneCount;
+
+    /**
+     * @param bounds Zona a cubrir
+     * @param cellSizeMeters Lado aproximado de cada celda
+     * @param paradas Paradas del sistema (para contar paradas por celda)
+     */
+    public ReachabilityGrid(Zone bounds, double cellSizeMeters, Collection<Parada> paradas) {
+        this.bounds = bounds;
+        this.cellSizeMeters = cellSizeMeters;
+
+        // 1 grado de latitud ≈ 111 km; la longitud se corrige por la latitud media
+        double centerLatitude = bounds.getCenter()[0];
+        this.cellLatitude = cellSizeMeters / 111_000.0;
+        this.cellLongitude = cellSizeMeters / (111_000.0 * Math.cos(Math.toRadians(centerLatitude)));
+        this.rows = Math.max(1, (int) Math.ceil((bounds.getMaxLatitude() - bounds.getMinLatitude()) / cellLatitude));
+        this.columns = Math.max(1, (int) Math.ceil((bounds.getMaxLongitude() - bounds.getMinLongitude()) / cellLongitude));
+
+        this.stopCount = new int[rows * columns];
+        this.reachedCount = new int[rows * columns];
+        this.bestTime = new float[rows * columns];
+        Arrays.fill(bestTime, Float.POSITIVE_INFINITY);
+
+        for (Parada parada : paradas) {
+            int cell = cellOf(parada.getDecimalLatitude(), parada.getDecimalLongitude());
+            if (cell >= 0) {
+                stopCount[cell]++;
+            }
+        }
+    }
+
+    /**
+     * Índice de la celda que contiene el punto (-1 si está fuera de la zona)
+     */
+    public int cellOf(double latitude, double longitude) {
+        if (!bounds.contains(latitude, longitude)) {
+            return -1;
+        }
+        int row = Math.min(rows - 1, (int) ((latitude - bounds.getMinLatitude()) / cellLatitude));
+        int column = Math.min(columns - 1, (int) ((longitude - bounds.getMinLongitude()) / cellLongitude));
+        return row * columns + column;
+    }
+
+    /**
+     * Agrega las paradas alcanzadas por una isocrona
+     */
+    public synchronized void add(Isochrone isochrone, Map<Integer, Parada> paradas) {
+        for (int i = 0; i < isochrone.size(); i++) {
+            Parada parada = paradas.get(isochrone.getStopId(i));
+            if (parada == null) continue;
+
+            int cell = cellOf(parada.getDecimalLatitude(), parada.getDecimalLongitude());
+            if (cell < 0) continue;
+
+            reachedCount[cell]++;
+            bestTime[cell] = Math.min(bestTime[cell], isochrone.getTravelTime(i));
+        }
+        isochroneCount++;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public double getCellSizeMeters() {
+        return cellSizeMeters;
+    }
+
+    public Zone getBounds() {
+        return bounds;
+    }
+
+    public int getIsochroneCount() {
+        return isochroneCount;
+    }
+
+    public int getStopCount(int row, int column) {
+        return stopCount[row * columns + column];
+    }
+
+    public int getReachedCount(int row, int column) {
+        return reachedCount[row * columns + column];
+    }
+
+    public float getBestTime(int row, int column) {
+        return bestTime[row * columns + column];
+    }
+
+    /**
+     * Fracción de (origen, parada de la celda) alcanzables, entre 0 y 1
+     */
+    public double getCoverage(int row, int column) {
+        int cell = row * columns + column;
+        if (stopCount[cell] == 0 || isochroneCount == 0) {
+            return 0;
+        }
+        return reachedCount[cell] / (double) (stopCount[cell] * isochroneCount);
+    }
+
+    /**
+     * Mapa de calor en texto (norte arriba): ' ' sin paradas, '.' a '#' de menor a mayor cobertura
+     */
+    public String toHeatmapString() {
+        String levels = ".:-=+*#";
+        StringBuilder sb = new StringBuilder();
+        for (int row = rows - 1; row >= 0; row--) {
+            for (int column = 0; column < columns; column++) {
+                if (getStopCount(row, column) == 0) {
+                    sb.append(' ');
+                } else {
+                    int level = (int) Math.round(getCoverage(row, column) * (levels.length() - 1));
+                    sb.append(levels.charAt(level));
+                }
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ReachabilityGrid[%s, %dx%d celdas de %.0f m, isocronas=%d]",
+                bounds.getZoneId(), rows, columns, cellSizeMeters, isochroneCount);
+    }
+}
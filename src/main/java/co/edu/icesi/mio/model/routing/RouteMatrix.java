@@ -0,0 +1,150 @@
+package co.edu.icesi.mio.model.routing;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Matriz densa origen-destino con tiempo de viaje, distancia y transbordos
+ * de la ruta más rápida entre cada par. Los pares sin ruta tienen valor infinito.
+ */
+public class RouteMatrix {
+
+    private static final int FILE_MAGIC = 0x4D494F4D; // "MIOM"
+
+    private final int[] originIds;
+    private final int[] destinationIds;
+    private final float[][] travelTimes;
+    private final float[][] distances;
+    private final float[][] transfers;
+    private final Map<Integer, Integer> rowByOrigin;
+    private final Map<Integer, Integer> columnByDestination;
+
+    public RouteMatrix(int[] originIds, int[] destinationIds) {
+        this.originIds = originIds.clone();
+        this.destinationIds = destinationIds.clone();
+        this.travelTimes = new float[originIds.length][];
+        this.distances = new float[originIds.length][];
+        this.transfers = new float[originIds.length][];
+        this.rowByOrigin = new HashMap<>();
+        this.columnByDestination = new HashMap<>();
+
+        for (int i = 0; i < originIds.length; i++) {
+            rowByOrigin.put(originIds[i], i);
+        }
+        for (int j = 0; j < destinationIds.length; j++) {
+            columnByDestination.put(destinationIds[j], j);
+        }
+    }
+
+    /**
+     * Guarda una fila calculada por un worker
+     */
+    public void setRow(RouteMatrixRow row) {
+        Integer i = rowByOrigin.get(row.getOriginStopId());
+        if (i == null) {
+            throw new IllegalArgumentException("Origen fuera de la matriz: " + row.getOriginStopId());
+        }
+        travelTimes[i] = row.getTravelTimes();
+        distances[i] = row.getDistances();
+        transfers[i] = row.getTransfers();
+    }
+
+    public float getTravelTime(int originId, int destinationId) {
+        return valueAt(travelTimes, originId, destinationId);
+    }
+
+    public float getDistance(int originId, int destinationId) {
+        return valueAt(distances, originId, destinationId);
+    }
+
+    public float getTransfers(int originId, int destinationId) {
+        return valueAt(transfers, originId, destinationId);
+    }
+
+    private float valueAt(float[][] values, int originId, int destinationId) {
+        Integer i = rowByOrigin.get(originId);
+        Integer j = columnByDestination.get(destinationId);
+        if (i == null || j == null || values[i] == null) {
+            return Float.POSITIVE_INFINITY;
+        }
+        return values[i][j];
+    }
+
+    public int[] getOriginIds() {
+        return originIds.clone();
+    }
+
+    public int[] getDestinationIds() {
+        return destinationIds.clone();
+    }
+
+    public float[][] getTravelTimes() {
+        return travelTimes;
+    }
+
+    public float[][] getDistances() {
+        return distances;
+    }
+
+    public float[][] getTransfers() {
+        return transfers;
+    }
+
+    /**
+     * Número de pares con ruta encontrada
+     */
+    public int countReachable() {
+        int count = 0;
+        for (float[] row : travelTimes) {
+            if (row == null) continue;
+            for (float time : row) {
+                if (time != Float.POSITIVE_INFINITY) count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Escribe la matriz en un archivo mapeado en memoria.
+     * Formato: magic, filas, columnas, IDs de origen, IDs de destino y luego las tres
+     * matrices (tiempos, distancias, transbordos) fila por fila como float.
+     */
+    public void writeTo(Path file) throws IOException {
+        long cells = (long) originIds.length * destinationIds.length;
+        long size = 12L + 4L * (originIds.length + destinationIds.length) + 3 * 4L * cells;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Matriz demasiado grande para un solo archivo mapeado: " + size + " bytes");
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+            buffer.putInt(FILE_MAGIC);
+            buffer.putInt(originIds.length);
+            buffer.putInt(destinationIds.length);
+            for (int originId : originIds) buffer.putInt(originId);
+            for (int destinationId : destinationIds) buffer.putInt(destinationId);
+
+            for (float[][] values : new float[][][]{travelTimes, distances, transfers}) {
+                for (float[] row : values) {
+                    for (int j = 0; j < destinationIds.length; j++) {
+                        buffer.putFloat(row != null ? row[j] : Float.POSITIVE_INFINITY);
+                    }
+                }
+            }
+            buffer.force();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RouteMatrix[%d orígenes x %d destinos, con ruta: %,d]",
+                originIds.length, destinationIds.length, countReachable());
+    }
+}
@@ -0,0 +1,36 @@
+package co.edu.icesi.mio.model.routing;
+
+/**
+ * Fila de una matriz de rutas: valores desde un origen hacia cada destino de la matriz.
+ * Los destinos no alcanzables tienen valor infinito.
+ */
+public class RouteMatrixRow {
+
+    private final int originStopId;
+    private final float[] travelTimes;     // Minutos
+    private final float[] distances;       // Metros
+    private final float[] transfers;       // Número de transbordos
+
+    public RouteMatrixRow(int originStopId, float[] travelTimes, float[] distances, float[] transfers) {
+        this.originStopId = originStopId;
+        this.travelTimes = travelTimes;
+        this.distances = distances;
+        this.transfers = transfers;
+    }
+
+    public int getOriginStopId() {
+        return originStopId;
+    }
+
+    public float[] getTravelTimes() {
+        return travelTimes;
+    }
+
+    public float[] getDistances() {
+        return distances;
+    }
+
+    public float[] getTransfers() {
+        return transfers;
+    }
+}
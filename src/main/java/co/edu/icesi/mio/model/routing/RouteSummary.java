@@ -0,0 +1,77 @@
+package co.edu.icesi.mio.model.routing;
+
+/**
+ * Resultado compacto del cálculo de una ruta: solo los totales y, opcionalmente, los
+ * arcos usados como índices. Pensado para lotes grandes en los que guardar cada
+ * CalculatedRoute con sus segmentos no cabe en memoria.
+ */
+public class RouteSummary {
+
+    private final int originStopId;
+    private final int destinationStopId;
+    private final float travelTime;        // Minutos (infinito si no hay ruta)
+    private final float distance;          // Metros
+    private final int transfers;
+    private final int segments;
+    private final int[] arcPath;           // Índices en grafo.getArcosRuteables() (null si no se guardan)
+
+    public RouteSummary(int originStopId, int destinationStopId, float travelTime, float distance,
+                        int transfers, int segments, int[] arcPath) {
+        this.originStopId = originStopId;
+        this.destinationStopId = destinationStopId;
+        this.travelTime = travelTime;
+        this.distance = distance;
+        this.transfers = transfers;
+        this.segments = segments;
+        this.arcPath = arcPath;
+    }
+
+    /**
+     * Resultado de un par sin ruta
+     */
+    public static RouteSummary notFound(int originStopId, int destinationStopId) {
+        return new RouteSummary(originStopId, destinationStopId, Float.POSITIVE_INFINITY,
+                Float.POSITIVE_INFINITY, 0, 0, null);
+    }
+
+    public int getOriginStopId() {
+        return originStopId;
+    }
+
+    public int getDestinationStopId() {
+        return destinationStopId;
+    }
+
+    public float getTravelTime() {
+        return travelTime;
+    }
+
+    public float getDistance() {
+        return distance;
+    }
+
+    public int getTransfers() {
+        return transfers;
+    }
+
+    public int getSegments() {
+        return segments;
+    }
+
+    public int[] getArcPath() {
+        return arcPath;
+    }
+
+    public boolean isFound() {
+        return travelTime != Float.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public String toString() {
+        if (!isFound()) {
+            return String.format("RouteSummary[%d -> %d, sin ruta]", originStopId, destinationStopId);
+        }
+        return String.format("RouteSummary[%d -> %d, %.1f min, %.0f m, %d transbordos]",
+                originStopId, destinationStopId, travelTime, distance, transfers);
+    }
+}
@@ -5,6 +5,7 @@ import co.edu.icesi.mio.model.analytics.ArcVelocityStats;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -15,8 +16,20 @@ public class ArcVelocityRepository {
 
     private final Map<ArcIdentifier, ArcVelocityStats> statsMap;
 
+    // Velocidad promedio (km/h) por franja de 15 minutos del día; 0 si la franja no tiene datos
+    private final Map<ArcIdentifier, float[]> profilesMap;
+
+    // Mismos perfiles promediados por línea (para arcos sin perfil propio)
+    private volatile Map<Integer, float[]> lineProfilesMap;
+
+    // Versión del modelo de velocidades: se incrementa con cada modificación
+    private final AtomicLong version;
+
     public ArcVelocityRepository() {
         this.statsMap = new ConcurrentHashMap<>();
+        this.profilesMap = new ConcurrentHashMap<>();
+        this.lineProfilesMap = Collections.emptyMap();
+        this.version = new AtomicLong(0);
     }
 
     /**
@@ -24,6 +37,7 @@ public class ArcVelocityRepository {
      */
     public void save(ArcVelocityStats stats) {
         statsMap.put(stats.getArcId(), stats);
+        version.incrementAndGet();
     }
 
     /**
@@ -31,6 +45,67 @@ public class ArcVelocityRepository {
      */
     public void saveAll(Map<ArcIdentifier, ArcVelocityStats> stats) {
         statsMap.putAll(stats);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Guarda los perfiles de velocidad por franja horaria de varios arcos
+     */
+    public synchronized void saveProfiles(Map<ArcIdentifier, float[]> profiles) {
+        profilesMap.putAll(profiles);
+        lineProfilesMap = averageByLine(profilesMap);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Obtiene el perfil de velocidad por franja horaria de un arco
+     */
+    public Optional<float[]> findProfile(ArcIdentifier arcId) {
+        return Optional.ofNullable(profilesMap.get(arcId));
+    }
+
+    /**
+     * Obtiene el perfil promedio de una línea: en cada franja, el promedio de las franjas con
+     * datos de sus arcos. Sirve para los arcos entre paradas que no tienen perfil propio.
+     */
+    public Optional<float[]> findLineProfile(int lineId) {
+        return Optional.ofNullable(lineProfilesMap.get(lineId));
+    }
+
+    private static Map<Integer, float[]> averageByLine(Map<ArcIdentifier, float[]> profiles) {
+        Map<Integer, float[]> sums = new HashMap<>();
+        Map<Integer, int[]> counts = new HashMap<>();
+
+        for (Map.Entry<ArcIdentifier, float[]> entry : profiles.entrySet()) {
+            float[] profile = entry.getValue();
+            int lineId = entry.getKey().getLineId();
+            float[] sum = sums.computeIfAbsent(lineId, k -> new float[profile.length]);
+            int[] count = counts.computeIfAbsent(lineId, k -> new int[profile.length]);
+            for (int b = 0; b < Math.min(profile.length, sum.length); b++) {
+                if (profile[b] > 0) {
+                    sum[b] += profile[b];
+                    count[b]++;
+                }
+            }
+        }
+
+        for (Map.Entry<Integer, float[]> entry : sums.entrySet()) {
+            float[] sum = entry.getValue();
+            int[] count = counts.get(entry.getKey());
+            for (int b = 0; b < sum.length; b++) {
+                sum[b] = count[b] > 0 ? sum[b] / count[b] : 0f;
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * Obtiene la versión actual de las velocidades.
+     * Las estructuras precalculadas (p. ej. jerarquías de contracción) la usan
+     * para detectar que deben reconstruirse.
+     */
+    public long getVersion() {
+        return version.get();
     }
 
     /**
@@ -132,8 +207,11 @@ public class ArcVelocityRepository {
     /**
      * Limpia todos los datos
      */
-    public void clear() {
+    public synchronized void clear() {
         statsMap.clear();
+        profilesMap.clear();
+        lineProfilesMap = Collections.emptyMap();
+        version.incrementAndGet();
     }
 
     /**
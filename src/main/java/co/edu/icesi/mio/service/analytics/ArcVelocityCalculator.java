@@ -5,6 +5,7 @@ import co.edu.icesi.mio.infra.csv.DatagramReader;
 import co.edu.icesi.mio.model.analytics.ArcIdentifier;
 import co.edu.icesi.mio.model.analytics.ArcVelocityStats;
 import co.edu.icesi.mio.model.streaming.Datagram;
+import co.edu.icesi.mio.service.routing.TravelTimeProfiles;
 
 import java.io.IOException;
 import java.util.*;
@@ -20,6 +21,9 @@ public class ArcVelocityCalculator {
     // Almacena todas las velocidades observadas por arco
     private final Map<ArcIdentifier, List<Double>> velocitiesByArc;
 
+    // Suma y cantidad de velocidades por franja horaria (TravelTimeProfiles): [sumas | cantidades]
+    private final Map<ArcIdentifier, double[]> bucketSumsByArc;
+
     // Contador de datagramas procesados
     private final AtomicLong processedCount;
 
@@ -28,6 +32,7 @@ public class ArcVelocityCalculator {
 
     public ArcVelocityCalculator() {
         this.velocitiesByArc = new ConcurrentHashMap<>();
+        this.bucketSumsByArc = new ConcurrentHashMap<>();
         this.processedCount = new AtomicLong(0);
         this.validCount = new AtomicLong(0);
     }
@@ -137,6 +142,18 @@ public class ArcVelocityCalculator {
         velocitiesByArc.computeIfAbsent(arcId, k -> Collections.synchronizedList(new ArrayList<>()))
                 .add((double) datagram.getVelocity());
 
+        // Acumular en la franja horaria del datagrama
+        if (datagram.getTimestamp() != null) {
+            int bucket = TravelTimeProfiles.bucketOf(
+                    datagram.getTimestamp().getHour() * 60 + datagram.getTimestamp().getMinute());
+            double[] sums = bucketSumsByArc.computeIfAbsent(arcId,
+                    k -> new double[2 * TravelTimeProfiles.BUCKETS_PER_DAY]);
+            synchronized (sums) {
+                sums[bucket] += datagram.getVelocity();
+                sums[TravelTimeProfiles.BUCKETS_PER_DAY + bucket]++;
+            }
+        }
+
         validCount.incrementAndGet();
     }
 
@@ -171,6 +188,31 @@ public class ArcVelocityCalculator {
         return stats;
     }
 
+    /**
+     * Calcula los perfiles de velocidad por franja de 15 minutos del día para todos los arcos
+     * procesados. Las franjas sin observaciones quedan en 0 (se usa la velocidad típica del arco).
+     *
+     * @return Mapa de velocidad promedio (km/h) por franja y arco
+     */
+    public Map<ArcIdentifier, float[]> calculateQuarterHourProfiles() {
+        Map<ArcIdentifier, float[]> profiles = new HashMap<>();
+
+        for (Map.Entry<ArcIdentifier, double[]> entry : bucketSumsByArc.entrySet()) {
+            double[] sums = entry.getValue();
+            float[] profile = new float[TravelTimeProfiles.BUCKETS_PER_DAY];
+            synchronized (sums) {
+                for (int b = 0; b < TravelTimeProfiles.BUCKETS_PER_DAY; b++) {
+                    double count = sums[TravelTimeProfiles.BUCKETS_PER_DAY + b];
+                    profile[b] = count > 0 ? (float) (sums[b] / count) : 0f;
+                }
+            }
+            profiles.put(entry.getKey(), profile);
+        }
+
+        System.out.printf("✓ Perfiles horarios calculados para %d arcos\n", profiles.size());
+        return profiles;
+    }
+
     /**
      * Obtiene estadísticas resumidas del procesamiento
      */
@@ -188,6 +230,7 @@ public class ArcVelocityCalculator {
      */
     public void clear() {
         velocitiesByArc.clear();
+        bucketSumsByArc.clear();
         processedCount.set(0);
         validCount.set(0);
     }
@@ -0,0 +1,233 @@
+package co.edu.icesi.mio.service.analytics;
+
+import co.edu.icesi.mio.infra.csv.DatagramReader;
+import co.edu.icesi.mio.model.analytics.StopDwellStats;
+import co.edu.icesi.mio.model.realtime.LineSequence;
+import co.edu.icesi.mio.service.realtime.LineSequenceIndex;
+import co.edu.icesi.mio.service.streaming.DwellDetector;
+
+import java.io.IOException;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Modo por lotes del detector de paradas: recorre el histórico de datagramas con un
+ * DwellDetector y calcula por parada la media, la mediana, el percentil 90 y el máximo de
+ * los tiempos de permanencia.
+ *
+ * Las permanencias de más de MAX_DWELL_SECONDS (buses estacionados en terminales o fuera de
+ * servicio) no entran en las estadísticas; se cuentan aparte.
+ */
+public class DwellTimeAnalyzer {
+
+    public static final double MAX_DWELL_SECONDS = 1800.0;
+
+    private final LineSequenceIndex lineIndex;
+    private final Map<Integer, String> stopNames;
+    private List<StopDwellStats> stopStats;
+
+    public DwellTimeAnalyzer(LineSequenceIndex lineIndex) {
+        this.lineIndex = lineIndex;
+        this.stopNames = new HashMap<>();
+        for (LineSequence sequence : lineIndex.getSequences()) {
+            for (int i = 0; i < sequence.size(); i++) {
+                stopNames.putIfAbsent(sequence.getStop(i).getStopId(), sequence.getStop(i).getLongName().trim());
+            }
+        }
+        this.stopStats = new ArrayList<>();
+    }
+
+    /**
+     * Procesa el archivo completo. Los datagramas de cada bus deben estar en orden cronológico,
+     * como en el histórico.
+     *
+     * @return Estadísticas del procesamiento
+     */
+    public AnalysisStats analyze(String filePath) throws IOException {
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.println("  ANALIZANDO TIEMPOS DE PERMANENCIA EN PARADAS");
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.println("Archivo: " + filePath);
+        System.out.println();
+
+        long startTime = System.currentTimeMillis();
+
+        DwellDetector detector = new DwellDetector(lineIndex);
+        Map<Integer, SampleList> samplesByStop = new HashMap<>();
+        long[] discarded = new long[1];
+
+        DwellDetector.DwellListener listener = (busId, lineId, stopId, arrivalMillis, departureMillis) -> {
+            int seconds = (int) Math.round((departureMillis - arrivalMillis) / 1000.0);
+            if (seconds > MAX_DWELL_SECONDS) {
+                discarded[0]++;
+            } else {
+                samplesByStop.computeIfAbsent(stopId, k -> new SampleList()).add(seconds);
+            }
+        };
+
+        DatagramReader.ReadStats readStats = new DatagramReader(filePath).readWithFilter(datagram ->
+                detector.onFix(datagram.getBusCode(), datagram.getLineId(), datagram.getLatitude(),
+                        datagram.getLongitude(), datagram.getVelocity(),
+                        datagram.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli(), listener),
+                datagram -> datagram.isValid() && datagram.getTimestamp() != null);
+        detector.flush(listener); // Buses que seguían en una parada al final del archivo
+
+        List<StopDwellStats> result = new ArrayList<>(samplesByStop.size());
+        long dwells = 0;
+        for (Map.Entry<Integer, SampleList> entry : samplesByStop.entrySet()) {
+            SampleList samples = entry.getValue();
+            dwells += samples.size;
+            result.add(summarize(entry.getKey(), samples));
+        }
+        result.sort(Comparator.comparingDouble(StopDwellStats::getMedianSeconds).reversed()
+                .thenComparingInt(StopDwellStats::getStopId));
+        stopStats = result;
+
+        DwellDetector.Stats detectorStats = detector.getStats();
+        AnalysisStats stats = new AnalysisStats(
+                readStats.getProcessedRecords(),
+                detectorStats.getBusesTracked(),
+                dwells,
+                discarded[0],
+                detectorStats.getHaltsAwayFromStops(),
+                result.size(),
+                System.currentTimeMillis() - startTime
+        );
+
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.println("  ANÁLISIS COMPLETADO");
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.println(stats);
+        System.out.println();
+
+        return stats;
+    }
+
+    /**
+     * Estadísticas por parada del último análisis, de mayor a menor mediana
+     */
+    public List<StopDwellStats> getStopStats() {
+        return stopStats;
+    }
+
+    /**
+     * Estadísticas de una parada (null si no tuvo permanencias)
+     */
+    public StopDwellStats getStopStats(int stopId) {
+        for (StopDwellStats stats : stopStats) {
+            if (stats.getStopId() == stopId) return stats;
+        }
+        return null;
+    }
+
+    private StopDwellStats summarize(int stopId, SampleList samples) {
+        int[] seconds = Arrays.copyOf(samples.values, samples.size);
+        Arrays.sort(seconds);
+        long sum = 0;
+        for (int value : seconds) {
+            sum += value;
+        }
+        return new StopDwellStats(stopId, stopNames.getOrDefault(stopId, ""), seconds.length,
+                (double) sum / seconds.length,
+                percentile(seconds, 0.5),
+                percentile(seconds, 0.9),
+                seconds[seconds.length - 1]);
+    }
+
+    /**
+     * Percentil por rango más cercano sobre muestras ordenadas
+     */
+    private static double percentile(int[] sorted, double q) {
+        int rank = (int) Math.ceil(q * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    /**
+     * Lista creciente de enteros (segundos de permanencia de una parada)
+     */
+    private static final class SampleList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * Estadísticas del análisis
+     */
+    public static class AnalysisStats {
+        private final long datagramsRead;
+        private final int busesSeen;
+        private final long dwells;
+        private final long longDwellsDiscarded;
+        private final long haltsAwayFromStops;
+        private final int stopsWithData;
+        private final long durationMs;
+
+        public AnalysisStats(long datagramsRead, int busesSeen, long dwells, long longDwellsDiscarded,
+                             long haltsAwayFromStops, int stopsWithData, long durationMs) {
+            this.datagramsRead = datagramsRead;
+            this.busesSeen = busesSeen;
+            this.dwells = dwells;
+            this.longDwellsDiscarded = longDwellsDiscarded;
+            this.haltsAwayFromStops = haltsAwayFromStops;
+            this.stopsWithData = stopsWithData;
+            this.durationMs = durationMs;
+        }
+
+        public long getDatagramsRead() {
+            return datagramsRead;
+        }
+
+        public int getBusesSeen() {
+            return busesSeen;
+        }
+
+        public long getDwells() {
+            return dwells;
+        }
+
+        public long getLongDwellsDiscarded() {
+            return longDwellsDiscarded;
+        }
+
+        public long getHaltsAwayFromStops() {
+            return haltsAwayFromStops;
+        }
+
+        public int getStopsWithData() {
+            return stopsWithData;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "DwellAnalysisStats[\n" +
+                    "  Datagramas leídos:      %,d\n" +
+                    "  Buses:                  %,d\n" +
+                    "  Permanencias:           %,d\n" +
+                    "  Descartadas (> %.0f min): %,d\n" +
+                    "  Detenciones fuera:      %,d\n" +
+                    "  Paradas con datos:      %,d\n" +
+                    "  Duración:               %.2f s\n" +
+                    "]",
+                    datagramsRead, busesSeen, dwells, MAX_DWELL_SECONDS / 60, longDwellsDiscarded,
+                    haltsAwayFromStops, stopsWithData, durationMs / 1000.0
+            );
+        }
+    }
+}
@@ -65,6 +65,9 @@ public class MioGraphRepository {
         for (File f : lineStopsFiles) {
             grafo.cargarLineStopsYConstruirArcos(f.getAbsolutePath());
         }
+
+        // Transbordos a pie entre paradas cercanas para el cálculo de rutas
+        grafo.generarArcosPeatonales(GrafoMIO.RADIO_PEATONAL_DEFECTO);
     }
 
     public GrafoMIO getGrafo() {
@@ -0,0 +1,702 @@
+package co.edu.icesi.mio.service.analytics;
+
+import co.edu.icesi.mio.infra.csv.DatagramReader;
+import co.edu.icesi.mio.model.analytics.TravelTimeModel;
+import co.edu.icesi.mio.model.realtime.LineSequence;
+import co.edu.icesi.mio.model.streaming.Datagram;
+import co.edu.icesi.mio.service.realtime.LineSequenceIndex;
+import co.edu.icesi.mio.service.realtime.PositionSnapper;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entrenamiento offline del modelo de tiempos de viaje parada a parada.
+ *
+ * Lee el histórico de datagramas una vez y reparte los fixes por bus entre varios workers.
+ * Cada worker ubica los fixes de sus buses sobre las dos orientaciones de la línea (en
+ * corredores compartidos la posición sola no dice el sentido; solo la orientación correcta ve
+ * al bus avanzar), reconstruye el instante en que el bus pasa por cada parada interpolando
+ * entre fixes y acumula el tiempo entre paradas consecutivas en histogramas por
+ * (tramo, hora de la semana). Los histogramas de los workers
+ * se suman y de ellos salen la mediana y el percentil 90 del modelo.
+ *
+ * El último día del histórico no se usa para entrenar: con él se miden los errores del
+ * modelo y los de una estimación por distancia y velocidad media.
+ */
+public class TravelTimeModelTrainer {
+
+    public static final long MAX_FIX_GAP_MS = 5 * 60_000L;          // Hueco que corta un recorrido
+    public static final double BACKTRACK_TOLERANCE_METERS = 50.0;   // Retroceso tolerado por ruido GPS
+    public static final int OUTLIERS_TO_RESET = 3;                  // Saltos seguidos que reinician el recorrido
+    public static final double MAX_TRAVERSAL_SECONDS = 1800.0;
+    public static final double MAX_SPEED_KMH = 90.0;
+    public static final int MIN_HOURLY_SAMPLES = 5;
+    public static final int MIN_ARC_SAMPLES = 3;
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int QUEUE_CAPACITY = 64;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    // Histograma geométrico de 1 s a 1 h (~7% por casilla)
+    private static final int BINS = 120;
+    private static final double LOG_BIN_RATIO = Math.log(3600.0) / BINS;
+
+    private static final List<Datagram> END_OF_INPUT = new ArrayList<>(0);
+
+    private final LineSequenceIndex lineIndex;
+    private TravelTimeModel model;
+
+    public TravelTimeModelTrainer(LineSequenceIndex lineIndex) {
+        this.lineIndex = lineIndex;
+    }
+
+    /**
+     * Entrena el modelo con todo el archivo de datagramas
+     *
+     * @param numThreads Workers de reconstrucción (los buses se reparten entre ellos)
+     * @return Estadísticas del entrenamiento y de la validación con el día reservado
+     */
+    public TrainingStats train(String filePath, int numThreads) throws IOException, InterruptedException {
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.println("  ENTRENANDO MODELO DE TIEMPOS DE VIAJE");
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.println("Archivo: " + filePath);
+        System.out.println("Workers: " + numThreads);
+        System.out.println();
+
+        long startTime = System.currentTimeMillis();
+
+        TravelTimeModel.Builder builder = new TravelTimeModel.Builder(lineIndex.getSequences());
+        double[] arcLengths = new double[builder.getArcCount()];
+        for (LineSequence sequence : lineIndex.getSequences()) {
+            int firstArc = builder.firstArcIndex(sequence);
+            for (int p = 0; p + 1 < sequence.size(); p++) {
+                arcLengths[firstArc + p] = sequence.distanceBetween(p, p + 1);
+            }
+        }
+
+        PositionSnapper snapper = new PositionSnapper(lineIndex);
+        List<BlockingQueue<List<Datagram>>> queues = new ArrayList<>();
+        List<Future<PartitionResult>> futures = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        DatagramReader.ReadStats readStats;
+        List<PartitionResult> partitions = new ArrayList<>();
+
+        try {
+            for (int w = 0; w < numThreads; w++) {
+                BlockingQueue<List<Datagram>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+                queues.add(queue);
+                futures.add(executor.submit(new PartitionWorker(queue, snapper, builder, arcLengths)));
+            }
+
+            // Lectura secuencial; cada bus va siempre al mismo worker
+            List<List<Datagram>> batches = new ArrayList<>();
+            for (int w = 0; w < numThreads; w++) {
+                batches.add(new ArrayList<>(BATCH_SIZE));
+            }
+            readStats = new DatagramReader(filePath).readWithFilter(datagram -> {
+                int w = Math.floorMod(datagram.getBusCode(), numThreads);
+                List<Datagram> batch = batches.get(w);
+                batch.add(datagram);
+                if (batch.size() >= BATCH_SIZE) {
+                    dispatch(queues.get(w), futures.get(w), batch);
+                    batches.set(w, new ArrayList<>(BATCH_SIZE));
+                }
+            }, datagram -> datagram.isValid() && datagram.getTimestamp() != null);
+
+            for (int w = 0; w < numThreads; w++) {
+                if (!batches.get(w).isEmpty()) {
+                    dispatch(queues.get(w), futures.get(w), batches.get(w));
+                }
+                dispatch(queues.get(w), futures.get(w), END_OF_INPUT);
+            }
+
+            for (Future<PartitionResult> future : futures) {
+                partitions.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error entrenando el modelo de tiempos de viaje", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // El día más reciente queda para validación; lo demás se suma al entrenamiento
+        long heldOutDay = Long.MIN_VALUE;
+        for (PartitionResult partition : partitions) {
+            heldOutDay = Math.max(heldOutDay, partition.pendingDay);
+        }
+
+        Map<Integer, int[]> histograms = new HashMap<>();
+        SampleBuffer heldOut = new SampleBuffer();
+        long fixesSnapped = 0, traversals = 0;
+        double trainingMeters = 0, trainingSeconds = 0;
+        for (PartitionResult partition : partitions) {
+            fixesSnapped += partition.fixesSnapped;
+            traversals += partition.traversals;
+            trainingMeters += partition.trainingMeters;
+            trainingSeconds += partition.trainingSeconds;
+            partition.histograms.forEach((cell, histogram) -> mergeInto(histograms, cell, histogram));
+
+            if (partition.pendingDay == heldOutDay) {
+                heldOut.addAll(partition.pending);
+            } else {
+                for (int i = 0; i < partition.pending.size(); i++) {
+                    addSample(histograms, partition.pending.cells[i], partition.pending.seconds[i]);
+                    trainingMeters += arcLengths[partition.pending.cells[i] / TravelTimeModel.HOURS_PER_WEEK];
+                    trainingSeconds += partition.pending.seconds[i];
+                }
+            }
+        }
+
+        // Con un solo día no hay con qué validar: se entrena con todo
+        if (histograms.isEmpty() && heldOut.size() > 0) {
+            for (int i = 0; i < heldOut.size(); i++) {
+                addSample(histograms, heldOut.cells[i], heldOut.seconds[i]);
+                trainingMeters += arcLengths[heldOut.cells[i] / TravelTimeModel.HOURS_PER_WEEK];
+                trainingSeconds += heldOut.seconds[i];
+            }
+            heldOut = new SampleBuffer();
+        }
+
+        long trainingSamples = buildModel(builder, histograms);
+        model = builder.build();
+
+        double averageSpeed = trainingSeconds > 0 ? trainingMeters / trainingSeconds : 0;
+        EvaluationStats evaluation = heldOut.size() > 0
+                ? evaluate(model, heldOut, arcLengths, averageSpeed, LocalDate.ofEpochDay(heldOutDay))
+                : null;
+
+        TrainingStats stats = new TrainingStats(
+                readStats.getProcessedRecords(),
+                fixesSnapped,
+                traversals,
+                trainingSamples,
+                model.getArcsWithData(),
+                model.getArcCount(),
+                model.getHourlyCellsWithData(),
+                averageSpeed * 3.6,
+                System.currentTimeMillis() - startTime,
+                evaluation
+        );
+
+        System.out.println("\n═══════════════════════════════════════════════════════════");
+        System.out.println("  ENTRENAMIENTO COMPLETADO");
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.println(stats);
+        System.out.println();
+
+        return stats;
+    }
+
+    /**
+     * Modelo del último entrenamiento (null si aún no se entrenó)
+     */
+    public TravelTimeModel getModel() {
+        return model;
+    }
+
+    /**
+     * Encola un batch para su worker sin bloquear para siempre si el worker falló
+     */
+    private static void dispatch(BlockingQueue<List<Datagram>> queue, Future<PartitionResult> worker,
+                                 List<Datagram> batch) {
+        try {
+            while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                if (worker.isDone()) {
+                    worker.get();
+                    throw new IllegalStateException("Un worker de entrenamiento terminó antes de tiempo");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Entrenamiento interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error entrenando el modelo de tiempos de viaje", e.getCause());
+        }
+    }
+
+    /**
+     * Pasa los histogramas al builder
+     *
+     * @return Número de muestras de entrenamiento
+     */
+    private static long buildModel(TravelTimeModel.Builder builder, Map<Integer, int[]> histograms) {
+        Map<Integer, int[]> byArc = new HashMap<>();
+        long samples = 0;
+
+        for (Map.Entry<Integer, int[]> entry : histograms.entrySet()) {
+            int cell = entry.getKey();
+            int[] histogram = entry.getValue();
+            int count = Arrays.stream(histogram).sum();
+            samples += count;
+
+            if (count >= MIN_HOURLY_SAMPLES) {
+                builder.hourly(cell / TravelTimeModel.HOURS_PER_WEEK, cell % TravelTimeModel.HOURS_PER_WEEK,
+                        quantile(histogram, count, 0.5), quantile(histogram, count, 0.9));
+            }
+            mergeInto(byArc, cell / TravelTimeModel.HOURS_PER_WEEK, histogram);
+        }
+
+        for (Map.Entry<Integer, int[]> entry : byArc.entrySet()) {
+            int[] histogram = entry.getValue();
+            int count = Arrays.stream(histogram).sum();
+            if (count >= MIN_ARC_SAMPLES) {
+                builder.overall(entry.getKey(), quantile(histogram, count, 0.5),
+                        quantile(histogram, count, 0.9), count);
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * Compara el modelo con la estimación por distancia y velocidad media en el día reservado
+     */
+    private static EvaluationStats evaluate(TravelTimeModel model, SampleBuffer heldOut, double[] arcLengths,
+                                            double averageSpeed, LocalDate heldOutDate) {
+        int covered = 0, withinP90 = 0;
+        double modelAbsError = 0, baselineAbsError = 0;
+        double modelRelError = 0, baselineRelError = 0;
+
+        for (int i = 0; i < heldOut.size(); i++) {
+            int arc = heldOut.cells[i] / TravelTimeModel.HOURS_PER_WEEK;
+            int hour = heldOut.cells[i] % TravelTimeModel.HOURS_PER_WEEK;
+            double actual = heldOut.seconds[i];
+
+            double predicted = model.predictSeconds(arc, hour);
+            if (predicted < 0 || averageSpeed <= 0) continue;
+
+            double baseline = arcLengths[arc] / averageSpeed;
+            covered++;
+            modelAbsError += Math.abs(predicted - actual);
+            baselineAbsError += Math.abs(baseline - actual);
+            modelRelError += Math.abs(predicted - actual) / actual;
+            baselineRelError += Math.abs(baseline - actual) / actual;
+            if (actual <= model.predictP90Seconds(arc, hour)) withinP90++;
+        }
+
+        int n = Math.max(covered, 1);
+        return new EvaluationStats(heldOutDate, heldOut.size(), covered,
+                modelAbsError / n, baselineAbsError / n,
+                modelRelError / n * 100, baselineRelError / n * 100,
+                withinP90 * 100.0 / n);
+    }
+
+    private static void addSample(Map<Integer, int[]> histograms, int cell, double seconds) {
+        histograms.computeIfAbsent(cell, k -> new int[BINS])[binOf(seconds)]++;
+    }
+
+    private static void mergeInto(Map<Integer, int[]> target, int key, int[] histogram) {
+        int[] sum = target.computeIfAbsent(key, k -> new int[BINS]);
+        for (int b = 0; b < BINS; b++) {
+            sum[b] += histogram[b];
+        }
+    }
+
+    private static int binOf(double seconds) {
+        int bin = (int) (Math.log(Math.max(seconds, 1.0)) / LOG_BIN_RATIO);
+        return Math.min(bin, BINS - 1);
+    }
+
+    /**
+     * Cuantil aproximado: centro geométrico de la casilla donde cae
+     */
+    private static double quantile(int[] histogram, int count, double q) {
+        double target = q * count;
+        int accumulated = 0;
+        for (int b = 0; b < BINS; b++) {
+            accumulated += histogram[b];
+            if (accumulated >= target && accumulated > 0) {
+                return Math.exp((b + 0.5) * LOG_BIN_RATIO);
+            }
+        }
+        return Math.exp((BINS - 0.5) * LOG_BIN_RATIO);
+    }
+
+    /**
+     * Reconstruye los tramos recorridos por los buses de una partición
+     */
+    private static final class PartitionWorker implements Callable<PartitionResult> {
+        private final BlockingQueue<List<Datagram>> queue;
+        private final TravelTimeModel.Builder layout;
+        private final double[] arcLengths;
+        private final PositionSnapper snapper;         // Compartido: snapToOrientation no guarda estado
+        private final PositionSnapper.SnapResult snap;
+        private final Map<Integer, BusTrack[]> tracks; // Un seguimiento por orientación
+        private final PartitionResult result;
+
+        PartitionWorker(BlockingQueue<List<Datagram>> queue, PositionSnapper snapper,
+                        TravelTimeModel.Builder layout, double[] arcLengths) {
+            this.queue = queue;
+            this.layout = layout;
+            this.arcLengths = arcLengths;
+            this.snapper = snapper;
+            this.snap = new PositionSnapper.SnapResult();
+            this.tracks = new HashMap<>();
+            this.result = new PartitionResult();
+        }
+
+        @Override
+        public PartitionResult call() throws InterruptedException {
+            List<Datagram> batch;
+            while ((batch = queue.take()) != END_OF_INPUT) {
+                for (Datagram datagram : batch) {
+                    process(datagram);
+                }
+            }
+            return result;
+        }
+
+        private void process(Datagram datagram) {
+            long millis = datagram.getTimestamp().toEpochSecond(ZoneOffset.UTC) * 1000;
+            BusTrack[] busTracks = tracks.computeIfAbsent(datagram.getBusCode(),
+                    id -> new BusTrack[] {new BusTrack(), new BusTrack()});
+
+            boolean snapped = false;
+            for (int orientation = 0; orientation <= 1; orientation++) {
+                if (snapper.snapToOrientation(datagram.getLineId(), orientation,
+                        datagram.getLatitude(), datagram.getLongitude(), snap)) {
+                    snapped = true;
+                    advance(busTracks[orientation], millis);
+                }
+            }
+            if (snapped) {
+                result.fixesSnapped++;
+            }
+        }
+
+        /**
+         * Avanza el seguimiento de una orientación con el fix ubicado en snap
+         */
+        private void advance(BusTrack track, long millis) {
+            LineSequence sequence = snap.getSequence();
+            int position = snap.getSequencePosition();
+            double along = sequence.getCumulativeDistance(position)
+                    + snap.getProgress() * sequence.distanceBetween(position, position + 1);
+
+            if (track.sequence != null && millis <= track.lastMillis) {
+                return; // Repetido o fuera de orden
+            }
+
+            // Retrocesos y avances imposibles: ruido, otra pasada por la misma calle o la
+            // orientación contraria. Si se repiten, el bus empezó otro recorrido.
+            boolean continuous = track.sequence == sequence && millis - track.lastMillis <= MAX_FIX_GAP_MS;
+            if (continuous) {
+                double maxAdvance = (millis - track.lastMillis) / 1000.0 * MAX_SPEED_KMH / 3.6 + BACKTRACK_TOLERANCE_METERS;
+                boolean jump = along < track.lastAlong - BACKTRACK_TOLERANCE_METERS || along - track.lastAlong > maxAdvance;
+                if (jump && ++track.outliers < OUTLIERS_TO_RESET) {
+                    return;
+                }
+                continuous = !jump;
+            }
+            track.outliers = 0;
+
+            if (!continuous) {
+                track.reset(sequence, layout.firstArcIndex(sequence), position, along, millis);
+                return;
+            }
+            if (along <= track.lastAlong) {
+                track.lastMillis = millis; // Detenido: el paso por la parada se toma al salir
+                return;
+            }
+
+            // Instante de paso por cada parada entre el fix anterior y este
+            for (int k = track.lastPosition + 1; k <= position; k++) {
+                double stopAlong = sequence.getCumulativeDistance(k);
+                long crossing = track.lastMillis + Math.round((stopAlong - track.lastAlong)
+                        / (along - track.lastAlong) * (millis - track.lastMillis));
+
+                if (track.lastCrossPosition == k - 1) {
+                    record(track.firstArc + k - 1, track.lastCrossMillis, (crossing - track.lastCrossMillis) / 1000.0);
+                }
+                track.lastCrossPosition = k;
+                track.lastCrossMillis = crossing;
+            }
+            track.lastPosition = position;
+            track.lastAlong = along;
+            track.lastMillis = millis;
+        }
+
+        private void record(int arcIndex, long departureMillis, double seconds) {
+            double meters = arcLengths[arcIndex];
+            if (seconds <= 0 || seconds > MAX_TRAVERSAL_SECONDS || meters / seconds * 3.6 > MAX_SPEED_KMH) {
+                return;
+            }
+            result.traversals++;
+
+            int cell = arcIndex * TravelTimeModel.HOURS_PER_WEEK + TravelTimeModel.hourOfWeek(departureMillis);
+            long day = Math.floorDiv(departureMillis, MILLIS_PER_DAY);
+
+            // Se retienen las muestras del día más reciente visto (candidato a validación)
+            if (day > result.pendingDay) {
+                for (int i = 0; i < result.pending.size(); i++) {
+                    addSample(result.histograms, result.pending.cells[i], result.pending.seconds[i]);
+                    result.trainingMeters += arcLengths[result.pending.cells[i] / TravelTimeModel.HOURS_PER_WEEK];
+                    result.trainingSeconds += result.pending.seconds[i];
+                }
+                result.pending.clear();
+                result.pendingDay = day;
+            }
+            if (day == result.pendingDay) {
+                result.pending.add(cell, (float) seconds);
+            } else {
+                addSample(result.histograms, cell, seconds);
+                result.trainingMeters += meters;
+                result.trainingSeconds += seconds;
+            }
+        }
+    }
+
+    /**
+     * Estado de reconstrucción de un bus
+     */
+    private static final class BusTrack {
+        LineSequence sequence;
+        int firstArc;
+        int lastPosition;
+        double lastAlong;
+        long lastMillis;
+        int lastCrossPosition;
+        long lastCrossMillis;
+        int outliers;
+
+        void reset(LineSequence sequence, int firstArc, int position, double along, long millis) {
+            this.sequence = sequence;
+            this.firstArc = firstArc;
+            this.lastPosition = position;
+            this.lastAlong = along;
+            this.lastMillis = millis;
+            this.lastCrossPosition = -1;
+        }
+    }
+
+    private static final class PartitionResult {
+        final Map<Integer, int[]> histograms = new HashMap<>();
+        final SampleBuffer pending = new SampleBuffer();
+        long pendingDay = Long.MIN_VALUE;
+        long fixesSnapped;
+        long traversals;
+        double trainingMeters;
+        double trainingSeconds;
+    }
+
+    /**
+     * Muestras (celda, segundos) en arreglos primitivos que crecen al doble
+     */
+    private static final class SampleBuffer {
+        int[] cells = new int[1024];
+        float[] seconds = new float[1024];
+        private int size;
+
+        void add(int cell, float value) {
+            if (size == cells.length) {
+                cells = Arrays.copyOf(cells, size * 2);
+                seconds = Arrays.copyOf(seconds, size * 2);
+            }
+            cells[size] = cell;
+            seconds[size++] = value;
+        }
+
+        void addAll(SampleBuffer other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.cells[i], other.seconds[i]);
+            }
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Errores del modelo en el día reservado
+     */
+    public static class EvaluationStats {
+        private final LocalDate heldOutDate;
+        private final int samples;
+        private final int coveredSamples;
+        private final double modelMaeSeconds;
+        private final double baselineMaeSeconds;
+        private final double modelMapePercent;
+        private final double baselineMapePercent;
+        private final double withinP90Percent;
+
+        public EvaluationStats(LocalDate heldOutDate, int samples, int coveredSamples,
+                               double modelMaeSeconds, double baselineMaeSeconds,
+                               double modelMapePercent, double baselineMapePercent,
+                               double withinP90Percent) {
+            this.heldOutDate = heldOutDate;
+            this.samples = samples;
+            this.coveredSamples = coveredSamples;
+            this.modelMaeSeconds = modelMaeSeconds;
+            this.baselineMaeSeconds = baselineMaeSeconds;
+            this.modelMapePercent = modelMapePercent;
+            this.baselineMapePercent = baselineMapePercent;
+            this.withinP90Percent = withinP90Percent;
+        }
+
+        public LocalDate getHeldOutDate() {
+            return heldOutDate;
+        }
+
+        public int getSamples() {
+            return samples;
+        }
+
+        public int getCoveredSamples() {
+            return coveredSamples;
+        }
+
+        public double getCoveragePercent() {
+            return samples > 0 ? coveredSamples * 100.0 / samples : 0;
+        }
+
+        public double getModelMaeSeconds() {
+            return modelMaeSeconds;
+        }
+
+        public double getBaselineMaeSeconds() {
+            return baselineMaeSeconds;
+        }
+
+        public double getModelMapePercent() {
+            return modelMapePercent;
+        }
+
+        public double getBaselineMapePercent() {
+            return baselineMapePercent;
+        }
+
+        public double getWithinP90Percent() {
+            return withinP90Percent;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "Validación (día %s):\n" +
+                    "  Tramos observados:      %,d\n" +
+                    "  Cubiertos por modelo:   %,d (%.1f%%)\n" +
+                    "  Error medio modelo:     %.1f s (%.1f%%)\n" +
+                    "  Error medio distancia:  %.1f s (%.1f%%)\n" +
+                    "  Dentro del P90:         %.1f%%",
+                    heldOutDate, samples, coveredSamples, getCoveragePercent(),
+                    modelMaeSeconds, modelMapePercent,
+                    baselineMaeSeconds, baselineMapePercent,
+                    withinP90Percent
+            );
+        }
+    }
+
+    /**
+     * Estadísticas del entrenamiento
+     */
+    public static class TrainingStats {
+        private final long datagramsRead;
+        private final long fixesSnapped;
+        private final long traversals;
+        private final long trainingSamples;
+        private final int arcsWithData;
+        private final int totalArcs;
+        private final int hourlyCells;
+        private final double averageSpeedKmh;
+        private final long durationMs;
+        private final EvaluationStats evaluation;
+
+        public TrainingStats(long datagramsRead, long fixesSnapped, long traversals, long trainingSamples,
+                             int arcsWithData, int totalArcs, int hourlyCells, double averageSpeedKmh,
+                             long durationMs, EvaluationStats evaluation) {
+            this.datagramsRead = datagramsRead;
+            this.fixesSnapped = fixesSnapped;
+            this.traversals = traversals;
+            this.trainingSamples = trainingSamples;
+            this.arcsWithData = arcsWithData;
+            this.totalArcs = totalArcs;
+            this.hourlyCells = hourlyCells;
+            this.averageSpeedKmh = averageSpeedKmh;
+            this.durationMs = durationMs;
+            this.evaluation = evaluation;
+        }
+
+        public long getDatagramsRead() {
+            return datagramsRead;
+        }
+
+        public long getFixesSnapped() {
+            return fixesSnapped;
+        }
+
+        public long getTraversals() {
+            return traversals;
+        }
+
+        public long getTrainingSamples() {
+            return trainingSamples;
+        }
+
+        public int getArcsWithData() {
+            return arcsWithData;
+        }
+
+        public int getTotalArcs() {
+            return totalArcs;
+        }
+
+        public int getHourlyCells() {
+            return hourlyCells;
+        }
+
+        public double getAverageSpeedKmh() {
+            return averageSpeedKmh;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+
+        /**
+         * Validación con el día reservado (null si el histórico tenía un solo día)
+         */
+        public EvaluationStats getEvaluation() {
+            return evaluation;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "TrainingStats[\n" +
+                    "  Datagramas leídos:      %,d\n" +
+                    "  Fixes ubicados:         %,d\n" +
+                    "  Tramos reconstruidos:   %,d\n" +
+                    "  Muestras entrenamiento: %,d\n" +
+                    "  Tramos con datos:       %,d de %,d\n" +
+                    "  Celdas horarias:        %,d\n" +
+                    "  Velocidad media:        %.1f km/h\n" +
+                    "  Duración:               %.2f s\n" +
+                    "]\n%s",
+                    datagramsRead, fixesSnapped, traversals, trainingSamples,
+                    arcsWithData, totalArcs, hourlyCells, averageSpeedKmh,
+                    durationMs / 1000.0,
+                    evaluation != null ? evaluation : "Validación: el histórico tiene un solo día"
+            );
+        }
+    }
+}
@@ -6,15 +6,20 @@ import co.edu.icesi.mio.model.events.BusEventListener;
 import co.edu.icesi.mio.model.events.BusEventStore;
 import co.edu.icesi.mio.service.notifications.NotificationService;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 /**
  * Manejador de eventos de buses.
- * Procesa eventos entrantes, los almacena y notifica a los controladores suscritos.
+ * Procesa eventos entrantes, los almacena, los reenvía a los suscriptores registrados
+ * (p. ej. la capa de incidentes del cálculo de rutas) y notifica a los controladores suscritos.
  */
 public class BusEventHandler implements BusEventListener {
 
     private final ConcurrencyManager concurrencyManager;
     private final BusEventStore store;
     private final NotificationService notificationService;
+    private final List<BusEventListener> listeners;
 
     public BusEventHandler(ConcurrencyManager concurrencyManager,
                           BusEventStore store,
@@ -22,6 +27,14 @@ public class BusEventHandler implements BusEventListener {
         this.concurrencyManager = concurrencyManager;
         this.store = store;
         this.notificationService = notificationService;
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Registra un suscriptor que recibe cada evento después de almacenarlo
+     */
+    public void addListener(BusEventListener listener) {
+        listeners.add(listener);
     }
 
     @Override
@@ -47,7 +60,12 @@ public class BusEventHandler implements BusEventListener {
         System.out.println("═══════════════════════════════════════");
         System.out.println();
 
-        // 3. Enviar notificación a controladores (solo eventos de alta prioridad)
+        // 3. Reenviar a los suscriptores
+        for (BusEventListener listener : listeners) {
+            listener.onBusEvent(event);
+        }
+
+        // 4. Enviar notificación a controladores (solo eventos de alta prioridad)
         notificationService.notifyEvent(event);
     }
 }
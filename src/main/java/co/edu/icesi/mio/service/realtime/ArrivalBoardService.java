@@ -0,0 +1,372 @@
+package co.edu.icesi.mio.service.realtime;
+
+import co.edu.icesi.mio.model.realtime.BusPosition;
+import co.edu.icesi.mio.model.realtime.LineSequence;
+import co.edu.icesi.mio.model.realtime.StopArrival;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tableros de llegadas por parada, mantenidos con las posiciones en vivo.
+ *
+ * Con cada posición de un bus se recalculan solo las llegadas a las paradas siguientes de su
+ * recorrido y se actualizan los tableros de esas paradas (y de las que el bus dejó atrás).
+ * Cada tablero es un arreglo ordenado por hora de llegada que se reemplaza completo en cada
+ * cambio y se publica con una referencia volatile: las lecturas no toman locks y ven siempre
+ * un estado consistente. "Próximas N llegadas" cuesta una búsqueda binaria más N pasos.
+ *
+ * El reloj del tablero es la hora de la posición más reciente recibida, de modo que funciona
+ * igual con datos en vivo y con streams simulados.
+ */
+public class ArrivalBoardService {
+
+    public static final int DEFAULT_HORIZON_STOPS = 30;
+    public static final Duration DEFAULT_STALE_AFTER = Duration.ofMinutes(5);
+
+    private final ETACalculatorService etaService;
+    private final LineSequenceIndex lineIndex;
+    private final int horizonStops;
+    private final long staleAfterMillis;
+
+    private final Map<Integer, StopBoard> boards;
+    private final Map<Integer, int[]> stopsByBus;      // Paradas en cuyo tablero figura cada bus
+    private final ThreadLocal<double[]> minutesBuffer;
+    private final AtomicLong clockMillis;
+    private final AtomicLong positionUpdates;
+    private final AtomicLong boardWrites;
+
+    public ArrivalBoardService(ETACalculatorService etaService) {
+        this(etaService, DEFAULT_HORIZON_STOPS, DEFAULT_STALE_AFTER);
+    }
+
+    /**
+     * @param horizonStops Número de paradas siguientes en las que se publica cada bus
+     * @param staleAfter Tiempo sin posiciones tras el cual las llegadas de un bus se ocultan
+     */
+    public ArrivalBoardService(ETACalculatorService etaService, int horizonStops, Duration staleAfter) {
+        this.etaService = etaService;
+        this.lineIndex = etaService.getLineIndex();
+        this.horizonStops = horizonStops;
+        this.staleAfterMillis = staleAfter.toMillis();
+        this.boards = new ConcurrentHashMap<>();
+        this.stopsByBus = new ConcurrentHashMap<>();
+        this.minutesBuffer = ThreadLocal.withInitial(() -> new double[horizonStops]);
+        this.clockMillis = new AtomicLong(Long.MIN_VALUE);
+        this.positionUpdates = new AtomicLong(0);
+        this.boardWrites = new AtomicLong(0);
+    }
+
+    /**
+     * Procesa una posición en vivo. Las posiciones sin paradas (no ubicadas en su línea) se
+     * ignoran y las llegadas anteriores del bus se mantienen hasta quedar obsoletas.
+     */
+    public void onPosition(BusPosition position) {
+        if (!position.hasStops()) {
+            return;
+        }
+
+        LineSequence sequence = lineIndex.find(position.getLineId(),
+                position.getCurrentStopId(), position.getNextStopId());
+        if (sequence == null) {
+            return;
+        }
+        int nextPosition = sequence.locateNextStop(position.getCurrentStopId(), position.getNextStopId());
+
+        double[] minutes = minutesBuffer.get();
+        int count = etaService.estimateDownstreamMinutes(position, sequence, nextPosition, minutes);
+        long updatedMillis = toMillis(position.getTimestamp());
+        clockMillis.accumulateAndGet(updatedMillis, Math::max);
+        positionUpdates.incrementAndGet();
+
+        int busId = position.getBusId();
+        int lineId = position.getLineId();
+
+        // compute serializa las actualizaciones de un mismo bus
+        stopsByBus.compute(busId, (id, previousStops) -> {
+            int[] stops = new int[count];
+            int published = 0;
+            for (int i = 0; i < count; i++) {
+                int stopId = sequence.getStop(nextPosition + i).getStopId();
+                if (contains(stops, published, stopId)) continue; // Recorridos circulares: la primera pasada
+
+                stops[published++] = stopId;
+                long arrivalMillis = updatedMillis + Math.round(minutes[i] * 60_000);
+                boardFor(stopId).upsert(busId, lineId, arrivalMillis, updatedMillis);
+                boardWrites.incrementAndGet();
+            }
+
+            // Quitar al bus de las paradas que ya dejó atrás
+            if (previousStops != null) {
+                for (int stopId : previousStops) {
+                    if (!contains(stops, published, stopId)) {
+                        boardFor(stopId).remove(busId);
+                        boardWrites.incrementAndGet();
+                    }
+                }
+            }
+            return published == stops.length ? stops : Arrays.copyOf(stops, published);
+        });
+    }
+
+    /**
+     * Quita un bus de todos los tableros (p. ej. fuera de servicio)
+     */
+    public void removeBus(int busId) {
+        stopsByBus.computeIfPresent(busId, (id, stops) -> {
+            for (int stopId : stops) {
+                boardFor(stopId).remove(busId);
+                boardWrites.incrementAndGet();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Próximas n llegadas a la parada según el reloj del tablero
+     */
+    public List<StopArrival> getNextArrivals(int stopId, int n) {
+        long now = clockMillis.get();
+        if (now == Long.MIN_VALUE) {
+            return new ArrayList<>();
+        }
+        return getNextArrivals(stopId, n, toDateTime(now));
+    }
+
+    /**
+     * Próximas n llegadas a la parada desde la hora dada, sin buses con posiciones obsoletas
+     */
+    public List<StopArrival> getNextArrivals(int stopId, int n, LocalDateTime now) {
+        List<StopArrival> arrivals = new ArrayList<>(n);
+        StopBoard board = boards.get(stopId);
+        if (board == null) {
+            return arrivals;
+        }
+
+        Board snapshot = board.snapshot;
+        long nowMillis = toMillis(now);
+        long freshAfter = nowMillis - staleAfterMillis;
+        for (int i = snapshot.firstAtOrAfter(nowMillis); i < snapshot.size() && arrivals.size() < n; i++) {
+            if (snapshot.updatedMillis[i] < freshAfter) continue;
+            arrivals.add(new StopArrival(stopId, snapshot.busIds[i], snapshot.lineIds[i],
+                    toDateTime(snapshot.arrivalMillis[i]), (snapshot.arrivalMillis[i] - nowMillis) / 60_000.0,
+                    toDateTime(snapshot.updatedMillis[i])));
+        }
+        return arrivals;
+    }
+
+    /**
+     * Hora del tablero: la de la posición más reciente recibida (null si aún no hay)
+     */
+    public LocalDateTime getClock() {
+        long now = clockMillis.get();
+        return now == Long.MIN_VALUE ? null : toDateTime(now);
+    }
+
+    public Stats getStats() {
+        long entries = 0;
+        int stopsWithArrivals = 0;
+        for (StopBoard board : boards.values()) {
+            int size = board.snapshot.size();
+            entries += size;
+            if (size > 0) stopsWithArrivals++;
+        }
+        return new Stats(stopsByBus.size(), stopsWithArrivals, entries,
+                positionUpdates.get(), boardWrites.get());
+    }
+
+    private StopBoard boardFor(int stopId) {
+        return boards.computeIfAbsent(stopId, id -> new StopBoard());
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) return true;
+        }
+        return false;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    /**
+     * Tablero de una parada. Las escrituras se serializan en el tablero y reemplazan la
+     * instantánea; las lecturas solo leen la referencia volatile.
+     */
+    private static final class StopBoard {
+        private volatile Board snapshot = Board.EMPTY;
+
+        synchronized void upsert(int busId, int lineId, long arrivalMillis, long updatedMillis) {
+            snapshot = snapshot.with(busId, lineId, arrivalMillis, updatedMillis);
+        }
+
+        synchronized void remove(int busId) {
+            Board current = snapshot;
+            if (current.indexOfBus(busId) >= 0) {
+                snapshot = current.without(busId);
+            }
+        }
+    }
+
+    /**
+     * Instantánea inmutable de un tablero: llegadas ordenadas por hora en arreglos paralelos
+     */
+    private static final class Board {
+        static final Board EMPTY = new Board(new int[0], new int[0], new long[0], new long[0]);
+
+        final int[] busIds;
+        final int[] lineIds;
+        final long[] arrivalMillis;
+        final long[] updatedMillis;
+
+        Board(int[] busIds, int[] lineIds, long[] arrivalMillis, long[] updatedMillis) {
+            this.busIds = busIds;
+            this.lineIds = lineIds;
+            this.arrivalMillis = arrivalMillis;
+            this.updatedMillis = updatedMillis;
+        }
+
+        int size() {
+            return busIds.length;
+        }
+
+        int indexOfBus(int busId) {
+            for (int i = 0; i < busIds.length; i++) {
+                if (busIds[i] == busId) return i;
+            }
+            return -1;
+        }
+
+        /**
+         * Primera posición con llegada >= millis (búsqueda binaria)
+         */
+        int firstAtOrAfter(long millis) {
+            int lo = 0, hi = arrivalMillis.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (arrivalMillis[mid] < millis) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+
+        /**
+         * Copia sin el bus y con su nueva llegada en la posición que le corresponde
+         */
+        Board with(int busId, int lineId, long arrival, long updated) {
+            int existing = indexOfBus(busId);
+            int size = existing >= 0 ? busIds.length : busIds.length + 1;
+            int[] newBus = new int[size];
+            int[] newLine = new int[size];
+            long[] newArrival = new long[size];
+            long[] newUpdated = new long[size];
+
+            int j = 0;
+            boolean inserted = false;
+            for (int i = 0; i < busIds.length; i++) {
+                if (i == existing) continue;
+                if (!inserted && arrivalMillis[i] > arrival) {
+                    newBus[j] = busId;
+                    newLine[j] = lineId;
+                    newArrival[j] = arrival;
+                    newUpdated[j++] = updated;
+                    inserted = true;
+                }
+                newBus[j] = busIds[i];
+                newLine[j] = lineIds[i];
+                newArrival[j] = arrivalMillis[i];
+                newUpdated[j++] = updatedMillis[i];
+            }
+            if (!inserted) {
+                newBus[j] = busId;
+                newLine[j] = lineId;
+                newArrival[j] = arrival;
+                newUpdated[j] = updated;
+            }
+            return new Board(newBus, newLine, newArrival, newUpdated);
+        }
+
+        Board without(int busId) {
+            int existing = indexOfBus(busId);
+            int size = busIds.length - 1;
+            int[] newBus = new int[size];
+            int[] newLine = new int[size];
+            long[] newArrival = new long[size];
+            long[] newUpdated = new long[size];
+            for (int i = 0, j = 0; i < busIds.length; i++) {
+                if (i == existing) continue;
+                newBus[j] = busIds[i];
+                newLine[j] = lineIds[i];
+                newArrival[j] = arrivalMillis[i];
+                newUpdated[j++] = updatedMillis[i];
+            }
+            return new Board(newBus, newLine, newArrival, newUpdated);
+        }
+    }
+
+    /**
+     * Estadísticas de los tableros
+     */
+    public static class Stats {
+        private final int busesTracked;
+        private final int stopsWithArrivals;
+        private final long entries;
+        private final long positionUpdates;
+        private final long boardWrites;
+
+        public Stats(int busesTracked, int stopsWithArrivals, long entries,
+                     long positionUpdates, long boardWrites) {
+            this.busesTracked = busesTracked;
+            this.stopsWithArrivals = stopsWithArrivals;
+            this.entries = entries;
+            this.positionUpdates = positionUpdates;
+            this.boardWrites = boardWrites;
+        }
+
+        public int getBusesTracked() {
+            return busesTracked;
+        }
+
+        public int getStopsWithArrivals() {
+            return stopsWithArrivals;
+        }
+
+        public long getEntries() {
+            return entries;
+        }
+
+        public long getPositionUpdates() {
+            return positionUpdates;
+        }
+
+        public long getBoardWrites() {
+            return boardWrites;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "ArrivalBoardStats[\n" +
+                    "  Buses en tableros:      %,d\n" +
+                    "  Paradas con llegadas:   %,d\n" +
+                    "  Llegadas publicadas:    %,d\n" +
+                    "  Posiciones procesadas:  %,d\n" +
+                    "  Escrituras a tableros:  %,d\n" +
+                    "]",
+                    busesTracked, stopsWithArrivals, entries, positionUpdates, boardWrites
+            );
+        }
+    }
+}
@@ -0,0 +1,494 @@
+package co.edu.icesi.mio.service.realtime;
+
+import co.edu.icesi.mio.model.realtime.BusPosition;
+import co.edu.icesi.mio.model.realtime.NearbyBus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Índice espacial concurrente de las posiciones en vivo de los buses.
+ *
+ * Las coordenadas se proyectan a metros alrededor de una latitud de referencia (la de la ciudad)
+ * y el plano se divide en una grilla uniforme de celdas cuadradas. Cada celda guarda sus buses en
+ * arreglos paralelos y tiene su propio lock; una posición nueva solo actualiza la celda del bus,
+ * o lo mueve de celda si la cruzó, sin copiar nada más del índice.
+ *
+ * Las consultas revisan únicamente las celdas que pueden contener respuestas:
+ * - Radio: las celdas que cubren el círculo.
+ * - K más cercanos: anillos de celdas alrededor del punto, hasta que ningún anillo siguiente
+ *   pueda mejorar los k encontrados.
+ * Así el costo depende de la densidad de buses cerca del punto y no del total de la flota.
+ *
+ * Las distancias son planas en la proyección; a escala urbana difieren de haversine en menos
+ * del 0,1 %. Las consultas no bloquean el índice completo: un bus que cambia de celda mientras
+ * tanto puede aparecer con su posición vieja o la nueva (o faltar por un instante), y si se
+ * encuentra en ambas celdas se conserva una sola aparición.
+ */
+public class BusSpatialIndex {
+
+    public static final double DEFAULT_CELL_METERS = 250.0;
+    public static final double CALI_LATITUDE = 3.45;
+
+    private static final double EARTH_RADIUS_METERS = 6371000.0;
+    private static final int INITIAL_CELL_CAPACITY = 4;
+
+    private final double cellMeters;
+    private final double metersPerDegreeLat;
+    private final double metersPerDegreeLon;
+
+    private final Map<Long, Cell> cells;
+    private final Map<Integer, Long> cellByBus;        // busId -> clave de su celda actual
+
+    // Rango de celdas que alguna vez tuvieron buses; acota las búsquedas por anillos
+    private volatile int minRow = Integer.MAX_VALUE;
+    private volatile int maxRow = Integer.MIN_VALUE;
+    private volatile int minCol = Integer.MAX_VALUE;
+    private volatile int maxCol = Integer.MIN_VALUE;
+
+    private final AtomicLong updates;
+    private final AtomicLong cellMoves;
+    private final AtomicLong queries;
+    private final AtomicLong candidatesExamined;
+
+    public BusSpatialIndex() {
+        this(DEFAULT_CELL_METERS, CALI_LATITUDE);
+    }
+
+    /**
+     * @param cellMeters Lado de cada celda en metros
+     * @param referenceLatitude Latitud a la que se escalan las longitudes (la de la ciudad)
+     */
+    public BusSpatialIndex(double cellMeters, double referenceLatitude) {
+        if (cellMeters <= 0) {
+            throw new IllegalArgumentException("El tamaño de celda debe ser positivo: " + cellMeters);
+        }
+        this.cellMeters = cellMeters;
+        this.metersPerDegreeLat = EARTH_RADIUS_METERS * Math.PI / 180.0;
+        this.metersPerDegreeLon = metersPerDegreeLat * Math.cos(Math.toRadians(referenceLatitude));
+        this.cells = new ConcurrentHashMap<>();
+        this.cellByBus = new ConcurrentHashMap<>();
+        this.updates = new AtomicLong(0);
+        this.cellMoves = new AtomicLong(0);
+        this.queries = new AtomicLong(0);
+        this.candidatesExamined = new AtomicLong(0);
+    }
+
+    /**
+     * Registra la posición más reciente de un bus. Las posiciones sin coordenadas válidas
+     * sacan al bus del índice.
+     */
+    public void update(BusPosition position) {
+        double lat = position.getLatitude();
+        double lon = position.getLongitude();
+        if (!Double.isFinite(lat) || !Double.isFinite(lon) || (lat == 0 && lon == 0)) {
+            remove(position.getBusId());
+            return;
+        }
+
+        double y = lat * metersPerDegreeLat;
+        double x = lon * metersPerDegreeLon;
+        int row = cellIndex(y);
+        int col = cellIndex(x);
+        long key = cellKey(row, col);
+        updates.incrementAndGet();
+
+        // compute serializa las actualizaciones de un mismo bus
+        cellByBus.compute(position.getBusId(), (busId, previousKey) -> {
+            if (previousKey != null && previousKey == key) {
+                cells.get(key).put(busId, x, y, position);
+                return key;
+            }
+            if (previousKey != null) {
+                cells.get(previousKey).remove(busId);
+                cellMoves.incrementAndGet();
+            }
+            cellFor(row, col, key).put(busId, x, y, position);
+            return key;
+        });
+    }
+
+    /**
+     * Quita un bus del índice (p. ej. al salir de servicio)
+     */
+    public void remove(int busId) {
+        cellByBus.computeIfPresent(busId, (id, key) -> {
+            cells.get(key).remove(id);
+            return null;
+        });
+    }
+
+    /**
+     * Buses a no más de radiusMeters del punto, ordenados por distancia
+     */
+    public List<NearbyBus> findWithin(double latitude, double longitude, double radiusMeters) {
+        queries.incrementAndGet();
+        List<NearbyBus> result = new ArrayList<>();
+        if (radiusMeters < 0 || cellByBus.isEmpty()) {
+            return result;
+        }
+
+        double y = latitude * metersPerDegreeLat;
+        double x = longitude * metersPerDegreeLon;
+        int fromRow = Math.max(cellIndex(y - radiusMeters), minRow);
+        int toRow = Math.min(cellIndex(y + radiusMeters), maxRow);
+        int fromCol = Math.max(cellIndex(x - radiusMeters), minCol);
+        int toCol = Math.min(cellIndex(x + radiusMeters), maxCol);
+
+        Candidates candidates = new Candidates(Integer.MAX_VALUE, radiusMeters);
+        for (int row = fromRow; row <= toRow; row++) {
+            for (int col = fromCol; col <= toCol; col++) {
+                Cell cell = cells.get(cellKey(row, col));
+                if (cell != null) {
+                    cell.collect(x, y, candidates);
+                }
+            }
+        }
+        return candidates.toList();
+    }
+
+    /**
+     * Los k buses más cercanos al punto, ordenados por distancia
+     */
+    public List<NearbyBus> findNearest(double latitude, double longitude, int k) {
+        return findNearest(latitude, longitude, k, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Los k buses más cercanos al punto que estén a no más de maxDistanceMeters
+     */
+    public List<NearbyBus> findNearest(double latitude, double longitude, int k, double maxDistanceMeters) {
+        queries.incrementAndGet();
+        if (k <= 0 || cellByBus.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        double y = latitude * metersPerDegreeLat;
+        double x = longitude * metersPerDegreeLon;
+        int centerRow = cellIndex(y);
+        int centerCol = cellIndex(x);
+
+        // Distancia mínima del punto a cualquier celda del anillo siguiente
+        double offsetY = y - centerRow * cellMeters;
+        double offsetX = x - centerCol * cellMeters;
+        double edge = Math.min(Math.min(offsetY, cellMeters - offsetY), Math.min(offsetX, cellMeters - offsetX));
+
+        int lowRow = minRow, highRow = maxRow, lowCol = minCol, highCol = maxCol;
+        int firstRing = Math.max(0, Math.max(Math.max(lowRow - centerRow, centerRow - highRow),
+                Math.max(lowCol - centerCol, centerCol - highCol)));
+
+        Candidates candidates = new Candidates(k, maxDistanceMeters);
+        for (int ring = firstRing; ; ring++) {
+            visitRing(centerRow, centerCol, ring, lowRow, highRow, lowCol, highCol, x, y, candidates);
+
+            boolean coversAll = centerRow - ring <= lowRow && centerRow + ring >= highRow
+                    && centerCol - ring <= lowCol && centerCol + ring >= highCol;
+            double nextRingDistance = ring * cellMeters + edge;
+            if (coversAll || nextRingDistance > maxDistanceMeters
+                    || (candidates.isFull() && candidates.worstDistance() <= nextRingDistance)) {
+                break;
+            }
+        }
+        return candidates.toList();
+    }
+
+    private void visitRing(int centerRow, int centerCol, int ring,
+                           int lowRow, int highRow, int lowCol, int highCol,
+                           double x, double y, Candidates candidates) {
+        int fromCol = Math.max(centerCol - ring, lowCol);
+        int toCol = Math.min(centerCol + ring, highCol);
+
+        // Filas superior e inferior completas
+        for (int row : ring == 0 ? new int[]{centerRow} : new int[]{centerRow - ring, centerRow + ring}) {
+            if (row < lowRow || row > highRow) continue;
+            for (int col = fromCol; col <= toCol; col++) {
+                collectCell(row, col, x, y, candidates);
+            }
+        }
+        if (ring == 0) {
+            return;
+        }
+
+        // Columnas izquierda y derecha, sin las esquinas
+        int fromRow = Math.max(centerRow - ring + 1, lowRow);
+        int toRow = Math.min(centerRow + ring - 1, highRow);
+        for (int col : new int[]{centerCol - ring, centerCol + ring}) {
+            if (col < lowCol || col > highCol) continue;
+            for (int row = fromRow; row <= toRow; row++) {
+                collectCell(row, col, x, y, candidates);
+            }
+        }
+    }
+
+    private void collectCell(int row, int col, double x, double y, Candidates candidates) {
+        Cell cell = cells.get(cellKey(row, col));
+        if (cell != null) {
+            cell.collect(x, y, candidates);
+        }
+    }
+
+    /**
+     * Número de buses en el índice
+     */
+    public int size() {
+        return cellByBus.size();
+    }
+
+    public double getCellMeters() {
+        return cellMeters;
+    }
+
+    /**
+     * Obtiene estadísticas del índice
+     */
+    public Stats getStats() {
+        int occupiedCells = 0;
+        int maxBusesPerCell = 0;
+        for (Cell cell : cells.values()) {
+            int count = cell.size();
+            if (count > 0) occupiedCells++;
+            maxBusesPerCell = Math.max(maxBusesPerCell, count);
+        }
+        return new Stats(cellByBus.size(), occupiedCells, maxBusesPerCell, updates.get(),
+                cellMoves.get(), queries.get(), candidatesExamined.get());
+    }
+
+    private Cell cellFor(int row, int col, long key) {
+        Cell cell = cells.get(key);
+        if (cell != null) {
+            return cell;
+        }
+        return cells.computeIfAbsent(key, k -> {
+            extendBounds(row, col);
+            return new Cell();
+        });
+    }
+
+    private synchronized void extendBounds(int row, int col) {
+        if (row < minRow) minRow = row;
+        if (row > maxRow) maxRow = row;
+        if (col < minCol) minCol = col;
+        if (col > maxCol) maxCol = col;
+    }
+
+    private int cellIndex(double meters) {
+        return (int) Math.floor(meters / cellMeters);
+    }
+
+    private static long cellKey(int row, int col) {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Buses de una celda en arreglos paralelos. Las celdas vacías se conservan: su número está
+     * acotado por el área de la ciudad y reutilizarlas evita carreras al crear y borrar.
+     */
+    private final class Cell {
+        private int size;
+        private int[] busIds = new int[INITIAL_CELL_CAPACITY];
+        private double[] xs = new double[INITIAL_CELL_CAPACITY];
+        private double[] ys = new double[INITIAL_CELL_CAPACITY];
+        private BusPosition[] positions = new BusPosition[INITIAL_CELL_CAPACITY];
+
+        synchronized void put(int busId, double x, double y, BusPosition position) {
+            int slot = slotOf(busId);
+            if (slot < 0) {
+                if (size == busIds.length) {
+                    int capacity = size * 2;
+                    busIds = Arrays.copyOf(busIds, capacity);
+                    xs = Arrays.copyOf(xs, capacity);
+                    ys = Arrays.copyOf(ys, capacity);
+                    positions = Arrays.copyOf(positions, capacity);
+                }
+                slot = size++;
+                busIds[slot] = busId;
+            }
+            xs[slot] = x;
+            ys[slot] = y;
+            positions[slot] = position;
+        }
+
+        synchronized void remove(int busId) {
+            int slot = slotOf(busId);
+            if (slot < 0) {
+                return;
+            }
+            int last = --size;
+            busIds[slot] = busIds[last];
+            xs[slot] = xs[last];
+            ys[slot] = ys[last];
+            positions[slot] = positions[last];
+            positions[last] = null;
+        }
+
+        synchronized void collect(double x, double y, Candidates candidates) {
+            candidatesExamined.addAndGet(size);
+            for (int i = 0; i < size; i++) {
+                double dx = xs[i] - x;
+                double dy = ys[i] - y;
+                candidates.offer(positions[i], Math.sqrt(dx * dx + dy * dy));
+            }
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private int slotOf(int busId) {
+            for (int i = 0; i < size; i++) {
+                if (busIds[i] == busId) return i;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Mejores candidatos de una consulta, ordenados por distancia (inserción en arreglo: k es pequeño)
+     */
+    private static final class Candidates {
+        private final int limit;
+        private final double maxDistance;
+        private int size;
+        private double[] distances = new double[8];
+        private BusPosition[] positions = new BusPosition[8];
+
+        Candidates(int limit, double maxDistance) {
+            this.limit = limit;
+            this.maxDistance = maxDistance;
+        }
+
+        void offer(BusPosition position, double distance) {
+            if (distance > maxDistance || (size == limit && distance >= distances[size - 1])) {
+                return;
+            }
+            if (limit != Integer.MAX_VALUE && !replaceDuplicate(position, distance)) {
+                return;
+            }
+            if (size == distances.length) {
+                int capacity = (int) Math.min((long) limit, size * 2L);
+                distances = Arrays.copyOf(distances, capacity);
+                positions = Arrays.copyOf(positions, capacity);
+            }
+            int i = size == limit ? size - 1 : size++;
+            while (i > 0 && distances[i - 1] > distance) {
+                distances[i] = distances[i - 1];
+                positions[i] = positions[i - 1];
+                i--;
+            }
+            distances[i] = distance;
+            positions[i] = position;
+        }
+
+        /**
+         * Si el bus ya está entre los candidatos (visto en dos celdas) deja solo la aparición más
+         * cercana. Devuelve true si hay que insertar la nueva.
+         */
+        private boolean replaceDuplicate(BusPosition position, double distance) {
+            int busId = position.getBusId();
+            for (int i = 0; i < size; i++) {
+                if (positions[i].getBusId() != busId) continue;
+                if (distances[i] <= distance) {
+                    return false;
+                }
+                System.arraycopy(distances, i + 1, distances, i, size - i - 1);
+                System.arraycopy(positions, i + 1, positions, i, size - i - 1);
+                positions[--size] = null;
+                return true;
+            }
+            return true;
+        }
+
+        boolean isFull() {
+            return size == limit;
+        }
+
+        double worstDistance() {
+            return distances[size - 1];
+        }
+
+        List<NearbyBus> toList() {
+            List<NearbyBus> result = new ArrayList<>(size);
+            Set<Integer> seen = limit == Integer.MAX_VALUE ? new HashSet<>() : null;
+            for (int i = 0; i < size; i++) {
+                if (seen != null && !seen.add(positions[i].getBusId())) continue;
+                result.add(new NearbyBus(positions[i], distances[i]));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Estadísticas del índice espacial
+     */
+    public static class Stats {
+        private final int busesIndexed;
+        private final int occupiedCells;
+        private final int maxBusesPerCell;
+        private final long updates;
+        private final long cellMoves;
+        private final long queries;
+        private final long candidatesExamined;
+
+        public Stats(int busesIndexed, int occupiedCells, int maxBusesPerCell, long updates,
+                     long cellMoves, long queries, long candidatesExamined) {
+            this.busesIndexed = busesIndexed;
+            this.occupiedCells = occupiedCells;
+            this.maxBusesPerCell = maxBusesPerCell;
+            this.updates = updates;
+            this.cellMoves = cellMoves;
+            this.queries = queries;
+            this.candidatesExamined = candidatesExamined;
+        }
+
+        public int getBusesIndexed() {
+            return busesIndexed;
+        }
+
+        public int getOccupiedCells() {
+            return occupiedCells;
+        }
+
+        public int getMaxBusesPerCell() {
+            return maxBusesPerCell;
+        }
+
+        public long getUpdates() {
+            return updates;
+        }
+
+        public long getCellMoves() {
+            return cellMoves;
+        }
+
+        public long getQueries() {
+            return queries;
+        }
+
+        public long getCandidatesExamined() {
+            return candidatesExamined;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "SpatialIndexStats[\n" +
+                    "  Buses indexados:        %,d\n" +
+                    "  Celdas ocupadas:        %,d\n" +
+                    "  Máx. buses por celda:   %,d\n" +
+                    "  Actualizaciones:        %,d\n" +
+                    "  Cambios de celda:       %,d\n" +
+                    "  Consultas:              %,d\n" +
+                    "  Candidatos revisados:   %,d\n" +
+                    "]",
+                    busesIndexed, occupiedCells, maxBusesPerCell, updates,
+                    cellMoves, queries, candidatesExamined
+            );
+        }
+    }
+}
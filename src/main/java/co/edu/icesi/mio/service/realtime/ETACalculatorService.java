@@ -1,15 +1,17 @@
 package co.edu.icesi.mio.service.realtime;
 
-import co.edu.icesi.mio.infra.csv.Arco;
 import co.edu.icesi.mio.infra.csv.GrafoMIO;
 import co.edu.icesi.mio.infra.csv.Parada;
 import co.edu.icesi.mio.model.analytics.ArcIdentifier;
 import co.edu.icesi.mio.model.analytics.ArcVelocityStats;
+import co.edu.icesi.mio.model.analytics.TravelTimeModel;
 import co.edu.icesi.mio.model.realtime.BusETA;
 import co.edu.icesi.mio.model.realtime.BusPosition;
+import co.edu.icesi.mio.model.realtime.LineSequence;
 import co.edu.icesi.mio.repository.ArcVelocityRepository;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -24,10 +26,42 @@ public class ETACalculatorService {
 
     private final GrafoMIO grafo;
     private final ArcVelocityRepository velocityRepository;
+    private final LineSequenceIndex lineIndex;
+    private volatile TravelTimeModel travelTimeModel;   // null: solo distancia y velocidad
 
     public ETACalculatorService(GrafoMIO grafo, ArcVelocityRepository velocityRepository) {
         this.grafo = grafo;
         this.velocityRepository = velocityRepository;
+        this.lineIndex = LineSequenceIndex.build(grafo);
+    }
+
+    /**
+     * Índice de recorridos por línea y orientación usado para las ETAs
+     */
+    public LineSequenceIndex getLineIndex() {
+        return lineIndex;
+    }
+
+    /**
+     * Usa un modelo de tiempos de viaje entrenado con el histórico para los tramos entre
+     * paradas. Los tramos sin datos siguen estimándose con distancia y velocidad.
+     *
+     * @throws IllegalArgumentException si el modelo se entrenó con otros recorridos
+     */
+    public void setTravelTimeModel(TravelTimeModel model) {
+        if (model != null) {
+            for (LineSequence sequence : lineIndex.getSequences()) {
+                if (model.contains(sequence) && !model.matches(sequence)) {
+                    throw new IllegalArgumentException("El modelo de tiempos de viaje no corresponde al recorrido "
+                            + sequence.getLineId() + "/" + sequence.getOrientation());
+                }
+            }
+        }
+        this.travelTimeModel = model;
+    }
+
+    public TravelTimeModel getTravelTimeModel() {
+        return travelTimeModel;
     }
 
     /**
@@ -74,7 +108,9 @@ public class ETACalculatorService {
     }
 
     /**
-     * Calcula ETAs para todas las paradas futuras en la ruta del bus
+     * Calcula ETAs para todas las paradas futuras en la ruta del bus.
+     * Ubica al bus en el recorrido indexado de su línea y avanza desde su próxima parada,
+     * usando las distancias acumuladas del recorrido: O(maxStops) por llamada.
      *
      * @param busPosition Posición actual del bus
      * @param maxStops Máximo número de paradas futuras a calcular
@@ -84,85 +120,95 @@ public class ETACalculatorService {
         List<BusETA> etas = new ArrayList<>();
 
         // Encontrar la secuencia de paradas en la ruta del bus
-        List<Arco> routeArcs = findRouteArcs(busPosition);
-
-        if (routeArcs.isEmpty()) {
+        LineSequence sequence = lineIndex.find(busPosition.getLineId(),
+                busPosition.getCurrentStopId(), busPosition.getNextStopId());
+        if (sequence == null || maxStops <= 0) {
             return etas;
         }
+        int nextPosition = sequence.locateNextStop(busPosition.getCurrentStopId(), busPosition.getNextStopId());
 
-        double cumulativeTime = 0.0;
-        double cumulativeDistance = 0.0;
         LocalDateTime currentTime = LocalDateTime.now();
+        ArcIdentifier arcId = ArcIdentifier.forRoute(busPosition.getRouteId(), busPosition.getLineId());
+        String confidence = determineConfidenceLevel(arcId, busPosition);
 
-        // Distancia y tiempo hasta la primera parada
-        Parada firstStop = grafo.getParadas().get(busPosition.getNextStopId());
-        if (firstStop != null) {
-            double distanceToFirst = calculateHaversineDistance(
-                    busPosition.getLatitude(),
-                    busPosition.getLongitude(),
-                    firstStop.getDecimalLatitude(),
-                    firstStop.getDecimalLongitude()
-            );
-
-            ArcIdentifier arcId = ArcIdentifier.forRoute(busPosition.getRouteId(), busPosition.getLineId());
-            double velocity = getExpectedVelocity(arcId, busPosition);
-            cumulativeTime = (distanceToFirst / velocity) * 60.0;
-            cumulativeDistance = distanceToFirst * 1000;
-
-            String confidence = determineConfidenceLevel(arcId, busPosition);
+        double[] minutes = new double[maxStops];
+        int count = estimateDownstreamMinutes(busPosition, sequence, nextPosition, minutes);
+
+        // Distancia hasta la primera parada y luego por la línea desde ella
+        Parada firstStop = sequence.getStop(nextPosition);
+        double firstDistance = calculateHaversineDistance(
+                busPosition.getLatitude(),
+                busPosition.getLongitude(),
+                firstStop.getDecimalLatitude(),
+                firstStop.getDecimalLongitude()
+        ) * 1000;
+
+        for (int i = 0; i < count; i++) {
+            int position = nextPosition + i;
             etas.add(new BusETA(
                     busPosition.getBusId(),
                     busPosition.getRouteId(),
                     busPosition.getLineId(),
-                    firstStop,
-                    cumulativeTime,
-                    cumulativeDistance,
+                    sequence.getStop(position),
+                    minutes[i],
+                    firstDistance + sequence.distanceBetween(nextPosition, position),
                     currentTime,
                     confidence
             ));
         }
 
-        // Calcular ETAs para paradas subsecuentes
-        int count = 1;
-        for (Arco arco : routeArcs) {
-            if (count >= maxStops) break;
-
-            // Solo considerar arcos después de la próxima parada
-            if (arco.getParadaOrigen().getStopId() < busPosition.getNextStopId()) {
-                continue;
-            }
-
-            Parada destination = arco.getParadaDestino();
-            double arcDistance = calculateHaversineDistance(
-                    arco.getParadaOrigen().getDecimalLatitude(),
-                    arco.getParadaOrigen().getDecimalLongitude(),
-                    destination.getDecimalLatitude(),
-                    destination.getDecimalLongitude()
-            );
-
-            ArcIdentifier arcId = ArcIdentifier.forRoute(busPosition.getRouteId(), busPosition.getLineId());
-            double velocity = getExpectedVelocity(arcId, busPosition);
-            double arcTime = (arcDistance / velocity) * 60.0;
+        return etas;
+    }
 
-            cumulativeTime += arcTime;
-            cumulativeDistance += arcDistance * 1000;
+    /**
+     * Tiempos estimados en minutos desde la posición del bus hasta las paradas del recorrido
+     * a partir de nextPosition, sin crear objetos por parada. El tiempo a la primera parada usa
+     * la distancia directa; los siguientes suman la distancia por la línea o, si hay modelo de
+     * tiempos de viaje, el tiempo de cada tramo a la hora de la semana en que se recorrería.
+     *
+     * @param minutesOut Se llena desde el índice 0; su largo limita el número de paradas
+     * @return Número de paradas estimadas
+     */
+    public int estimateDownstreamMinutes(BusPosition busPosition, LineSequence sequence,
+                                         int nextPosition, double[] minutesOut) {
+        int count = Math.min(minutesOut.length, sequence.size() - nextPosition);
+        if (count <= 0) {
+            return 0;
+        }
 
-            String confidence = determineConfidenceLevel(arcId, busPosition);
-            etas.add(new BusETA(
-                    busPosition.getBusId(),
-                    busPosition.getRouteId(),
-                    busPosition.getLineId(),
-                    destination,
-                    cumulativeTime,
-                    cumulativeDistance,
-                    currentTime,
-                    confidence
-            ));
+        ArcIdentifier arcId = ArcIdentifier.forRoute(busPosition.getRouteId(), busPosition.getLineId());
+        double velocity = getExpectedVelocity(arcId, busPosition);
 
-            count++;
+        Parada firstStop = sequence.getStop(nextPosition);
+        double distanceToFirst = calculateHaversineDistance(
+                busPosition.getLatitude(),
+                busPosition.getLongitude(),
+                firstStop.getDecimalLatitude(),
+                firstStop.getDecimalLongitude()
+        );
+        double firstTime = (distanceToFirst / velocity) * 60.0;
+
+        TravelTimeModel model = travelTimeModel;
+        int firstArc = model != null && busPosition.getTimestamp() != null ? model.firstArcIndex(sequence) : -1;
+        if (firstArc < 0) {
+            for (int i = 0; i < count; i++) {
+                double alongLineKm = sequence.distanceBetween(nextPosition, nextPosition + i) / 1000;
+                minutesOut[i] = firstTime + (alongLineKm / velocity) * 60.0;
+            }
+            return count;
         }
 
-        return etas;
+        long startMillis = busPosition.getTimestamp().toEpochSecond(ZoneOffset.UTC) * 1000;
+        minutesOut[0] = firstTime;
+        for (int i = 1; i < count; i++) {
+            int arc = firstArc + nextPosition + i - 1;
+            int hour = TravelTimeModel.hourOfWeek(startMillis + (long) (minutesOut[i - 1] * 60_000));
+            double seconds = model.predictSeconds(arc, hour);
+            minutesOut[i] = minutesOut[i - 1] + (seconds >= 0
+                    ? seconds / 60.0
+                    : (sequence.distanceBetween(nextPosition + i - 1, nextPosition + i) / 1000 / velocity) * 60.0);
+        }
+        return count;
     }
 
     /**
@@ -215,27 +261,6 @@ public class ETACalculatorService {
         return "Baja";
     }
 
-    /**
-     * Encuentra los arcos de la ruta en la que viaja el bus
-     */
-    private List<Arco> findRouteArcs(BusPosition busPosition) {
-        List<Arco> routeArcs = new ArrayList<>();
-
-        for (Arco arco : grafo.getArcos()) {
-            if (arco.getLineId() == busPosition.getLineId()) {
-                routeArcs.add(arco);
-            }
-        }
-
-        // Ordenar por secuencia si es posible
-        routeArcs.sort((a1, a2) -> Integer.compare(
-                a1.getParadaOrigen().getStopId(),
-                a2.getParadaOrigen().getStopId()
-        ));
-
-        return routeArcs;
-    }
-
     /**
      * Calcula la distancia entre dos puntos GPS usando la fórmula de Haversine
      *
@@ -262,12 +287,16 @@ public class ETACalculatorService {
                 "ETACalculatorService[\n" +
                 "  Paradas en grafo: %d\n" +
                 "  Arcos en grafo: %d\n" +
+                "  Recorridos indexados: %d\n" +
                 "  Estadísticas de velocidad: %d arcos\n" +
+                "  Modelo de tiempos de viaje: %s\n" +
                 "  Velocidad por defecto: %.1f km/h\n" +
                 "]",
                 grafo.getParadas().size(),
                 grafo.getArcos().size(),
+                lineIndex.size(),
                 velocityRepository.size(),
+                travelTimeModel != null ? travelTimeModel.getArcsWithData() + " tramos" : "no",
                 DEFAULT_VELOCITY_KMH
         );
     }
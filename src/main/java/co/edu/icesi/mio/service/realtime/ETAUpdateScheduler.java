@@ -0,0 +1,443 @@
+package co.edu.icesi.mio.service.realtime;
+
+import co.edu.icesi.mio.model.realtime.BusPosition;
+import co.edu.icesi.mio.model.realtime.LineSequence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Planificador de recálculos de ETAs y tableros de llegadas según la carga.
+ *
+ * Recalcular en cada posición cuesta buses x paradas siguientes por actualización. En su lugar
+ * las posiciones se acumulan por bus (solo cuenta la última) y un hilo las procesa en ticks
+ * con un presupuesto de recálculos por segundo:
+ * - Cada bus se recalcula como mucho una vez por intervalo; las posiciones que llegan en medio
+ *   se fusionan en la siguiente.
+ * - Los buses que se acercan a una parada observada (tablero abierto en una consola) tienen
+ *   prioridad y un intervalo más corto.
+ * - Si en un tick quedan buses vencidos sin procesar, el intervalo de los buses normales se
+ *   alarga (hasta MAX_LOAD_FACTOR veces); cuando sobra presupuesto vuelve a acortarse. Así, en
+ *   la hora pico baja la frecuencia de refresco en lugar de acumular atraso sin límite.
+ *
+ * Las métricas incluyen la antigüedad de las posiciones al recalcularse (staleness) y los
+ * recálculos por segundo.
+ */
+public class ETAUpdateScheduler {
+
+    public static final long DEFAULT_TICK_MS = 100;
+    public static final long DEFAULT_BASE_INTERVAL_MS = 5_000;
+    public static final long DEFAULT_WATCHED_INTERVAL_MS = 1_000;
+    public static final int DEFAULT_MAX_RECOMPUTATIONS_PER_SECOND = 500;
+    public static final int DEFAULT_WATCH_HORIZON_STOPS = 5;
+
+    private static final double MAX_LOAD_FACTOR = 8.0;
+    private static final double LOAD_STEP = 1.5;
+    private static final double RELAX_UTILIZATION = 0.5;   // Por debajo de este uso se acorta el intervalo
+
+    private final LineSequenceIndex lineIndex;
+    private final Consumer<BusPosition> recompute;
+    private final long tickMs;
+    private final long baseIntervalMs;
+    private final long watchedIntervalMs;
+    private final int budgetPerTick;
+    private final int watchHorizonStops;
+
+    private final Map<Integer, BusSlot> slots;
+    private final Map<Integer, Integer> watchedStops;      // stopId -> número de observadores
+
+    // Estado del hilo planificador (protegido por el lock de tick)
+    private double loadFactor = 1.0;
+    private final int[] recentTicks;                       // Recálculos de los últimos ticks (~1 s)
+    private int recentIndex;
+    private final List<BusSlot> due;
+
+    private final AtomicLong submitted;
+    private final AtomicLong coalesced;
+    private final AtomicLong recomputations;
+    private final AtomicLong priorityRecomputations;
+    private final AtomicLong deferred;
+    private final AtomicLong stalenessTotalMs;
+    private volatile long maxStalenessMs;
+    private volatile double currentLoadFactor = 1.0;
+
+    private ScheduledExecutorService executor;
+
+    public ETAUpdateScheduler(LineSequenceIndex lineIndex, Consumer<BusPosition> recompute) {
+        this(lineIndex, recompute, DEFAULT_TICK_MS, DEFAULT_BASE_INTERVAL_MS, DEFAULT_WATCHED_INTERVAL_MS,
+                DEFAULT_MAX_RECOMPUTATIONS_PER_SECOND);
+    }
+
+    /**
+     * @param recompute Recalcula con la última posición de un bus (p. ej. ArrivalBoardService::onPosition)
+     * @param tickMs Periodo del planificador
+     * @param baseIntervalMs Intervalo mínimo entre recálculos de un bus sin carga
+     * @param watchedIntervalMs Intervalo para buses que se acercan a paradas observadas
+     * @param maxRecomputationsPerSecond Presupuesto de recálculos
+     */
+    public ETAUpdateScheduler(LineSequenceIndex lineIndex, Consumer<BusPosition> recompute, long tickMs,
+                              long baseIntervalMs, long watchedIntervalMs, int maxRecomputationsPerSecond) {
+        if (tickMs <= 0 || maxRecomputationsPerSecond <= 0) {
+            throw new IllegalArgumentException("Periodo y presupuesto deben ser positivos");
+        }
+        this.lineIndex = lineIndex;
+        this.recompute = recompute;
+        this.tickMs = tickMs;
+        this.baseIntervalMs = baseIntervalMs;
+        this.watchedIntervalMs = watchedIntervalMs;
+        this.budgetPerTick = Math.max(1, (int) (maxRecomputationsPerSecond * tickMs / 1000));
+        this.watchHorizonStops = DEFAULT_WATCH_HORIZON_STOPS;
+        this.slots = new ConcurrentHashMap<>();
+        this.watchedStops = new ConcurrentHashMap<>();
+        this.recentTicks = new int[(int) Math.max(1, 1000 / tickMs)];
+        this.due = new ArrayList<>();
+        this.submitted = new AtomicLong(0);
+        this.coalesced = new AtomicLong(0);
+        this.recomputations = new AtomicLong(0);
+        this.priorityRecomputations = new AtomicLong(0);
+        this.deferred = new AtomicLong(0);
+        this.stalenessTotalMs = new AtomicLong(0);
+    }
+
+    /**
+     * Recibe una posición del stream; si el bus ya tenía una pendiente, la reemplaza
+     */
+    public void submit(BusPosition position) {
+        BusSlot slot = slots.computeIfAbsent(position.getBusId(), busId -> new BusSlot());
+        submitted.incrementAndGet();
+        synchronized (slot) {
+            slot.position = position;
+            if (slot.pendingSince == 0) {
+                slot.pendingSince = System.currentTimeMillis();
+            } else {
+                coalesced.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Marca una parada como observada (tablero abierto); admite varios observadores
+     */
+    public void watchStop(int stopId) {
+        watchedStops.merge(stopId, 1, Integer::sum);
+    }
+
+    /**
+     * Quita un observador de la parada
+     */
+    public void unwatchStop(int stopId) {
+        watchedStops.computeIfPresent(stopId, (id, watchers) -> watchers > 1 ? watchers - 1 : null);
+    }
+
+    /**
+     * Inicia el hilo planificador
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "eta-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(() -> {
+            try {
+                tick();
+            } catch (RuntimeException e) {
+                System.err.println("✗ Error recalculando ETAs: " + e.getMessage());
+            }
+        }, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Detiene el hilo planificador y recalcula lo que quedó pendiente
+     */
+    public void stop() {
+        ScheduledExecutorService running;
+        synchronized (this) {
+            running = executor;
+            executor = null;
+        }
+        if (running != null) {
+            running.shutdown();
+            try {
+                running.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Recalcula de inmediato todos los buses pendientes, sin presupuesto
+     */
+    public synchronized void flush() {
+        long now = System.currentTimeMillis();
+        for (BusSlot slot : slots.values()) {
+            process(slot, now, false);
+        }
+    }
+
+    /**
+     * Un paso del planificador: elige los buses vencidos, prioriza los observados y procesa
+     * hasta el presupuesto del tick. Lo llama el hilo planificador; es público para pruebas.
+     */
+    public synchronized void tick() {
+        long now = System.currentTimeMillis();
+        long normalInterval = Math.round(baseIntervalMs * loadFactor);
+        boolean anyWatched = !watchedStops.isEmpty();
+
+        due.clear();
+        for (BusSlot slot : slots.values()) {
+            BusPosition position;
+            synchronized (slot) {
+                if (slot.pendingSince == 0) continue;
+                position = slot.position;
+            }
+            slot.priority = anyWatched && approachesWatchedStop(position);
+            long interval = slot.priority ? watchedIntervalMs : normalInterval;
+            if (now - slot.lastComputedMillis >= interval) {
+                due.add(slot);
+            }
+        }
+
+        // Primero los observados, luego los que llevan más tiempo esperando
+        due.sort((a, b) -> a.priority != b.priority ? (a.priority ? -1 : 1)
+                : Long.compare(a.pendingSince, b.pendingSince));
+
+        int processed = 0;
+        for (BusSlot slot : due) {
+            if (processed == budgetPerTick) break;
+            if (process(slot, now, slot.priority)) processed++;
+        }
+        int backlog = due.size() - processed;
+        deferred.addAndGet(backlog);
+
+        // Degradación: alargar el intervalo si hubo atraso, acortarlo si sobra presupuesto
+        if (backlog > 0) {
+            loadFactor = Math.min(MAX_LOAD_FACTOR, loadFactor * LOAD_STEP);
+        } else if (processed < budgetPerTick * RELAX_UTILIZATION) {
+            loadFactor = Math.max(1.0, loadFactor / LOAD_STEP);
+        }
+        currentLoadFactor = loadFactor;
+
+        recentTicks[recentIndex] = processed;
+        recentIndex = (recentIndex + 1) % recentTicks.length;
+    }
+
+    /**
+     * Recalcula con la última posición pendiente del bus
+     *
+     * @return false si ya no había nada pendiente
+     */
+    private boolean process(BusSlot slot, long now, boolean priority) {
+        BusPosition position;
+        long pendingSince;
+        synchronized (slot) {
+            if (slot.pendingSince == 0) {
+                return false;
+            }
+            position = slot.position;
+            pendingSince = slot.pendingSince;
+            slot.pendingSince = 0;
+        }
+        slot.lastComputedMillis = now;
+
+        recompute.accept(position);
+
+        long staleness = Math.max(0, now - pendingSince);
+        stalenessTotalMs.addAndGet(staleness);
+        if (staleness > maxStalenessMs) {
+            maxStalenessMs = staleness;
+        }
+        recomputations.incrementAndGet();
+        if (priority) {
+            priorityRecomputations.incrementAndGet();
+        }
+        return true;
+    }
+
+    /**
+     * Indica si alguna de las próximas paradas del bus está observada
+     */
+    private boolean approachesWatchedStop(BusPosition position) {
+        if (!position.hasStops()) {
+            return false;
+        }
+        LineSequence sequence = lineIndex.find(position.getLineId(),
+                position.getCurrentStopId(), position.getNextStopId());
+        if (sequence == null) {
+            return watchedStops.containsKey(position.getNextStopId());
+        }
+        int next = sequence.locateNextStop(position.getCurrentStopId(), position.getNextStopId());
+        if (next < 0) {
+            return watchedStops.containsKey(position.getNextStopId());
+        }
+        int last = Math.min(sequence.size(), next + watchHorizonStops);
+        for (int i = next; i < last; i++) {
+            if (watchedStops.containsKey(sequence.getStop(i).getStopId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Obtiene estadísticas del planificador
+     */
+    public Stats getStats() {
+        long now = System.currentTimeMillis();
+        int pending = 0;
+        long oldestPendingMs = 0;
+        for (BusSlot slot : slots.values()) {
+            long since = slot.pendingSince;
+            if (since != 0) {
+                pending++;
+                oldestPendingMs = Math.max(oldestPendingMs, now - since);
+            }
+        }
+        int lastSecond;
+        synchronized (this) {
+            lastSecond = 0;
+            for (int count : recentTicks) {
+                lastSecond += count;
+            }
+        }
+        double recentSeconds = recentTicks.length * tickMs / 1000.0;
+        long total = recomputations.get();
+        return new Stats(submitted.get(), coalesced.get(), total, priorityRecomputations.get(),
+                deferred.get(), lastSecond / recentSeconds,
+                total > 0 ? (double) stalenessTotalMs.get() / total : 0, maxStalenessMs,
+                pending, oldestPendingMs, currentLoadFactor, Math.round(baseIntervalMs * currentLoadFactor),
+                watchedStops.size());
+    }
+
+    /**
+     * Estado de planificación de un bus. Se crea una vez por bus; las posiciones nuevas solo
+     * reemplazan la referencia.
+     */
+    private static final class BusSlot {
+        private BusPosition position;              // Protegido por el monitor del slot
+        private volatile long pendingSince;        // 0 = sin posición pendiente
+        private long lastComputedMillis;           // Solo el planificador
+        private boolean priority;                  // Solo el planificador
+    }
+
+    /**
+     * Estadísticas del planificador de ETAs
+     */
+    public static class Stats {
+        private final long submitted;
+        private final long coalesced;
+        private final long recomputations;
+        private final long priorityRecomputations;
+        private final long deferred;
+        private final double recomputationsPerSecond;
+        private final double averageStalenessMs;
+        private final long maxStalenessMs;
+        private final int pendingBuses;
+        private final long oldestPendingMs;
+        private final double loadFactor;
+        private final long normalIntervalMs;
+        private final int watchedStops;
+
+        public Stats(long submitted, long coalesced, long recomputations, long priorityRecomputations,
+                     long deferred, double recomputationsPerSecond, double averageStalenessMs,
+                     long maxStalenessMs, int pendingBuses, long oldestPendingMs, double loadFactor,
+                     long normalIntervalMs, int watchedStops) {
+            this.submitted = submitted;
+            this.coalesced = coalesced;
+            this.recomputations = recomputations;
+            this.priorityRecomputations = priorityRecomputations;
+            this.deferred = deferred;
+            this.recomputationsPerSecond = recomputationsPerSecond;
+            this.averageStalenessMs = averageStalenessMs;
+            this.maxStalenessMs = maxStalenessMs;
+            this.pendingBuses = pendingBuses;
+            this.oldestPendingMs = oldestPendingMs;
+            this.loadFactor = loadFactor;
+            this.normalIntervalMs = normalIntervalMs;
+            this.watchedStops = watchedStops;
+        }
+
+        public long getSubmitted() {
+            return submitted;
+        }
+
+        public long getCoalesced() {
+            return coalesced;
+        }
+
+        public long getRecomputations() {
+            return recomputations;
+        }
+
+        public long getPriorityRecomputations() {
+            return priorityRecomputations;
+        }
+
+        public long getDeferred() {
+            return deferred;
+        }
+
+        public double getRecomputationsPerSecond() {
+            return recomputationsPerSecond;
+        }
+
+        public double getAverageStalenessMs() {
+            return averageStalenessMs;
+        }
+
+        public long getMaxStalenessMs() {
+            return maxStalenessMs;
+        }
+
+        public int getPendingBuses() {
+            return pendingBuses;
+        }
+
+        public long getOldestPendingMs() {
+            return oldestPendingMs;
+        }
+
+        public double getLoadFactor() {
+            return loadFactor;
+        }
+
+        public long getNormalIntervalMs() {
+            return normalIntervalMs;
+        }
+
+        public int getWatchedStops() {
+            return watchedStops;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "ETASchedulerStats[\n" +
+                    "  Posiciones recibidas:   %,d (%,d fusionadas)\n" +
+                    "  Recálculos:             %,d (%,d prioritarios)\n" +
+                    "  Recálculos/s (último s): %.1f\n" +
+                    "  Postergados por carga:  %,d\n" +
+                    "  Antigüedad promedio:    %.0f ms (máx %,d ms)\n" +
+                    "  Pendientes ahora:       %,d (el más antiguo %,d ms)\n" +
+                    "  Factor de carga:        %.2fx (intervalo %,d ms)\n" +
+                    "  Paradas observadas:     %,d\n" +
+                    "]",
+                    submitted, coalesced, recomputations, priorityRecomputations,
+                    recomputationsPerSecond, deferred, averageStalenessMs, maxStalenessMs,
+                    pendingBuses, oldestPendingMs, loadFactor, normalIntervalMs, watchedStops
+            );
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package co.edu.icesi.mio.service.realtime;
+
+import co.edu.icesi.mio.infra.csv.Arco;
+import co.edu.icesi.mio.infra.csv.GrafoMIO;
+import co.edu.icesi.mio.infra.csv.Parada;
+import co.edu.icesi.mio.model.realtime.LineSequence;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice de recorridos por (línea, orientación), construido una sola vez a partir de las
+ * paradas ordenadas de cada línea. Evita recorrer todos los arcos del grafo en cada consulta.
+ * Es inmutable y puede compartirse entre threads.
+ */
+public class LineSequenceIndex {
+
+    private final Map<Long, LineSequence> sequences;
+
+    private LineSequenceIndex(Map<Long, LineSequence> sequences) {
+        this.sequences = sequences;
+    }
+
+    /**
+     * Construye el índice con las paradas ordenadas de cada línea y los arcos entre ellas
+     */
+    public static LineSequenceIndex build(GrafoMIO grafo) {
+        // Los arcos de cada (línea, orientación) se crean en orden de secuencia
+        Map<Long, List<Arco>> arcsByKey = new HashMap<>();
+        for (Arco arco : grafo.getArcos()) {
+            arcsByKey.computeIfAbsent(key(arco.getLineId(), arco.getOrientation()), k -> new ArrayList<>())
+                    .add(arco);
+        }
+
+        Map<Long, LineSequence> sequences = new HashMap<>();
+        for (int lineId : grafo.getLineasConParadas()) {
+            for (int orientation = 0; orientation <= 1; orientation++) {
+                List<Integer> stopIds = grafo.getParadasOrdenadas(lineId, orientation);
+                if (stopIds.isEmpty()) continue;
+
+                List<Parada> stops = new ArrayList<>(stopIds.size());
+                for (int stopId : stopIds) {
+                    stops.add(grafo.getParadas().get(stopId));
+                }
+
+                List<Arco> arcs = arcsByKey.getOrDefault(key(lineId, orientation), Collections.emptyList());
+                // Verificar los tamaños antes de recorrer: con más arcos que tramos, stops.get(i + 1) se saldría
+                if (arcs.size() != stops.size() - 1) {
+                    throw new IllegalArgumentException("La línea " + lineId + " tiene " + stops.size()
+                            + " paradas y " + arcs.size() + " arcos");
+                }
+                for (int i = 0; i < arcs.size(); i++) {
+                    if (arcs.get(i).getParadaOrigen() != stops.get(i) || arcs.get(i).getParadaDestino() != stops.get(i + 1)) {
+                        throw new IllegalStateException("Tramo fuera de secuencia en la línea " + lineId);
+                    }
+                }
+
+                sequences.put(key(lineId, orientation), new LineSequence(lineId, orientation, stops, arcs));
+            }
+        }
+
+        return new LineSequenceIndex(sequences);
+    }
+
+    /**
+     * Recorrido de una línea en una orientación (null si no existe)
+     */
+    public LineSequence get(int lineId, int orientation) {
+        return sequences.get(key(lineId, orientation));
+    }
+
+    /**
+     * Recorrido de la línea por el que va un bus entre dos paradas. Se prefiere la orientación
+     * en la que las paradas son consecutivas; si ninguna, la que contiene la próxima parada.
+     *
+     * @return Recorrido, o null si la línea no pasa por nextStopId
+     */
+    public LineSequence find(int lineId, int currentStopId, int nextStopId) {
+        LineSequence fallback = null;
+        for (int orientation = 0; orientation <= 1; orientation++) {
+            LineSequence sequence = get(lineId, orientation);
+            if (sequence == null) continue;
+
+            if (sequence.hasHop(currentStopId, nextStopId)) {
+                return sequence;
+            }
+            if (fallback == null && sequence.indexOf(nextStopId) >= 0) {
+                fallback = sequence;
+            }
+        }
+        return fallback;
+    }
+
+    public Collection<LineSequence> getSequences() {
+        return Collections.unmodifiableCollection(sequences.values());
+    }
+
+    public int size() {
+        return sequences.size();
+    }
+
+    private static long key(int lineId, int orientation) {
+        return ((long) lineId << 1) | orientation;
+    }
+}
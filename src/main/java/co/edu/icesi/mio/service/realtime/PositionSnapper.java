@@ -0,0 +1,466 @@
+package co.edu.icesi.mio.service.realtime;
+
+import co.edu.icesi.mio.infra.csv.Parada;
+import co.edu.icesi.mio.model.realtime.LineSequence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ubica posiciones GPS sobre la geometría de la línea del bus.
+ *
+ * Cada fix se proyecta sobre el tramo más cercano de su línea (en cualquiera de las dos
+ * orientaciones), buscando solo en las celdas vecinas de una grilla propia de la línea.
+ * El resultado da la parada que el bus dejó, la siguiente y el avance fraccional en el tramo.
+ *
+ * Todo está en arreglos primitivos construidos una vez y snap() no crea objetos: escribe en
+ * un SnapResult que el llamador reutiliza. No es thread-safe (guarda la última orientación de
+ * cada bus); se usa una instancia por thread de procesamiento.
+ */
+public class PositionSnapper {
+
+    // Distancia máxima a la línea para aceptar un fix
+    public static final double DEFAULT_MAX_SNAP_METERS = 150.0;
+
+    // Si el tramo de la orientación anterior del bus está a lo sumo a esta distancia extra del
+    // más cercano, se conserva la orientación (ida y vuelta suelen compartir la vía)
+    private static final double ORIENTATION_HYSTERESIS_METERS = 25.0;
+
+    private static final double EARTH_RADIUS_M = 6371000.0;
+
+    /**
+     * Resultado mutable de snap(); el llamador lo reutiliza entre fixes
+     */
+    public static final class SnapResult {
+        private int currentStopId = -1;
+        private int nextStopId = -1;
+        private double progress = -1;
+        private double distanceMeters = Double.POSITIVE_INFINITY;
+        private int orientation = -1;
+        private int sequencePosition = -1;
+        private LineSequence sequence;
+
+        public int getCurrentStopId() {
+            return currentStopId;
+        }
+
+        public int getNextStopId() {
+            return nextStopId;
+        }
+
+        /**
+         * Fracción del tramo ya recorrida, entre 0 (en currentStopId) y 1 (en nextStopId)
+         */
+        public double getProgress() {
+            return progress;
+        }
+
+        /**
+         * Distancia del fix al tramo en metros
+         */
+        public double getDistanceMeters() {
+            return distanceMeters;
+        }
+
+        public int getOrientation() {
+            return orientation;
+        }
+
+        /**
+         * Posición de currentStopId en el recorrido de la línea y orientación
+         */
+        public int getSequencePosition() {
+            return sequencePosition;
+        }
+
+        /**
+         * Recorrido sobre el que quedó el bus (null si no se ubicó)
+         */
+        public LineSequence getSequence() {
+            return sequence;
+        }
+
+        private void clear() {
+            currentStopId = -1;
+            nextStopId = -1;
+            progress = -1;
+            distanceMeters = Double.POSITIVE_INFINITY;
+            orientation = -1;
+            sequencePosition = -1;
+            sequence = null;
+        }
+    }
+
+    // Proyección local equirrectangular (metros) alrededor del centro de la red
+    private final double originLat;
+    private final double originLon;
+    private final double metersPerDegreeLat;
+    private final double metersPerDegreeLon;
+
+    // Tramos: de (ax, ay) a (bx, by); pertenecen al recorrido segSequence en la posición segPosition
+    private final double[] segAx;
+    private final double[] segAy;
+    private final double[] segBx;
+    private final double[] segBy;
+    private final int[] segSequence;
+    private final int[] segPosition;
+    private final LineSequence[] sequences;
+
+    // Grilla g: celdas desde gridFirstCell[g]; la celda c tiene los tramos cellSegments[cellFirst[c]..cellFirst[c + 1])
+    private final int[] gridByLineId;          // lineId -> grilla (-1 si la línea no tiene tramos)
+    private final double[] gridMinX;
+    private final double[] gridMinY;
+    private final int[] gridCols;
+    private final int[] gridRows;
+    private final int[] gridFirstCell;
+    private final int[] cellFirst;
+    private final int[] cellSegments;
+    private final double cellSize;
+    private final double maxSnapMeters;
+
+    private final BusOrientationTable lastOrientation = new BusOrientationTable();
+
+    public PositionSnapper(LineSequenceIndex lineIndex) {
+        this(lineIndex, DEFAULT_MAX_SNAP_METERS);
+    }
+
+    /**
+     * @param maxSnapMeters Distancia máxima del fix a la línea; también es el lado de las celdas,
+     *                      así que basta revisar las celdas vecinas
+     */
+    public PositionSnapper(LineSequenceIndex lineIndex, double maxSnapMeters) {
+        this.maxSnapMeters = maxSnapMeters;
+        this.cellSize = maxSnapMeters;
+
+        List<LineSequence> lineSequences = new ArrayList<>();
+        double latSum = 0, lonSum = 0;
+        int stopCount = 0;
+        int maxLineId = -1;
+        int segmentCount = 0;
+        for (LineSequence sequence : lineIndex.getSequences()) {
+            if (sequence.size() < 2) continue;
+            lineSequences.add(sequence);
+            maxLineId = Math.max(maxLineId, sequence.getLineId());
+            segmentCount += sequence.size() - 1;
+            for (int i = 0; i < sequence.size(); i++) {
+                latSum += sequence.getStop(i).getDecimalLatitude();
+                lonSum += sequence.getStop(i).getDecimalLongitude();
+                stopCount++;
+            }
+        }
+        // Orden estable por línea para que las grillas queden contiguas
+        lineSequences.sort((a, b) -> a.getLineId() != b.getLineId()
+                ? Integer.compare(a.getLineId(), b.getLineId())
+                : Integer.compare(a.getOrientation(), b.getOrientation()));
+
+        this.originLat = stopCount > 0 ? latSum / stopCount : 0;
+        this.originLon = stopCount > 0 ? lonSum / stopCount : 0;
+        this.metersPerDegreeLat = Math.toRadians(1) * EARTH_RADIUS_M;
+        this.metersPerDegreeLon = metersPerDegreeLat * Math.cos(Math.toRadians(originLat));
+
+        this.sequences = lineSequences.toArray(new LineSequence[0]);
+        this.segAx = new double[segmentCount];
+        this.segAy = new double[segmentCount];
+        this.segBx = new double[segmentCount];
+        this.segBy = new double[segmentCount];
+        this.segSequence = new int[segmentCount];
+        this.segPosition = new int[segmentCount];
+
+        int s = 0;
+        for (int q = 0; q < sequences.length; q++) {
+            LineSequence sequence = sequences[q];
+            for (int i = 0; i < sequence.size() - 1; i++) {
+                Parada from = sequence.getStop(i);
+                Parada to = sequence.getStop(i + 1);
+                segAx[s] = toX(from.getDecimalLongitude());
+                segAy[s] = toY(from.getDecimalLatitude());
+                segBx[s] = toX(to.getDecimalLongitude());
+                segBy[s] = toY(to.getDecimalLatitude());
+                segSequence[s] = q;
+                segPosition[s] = i;
+                s++;
+            }
+        }
+
+        // Una grilla por línea (ambas orientaciones), sobre la caja que cubre sus tramos
+        this.gridByLineId = new int[maxLineId + 1];
+        Arrays.fill(gridByLineId, -1);
+        List<int[]> lineRanges = new ArrayList<>();   // {lineId, primer tramo, fin}
+        for (int start = 0; start < segmentCount; ) {
+            int lineId = sequences[segSequence[start]].getLineId();
+            int end = start;
+            while (end < segmentCount && sequences[segSequence[end]].getLineId() == lineId) end++;
+            lineRanges.add(new int[]{lineId, start, end});
+            start = end;
+        }
+
+        int grids = lineRanges.size();
+        this.gridMinX = new double[grids];
+        this.gridMinY = new double[grids];
+        this.gridCols = new int[grids];
+        this.gridRows = new int[grids];
+        this.gridFirstCell = new int[grids + 1];
+
+        for (int g = 0; g < grids; g++) {
+            int[] range = lineRanges.get(g);
+            double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+            for (int k = range[1]; k < range[2]; k++) {
+                minX = Math.min(minX, Math.min(segAx[k], segBx[k]));
+                minY = Math.min(minY, Math.min(segAy[k], segBy[k]));
+                maxX = Math.max(maxX, Math.max(segAx[k], segBx[k]));
+                maxY = Math.max(maxY, Math.max(segAy[k], segBy[k]));
+            }
+            gridByLineId[range[0]] = g;
+            gridMinX[g] = minX;
+            gridMinY[g] = minY;
+            gridCols[g] = (int) ((maxX - minX) / cellSize) + 1;
+            gridRows[g] = (int) ((maxY - minY) / cellSize) + 1;
+            gridFirstCell[g + 1] = gridFirstCell[g] + gridCols[g] * gridRows[g];
+        }
+
+        // Registrar cada tramo en todas las celdas que toca su caja: contar y luego llenar
+        int totalCells = gridFirstCell[grids];
+        this.cellFirst = new int[totalCells + 1];
+        for (int g = 0; g < grids; g++) {
+            int[] range = lineRanges.get(g);
+            for (int k = range[1]; k < range[2]; k++) {
+                for (int r = minRow(g, k); r <= maxRow(g, k); r++) {
+                    for (int c = minCol(g, k); c <= maxCol(g, k); c++) {
+                        cellFirst[gridFirstCell[g] + r * gridCols[g] + c + 1]++;
+                    }
+                }
+            }
+        }
+        for (int c = 0; c < totalCells; c++) {
+            cellFirst[c + 1] += cellFirst[c];
+        }
+
+        this.cellSegments = new int[cellFirst[totalCells]];
+        int[] nextSlot = Arrays.copyOf(cellFirst, totalCells);
+        for (int g = 0; g < grids; g++) {
+            int[] range = lineRanges.get(g);
+            for (int k = range[1]; k < range[2]; k++) {
+                for (int r = minRow(g, k); r <= maxRow(g, k); r++) {
+                    for (int c = minCol(g, k); c <= maxCol(g, k); c++) {
+                        cellSegments[nextSlot[gridFirstCell[g] + r * gridCols[g] + c]++] = k;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Proyecta un fix GPS sobre la línea del bus
+     *
+     * @param result Se llena con las paradas y el avance; se limpia si no hay tramo cercano
+     * @return true si se encontró un tramo a menos de la distancia máxima
+     */
+    public boolean snap(int busId, int lineId, double latitude, double longitude, SnapResult result) {
+        if (!project(lineId, -1, lastOrientation.get(busId), latitude, longitude, result)) {
+            return false;
+        }
+        lastOrientation.put(busId, result.orientation);
+        return true;
+    }
+
+    /**
+     * Proyecta un fix GPS sobre una orientación dada de la línea, sin histéresis. No guarda
+     * estado, así que puede usarse desde varios threads (p. ej. reconstrucción offline, que
+     * sigue las dos orientaciones y decide por el sentido del movimiento).
+     *
+     * @return true si se encontró un tramo de esa orientación a menos de la distancia máxima
+     */
+    public boolean snapToOrientation(int lineId, int orientation, double latitude, double longitude,
+                                     SnapResult result) {
+        return project(lineId, orientation, -1, latitude, longitude, result);
+    }
+
+    /**
+     * @param onlyOrientation Orientación a la que se restringe la búsqueda (-1: ambas)
+     * @param preferredOrientation Orientación que se mantiene si no está mucho más lejos (-1: ninguna)
+     */
+    private boolean project(int lineId, int onlyOrientation, int preferredOrientation,
+                            double latitude, double longitude, SnapResult result) {
+        result.clear();
+        if (lineId < 0 || lineId >= gridByLineId.length || gridByLineId[lineId] < 0) {
+            return false;
+        }
+
+        int g = gridByLineId[lineId];
+        double x = toX(longitude);
+        double y = toY(latitude);
+        int col = (int) Math.floor((x - gridMinX[g]) / cellSize);
+        int row = (int) Math.floor((y - gridMinY[g]) / cellSize);
+        if (col < -1 || row < -1 || col > gridCols[g] || row > gridRows[g]) {
+            return false; // Más de una celda fuera de la caja de la línea
+        }
+
+        double maxDist2 = maxSnapMeters * maxSnapMeters;
+        int best = -1;
+        double bestDist2 = Double.POSITIVE_INFINITY;
+        double bestT = 0;
+        int preferred = -1;
+        double preferredDist2 = Double.POSITIVE_INFINITY;
+        double preferredT = 0;
+
+        for (int r = Math.max(0, row - 1); r <= Math.min(gridRows[g] - 1, row + 1); r++) {
+            for (int c = Math.max(0, col - 1); c <= Math.min(gridCols[g] - 1, col + 1); c++) {
+                int cell = gridFirstCell[g] + r * gridCols[g] + c;
+                for (int i = cellFirst[cell]; i < cellFirst[cell + 1]; i++) {
+                    int k = cellSegments[i];
+                    if (onlyOrientation >= 0 && sequences[segSequence[k]].getOrientation() != onlyOrientation) continue;
+
+                    // Proyección del punto sobre el tramo
+                    double dx = segBx[k] - segAx[k];
+                    double dy = segBy[k] - segAy[k];
+                    double len2 = dx * dx + dy * dy;
+                    double t = len2 > 0 ? ((x - segAx[k]) * dx + (y - segAy[k]) * dy) / len2 : 0;
+                    t = Math.max(0, Math.min(1, t));
+                    double px = segAx[k] + t * dx - x;
+                    double py = segAy[k] + t * dy - y;
+                    double dist2 = px * px + py * py;
+                    if (dist2 > maxDist2) continue;
+
+                    if (dist2 < bestDist2) {
+                        best = k;
+                        bestDist2 = dist2;
+                        bestT = t;
+                    }
+                    if (dist2 < preferredDist2 && sequences[segSequence[k]].getOrientation() == preferredOrientation) {
+                        preferred = k;
+                        preferredDist2 = dist2;
+                        preferredT = t;
+                    }
+                }
+            }
+        }
+
+        if (best < 0) {
+            return false;
+        }
+        if (preferred >= 0 && preferred != best
+                && Math.sqrt(preferredDist2) - Math.sqrt(bestDist2) <= ORIENTATION_HYSTERESIS_METERS) {
+            best = preferred;
+            bestDist2 = preferredDist2;
+            bestT = preferredT;
+        }
+
+        LineSequence sequence = sequences[segSequence[best]];
+        int position = segPosition[best];
+        result.currentStopId = sequence.getStop(position).getStopId();
+        result.nextStopId = sequence.getStop(position + 1).getStopId();
+        result.progress = bestT;
+        result.distanceMeters = Math.sqrt(bestDist2);
+        result.orientation = sequence.getOrientation();
+        result.sequencePosition = position;
+        result.sequence = sequence;
+        return true;
+    }
+
+    public int getSegmentCount() {
+        return segAx.length;
+    }
+
+    public int getLineCount() {
+        return gridMinX.length;
+    }
+
+    private double toX(double longitude) {
+        return (longitude - originLon) * metersPerDegreeLon;
+    }
+
+    private double toY(double latitude) {
+        return (latitude - originLat) * metersPerDegreeLat;
+    }
+
+    // Celdas que cubre la caja del tramo k en la grilla g
+    private int minCol(int g, int k) {
+        return cellCol(g, Math.min(segAx[k], segBx[k]));
+    }
+
+    private int maxCol(int g, int k) {
+        return cellCol(g, Math.max(segAx[k], segBx[k]));
+    }
+
+    private int minRow(int g, int k) {
+        return cellRow(g, Math.min(segAy[k], segBy[k]));
+    }
+
+    private int maxRow(int g, int k) {
+        return cellRow(g, Math.max(segAy[k], segBy[k]));
+    }
+
+    private int cellCol(int g, double x) {
+        return Math.min(gridCols[g] - 1, (int) ((x - gridMinX[g]) / cellSize));
+    }
+
+    private int cellRow(int g, double y) {
+        return Math.min(gridRows[g] - 1, (int) ((y - gridMinY[g]) / cellSize));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PositionSnapper[líneas=%d, tramos=%d, celdas=%d, radio=%.0f m]",
+                gridMinX.length, segAx.length, cellFirst.length - 1, maxSnapMeters);
+    }
+
+    /**
+     * Tabla busId -> última orientación con direccionamiento abierto, sin objetos por consulta.
+     * Solo crece (y asigna memoria) cuando aparecen buses nuevos.
+     */
+    private static final class BusOrientationTable {
+        private static final int EMPTY = Integer.MIN_VALUE;
+
+        private int[] keys = new int[1024];
+        private int[] values = new int[1024];
+        private int size;
+
+        BusOrientationTable() {
+            Arrays.fill(keys, EMPTY);
+        }
+
+        int get(int busId) {
+            int mask = keys.length - 1;
+            for (int i = mix(busId) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == busId) return values[i];
+            }
+            return -1;
+        }
+
+        void put(int busId, int orientation) {
+            int mask = keys.length - 1;
+            int i = mix(busId) & mask;
+            while (keys[i] != EMPTY) {
+                if (keys[i] == busId) {
+                    values[i] = orientation;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = busId;
+            values[i] = orientation;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) put(oldKeys[i], oldValues[i]);
+            }
+        }
+
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
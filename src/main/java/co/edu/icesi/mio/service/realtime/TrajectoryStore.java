@@ -0,0 +1,439 @@
+package co.edu.icesi.mio.service.realtime;
+
+import co.edu.icesi.mio.model.realtime.BusPosition;
+import co.edu.icesi.mio.model.realtime.Trajectory;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Almacén de las últimas posiciones de cada bus, para ver por dónde ha pasado.
+ *
+ * Cada bus ocupa un puesto con un buffer circular de tamaño fijo dentro de unos pocos arreglos
+ * primitivos reservados al inicio (latitud y longitud en micro-grados, segundos epoch y
+ * velocidad), así que registrar una posición no crea objetos: solo escribe en el puesto del
+ * bus y avanza su cabeza. La tabla bus -> puesto es un hash abierto de enteros que se
+ * reemplaza completo solo cuando llega un bus nuevo.
+ *
+ * Cada puesto tiene un StampedLock: las escrituras de un mismo bus se serializan y las lecturas
+ * son optimistas (copian y validan, sin bloquear al stream). Si todos los puestos están en uso,
+ * un bus nuevo toma el del bus que lleva más tiempo sin reportar.
+ */
+public class TrajectoryStore {
+
+    public static final int DEFAULT_MAX_BUSES = 2048;
+    public static final int DEFAULT_FIXES_PER_BUS = 256;
+
+    private static final double MICRO = 1_000_000.0;
+
+    private final int maxBuses;
+    private final int fixesPerBus;
+
+    // Bloque de buffers: el puesto s ocupa [s * fixesPerBus, (s + 1) * fixesPerBus)
+    private final int[] latitudesMicro;
+    private final int[] longitudesMicro;
+    private final int[] epochSeconds;
+    private final short[] velocities;
+
+    // Estado de cada puesto
+    private final int[] head;                 // Próxima posición a escribir dentro del buffer
+    private final int[] count;
+    private final int[] busBySlot;            // -1 = libre
+    private final StampedLock[] locks;
+
+    private volatile SlotTable slotTable;
+    private int usedSlots;                    // Protegido por el lock del almacén
+
+    private final AtomicLong appended;
+    private final AtomicLong outOfOrder;
+    private final AtomicLong invalid;
+    private final AtomicLong evictions;
+
+    public TrajectoryStore() {
+        this(DEFAULT_MAX_BUSES, DEFAULT_FIXES_PER_BUS);
+    }
+
+    /**
+     * @param maxBuses Número de buses con trayectoria simultánea
+     * @param fixesPerBus Posiciones que se guardan por bus (las más antiguas se sobrescriben)
+     */
+    public TrajectoryStore(int maxBuses, int fixesPerBus) {
+        if (maxBuses <= 0 || fixesPerBus <= 0) {
+            throw new IllegalArgumentException("Capacidad inválida: " + maxBuses + " buses x " + fixesPerBus);
+        }
+        this.maxBuses = maxBuses;
+        this.fixesPerBus = fixesPerBus;
+        int capacity = Math.multiplyExact(maxBuses, fixesPerBus);
+        this.latitudesMicro = new int[capacity];
+        this.longitudesMicro = new int[capacity];
+        this.epochSeconds = new int[capacity];
+        this.velocities = new short[capacity];
+        this.head = new int[maxBuses];
+        this.count = new int[maxBuses];
+        this.busBySlot = new int[maxBuses];
+        Arrays.fill(busBySlot, -1);
+        this.locks = new StampedLock[maxBuses];
+        for (int i = 0; i < maxBuses; i++) {
+            locks[i] = new StampedLock();
+        }
+        this.slotTable = new SlotTable(maxBuses);
+        this.appended = new AtomicLong(0);
+        this.outOfOrder = new AtomicLong(0);
+        this.invalid = new AtomicLong(0);
+        this.evictions = new AtomicLong(0);
+    }
+
+    /**
+     * Agrega una posición a la trayectoria de su bus. Se descartan (y se cuentan) las posiciones
+     * sin coordenadas válidas o sin hora, y las que no son posteriores a la última guardada.
+     */
+    public void onPosition(BusPosition position) {
+        double lat = position.getLatitude();
+        double lon = position.getLongitude();
+        if (!Double.isFinite(lat) || !Double.isFinite(lon) || (lat == 0 && lon == 0)
+                || position.getTimestamp() == null) {
+            invalid.incrementAndGet();
+            return;
+        }
+        int busId = position.getBusId();
+        int seconds = (int) position.getTimestamp().toEpochSecond(ZoneOffset.UTC);
+        short velocity = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(position.getVelocity())));
+
+        while (true) {
+            int slot = slotTable.get(busId);
+            if (slot < 0) {
+                slot = assignSlot(busId);
+            }
+
+            StampedLock lock = locks[slot];
+            long stamp = lock.writeLock();
+            try {
+                if (busBySlot[slot] != busId) {
+                    continue; // El puesto se reasignó entre la búsqueda y el lock
+                }
+                int base = slot * fixesPerBus;
+                if (count[slot] > 0) {
+                    int last = base + (head[slot] + fixesPerBus - 1) % fixesPerBus;
+                    if (seconds <= epochSeconds[last]) {
+                        outOfOrder.incrementAndGet();
+                        return;
+                    }
+                }
+                int index = base + head[slot];
+                latitudesMicro[index] = (int) Math.round(lat * MICRO);
+                longitudesMicro[index] = (int) Math.round(lon * MICRO);
+                epochSeconds[index] = seconds;
+                velocities[index] = velocity;
+                head[slot] = (head[slot] + 1) % fixesPerBus;
+                if (count[slot] < fixesPerBus) {
+                    count[slot]++;
+                }
+                appended.incrementAndGet();
+                return;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Trayectoria completa guardada de un bus (vacía si no hay posiciones)
+     */
+    public Trajectory getTrajectory(int busId) {
+        return getTrajectory(busId, null);
+    }
+
+    /**
+     * Posiciones de un bus dentro de la ventana que termina en su última posición
+     * (p. ej. los últimos 30 minutos); null para todas las guardadas
+     */
+    public Trajectory getTrajectory(int busId, Duration window) {
+        int slot = slotTable.get(busId);
+        if (slot < 0) {
+            return empty(busId);
+        }
+
+        StampedLock lock = locks[slot];
+        long stamp = lock.tryOptimisticRead();
+        Trajectory trajectory = stamp == 0 ? null : read(busId, slot, window);
+        if (stamp == 0 || !lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                trajectory = read(busId, slot, window);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return trajectory;
+    }
+
+    /**
+     * Trayectoria de la ventana simplificada con Douglas-Peucker, para mostrar en mapas
+     */
+    public Trajectory getSimplifiedTrajectory(int busId, Duration window, double toleranceMeters) {
+        return getTrajectory(busId, window).simplify(toleranceMeters);
+    }
+
+    /**
+     * Copia el buffer de un puesto en orden cronológico. Bajo lectura optimista los datos pueden
+     * ser inconsistentes; los índices se acotan para no fallar y el llamador descarta el
+     * resultado si la validación no pasa.
+     */
+    private Trajectory read(int busId, int slot, Duration window) {
+        if (busBySlot[slot] != busId) {
+            return empty(busId);
+        }
+        int n = Math.min(Math.max(count[slot], 0), fixesPerBus);
+        int start = Math.floorMod(head[slot] - n, fixesPerBus);
+        int base = slot * fixesPerBus;
+
+        int skip = 0;
+        if (window != null && n > 0) {
+            long newest = epochSeconds[base + Math.floorMod(start + n - 1, fixesPerBus)];
+            long from = newest - window.getSeconds();
+            while (skip < n && epochSeconds[base + (start + skip) % fixesPerBus] < from) {
+                skip++;
+            }
+        }
+
+        int size = n - skip;
+        double[] lats = new double[size];
+        double[] lons = new double[size];
+        long[] times = new long[size];
+        int[] speeds = new int[size];
+        for (int i = 0; i < size; i++) {
+            int index = base + (start + skip + i) % fixesPerBus;
+            lats[i] = latitudesMicro[index] / MICRO;
+            lons[i] = longitudesMicro[index] / MICRO;
+            times[i] = epochSeconds[index];
+            speeds[i] = velocities[index];
+        }
+        return new Trajectory(busId, lats, lons, times, speeds);
+    }
+
+    private static Trajectory empty(int busId) {
+        return new Trajectory(busId, new double[0], new double[0], new long[0], new int[0]);
+    }
+
+    /**
+     * Asigna un puesto a un bus nuevo: uno libre o, si no hay, el del bus más desactualizado
+     */
+    private synchronized int assignSlot(int busId) {
+        int existing = slotTable.get(busId);
+        if (existing >= 0) {
+            return existing;
+        }
+
+        int slot;
+        if (usedSlots < maxBuses) {
+            slot = usedSlots++;
+        } else {
+            slot = oldestSlot();
+            evictions.incrementAndGet();
+        }
+
+        StampedLock lock = locks[slot];
+        long stamp = lock.writeLock();
+        try {
+            int evicted = busBySlot[slot];
+            busBySlot[slot] = busId;
+            head[slot] = 0;
+            count[slot] = 0;
+            slotTable = slotTable.with(busId, slot, evicted);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return slot;
+    }
+
+    private int oldestSlot() {
+        int oldest = 0;
+        long oldestSeconds = Long.MAX_VALUE;
+        for (int slot = 0; slot < maxBuses; slot++) {
+            long stamp = locks[slot].readLock();
+            try {
+                long seconds = count[slot] == 0 ? Long.MIN_VALUE
+                        : epochSeconds[slot * fixesPerBus + (head[slot] + fixesPerBus - 1) % fixesPerBus];
+                if (seconds < oldestSeconds) {
+                    oldestSeconds = seconds;
+                    oldest = slot;
+                }
+            } finally {
+                locks[slot].unlockRead(stamp);
+            }
+        }
+        return oldest;
+    }
+
+    /**
+     * Número de buses con trayectoria
+     */
+    public int size() {
+        return slotTable.size;
+    }
+
+    /**
+     * Obtiene estadísticas del almacén
+     */
+    public Stats getStats() {
+        long stored = 0;
+        for (int slot = 0; slot < maxBuses; slot++) {
+            stored += count[slot];
+        }
+        long bytes = (long) maxBuses * fixesPerBus * (Integer.BYTES * 3 + Short.BYTES);
+        return new Stats(slotTable.size, maxBuses, fixesPerBus, stored, appended.get(),
+                outOfOrder.get(), invalid.get(), evictions.get(), bytes);
+    }
+
+    /**
+     * Tabla bus -> puesto con direccionamiento abierto. Es inmutable una vez publicada; los
+     * cambios crean una tabla nueva (solo cuando llega un bus nuevo).
+     */
+    private static final class SlotTable {
+        private static final int EMPTY = Integer.MIN_VALUE;
+
+        private final int[] keys;
+        private final int[] slots;
+        private final int mask;
+        private final int size;
+
+        SlotTable(int maxBuses) {
+            int capacity = Integer.highestOneBit(Math.max(2, maxBuses) * 2 - 1) << 1;
+            this.keys = new int[capacity];
+            this.slots = new int[capacity];
+            this.mask = capacity - 1;
+            this.size = 0;
+            Arrays.fill(keys, EMPTY);
+        }
+
+        private SlotTable(int[] keys, int[] slots, int size) {
+            this.keys = keys;
+            this.slots = slots;
+            this.mask = keys.length - 1;
+            this.size = size;
+        }
+
+        int get(int busId) {
+            for (int i = mix(busId) & mask; ; i = (i + 1) & mask) {
+                if (keys[i] == busId) return slots[i];
+                if (keys[i] == EMPTY) return -1;
+            }
+        }
+
+        /**
+         * Copia con busId en el puesto dado y sin el bus desalojado (si lo hay)
+         */
+        SlotTable with(int busId, int slot, int evictedBusId) {
+            int[] newKeys = new int[keys.length];
+            int[] newSlots = new int[keys.length];
+            Arrays.fill(newKeys, EMPTY);
+            int newSize = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == EMPTY || keys[i] == evictedBusId) continue;
+                put(newKeys, newSlots, keys[i], slots[i]);
+                newSize++;
+            }
+            put(newKeys, newSlots, busId, slot);
+            return new SlotTable(newKeys, newSlots, newSize + 1);
+        }
+
+        private void put(int[] newKeys, int[] newSlots, int busId, int slot) {
+            int i = mix(busId) & mask;
+            while (newKeys[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            newKeys[i] = busId;
+            newSlots[i] = slot;
+        }
+
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /**
+     * Estadísticas del almacén de trayectorias
+     */
+    public static class Stats {
+        private final int busesTracked;
+        private final int maxBuses;
+        private final int fixesPerBus;
+        private final long fixesStored;
+        private final long fixesAppended;
+        private final long outOfOrder;
+        private final long invalid;
+        private final long evictions;
+        private final long bufferBytes;
+
+        public Stats(int busesTracked, int maxBuses, int fixesPerBus, long fixesStored, long fixesAppended,
+                     long outOfOrder, long invalid, long evictions, long bufferBytes) {
+            this.busesTracked = busesTracked;
+            this.maxBuses = maxBuses;
+            this.fixesPerBus = fixesPerBus;
+            this.fixesStored = fixesStored;
+            this.fixesAppended = fixesAppended;
+            this.outOfOrder = outOfOrder;
+            this.invalid = invalid;
+            this.evictions = evictions;
+            this.bufferBytes = bufferBytes;
+        }
+
+        public int getBusesTracked() {
+            return busesTracked;
+        }
+
+        public int getMaxBuses() {
+            return maxBuses;
+        }
+
+        public int getFixesPerBus() {
+            return fixesPerBus;
+        }
+
+        public long getFixesStored() {
+            return fixesStored;
+        }
+
+        public long getFixesAppended() {
+            return fixesAppended;
+        }
+
+        public long getOutOfOrder() {
+            return outOfOrder;
+        }
+
+        public long getInvalid() {
+            return invalid;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public long getBufferBytes() {
+            return bufferBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "TrajectoryStats[\n" +
+                    "  Buses con trayectoria:  %,d de %,d\n" +
+                    "  Posiciones por bus:     %,d\n" +
+                    "  Posiciones guardadas:   %,d\n" +
+                    "  Posiciones agregadas:   %,d\n" +
+                    "  Fuera de orden:         %,d\n" +
+                    "  Inválidas:              %,d\n" +
+                    "  Puestos reasignados:    %,d\n" +
+                    "  Memoria de buffers:     %.1f MB\n" +
+                    "]",
+                    busesTracked, maxBuses, fixesPerBus, fixesStored, fixesAppended,
+                    outOfOrder, invalid, evictions, bufferBytes / (1024.0 * 1024.0)
+            );
+        }
+    }
+}
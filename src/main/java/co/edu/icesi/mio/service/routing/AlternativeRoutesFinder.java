@@ -0,0 +1,302 @@
+package co.edu.icesi.mio.service.routing;
+
+import co.edu.icesi.mio.infra.csv.Arco;
+
+import java.util.*;
+
+/**
+ * Búsqueda de rutas alternativas con el algoritmo de Yen.
+ *
+ * Al inicio se calcula un árbol de caminos mínimos inverso desde el destino, que se
+ * reutiliza en todas las búsquedas de desvío: si el camino del árbol desde el nodo de desvío
+ * no toca arcos ni paradas bloqueadas se usa directamente, y si no, la distancia al destino
+ * del árbol sirve como heurística exacta (cota inferior) para un A*.
+ *
+ * Las rutas se comparan por tramos entre paradas, de modo que cambiar de línea sobre el mismo
+ * corredor no cuenta como alternativa. Una candidata se descarta si comparte con alguna ruta
+ * ya aceptada más de la fracción maxOverlap de su costo.
+ *
+ * La estructura puede compartirse entre threads; cada thread usa su propio estado de búsqueda.
+ */
+public class AlternativeRoutesFinder {
+
+    // Límite de candidatas examinadas por cada alternativa pedida
+    private static final int CANDIDATES_PER_ALTERNATIVE = 8;
+
+    private final RoutingGraph graph;
+    private final ThreadLocal<Query> queries;
+
+    public AlternativeRoutesFinder(RoutingGraph graph) {
+        this.graph = graph;
+        this.queries = ThreadLocal.withInitial(Query::new);
+    }
+
+    /**
+     * Calcula hasta k rutas distintas entre dos paradas, de menor a mayor costo
+     *
+     * @param maxOverlap Fracción máxima (0-1) del costo de una alternativa compartida con otra ya aceptada
+     * @return Rutas como listas de arcos (la primera es la óptima)
+     */
+    public List<List<Arco>> findAlternatives(int originId, int destinationId, int k, double maxOverlap) {
+        int source = graph.indexOf(originId);
+        int target = graph.indexOf(destinationId);
+
+        if (source < 0 || target < 0 || source == target || k <= 0) {
+            return Collections.emptyList();
+        }
+
+        List<List<Arco>> routes = new ArrayList<>();
+        for (Path path : queries.get().run(source, target, k, maxOverlap)) {
+            List<Arco> arcos = new ArrayList<>(path.arcs.length);
+            for (int arc : path.arcs) {
+                arcos.add(graph.getArco(arc));
+            }
+            routes.add(arcos);
+        }
+        return routes;
+    }
+
+    public RoutingGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Camino como secuencia de arcos del grafo compacto
+     */
+    private final class Path {
+        final int[] arcs;
+        final float cost;
+        final List<Integer> nodes;         // Paradas en orden, incluyendo origen y destino
+
+        Path(int[] arcs) {
+            this.arcs = arcs;
+            float total = 0f;
+            this.nodes = new ArrayList<>(arcs.length + 1);
+            nodes.add(graph.getTail(arcs[0]));
+            for (int arc : arcs) {
+                total += graph.getWeight(arc);
+                nodes.add(graph.getHead(arc));
+            }
+            this.cost = total;
+        }
+
+        /**
+         * Tramos (origen, destino) del camino
+         */
+        Set<Long> hops() {
+            Set<Long> hops = new HashSet<>();
+            for (int arc : arcs) {
+                hops.add(hopKey(graph.getTail(arc), graph.getHead(arc)));
+            }
+            return hops;
+        }
+    }
+
+    private static long hopKey(int tail, int head) {
+        return ((long) tail << 32) | (head & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Estado de búsqueda reutilizado entre consultas del mismo thread
+     */
+    private class Query {
+        private final SingleSourceSearch reverseTree;
+        private final float[] dist;
+        private final int[] predArc;
+        private final int[] stamps;
+        private final int[] blocked;       // blocked[v] == blockStamp si la parada está bloqueada
+        private final NodeHeap heap;
+        private int stamp;
+        private int blockStamp;
+
+        Query() {
+            int n = graph.getNodeCount();
+            this.reverseTree = new SingleSourceSearch(graph);
+            this.dist = new float[n];
+            this.predArc = new int[n];
+            this.stamps = new int[n];
+            this.blocked = new int[n];
+            this.heap = new NodeHeap();
+        }
+
+        List<Path> run(int source, int target, int k, double maxOverlap) {
+            reverseTree.run(target, false);
+            if (reverseTree.distance(source) == Float.POSITIVE_INFINITY) {
+                return Collections.emptyList();
+            }
+
+            Path shortest = new Path(treePath(source, target));
+            List<Path> accepted = new ArrayList<>();
+            List<Set<Long>> acceptedHops = new ArrayList<>();
+            accepted.add(shortest);
+            acceptedHops.add(shortest.hops());
+
+            List<Path> yenPaths = new ArrayList<>();   // Todas las rutas extraídas, en orden de costo
+            yenPaths.add(shortest);
+            PriorityQueue<Path> candidates = new PriorityQueue<>(Comparator.comparingDouble(p -> p.cost));
+            Set<List<Integer>> seen = new HashSet<>();
+            seen.add(shortest.nodes);
+
+            Path last = shortest;
+            int maxIterations = k * CANDIDATES_PER_ALTERNATIVE;
+            for (int iteration = 0; accepted.size() < k && iteration < maxIterations; iteration++) {
+                generateSpurCandidates(last, target, yenPaths, candidates, seen);
+                if (candidates.isEmpty()) break;
+
+                last = candidates.poll();
+                yenPaths.add(last);
+
+                if (overlapsAccepted(last, acceptedHops, maxOverlap)) continue;
+                accepted.add(last);
+                acceptedHops.add(last.hops());
+            }
+
+            return accepted;
+        }
+
+        private void generateSpurCandidates(Path last, int target, List<Path> yenPaths,
+                                            PriorityQueue<Path> candidates, Set<List<Integer>> seen) {
+            for (int i = 0; i < last.arcs.length; i++) {
+                QueryCancellation.checkpoint();
+                int spur = last.nodes.get(i);
+                List<Integer> root = last.nodes.subList(0, i + 1);
+
+                // Tramos desde el nodo de desvío ya usados por rutas con la misma raíz
+                Set<Integer> blockedHeads = new HashSet<>();
+                for (Path path : yenPaths) {
+                    if (path.nodes.size() > i + 1 && path.nodes.subList(0, i + 1).equals(root)) {
+                        blockedHeads.add(path.nodes.get(i + 1));
+                    }
+                }
+
+                // Las paradas de la raíz (salvo el desvío) no pueden repetirse
+                nextBlockStamp();
+                for (int j = 0; j < i; j++) {
+                    blocked[last.nodes.get(j)] = blockStamp;
+                }
+
+                int[] spurArcs = findSpurPath(spur, target, blockedHeads);
+                if (spurArcs == null) continue;
+
+                int[] arcs = new int[i + spurArcs.length];
+                System.arraycopy(last.arcs, 0, arcs, 0, i);
+                System.arraycopy(spurArcs, 0, arcs, i, spurArcs.length);
+
+                Path candidate = new Path(arcs);
+                if (seen.add(candidate.nodes)) {
+                    candidates.add(candidate);
+                }
+            }
+        }
+
+        /**
+         * Camino de spur a target evitando paradas bloqueadas y los tramos desde spur hacia blockedHeads
+         */
+        private int[] findSpurPath(int spur, int target, Set<Integer> blockedHeads) {
+            // Primero intentar el camino del árbol inverso, que es óptimo si no está bloqueado
+            int[] treeArcs = treePath(spur, target);
+            if (treeArcs != null && isAllowed(treeArcs, spur, blockedHeads)) {
+                return treeArcs;
+            }
+
+            // A* con la distancia del árbol inverso como heurística
+            stamp++;
+            if (stamp == Integer.MAX_VALUE) {
+                Arrays.fill(stamps, 0);
+                stamp = 1;
+            }
+            heap.clear();
+
+            dist[spur] = 0f;
+            predArc[spur] = -1;
+            stamps[spur] = stamp;
+            heap.push(spur, reverseTree.distance(spur));
+
+            while (!heap.isEmpty()) {
+                float key = heap.peekKey();
+                int u = heap.pop();
+                float distU = dist[u];
+                if (key > distU + reverseTree.distance(u)) continue; // Entrada obsoleta
+
+                if (u == target) {
+                    List<Integer> arcs = new ArrayList<>();
+                    for (int v = target; v != spur; v = graph.getTail(predArc[v])) {
+                        arcs.add(predArc[v]);
+                    }
+                    Collections.reverse(arcs);
+                    return arcs.stream().mapToInt(Integer::intValue).toArray();
+                }
+
+                for (int a = graph.firstOut(u); a < graph.endOut(u); a++) {
+                    int v = graph.getHead(a);
+                    float h = reverseTree.distance(v);
+                    if (h == Float.POSITIVE_INFINITY || blocked[v] == blockStamp) continue;
+                    if (u == spur && blockedHeads.contains(v)) continue;
+
+                    float newDist = distU + graph.getWeight(a);
+                    if (newDist == Float.POSITIVE_INFINITY) continue; // Arco cerrado
+                    if (stamps[v] != stamp || newDist < dist[v]) {
+                        dist[v] = newDist;
+                        predArc[v] = a;
+                        stamps[v] = stamp;
+                        heap.push(v, newDist + h);
+                    }
+                }
+            }
+
+            return null;
+        }
+
+        private boolean isAllowed(int[] arcs, int spur, Set<Integer> blockedHeads) {
+            if (arcs.length > 0 && blockedHeads.contains(graph.getHead(arcs[0]))) {
+                return false;
+            }
+            for (int arc : arcs) {
+                int head = graph.getHead(arc);
+                if (blocked[head] == blockStamp || head == spur) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Camino de v al destino siguiendo el árbol inverso (null si v no alcanza el destino)
+         */
+        private int[] treePath(int v, int target) {
+            if (reverseTree.distance(v) == Float.POSITIVE_INFINITY) {
+                return null;
+            }
+            List<Integer> arcs = new ArrayList<>();
+            while (v != target) {
+                int arc = reverseTree.predecessorArc(v);
+                arcs.add(arc);
+                v = graph.getHead(arc);
+            }
+            return arcs.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        private boolean overlapsAccepted(Path candidate, List<Set<Long>> acceptedHops, double maxOverlap) {
+            for (Set<Long> hops : acceptedHops) {
+                float shared = 0f;
+                for (int arc : candidate.arcs) {
+                    if (hops.contains(hopKey(graph.getTail(arc), graph.getHead(arc)))) {
+                        shared += graph.getWeight(arc);
+                    }
+                }
+                if (candidate.cost > 0 && shared / candidate.cost > maxOverlap) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void nextBlockStamp() {
+            blockStamp++;
+            if (blockStamp == Integer.MAX_VALUE) {
+                Arrays.fill(blocked, 0);
+                blockStamp = 1;
+            }
+        }
+    }
+}
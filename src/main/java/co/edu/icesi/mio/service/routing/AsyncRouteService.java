@@ -0,0 +1,316 @@
+package co.edu.icesi.mio.service.routing;
+
+import co.edu.icesi.mio.model.routing.CalculatedRoute;
+import co.edu.icesi.mio.model.routing.ParetoJourney;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * API asíncrona de consultas de rutas sobre un pool de threads dedicado y acotado.
+ *
+ * Cada consulta devuelve un CompletableFuture y tiene un plazo: si vence mientras espera en
+ * la cola se descarta sin calcular, y si vence durante la búsqueda esta se aborta en el
+ * siguiente punto de verificación. El future termina con TimeoutException al vencer el plazo,
+ * con CancellationException si quien lo pidió lo cancela y con RejectedExecutionException si
+ * la cola está llena. Cancelar un future retira la consulta de la cola o detiene su búsqueda.
+ *
+ * Las rutas se resuelven con RouteCalculatorService, así que la caché de rutas y los
+ * preprocesamientos se comparten con las consultas síncronas.
+ */
+public class AsyncRouteService {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+    public static final Duration DEFAULT_DEADLINE = Duration.ofSeconds(5);
+
+    private final RouteCalculatorService routeService;
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+
+    // Métricas
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicInteger peakQueueDepth = new AtomicInteger();
+    private final AtomicLong totalQueueWaitNanos = new AtomicLong();
+    private final AtomicLong totalRunNanos = new AtomicLong();
+    private final AtomicLong started = new AtomicLong();
+
+    public AsyncRouteService(RouteCalculatorService routeService) {
+        this(routeService, Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param threads Número de consultas que se ejecutan a la vez
+     * @param queueCapacity Consultas que pueden esperar en cola; las demás se rechazan
+     */
+    public AsyncRouteService(RouteCalculatorService routeService, int threads, int queueCapacity) {
+        if (threads <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("El número de threads y la capacidad de la cola deben ser positivos");
+        }
+        this.routeService = routeService;
+        this.queueCapacity = queueCapacity;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new QueryThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Calcula una ruta con el criterio indicado (usa la caché de rutas)
+     *
+     * @param deadline Tiempo máximo desde el pedido hasta la respuesta
+     */
+    public CompletableFuture<CalculatedRoute> calculateRouteAsync(int originId, int destinationId,
+                                                                  RouteStrategy strategy, Duration deadline) {
+        return submit(() -> routeService.calculateRoute(originId, destinationId, strategy), deadline);
+    }
+
+    public CompletableFuture<CalculatedRoute> calculateRouteAsync(int originId, int destinationId,
+                                                                  RouteStrategy strategy) {
+        return calculateRouteAsync(originId, destinationId, strategy, DEFAULT_DEADLINE);
+    }
+
+    /**
+     * Calcula hasta k rutas alternativas, de la más rápida a la más lenta
+     */
+    public CompletableFuture<List<CalculatedRoute>> calculateAlternativeRoutesAsync(int originId, int destinationId,
+                                                                                    int k, Duration deadline) {
+        return submit(() -> routeService.calculateAlternativeRoutes(originId, destinationId, k), deadline);
+    }
+
+    /**
+     * Calcula los viajes óptimos de Pareto (tiempo vs. transbordos)
+     */
+    public CompletableFuture<List<ParetoJourney>> calculateParetoJourneysAsync(int originId, int destinationId,
+                                                                               int maxTransfers, Duration deadline) {
+        return submit(() -> routeService.calculateParetoJourneys(originId, destinationId, maxTransfers), deadline);
+    }
+
+    /**
+     * Encola una consulta con su plazo
+     */
+    private <T> CompletableFuture<T> submit(Supplier<T> query, Duration deadline) {
+        long enqueued = System.nanoTime();
+        QueryCancellation.Token token = new QueryCancellation.Token(enqueued + deadline.toNanos());
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable task = () -> execute(query, token, future, enqueued);
+
+        future.whenComplete((result, error) -> {
+            if (error != null) {
+                // Detener la búsqueda en curso o liberar el lugar en la cola
+                token.cancel();
+                executor.remove(task);
+            }
+            recordOutcome(error);
+        });
+
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new RejectedExecutionException(
+                    "Cola de consultas de rutas llena (" + queueCapacity + " pendientes)", e));
+            return future;
+        }
+
+        submitted.incrementAndGet();
+        peakQueueDepth.accumulateAndGet(executor.getQueue().size(), Math::max);
+        future.orTimeout(deadline.toNanos(), TimeUnit.NANOSECONDS);
+        return future;
+    }
+
+    private <T> void execute(Supplier<T> query, QueryCancellation.Token token,
+                             CompletableFuture<T> future, long enqueued) {
+        if (future.isDone()) return; // Cancelada o vencida mientras esperaba
+
+        long start = System.nanoTime();
+        totalQueueWaitNanos.addAndGet(start - enqueued);
+        started.incrementAndGet();
+        if (token.isExpired(start)) {
+            future.completeExceptionally(new TimeoutException("Plazo vencido en la cola de consultas"));
+            return;
+        }
+
+        QueryCancellation.attach(token);
+        try {
+            future.complete(query.get());
+        } catch (CancellationException e) {
+            // Si la canceló quien la pidió el future ya terminó; si no, venció el plazo
+            future.completeExceptionally(new TimeoutException(e.getMessage()));
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        } finally {
+            QueryCancellation.detach();
+            totalRunNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    private void recordOutcome(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+
+        if (cause == null) {
+            completed.incrementAndGet();
+        } else if (cause instanceof TimeoutException) {
+            timedOut.incrementAndGet();
+        } else if (cause instanceof CancellationException) {
+            cancelled.incrementAndGet();
+        } else if (cause instanceof RejectedExecutionException) {
+            rejected.incrementAndGet();
+        } else {
+            failed.incrementAndGet();
+        }
+    }
+
+    /**
+     * Consultas esperando en la cola
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public Stats getStats() {
+        long startedCount = started.get();
+        double avgQueueWaitMs = startedCount == 0 ? 0 : totalQueueWaitNanos.get() / 1e6 / startedCount;
+        double avgRunMs = startedCount == 0 ? 0 : totalRunNanos.get() / 1e6 / startedCount;
+        return new Stats(submitted.get(), completed.get(), failed.get(), rejected.get(), timedOut.get(),
+                cancelled.get(), executor.getQueue().size(), peakQueueDepth.get(), queueCapacity,
+                executor.getActiveCount(), avgQueueWaitMs, avgRunMs);
+    }
+
+    /**
+     * Deja de aceptar consultas y espera a que terminen las que están en curso
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Threads daemon con nombre para identificar las consultas en los volcados
+     */
+    private static class QueryThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "consulta-ruta-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Métricas de la cola y de las consultas atendidas
+     */
+    public static class Stats {
+        private final long submitted;
+        private final long completed;
+        private final long failed;
+        private final long rejected;
+        private final long timedOut;
+        private final long cancelled;
+        private final int queueDepth;
+        private final int peakQueueDepth;
+        private final int queueCapacity;
+        private final int activeQueries;
+        private final double avgQueueWaitMs;
+        private final double avgRunMs;
+
+        public Stats(long submitted, long completed, long failed, long rejected, long timedOut,
+                     long cancelled, int queueDepth, int peakQueueDepth, int queueCapacity,
+                     int activeQueries, double avgQueueWaitMs, double avgRunMs) {
+            this.submitted = submitted;
+            this.completed = completed;
+            this.failed = failed;
+            this.rejected = rejected;
+            this.timedOut = timedOut;
+            this.cancelled = cancelled;
+            this.queueDepth = queueDepth;
+            this.peakQueueDepth = peakQueueDepth;
+            this.queueCapacity = queueCapacity;
+            this.activeQueries = activeQueries;
+            this.avgQueueWaitMs = avgQueueWaitMs;
+            this.avgRunMs = avgRunMs;
+        }
+
+        public long getSubmitted() {
+            return submitted;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getTimedOut() {
+            return timedOut;
+        }
+
+        public long getCancelled() {
+            return cancelled;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public int getPeakQueueDepth() {
+            return peakQueueDepth;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public int getActiveQueries() {
+            return activeQueries;
+        }
+
+        public double getAvgQueueWaitMs() {
+            return avgQueueWaitMs;
+        }
+
+        public double getAvgRunMs() {
+            return avgRunMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "Consultas Asíncronas de Rutas:\n" +
+                            "  Enviadas: %,d | Completadas: %,d | Fallidas: %,d\n" +
+                            "  Rechazadas: %,d | Vencidas: %,d | Canceladas: %,d\n" +
+                            "  Cola: %,d / %,d (pico %,d) | En curso: %d\n" +
+                            "  Espera promedio: %.2f ms | Cálculo promedio: %.2f ms",
+                    submitted, completed, failed, rejected, timedOut, cancelled,
+                    queueDepth, queueCapacity, peakQueueDepth, activeQueries, avgQueueWaitMs, avgRunMs
+            );
+        }
+    }
+}
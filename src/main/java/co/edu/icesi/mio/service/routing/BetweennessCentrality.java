@@ -0,0 +1,230 @@
+package co.edu.icesi.mio.service.routing;
+
+import co.edu.icesi.mio.infra.csv.Arco;
+import co.edu.icesi.mio.infra.csv.Parada;
+import co.edu.icesi.mio.model.analytics.NetworkCentrality;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Calcula la centralidad de intermediación de paradas y arcos con el algoritmo de Brandes.
+ *
+ * Por cada parada origen se hace un Dijkstra con los tiempos actuales, se cuentan los caminos
+ * más rápidos hacia cada parada (sigma) y luego, en orden inverso, se acumula la dependencia
+ * del origen sobre cada parada y arco. Los orígenes se reparten entre tareas fork/join; cada
+ * hoja tiene sus propios acumuladores y las sumas parciales se combinan al unir las tareas.
+ */
+public class BetweennessCentrality {
+
+    // Tolerancia (minutos) para considerar dos tiempos iguales al contar caminos empatados
+    private static final double TIE_EPSILON = 1e-4;
+
+    // Orígenes por hoja; bajo este tamaño una tarea deja de dividirse
+    private static final int SOURCES_PER_TASK = 32;
+
+    private final RouteCalculatorService routeService;
+
+    public BetweennessCentrality(RouteCalculatorService routeService) {
+        this.routeService = routeService;
+    }
+
+    /**
+     * Calcula la betweenness usando todas las paradas como origen
+     */
+    public NetworkCentrality calculate(int numThreads) {
+        return calculate(routeService.getTimeRoutingGraph(), numThreads);
+    }
+
+    /**
+     * Calcula la betweenness sobre un grafo compacto dado (p. ej. con otros pesos)
+     */
+    NetworkCentrality calculate(RoutingGraph graph, int numThreads) {
+        int n = graph.getNodeCount();
+
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.println("  CENTRALIDAD DE LA RED (BETWEENNESS, PARALELO)");
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.printf("Paradas: %d | Arcos: %d | Threads: %d\n", n, graph.getArcCount(), numThreads);
+
+        long startTime = System.currentTimeMillis();
+
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+        Accumulators totals;
+        try {
+            totals = pool.invoke(new SourceRangeTask(graph, 0, n));
+        } finally {
+            pool.shutdown();
+        }
+
+        long duration = System.currentTimeMillis() - startTime;
+        System.out.printf("Duración: %.2f segundos\n", duration / 1000.0);
+        System.out.println("═══════════════════════════════════════════════════════════\n");
+
+        return toCentrality(graph, totals, n);
+    }
+
+    /**
+     * Convierte los acumuladores indexados por el grafo compacto al modelo por Parada/Arco
+     */
+    private NetworkCentrality toCentrality(RoutingGraph graph, Accumulators totals, int sources) {
+        int n = graph.getNodeCount();
+        List<Parada> stops = new ArrayList<>(n);
+        for (int v = 0; v < n; v++) {
+            stops.add(graph.getGrafo().getParadas().get(graph.getStopId(v)));
+        }
+
+        int m = graph.getArcCount();
+        List<Arco> arcs = new ArrayList<>(m);
+        for (int a = 0; a < m; a++) {
+            arcs.add(graph.getArco(a));
+        }
+
+        return new NetworkCentrality(stops, totals.stopScore, arcs, totals.arcScore, sources);
+    }
+
+    /**
+     * Sumas parciales de dependencia por parada y por arco
+     */
+    private static final class Accumulators {
+        final double[] stopScore;
+        final double[] arcScore;
+
+        Accumulators(int n, int m) {
+            this.stopScore = new double[n];
+            this.arcScore = new double[m];
+        }
+
+        void add(Accumulators other) {
+            for (int v = 0; v < stopScore.length; v++) {
+                stopScore[v] += other.stopScore[v];
+            }
+            for (int a = 0; a < arcScore.length; a++) {
+                arcScore[a] += other.arcScore[a];
+            }
+        }
+    }
+
+    /**
+     * Procesa los orígenes [from, to), dividiendo el rango mientras sea grande
+     */
+    private static final class SourceRangeTask extends RecursiveTask<Accumulators> {
+        private static final long serialVersionUID = 1L;
+
+        private final RoutingGraph graph;
+        private final int from;
+        private final int to;
+
+        SourceRangeTask(RoutingGraph graph, int from, int to) {
+            this.graph = graph;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Accumulators compute() {
+            if (to - from <= SOURCES_PER_TASK) {
+                BrandesState state = new BrandesState(graph);
+                for (int s = from; s < to; s++) {
+                    state.accumulate(s);
+                }
+                return state.totals;
+            }
+
+            int mid = (from + to) >>> 1;
+            SourceRangeTask left = new SourceRangeTask(graph, from, mid);
+            left.fork();
+            Accumulators right = new SourceRangeTask(graph, mid, to).compute();
+            Accumulators result = left.join();
+            result.add(right);
+            return result;
+        }
+    }
+
+    /**
+     * Estado de una hoja: búsqueda, contadores de caminos y sus acumuladores parciales
+     */
+    private static final class BrandesState {
+        private final RoutingGraph graph;
+        private final SingleSourceSearch search;
+        private final double[] sigma;          // Número de caminos más rápidos desde el origen
+        private final double[] delta;          // Dependencia del origen sobre cada parada
+        private final int[] rank;              // Posición en el orden de asentamiento (-1 si no)
+        private final int[] predStart;         // Arcos predecesores del asentado i en [predStart[i], predStart[i + 1])
+        private final int[] predArcs;
+        final Accumulators totals;
+
+        BrandesState(RoutingGraph graph) {
+            this.graph = graph;
+            this.search = new SingleSourceSearch(graph);
+            int n = graph.getNodeCount();
+            this.sigma = new double[n];
+            this.delta = new double[n];
+            this.rank = new int[n];
+            this.predStart = new int[n + 1];
+            this.predArcs = new int[graph.getArcCount()];
+            this.totals = new Accumulators(n, graph.getArcCount());
+            Arrays.fill(rank, -1);
+        }
+
+        void accumulate(int source) {
+            search.run(source, true);
+            int count = search.getSettledCount();
+            for (int i = 0; i < count; i++) {
+                rank[search.settledNode(i)] = i;
+            }
+
+            // Conteo de caminos en orden de tiempo: un arco (v, w) está en algún camino más
+            // rápido si v se asentó antes que w y dist(v) + peso = dist(w). Exigir el orden
+            // evita ciclos entre paradas unidas por arcos de costo 0 (paradas en el mismo punto)
+            sigma[source] = 1;
+            delta[source] = 0;
+            predStart[0] = 0;
+            predStart[1] = 0;
+            int predCount = 0;
+            for (int i = 1; i < count; i++) {
+                int w = search.settledNode(i);
+                double distW = search.distance(w);
+                double paths = 0;
+
+                for (int k = graph.firstIn(w); k < graph.endIn(w); k++) {
+                    int a = graph.inArc(k);
+                    int v = graph.getTail(a);
+                    float weight = graph.getWeight(a);
+                    if (rank[v] < 0 || rank[v] >= i || weight == Float.POSITIVE_INFINITY) continue;
+                    if (Math.abs(search.distance(v) + weight - distW) > TIE_EPSILON) continue;
+
+                    predArcs[predCount++] = a;
+                    paths += sigma[v];
+                }
+
+                sigma[w] = paths;
+                delta[w] = 0;
+                predStart[i + 1] = predCount;
+            }
+
+            // Acumulación de dependencias en orden inverso
+            double[] stopScore = totals.stopScore;
+            double[] arcScore = totals.arcScore;
+            for (int i = count - 1; i > 0; i--) {
+                int w = search.settledNode(i);
+                double share = (1 + delta[w]) / sigma[w];
+                for (int k = predStart[i]; k < predStart[i + 1]; k++) {
+                    int a = predArcs[k];
+                    int v = graph.getTail(a);
+                    double c = sigma[v] * share;
+                    arcScore[a] += c;
+                    delta[v] += c;
+                }
+                stopScore[w] += delta[w];
+            }
+
+            for (int i = 0; i < count; i++) {
+                rank[search.settledNode(i)] = -1;
+            }
+        }
+    }
+}
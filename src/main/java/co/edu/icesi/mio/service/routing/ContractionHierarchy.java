@@ -0,0 +1,377 @@
+package co.edu.icesi.mio.service.routing;
+
+import co.edu.icesi.mio.infra.csv.Arco;
+import co.edu.icesi.mio.infra.csv.GrafoMIO;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Jerarquía de contracción (Contraction Hierarchies) precalculada sobre el grafo del MIO.
+ * Cada parada tiene un rango; las consultas son un Dijkstra bidireccional que solo sube
+ * de rango, y los atajos se desempaquetan de vuelta a la secuencia original de arcos.
+ *
+ * La estructura es inmutable y puede compartirse entre threads: cada thread usa su
+ * propio estado de búsqueda.
+ */
+public class ContractionHierarchy {
+
+    private static final int FILE_MAGIC = 0x4D494F43; // "MIOC"
+    private static final int FILE_VERSION = 1;
+
+    private final GrafoMIO grafo;
+    private final int[] stopIds;
+    private final Map<Integer, Integer> indexByStopId;
+    private final int[] rank;
+
+    // Aristas de la jerarquía (originales y atajos)
+    private final int[] edgeArc;      // posición en grafo.getArcosRuteables(), -1 si es atajo
+    private final int[] edgeSkip1;    // primera mitad del atajo (u -> x)
+    private final int[] edgeSkip2;    // segunda mitad del atajo (x -> w)
+
+    // Grafo ascendente para la búsqueda hacia adelante (aristas u -> w con rango(w) > rango(u))
+    private final int[] upFirst;
+    private final int[] upHead;
+    private final float[] upWeight;
+    private final int[] upEdge;
+
+    // Grafo ascendente para la búsqueda hacia atrás (aristas u -> w con rango(u) > rango(w), guardadas en w)
+    private final int[] downFirst;
+    private final int[] downHead;
+    private final float[] downWeight;
+    private final int[] downEdge;
+
+    private final ThreadLocal<Query> queries;
+
+    ContractionHierarchy(GrafoMIO grafo, int[] stopIds, int[] rank,
+                         int[] edgeArc, int[] edgeSkip1, int[] edgeSkip2,
+                         int[] upFirst, int[] upHead, float[] upWeight, int[] upEdge,
+                         int[] downFirst, int[] downHead, float[] downWeight, int[] downEdge) {
+        this.grafo = grafo;
+        this.stopIds = stopIds;
+        this.rank = rank;
+        this.edgeArc = edgeArc;
+        this.edgeSkip1 = edgeSkip1;
+        this.edgeSkip2 = edgeSkip2;
+        this.upFirst = upFirst;
+        this.upHead = upHead;
+        this.upWeight = upWeight;
+        this.upEdge = upEdge;
+        this.downFirst = downFirst;
+        this.downHead = downHead;
+        this.downWeight = downWeight;
+        this.downEdge = downEdge;
+
+        this.indexByStopId = new HashMap<>();
+        for (int i = 0; i < stopIds.length; i++) {
+            indexByStopId.put(stopIds[i], i);
+        }
+        this.queries = ThreadLocal.withInitial(Query::new);
+    }
+
+    /**
+     * Calcula la secuencia de arcos del camino de menor costo entre dos paradas
+     *
+     * @param originId ID de la parada origen
+     * @param destinationId ID de la parada destino
+     * @return Arcos del camino en orden (vacío si no hay ruta)
+     */
+    public List<Arco> findPath(int originId, int destinationId) {
+        Integer source = indexByStopId.get(originId);
+        Integer target = indexByStopId.get(destinationId);
+
+        if (source == null || target == null || source.equals(target)) {
+            return Collections.emptyList();
+        }
+
+        return queries.get().run(source, target);
+    }
+
+    public int getNodeCount() {
+        return stopIds.length;
+    }
+
+    public int getEdgeCount() {
+        return edgeArc.length;
+    }
+
+    /**
+     * Número de atajos agregados durante la contracción
+     */
+    public int getShortcutCount() {
+        int shortcuts = 0;
+        for (int arc : edgeArc) {
+            if (arc < 0) shortcuts++;
+        }
+        return shortcuts;
+    }
+
+    /**
+     * Desempaqueta una arista (recursivamente si es atajo) agregando los arcos originales
+     */
+    private void unpack(int edge, List<Arco> path) {
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(edge);
+
+        while (!stack.isEmpty()) {
+            int e = stack.pop();
+            if (edgeArc[e] >= 0) {
+                path.add(grafo.getArcosRuteables().get(edgeArc[e]));
+            } else {
+                // Apilar en orden inverso para procesar primero la primera mitad
+                stack.push(edgeSkip2[e]);
+                stack.push(edgeSkip1[e]);
+            }
+        }
+    }
+
+    /**
+     * Guarda la jerarquía en un archivo binario
+     */
+    public void save(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeInt(grafo.getArcosRuteables().size());
+
+            writeInts(out, stopIds);
+            writeInts(out, rank);
+            writeInts(out, edgeArc);
+            writeInts(out, edgeSkip1);
+            writeInts(out, edgeSkip2);
+            writeInts(out, upFirst);
+            writeInts(out, upHead);
+            writeFloats(out, upWeight);
+            writeInts(out, upEdge);
+            writeInts(out, downFirst);
+            writeInts(out, downHead);
+            writeFloats(out, downWeight);
+            writeInts(out, downEdge);
+        }
+    }
+
+    /**
+     * Carga una jerarquía desde un archivo generado con {@link #save(Path)}
+     *
+     * @param file Archivo de la jerarquía
+     * @param grafo Grafo sobre el que se construyó (debe ser el mismo)
+     * @return Jerarquía cargada
+     */
+    public static ContractionHierarchy load(Path file, GrafoMIO grafo) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC) {
+                throw new IOException("El archivo no es una jerarquía de contracción: " + file);
+            }
+            int version = in.readInt();
+            if (version != FILE_VERSION) {
+                throw new IOException("Versión de archivo no soportada: " + version);
+            }
+            int arcCount = in.readInt();
+            if (arcCount != grafo.getArcosRuteables().size()) {
+                throw new IOException("La jerarquía no corresponde al grafo cargado (arcos: "
+                        + arcCount + " vs " + grafo.getArcosRuteables().size() + ")");
+            }
+
+            int[] stopIds = readInts(in);
+            for (int stopId : stopIds) {
+                if (!grafo.getParadas().containsKey(stopId)) {
+                    throw new IOException("La jerarquía referencia una parada inexistente: " + stopId);
+                }
+            }
+
+            int[] rank = readInts(in);
+            int[] edgeArc = readInts(in);
+            int[] edgeSkip1 = readInts(in);
+            int[] edgeSkip2 = readInts(in);
+            int[] upFirst = readInts(in);
+            int[] upHead = readInts(in);
+            float[] upWeight = readFloats(in);
+            int[] upEdge = readInts(in);
+            int[] downFirst = readInts(in);
+            int[] downHead = readInts(in);
+            float[] downWeight = readFloats(in);
+            int[] downEdge = readInts(in);
+
+            return new ContractionHierarchy(grafo, stopIds, rank, edgeArc, edgeSkip1, edgeSkip2,
+                    upFirst, upHead, upWeight, upEdge, downFirst, downHead, downWeight, downEdge);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static void writeFloats(DataOutputStream out, float[] values) throws IOException {
+        out.writeInt(values.length);
+        for (float value : values) {
+            out.writeFloat(value);
+        }
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int[] values = new int[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    private static float[] readFloats(DataInputStream in) throws IOException {
+        float[] values = new float[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readFloat();
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ContractionHierarchy[paradas=%d, aristas=%d, atajos=%d]",
+                getNodeCount(), getEdgeCount(), getShortcutCount());
+    }
+
+    /**
+     * Estado de una búsqueda bidireccional. Se reutiliza entre consultas del mismo thread;
+     * las marcas de versión evitan reinicializar los arreglos en cada consulta.
+     */
+    private class Query {
+        private final float[] distForward;
+        private final float[] distBackward;
+        private final int[] stampForward;
+        private final int[] stampBackward;
+        private final int[] predForward;
+        private final int[] predBackward;
+        private final int[] edgeForward;
+        private final int[] edgeBackward;
+        private final NodeHeap heapForward;
+        private final NodeHeap heapBackward;
+        private int stamp;
+
+        Query() {
+            int n = stopIds.length;
+            this.distForward = new float[n];
+            this.distBackward = new float[n];
+            this.stampForward = new int[n];
+            this.stampBackward = new int[n];
+            this.predForward = new int[n];
+            this.predBackward = new int[n];
+            this.edgeForward = new int[n];
+            this.edgeBackward = new int[n];
+            this.heapForward = new NodeHeap();
+            this.heapBackward = new NodeHeap();
+            this.stamp = 0;
+        }
+
+        List<Arco> run(int source, int target) {
+            nextStamp();
+            heapForward.clear();
+            heapBackward.clear();
+
+            distForward[source] = 0f;
+            stampForward[source] = stamp;
+            heapForward.push(source, 0f);
+            distBackward[target] = 0f;
+            stampBackward[target] = stamp;
+            heapBackward.push(target, 0f);
+
+            float best = Float.POSITIVE_INFINITY;
+            int meeting = -1;
+
+            int iterations = 0;
+            while (!heapForward.isEmpty() || !heapBackward.isEmpty()) {
+                if ((++iterations & QueryCancellation.CHECK_MASK) == 0) QueryCancellation.checkpoint();
+                float minForward = heapForward.isEmpty() ? Float.POSITIVE_INFINITY : heapForward.peekKey();
+                float minBackward = heapBackward.isEmpty() ? Float.POSITIVE_INFINITY : heapBackward.peekKey();
+
+                // Ninguna dirección puede mejorar el mejor camino encontrado
+                if (Math.min(minForward, minBackward) >= best) {
+                    break;
+                }
+
+                boolean forward = minForward <= minBackward;
+                NodeHeap heap = forward ? heapForward : heapBackward;
+                float key = heap.peekKey();
+                int u = heap.pop();
+
+                float[] dist = forward ? distForward : distBackward;
+                if (key > dist[u]) {
+                    continue; // Entrada obsoleta
+                }
+
+                // ¿Se encuentran las dos búsquedas en u?
+                if (forward ? stampBackward[u] == stamp : stampForward[u] == stamp) {
+                    float total = distForward[u] + distBackward[u];
+                    if (total < best) {
+                        best = total;
+                        meeting = u;
+                    }
+                }
+
+                if (forward) {
+                    relax(u, key, upFirst, upHead, upWeight, upEdge,
+                            distForward, stampForward, predForward, edgeForward, heapForward);
+                } else {
+                    relax(u, key, downFirst, downHead, downWeight, downEdge,
+                            distBackward, stampBackward, predBackward, edgeBackward, heapBackward);
+                }
+            }
+
+            if (meeting < 0) {
+                return Collections.emptyList();
+            }
+
+            // Aristas desde el origen hasta el punto de encuentro
+            List<Integer> edges = new ArrayList<>();
+            for (int v = meeting; v != source; v = predForward[v]) {
+                edges.add(edgeForward[v]);
+            }
+            Collections.reverse(edges);
+
+            // Aristas desde el punto de encuentro hasta el destino
+            for (int v = meeting; v != target; v = predBackward[v]) {
+                edges.add(edgeBackward[v]);
+            }
+
+            List<Arco> path = new ArrayList<>();
+            for (int edge : edges) {
+                unpack(edge, path);
+            }
+            return path;
+        }
+
+        private void relax(int u, float distU, int[] first, int[] head, float[] weight, int[] edge,
+                           float[] dist, int[] stamps, int[] pred, int[] predEdge, NodeHeap heap) {
+            for (int i = first[u]; i < first[u + 1]; i++) {
+                int v = head[i];
+                float newDist = distU + weight[i];
+                if (stamps[v] != stamp || newDist < dist[v]) {
+                    dist[v] = newDist;
+                    stamps[v] = stamp;
+                    pred[v] = u;
+                    predEdge[v] = edge[i];
+                    heap.push(v, newDist);
+                }
+            }
+        }
+
+        private void nextStamp() {
+            stamp++;
+            if (stamp == Integer.MAX_VALUE) {
+                Arrays.fill(stampForward, 0);
+                Arrays.fill(stampBackward, 0);
+                stamp = 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,560 @@
+package co.edu.icesi.mio.service.routing;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+
+/**
+ * Preprocesamiento de la jerarquía de contracción en paralelo.
+ *
+ * En cada ronda se calcula la prioridad de las paradas pendientes, se elige un conjunto
+ * independiente de paradas con prioridad mínima local y se contraen todas a la vez:
+ * las búsquedas de testigos de cada parada corren en paralelo sobre el grafo restante
+ * y luego se agregan los atajos de forma secuencial.
+ *
+ * Los testigos no pueden pasar por otras paradas del mismo conjunto: como todas se
+ * contraen en la misma ronda, un testigo por una de ellas dejaría de existir y dos
+ * caminos de igual costo (u -> v1 -> w, u -> v2 -> w) se anularían mutuamente.
+ */
+public class ContractionHierarchyBuilder {
+
+    private static final int WITNESS_SETTLE_LIMIT = 500; // Nodos máximos por búsqueda de testigos
+
+    private final RoutingGraph graph;
+    private final int numThreads;
+    private final int n;
+
+    // Aristas (originales y atajos)
+    private int edgeCount;
+    private int[] edgeFrom;
+    private int[] edgeTo;
+    private float[] edgeWeight;
+    private int[] edgeArc;
+    private int[] edgeSkip1;
+    private int[] edgeSkip2;
+
+    // Grafo restante (solo aristas entre paradas no contraídas)
+    private final IntList[] outEdges;
+    private final IntList[] inEdges;
+    private final boolean[] contracted;
+    private final boolean[] inRound;           // Paradas del conjunto independiente en curso
+    private final int[] level;
+    private final int[] deletedNeighbors;
+    private final int[] priority;
+    private final int[] rank;
+
+    private final ThreadLocal<WitnessSearch> witnessSearches;
+
+    public ContractionHierarchyBuilder(RoutingGraph graph, int numThreads) {
+        this.graph = graph;
+        this.numThreads = Math.max(1, numThreads);
+        this.n = graph.getNodeCount();
+
+        int capacity = Math.max(16, graph.getArcCount() * 2);
+        this.edgeFrom = new int[capacity];
+        this.edgeTo = new int[capacity];
+        this.edgeWeight = new float[capacity];
+        this.edgeArc = new int[capacity];
+        this.edgeSkip1 = new int[capacity];
+        this.edgeSkip2 = new int[capacity];
+
+        this.outEdges = new IntList[n];
+        this.inEdges = new IntList[n];
+        for (int i = 0; i < n; i++) {
+            outEdges[i] = new IntList();
+            inEdges[i] = new IntList();
+        }
+        this.contracted = new boolean[n];
+        this.inRound = new boolean[n];
+        this.level = new int[n];
+        this.deletedNeighbors = new int[n];
+        this.priority = new int[n];
+        this.rank = new int[n];
+        this.witnessSearches = ThreadLocal.withInitial(WitnessSearch::new);
+    }
+
+    /**
+     * Ejecuta la contracción completa
+     *
+     * @return Jerarquía lista para consultas
+     */
+    public ContractionHierarchy build() throws InterruptedException {
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.println("  CONSTRUCCIÓN DE JERARQUÍA DE CONTRACCIÓN");
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.printf("Paradas: %,d | Arcos: %,d | Threads: %d\n",
+                n, graph.getArcCount(), numThreads);
+
+        long startTime = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+
+        try {
+            addOriginalEdges();
+            int originalEdges = edgeCount;
+
+            // Prioridades iniciales
+            int[] pending = new int[n];
+            for (int i = 0; i < n; i++) pending[i] = i;
+            runParallel(executor, pending, v -> {
+                priority[v] = computePriority(v, witnessSearches.get());
+                return null;
+            });
+
+            int nextRank = 0;
+            int rounds = 0;
+            int remaining = n;
+
+            while (remaining > 0) {
+                rounds++;
+                int[] independentSet = selectIndependentSet(pending, remaining);
+
+                // Calcular atajos de cada parada del conjunto en paralelo
+                for (int v : independentSet) inRound[v] = true;
+                List<List<Shortcut>> shortcuts = runParallel(executor, independentSet,
+                        v -> findShortcuts(v, witnessSearches.get()));
+
+                // Contraer secuencialmente
+                Set<Integer> touched = new HashSet<>();
+                for (int i = 0; i < independentSet.length; i++) {
+                    int v = independentSet[i];
+                    contract(v, shortcuts.get(i), touched);
+                    rank[v] = nextRank++;
+                    inRound[v] = false;
+                }
+
+                // Compactar la lista de pendientes
+                int count = 0;
+                for (int i = 0; i < remaining; i++) {
+                    if (!contracted[pending[i]]) {
+                        pending[count++] = pending[i];
+                    }
+                }
+                remaining = count;
+
+                // Actualizar prioridades de los vecinos afectados
+                int[] neighbors = touched.stream()
+                        .mapToInt(Integer::intValue)
+                        .filter(u -> !contracted[u])
+                        .toArray();
+                runParallel(executor, neighbors, u -> {
+                    priority[u] = computePriority(u, witnessSearches.get());
+                    return null;
+                });
+            }
+
+            ContractionHierarchy hierarchy = assemble();
+
+            long endTime = System.currentTimeMillis();
+            System.out.printf("Rondas: %d\n", rounds);
+            System.out.printf("Aristas originales: %,d | Atajos: %,d\n", originalEdges, edgeCount - originalEdges);
+            System.out.printf("Duración: %.2f segundos\n", (endTime - startTime) / 1000.0);
+            System.out.println();
+
+            return hierarchy;
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Agrega los arcos del grafo, conservando solo el de menor peso entre cada par de paradas
+     */
+    private void addOriginalEdges() {
+        Map<Long, Integer> edgeByPair = new HashMap<>();
+
+        for (int u = 0; u < n; u++) {
+            for (int a = graph.firstOut(u); a < graph.endOut(u); a++) {
+                int v = graph.getHead(a);
+                if (v == u) continue;
+
+                float weight = graph.getWeight(a);
+                long key = (long) u * n + v;
+                Integer existing = edgeByPair.get(key);
+
+                if (existing == null) {
+                    int e = addEdge(u, v, weight, graph.getSourceIndex(a), -1, -1);
+                    edgeByPair.put(key, e);
+                } else if (weight < edgeWeight[existing]) {
+                    edgeWeight[existing] = weight;
+                    edgeArc[existing] = graph.getSourceIndex(a);
+                }
+            }
+        }
+    }
+
+    private int addEdge(int from, int to, float weight, int arc, int skip1, int skip2) {
+        if (edgeCount == edgeFrom.length) {
+            int capacity = edgeCount * 2;
+            edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+            edgeTo = Arrays.copyOf(edgeTo, capacity);
+            edgeWeight = Arrays.copyOf(edgeWeight, capacity);
+            edgeArc = Arrays.copyOf(edgeArc, capacity);
+            edgeSkip1 = Arrays.copyOf(edgeSkip1, capacity);
+            edgeSkip2 = Arrays.copyOf(edgeSkip2, capacity);
+        }
+
+        int e = edgeCount++;
+        edgeFrom[e] = from;
+        edgeTo[e] = to;
+        edgeWeight[e] = weight;
+        edgeArc[e] = arc;
+        edgeSkip1[e] = skip1;
+        edgeSkip2[e] = skip2;
+        outEdges[from].add(e);
+        inEdges[to].add(e);
+        return e;
+    }
+
+    /**
+     * Elige las paradas cuya prioridad es mínima entre todos sus vecinos pendientes
+     */
+    private int[] selectIndependentSet(int[] pending, int remaining) {
+        IntList selected = new IntList();
+
+        for (int i = 0; i < remaining; i++) {
+            int v = pending[i];
+            if (isLocalMinimum(v, outEdges[v], edgeTo) && isLocalMinimum(v, inEdges[v], edgeFrom)) {
+                selected.add(v);
+            }
+        }
+
+        return selected.toArray();
+    }
+
+    private boolean isLocalMinimum(int v, IntList edges, int[] endpoint) {
+        for (int i = 0; i < edges.size(); i++) {
+            int u = endpoint[edges.get(i)];
+            if (u == v) continue;
+            if (priority[u] < priority[v] || (priority[u] == priority[v] && u < v)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Prioridad de contracción: diferencia de aristas, vecinos ya contraídos y nivel
+     */
+    private int computePriority(int v, WitnessSearch search) {
+        int shortcuts = findShortcuts(v, search).size();
+        int edgeDifference = shortcuts - inEdges[v].size() - outEdges[v].size();
+        return 2 * edgeDifference + deletedNeighbors[v] + level[v];
+    }
+
+    /**
+     * Determina los atajos necesarios para contraer v sin alterar distancias.
+     * Solo lee el grafo restante, por lo que puede ejecutarse en paralelo. Los testigos
+     * evitan las demás paradas de la ronda (inRound).
+     */
+    private List<Shortcut> findShortcuts(int v, WitnessSearch search) {
+        List<Shortcut> shortcuts = new ArrayList<>();
+        int[] ins = search.minimalEdges(inEdges[v], edgeFrom, v);
+        int[] outs = search.minimalEdges(outEdges[v], edgeTo, v);
+
+        for (int inEdge : ins) {
+            int u = edgeFrom[inEdge];
+
+            // Distancia máxima que vale la pena explorar desde u (-1 si no hay salidas)
+            float maxVia = -1f;
+            for (int outEdge : outs) {
+                if (edgeTo[outEdge] == u) continue;
+                maxVia = Math.max(maxVia, edgeWeight[inEdge] + edgeWeight[outEdge]);
+            }
+            if (maxVia < 0f) continue;
+
+            search.run(u, v, maxVia);
+
+            for (int outEdge : outs) {
+                int w = edgeTo[outEdge];
+                if (w == u) continue;
+
+                float via = edgeWeight[inEdge] + edgeWeight[outEdge];
+                if (search.distanceTo(w) > via) {
+                    shortcuts.add(new Shortcut(u, w, via, inEdge, outEdge));
+                }
+            }
+        }
+
+        return shortcuts;
+    }
+
+    /**
+     * Contrae v: agrega sus atajos y lo retira del grafo restante
+     */
+    private void contract(int v, List<Shortcut> shortcuts, Set<Integer> touched) {
+        contracted[v] = true;
+        Set<Integer> neighbors = new HashSet<>();
+
+        for (int i = 0; i < outEdges[v].size(); i++) {
+            int w = edgeTo[outEdges[v].get(i)];
+            inEdges[w].removeIf(e -> edgeFrom[e] == v);
+            neighbors.add(w);
+        }
+        for (int i = 0; i < inEdges[v].size(); i++) {
+            int u = edgeFrom[inEdges[v].get(i)];
+            outEdges[u].removeIf(e -> edgeTo[e] == v);
+            neighbors.add(u);
+        }
+
+        for (int u : neighbors) {
+            deletedNeighbors[u]++;
+            level[u] = Math.max(level[u], level[v] + 1);
+            touched.add(u);
+        }
+
+        for (Shortcut shortcut : shortcuts) {
+            if (!hasEdgeWithin(shortcut.from, shortcut.to, shortcut.weight)) {
+                addEdge(shortcut.from, shortcut.to, shortcut.weight, -1, shortcut.skip1, shortcut.skip2);
+            }
+        }
+    }
+
+    private boolean hasEdgeWithin(int from, int to, float weight) {
+        IntList edges = outEdges[from];
+        for (int i = 0; i < edges.size(); i++) {
+            int e = edges.get(i);
+            if (edgeTo[e] == to && edgeWeight[e] <= weight) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Separa las aristas en el grafo ascendente hacia adelante y hacia atrás
+     */
+    private ContractionHierarchy assemble() {
+        int[] upFirst = new int[n + 1];
+        int[] downFirst = new int[n + 1];
+
+        for (int e = 0; e < edgeCount; e++) {
+            if (rank[edgeTo[e]] > rank[edgeFrom[e]]) {
+                upFirst[edgeFrom[e] + 1]++;
+            } else {
+                downFirst[edgeTo[e] + 1]++;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            upFirst[i + 1] += upFirst[i];
+            downFirst[i + 1] += downFirst[i];
+        }
+
+        int[] upHead = new int[upFirst[n]];
+        float[] upWeight = new float[upFirst[n]];
+        int[] upEdge = new int[upFirst[n]];
+        int[] downHead = new int[downFirst[n]];
+        float[] downWeight = new float[downFirst[n]];
+        int[] downEdge = new int[downFirst[n]];
+        int[] nextUp = Arrays.copyOf(upFirst, n);
+        int[] nextDown = Arrays.copyOf(downFirst, n);
+
+        for (int e = 0; e < edgeCount; e++) {
+            int from = edgeFrom[e];
+            int to = edgeTo[e];
+            if (rank[to] > rank[from]) {
+                int i = nextUp[from]++;
+                upHead[i] = to;
+                upWeight[i] = edgeWeight[e];
+                upEdge[i] = e;
+            } else {
+                int i = nextDown[to]++;
+                downHead[i] = from;
+                downWeight[i] = edgeWeight[e];
+                downEdge[i] = e;
+            }
+        }
+
+        int[] stopIds = new int[n];
+        for (int i = 0; i < n; i++) {
+            stopIds[i] = graph.getStopId(i);
+        }
+
+        return new ContractionHierarchy(graph.getGrafo(), stopIds, rank.clone(),
+                Arrays.copyOf(edgeArc, edgeCount),
+                Arrays.copyOf(edgeSkip1, edgeCount),
+                Arrays.copyOf(edgeSkip2, edgeCount),
+                upFirst, upHead, upWeight, upEdge,
+                downFirst, downHead, downWeight, downEdge);
+    }
+
+    /**
+     * Ejecuta una tarea por cada nodo, repartiendo los nodos en bloques entre los threads
+     */
+    @SuppressWarnings("unchecked")
+    private <R> List<R> runParallel(ExecutorService executor, int[] nodes, NodeTask<R> task)
+            throws InterruptedException {
+        Object[] results = new Object[nodes.length];
+        if (nodes.length == 0) {
+            return Collections.emptyList();
+        }
+        int chunkSize = (nodes.length + numThreads - 1) / numThreads;
+        List<Callable<Void>> chunks = new ArrayList<>();
+
+        for (int start = 0; start < nodes.length; start += chunkSize) {
+            int from = start;
+            int to = Math.min(nodes.length, start + chunkSize);
+            chunks.add(() -> {
+                for (int i = from; i < to; i++) {
+                    results[i] = task.apply(nodes[i]);
+                }
+                return null;
+            });
+        }
+
+        for (Future<Void> future : executor.invokeAll(chunks)) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Error contrayendo el grafo", e.getCause());
+            }
+        }
+
+        return (List<R>) Arrays.asList(results);
+    }
+
+    private interface NodeTask<R> {
+        R apply(int node);
+    }
+
+    /**
+     * Atajo u -> w que reemplaza el camino u -> v -> w
+     */
+    private static class Shortcut {
+        final int from;
+        final int to;
+        final float weight;
+        final int skip1;
+        final int skip2;
+
+        Shortcut(int from, int to, float weight, int skip1, int skip2) {
+            this.from = from;
+            this.to = to;
+            this.weight = weight;
+            this.skip1 = skip1;
+            this.skip2 = skip2;
+        }
+    }
+
+    /**
+     * Búsqueda local de caminos testigo (un Dijkstra acotado por thread)
+     */
+    private class WitnessSearch {
+        private final float[] dist = new float[n];
+        private final int[] stamps = new int[n];
+        private final int[] slot = new int[n];
+        private final NodeHeap heap = new NodeHeap();
+        private int stamp = 0;
+
+        WitnessSearch() {
+            Arrays.fill(slot, -1);
+        }
+
+        /**
+         * Dijkstra desde source sin pasar por excluded ni por las paradas de la ronda,
+         * hasta superar maxDist
+         */
+        void run(int source, int excluded, float maxDist) {
+            stamp++;
+            heap.clear();
+            dist[source] = 0f;
+            stamps[source] = stamp;
+            heap.push(source, 0f);
+            int settled = 0;
+
+            while (!heap.isEmpty()) {
+                float key = heap.peekKey();
+                int u = heap.pop();
+                if (key > dist[u]) continue;
+                if (key > maxDist || ++settled > WITNESS_SETTLE_LIMIT) break;
+
+                IntList edges = outEdges[u];
+                for (int i = 0; i < edges.size(); i++) {
+                    int e = edges.get(i);
+                    int w = edgeTo[e];
+                    if (w == excluded || inRound[w]) continue;
+
+                    float newDist = key + edgeWeight[e];
+                    if (stamps[w] != stamp || newDist < dist[w]) {
+                        dist[w] = newDist;
+                        stamps[w] = stamp;
+                        heap.push(w, newDist);
+                    }
+                }
+            }
+        }
+
+        float distanceTo(int node) {
+            return stamps[node] == stamp ? dist[node] : Float.POSITIVE_INFINITY;
+        }
+
+        /**
+         * De varias aristas hacia el mismo vecino deja solo la de menor peso
+         */
+        int[] minimalEdges(IntList edges, int[] endpoint, int v) {
+            IntList result = new IntList();
+            for (int i = 0; i < edges.size(); i++) {
+                int e = edges.get(i);
+                int u = endpoint[e];
+                if (u == v) continue;
+
+                if (slot[u] < 0) {
+                    slot[u] = result.size();
+                    result.add(e);
+                } else if (edgeWeight[e] < edgeWeight[result.get(slot[u])]) {
+                    result.set(slot[u], e);
+                }
+            }
+            for (int i = 0; i < result.size(); i++) {
+                slot[endpoint[result.get(i)]] = -1;
+            }
+            return result.toArray();
+        }
+    }
+
+    /**
+     * Lista dinámica de enteros primitivos
+     */
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size = 0;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int i) {
+            return values[i];
+        }
+
+        void set(int i, int value) {
+            values[i] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void removeIf(IntPredicate predicate) {
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (!predicate.test(values[i])) {
+                    values[count++] = values[i];
+                }
+            }
+            size = count;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
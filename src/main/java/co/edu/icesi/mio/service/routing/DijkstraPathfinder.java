@@ -32,7 +32,7 @@ public class DijkstraPathfinder {
     private Map<Integer, List<Arco>> buildArcIndex() {
         Map<Integer, List<Arco>> index = new HashMap<>();
 
-        for (Arco arco : grafo.getArcos()) {
+        for (Arco arco : grafo.getArcosRuteables()) {
             int originId = arco.getParadaOrigen().getStopId();
             index.computeIfAbsent(originId, k -> new ArrayList<>()).add(arco);
         }
@@ -65,7 +65,9 @@ public class DijkstraPathfinder {
         distances.put(originId, 0.0);
         queue.offer(new NodeDistance(originId, 0.0));
 
+        int iterations = 0;
         while (!queue.isEmpty()) {
+            if ((++iterations & QueryCancellation.CHECK_MASK) == 0) QueryCancellation.checkpoint();
             NodeDistance current = queue.poll();
             int currentStopId = current.stopId;
 
@@ -92,6 +94,9 @@ public class DijkstraPathfinder {
                 }
 
                 double arcCost = costStrategy.calculateCost(arco);
+                if (arcCost == Double.POSITIVE_INFINITY) {
+                    continue; // Arco cerrado
+                }
                 double newDistance = distances.get(currentStopId) + arcCost;
 
                 if (!distances.containsKey(neighborId) || newDistance < distances.get(neighborId)) {
@@ -0,0 +1,460 @@
+package co.edu.icesi.mio.service.routing;
+
+import co.edu.icesi.mio.infra.csv.Arco;
+import co.edu.icesi.mio.infra.csv.GrafoMIO;
+import co.edu.icesi.mio.infra.csv.Parada;
+import co.edu.icesi.mio.model.events.BusEvent;
+import co.edu.icesi.mio.model.events.BusEventListener;
+import co.edu.icesi.mio.model.events.EventType;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Capa de incidentes para el cálculo de rutas.
+ *
+ * Cada evento con ubicación (trancón, marcha, choque, incidente) se asocia a los arcos de bus
+ * cercanos mediante una grilla espacial y les aplica un multiplicador de costo (o un cierre)
+ * hasta su vencimiento. Los multiplicadores vigentes se publican como un arreglo inmutable
+ * indexado por la posición del arco en grafo.getArcosRuteables(); cada cambio reemplaza el arreglo y
+ * aumenta la versión, que el servicio de rutas usa para invalidar cachés.
+ *
+ * Los multiplicadores nunca son menores a 1: los incidentes solo encarecen arcos, de modo que
+ * las cotas inferiores precalculadas (landmarks) siguen siendo válidas sin recalcularse.
+ */
+public class IncidentLayer implements BusEventListener {
+
+    // Multiplicador que representa un arco cerrado
+    public static final float CLOSED = Float.POSITIVE_INFINITY;
+
+    private static final double CELL_SIZE_METERS = 250.0;
+    private static final double METERS_PER_DEGREE = 111_000.0;
+
+    private final List<Arco> arcos;
+    private final Map<Arco, Integer> arcIndex;  // Posición de cada arco en grafo.getArcosRuteables()
+    private final Clock clock;
+    private volatile Map<EventType, IncidentPolicy> policies;  // Inmutable; se reemplaza al cambiar
+
+    // Grilla espacial: los arcos de la celda c están en cellArcs[cellFirst[c]..cellFirst[c + 1])
+    private final double minLatitude;
+    private final double minLongitude;
+    private final double cellLatitude;
+    private final double cellLongitude;
+    private final double metersPerDegreeLongitude;
+    private final int rows;
+    private final int columns;
+    private final int[] cellFirst;
+    private final int[] cellArcs;
+
+    private final Map<String, Incident> incidents;
+    private volatile float[] arcFactors;        // null si no hay incidentes activos
+    private volatile long nextExpiryMillis = Long.MAX_VALUE;
+    private final AtomicLong version;
+
+    public IncidentLayer(GrafoMIO grafo) {
+        this(grafo, Clock.systemDefaultZone());
+    }
+
+    public IncidentLayer(GrafoMIO grafo, Clock clock) {
+        this.arcos = grafo.getArcosRuteables();
+        this.arcIndex = new IdentityHashMap<>();
+        for (int a = 0; a < arcos.size(); a++) {
+            arcIndex.put(arcos.get(a), a);
+        }
+        this.clock = clock;
+        this.policies = defaultPolicies();
+        this.incidents = new LinkedHashMap<>();
+        this.version = new AtomicLong(0);
+
+        // Límites de la grilla: todas las paradas con arcos
+        double south = Double.MAX_VALUE, north = -Double.MAX_VALUE;
+        double west = Double.MAX_VALUE, east = -Double.MAX_VALUE;
+        for (Arco arco : arcos) {
+            for (Parada parada : new Parada[]{arco.getParadaOrigen(), arco.getParadaDestino()}) {
+                south = Math.min(south, parada.getDecimalLatitude());
+                north = Math.max(north, parada.getDecimalLatitude());
+                west = Math.min(west, parada.getDecimalLongitude());
+                east = Math.max(east, parada.getDecimalLongitude());
+            }
+        }
+        if (arcos.isEmpty()) {
+            south = north = west = east = 0;
+        }
+
+        this.minLatitude = south;
+        this.minLongitude = west;
+        this.metersPerDegreeLongitude = METERS_PER_DEGREE * Math.cos(Math.toRadians((south + north) / 2));
+        this.cellLatitude = CELL_SIZE_METERS / METERS_PER_DEGREE;
+        this.cellLongitude = CELL_SIZE_METERS / metersPerDegreeLongitude;
+        this.rows = (int) ((north - south) / cellLatitude) + 1;
+        this.columns = (int) ((east - west) / cellLongitude) + 1;
+
+        // Cada arco de bus se registra en las celdas que cubre su rectángulo envolvente. Los
+        // arcos peatonales quedan fuera: un trancón o una marcha no impiden caminar entre paradas.
+        this.cellFirst = new int[rows * columns + 1];
+        int[][] boxes = new int[arcos.size()][];
+        for (int a = 0; a < arcos.size(); a++) {
+            if (arcos.get(a).isWalking()) {
+                continue;
+            }
+            boxes[a] = cellBox(arcos.get(a));
+            for (int row = boxes[a][0]; row <= boxes[a][1]; row++) {
+                for (int column = boxes[a][2]; column <= boxes[a][3]; column++) {
+                    cellFirst[row * columns + column + 1]++;
+                }
+            }
+        }
+        for (int c = 0; c < rows * columns; c++) {
+            cellFirst[c + 1] += cellFirst[c];
+        }
+
+        this.cellArcs = new int[cellFirst[rows * columns]];
+        int[] next = Arrays.copyOf(cellFirst, rows * columns);
+        for (int a = 0; a < arcos.size(); a++) {
+            if (boxes[a] == null) {
+                continue;
+            }
+            for (int row = boxes[a][0]; row <= boxes[a][1]; row++) {
+                for (int column = boxes[a][2]; column <= boxes[a][3]; column++) {
+                    cellArcs[next[row * columns + column]++] = a;
+                }
+            }
+        }
+    }
+
+    /**
+     * Registra como incidente un evento de bus si su tipo afecta la circulación
+     */
+    @Override
+    public void onBusEvent(BusEvent event) {
+        IncidentPolicy policy = policies.get(event.getType());
+        if (policy == null || (event.getLatitude() == 0.0 && event.getLongitude() == 0.0)) {
+            return;
+        }
+
+        report(event.getId(), event.getType(), event.getLatitude(), event.getLongitude(),
+                policy.radiusMeters, policy.costFactor, event.getTimestamp().plus(policy.duration));
+    }
+
+    /**
+     * Registra un incidente sobre los arcos a menos de radiusMeters del punto
+     *
+     * @param costFactor Multiplicador de costo (>= 1) o {@link #CLOSED} para cerrar los arcos
+     * @return Incidente registrado, o null si ya venció o no afecta ningún arco
+     */
+    public Incident report(String id, EventType type, double latitude, double longitude,
+                           double radiusMeters, float costFactor, Instant expiresAt) {
+        if (!(costFactor >= 1f)) {
+            throw new IllegalArgumentException("El multiplicador de costo debe ser >= 1: " + costFactor);
+        }
+        if (!expiresAt.isAfter(clock.instant())) {
+            return null;
+        }
+
+        int[] arcs = arcsNear(latitude, longitude, radiusMeters);
+        if (arcs.length == 0) {
+            return null;
+        }
+
+        Incident incident = new Incident(id, type, latitude, longitude, radiusMeters, costFactor, expiresAt, arcs);
+        synchronized (this) {
+            Incident previous = incidents.put(id, incident);
+            float[] factors = arcFactors == null ? newFactors() : arcFactors.clone();
+            if (previous != null) {
+                recompute(factors, previous.arcs);
+            }
+            for (int a : arcs) {
+                factors[a] = Math.max(factors[a], costFactor);
+            }
+            publish(factors);
+        }
+        return incident;
+    }
+
+    /**
+     * Da por terminado un incidente antes de su vencimiento
+     *
+     * @return true si el incidente estaba activo
+     */
+    public synchronized boolean resolve(String id) {
+        Incident incident = incidents.remove(id);
+        if (incident == null) {
+            return false;
+        }
+
+        float[] factors = arcFactors.clone();
+        recompute(factors, incident.arcs);
+        publish(factors);
+        return true;
+    }
+
+    /**
+     * Retira los incidentes vencidos. Es barato si ninguno venció, por lo que se invoca
+     * antes de cada lectura.
+     */
+    public void expireIncidents() {
+        if (clock.millis() < nextExpiryMillis) {
+            return;
+        }
+
+        synchronized (this) {
+            Instant now = clock.instant();
+            List<Incident> expired = new ArrayList<>();
+            for (Incident incident : incidents.values()) {
+                if (!incident.expiresAt.isAfter(now)) {
+                    expired.add(incident);
+                }
+            }
+            if (expired.isEmpty()) {
+                return;
+            }
+
+            float[] factors = arcFactors.clone();
+            for (Incident incident : expired) {
+                incidents.remove(incident.id);
+            }
+            for (Incident incident : expired) {
+                recompute(factors, incident.arcs);
+            }
+            publish(factors);
+        }
+    }
+
+    /**
+     * Multiplicadores vigentes por arco (posición en grafo.getArcosRuteables()), o null si no hay
+     * incidentes activos. El arreglo no debe modificarse.
+     */
+    public float[] getArcFactors() {
+        expireIncidents();
+        return arcFactors;
+    }
+
+    /**
+     * Posición del arco en grafo.getArcosRuteables() (-1 si no pertenece al grafo)
+     */
+    public int indexOf(Arco arco) {
+        return arcIndex.getOrDefault(arco, -1);
+    }
+
+    /**
+     * Versión de la capa: cambia con cada incidente registrado, resuelto o vencido
+     */
+    public long getVersion() {
+        expireIncidents();
+        return version.get();
+    }
+
+    public synchronized List<Incident> getActiveIncidents() {
+        expireIncidents();
+        return new ArrayList<>(incidents.values());
+    }
+
+    /**
+     * Cambia el efecto de un tipo de evento sobre los arcos cercanos. Publica una copia nueva
+     * del mapa de políticas, de modo que onBusEvent lo lee sin tomar el lock.
+     */
+    public synchronized void setPolicy(EventType type, double radiusMeters, float costFactor, Duration duration) {
+        Map<EventType, IncidentPolicy> updated = new EnumMap<>(policies);
+        updated.put(type, new IncidentPolicy(radiusMeters, costFactor, duration));
+        policies = Collections.unmodifiableMap(updated);
+    }
+
+    /**
+     * Arcos de bus (posición en grafo.getArcosRuteables()) a menos de radiusMeters del punto
+     */
+    public int[] arcsNear(double latitude, double longitude, double radiusMeters) {
+        double x = (longitude - minLongitude) * metersPerDegreeLongitude;
+        double y = (latitude - minLatitude) * METERS_PER_DEGREE;
+
+        int firstRow = Math.max(0, (int) Math.floor((y - radiusMeters) / CELL_SIZE_METERS));
+        int lastRow = Math.min(rows - 1, (int) Math.floor((y + radiusMeters) / CELL_SIZE_METERS));
+        int firstColumn = Math.max(0, (int) Math.floor((x - radiusMeters) / CELL_SIZE_METERS));
+        int lastColumn = Math.min(columns - 1, (int) Math.floor((x + radiusMeters) / CELL_SIZE_METERS));
+
+        Set<Integer> seen = new HashSet<>();
+        List<Integer> result = new ArrayList<>();
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                int cell = row * columns + column;
+                for (int i = cellFirst[cell]; i < cellFirst[cell + 1]; i++) {
+                    int a = cellArcs[i];
+                    if (seen.add(a) && distanceToArc(x, y, arcos.get(a)) <= radiusMeters) {
+                        result.add(a);
+                    }
+                }
+            }
+        }
+
+        return result.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    /**
+     * Distancia en metros del punto proyectado (x, y) al segmento recto del arco
+     */
+    private double distanceToArc(double x, double y, Arco arco) {
+        double x1 = (arco.getParadaOrigen().getDecimalLongitude() - minLongitude) * metersPerDegreeLongitude;
+        double y1 = (arco.getParadaOrigen().getDecimalLatitude() - minLatitude) * METERS_PER_DEGREE;
+        double x2 = (arco.getParadaDestino().getDecimalLongitude() - minLongitude) * metersPerDegreeLongitude;
+        double y2 = (arco.getParadaDestino().getDecimalLatitude() - minLatitude) * METERS_PER_DEGREE;
+
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((x - x1) * dx + (y - y1) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+
+        return Math.hypot(x - (x1 + t * dx), y - (y1 + t * dy));
+    }
+
+    /**
+     * Celdas [filaMin, filaMax, columnaMin, columnaMax] que cubre el rectángulo del arco
+     */
+    private int[] cellBox(Arco arco) {
+        Parada from = arco.getParadaOrigen();
+        Parada to = arco.getParadaDestino();
+        return new int[]{
+                rowOf(Math.min(from.getDecimalLatitude(), to.getDecimalLatitude())),
+                rowOf(Math.max(from.getDecimalLatitude(), to.getDecimalLatitude())),
+                columnOf(Math.min(from.getDecimalLongitude(), to.getDecimalLongitude())),
+                columnOf(Math.max(from.getDecimalLongitude(), to.getDecimalLongitude()))
+        };
+    }
+
+    private int rowOf(double latitude) {
+        return Math.max(0, Math.min(rows - 1, (int) ((latitude - minLatitude) / cellLatitude)));
+    }
+
+    private int columnOf(double longitude) {
+        return Math.max(0, Math.min(columns - 1, (int) ((longitude - minLongitude) / cellLongitude)));
+    }
+
+    private float[] newFactors() {
+        float[] factors = new float[arcos.size()];
+        Arrays.fill(factors, 1f);
+        return factors;
+    }
+
+    /**
+     * Recalcula el multiplicador de los arcos indicados con los incidentes restantes
+     */
+    private void recompute(float[] factors, int[] arcs) {
+        for (int a : arcs) {
+            factors[a] = 1f;
+        }
+        for (Incident incident : incidents.values()) {
+            for (int a : incident.arcs) {
+                factors[a] = Math.max(factors[a], incident.costFactor);
+            }
+        }
+    }
+
+    private void publish(float[] factors) {
+        long nextExpiry = Long.MAX_VALUE;
+        for (Incident incident : incidents.values()) {
+            nextExpiry = Math.min(nextExpiry, incident.expiresAt.toEpochMilli());
+        }
+
+        arcFactors = incidents.isEmpty() ? null : factors;
+        nextExpiryMillis = nextExpiry;
+        version.incrementAndGet();
+    }
+
+    private static Map<EventType, IncidentPolicy> defaultPolicies() {
+        Map<EventType, IncidentPolicy> policies = new EnumMap<>(EventType.class);
+        policies.put(EventType.TRANCON, new IncidentPolicy(300, 2.5f, Duration.ofMinutes(30)));
+        policies.put(EventType.MARCHA, new IncidentPolicy(400, CLOSED, Duration.ofMinutes(90)));
+        policies.put(EventType.CHOQUE, new IncidentPolicy(150, 4.0f, Duration.ofMinutes(45)));
+        policies.put(EventType.INCIDENTE, new IncidentPolicy(200, 3.0f, Duration.ofMinutes(30)));
+        return Collections.unmodifiableMap(policies);
+    }
+
+    /**
+     * Efecto de un tipo de evento: radio afectado, multiplicador y duración
+     */
+    private static class IncidentPolicy {
+        final double radiusMeters;
+        final float costFactor;
+        final Duration duration;
+
+        IncidentPolicy(double radiusMeters, float costFactor, Duration duration) {
+            if (!(costFactor >= 1f)) {
+                throw new IllegalArgumentException("El multiplicador de costo debe ser >= 1: " + costFactor);
+            }
+            this.radiusMeters = radiusMeters;
+            this.costFactor = costFactor;
+            this.duration = duration;
+        }
+    }
+
+    /**
+     * Incidente activo y los arcos que afecta
+     */
+    public static class Incident {
+        private final String id;
+        private final EventType type;
+        private final double latitude;
+        private final double longitude;
+        private final double radiusMeters;
+        private final float costFactor;
+        private final Instant expiresAt;
+        private final int[] arcs;
+
+        Incident(String id, EventType type, double latitude, double longitude, double radiusMeters,
+                 float costFactor, Instant expiresAt, int[] arcs) {
+            this.id = id;
+            this.type = type;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.radiusMeters = radiusMeters;
+            this.costFactor = costFactor;
+            this.expiresAt = expiresAt;
+            this.arcs = arcs;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public EventType getType() {
+            return type;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        public double getRadiusMeters() {
+            return radiusMeters;
+        }
+
+        public float getCostFactor() {
+            return costFactor;
+        }
+
+        public boolean isClosure() {
+            return costFactor == CLOSED;
+        }
+
+        public Instant getExpiresAt() {
+            return expiresAt;
+        }
+
+        public int getAffectedArcCount() {
+            return arcs.length;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Incidente[%s, %s, (%.5f, %.5f), radio=%.0f m, %s, arcos=%d, vence=%s]",
+                    id, type != null ? type.getDescription() : "manual", latitude, longitude, radiusMeters,
+                    isClosure() ? "cerrado" : String.format("x%.1f", costFactor), arcs.length, expiresAt);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package co.edu.icesi.mio.service.routing;
+
+import co.edu.icesi.mio.infra.csv.GrafoMIO;
+import co.edu.icesi.mio.model.analytics.Zone;
+import co.edu.icesi.mio.model.routing.Isochrone;
+import co.edu.icesi.mio.model.routing.ReachabilityGrid;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servicio de isocronas: paradas alcanzables desde un origen dentro de un tiempo máximo.
+ * Cada isocrona es una sola búsqueda acotada sobre el grafo compacto con las velocidades
+ * actuales, en lugar de una ruta por cada parada.
+ */
+public class IsochroneService {
+
+    private final GrafoMIO grafo;
+    private final RouteCalculatorService routeService;
+    private final ThreadLocal<SingleSourceSearch> searches;
+
+    public IsochroneService(GrafoMIO grafo, RouteCalculatorService routeService) {
+        this.grafo = grafo;
+        this.routeService = routeService;
+        this.searches = new ThreadLocal<>();
+    }
+
+    /**
+     * Calcula las paradas alcanzables desde el origen en a lo sumo budgetMinutes
+     */
+    public Isochrone calculateIsochrone(int originId, double budgetMinutes) {
+        RoutingGraph graph = routeService.getTimeRoutingGraph();
+        int source = graph.indexOf(originId);
+        if (source < 0) {
+            return new Isochrone(originId, budgetMinutes, new int[0], new float[0]);
+        }
+
+        SingleSourceSearch search = searchFor(graph);
+        search.run(source, true, (float) budgetMinutes);
+
+        // Las paradas asentadas son exactamente las alcanzables, ya en orden de tiempo
+        int count = search.getSettledCount();
+        int[] stopIds = new int[count];
+        float[] travelTimes = new float[count];
+        for (int i = 0; i < count; i++) {
+            int v = search.settledNode(i);
+            stopIds[i] = graph.getStopId(v);
+            travelTimes[i] = search.distance(v);
+        }
+
+        return new Isochrone(originId, budgetMinutes, stopIds, travelTimes);
+    }
+
+    /**
+     * Calcula las isocronas de varios orígenes en paralelo
+     *
+     * @return Isocronas en el mismo orden de los orígenes
+     */
+    public List<Isochrone> calculateIsochrones(List<Integer> originIds, double budgetMinutes, int numThreads)
+            throws InterruptedException {
+
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.println("  CÁLCULO DE ISOCRONAS (PARALELO)");
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.printf("Orígenes: %d | Tiempo máximo: %.0f min | Threads: %d\n",
+                originIds.size(), budgetMinutes, numThreads);
+
+        long startTime = System.currentTimeMillis();
+
+        List<Callable<Isochrone>> tasks = new ArrayList<>();
+        for (int originId : originIds) {
+            tasks.add(() -> calculateIsochrone(originId, budgetMinutes));
+        }
+
+        List<Isochrone> isochrones = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, numThreads));
+        try {
+            for (Future<Isochrone> future : executor.invokeAll(tasks)) {
+                isochrones.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error calculando isocronas", e.getCause());
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        long endTime = System.currentTimeMillis();
+        System.out.printf("Duración: %.2f segundos\n", (endTime - startTime) / 1000.0);
+        System.out.println();
+
+        return isochrones;
+    }
+
+    /**
+     * Agrega las isocronas en una grilla sobre la zona dada, para mapas de calor
+     *
+     * @param cellSizeMeters Lado aproximado de cada celda
+     */
+    public ReachabilityGrid buildReachabilityGrid(List<Isochrone> isochrones, Zone bounds, double cellSizeMeters) {
+        ReachabilityGrid grid = new ReachabilityGrid(bounds, cellSizeMeters, grafo.getParadas().values());
+        for (Isochrone isochrone : isochrones) {
+            grid.add(isochrone, grafo.getParadas());
+        }
+        return grid;
+    }
+
+    /**
+     * Búsqueda del thread actual; se recrea si el grafo cambió (nuevas velocidades)
+     */
+    private SingleSourceSearch searchFor(RoutingGraph graph) {
+        SingleSourceSearch search = searches.get();
+        if (search == null || search.getGraph() != graph) {
+            search = new SingleSourceSearch(graph);
+            searches.set(search);
+        }
+        return search;
+    }
+}
@@ -0,0 +1,322 @@
+package co.edu.icesi.mio.service.routing;
+
+import co.edu.icesi.mio.infra.csv.Arco;
+import co.edu.icesi.mio.infra.csv.Parada;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Índice de landmarks para búsquedas A* dirigidas (ALT: A*, Landmarks, desigualdad Triangular).
+ *
+ * Para cada landmark L se guardan las distancias d(L, v) y d(v, L) a todas las paradas en
+ * arreglos float compactos. Con ellas, max(d(L, t) - d(L, v), d(v, L) - d(t, L)) es una cota
+ * inferior de d(v, t) que guía la búsqueda hacia el destino.
+ *
+ * A diferencia de la jerarquía de contracción, recalcular las tablas tras un cambio de
+ * velocidades solo requiere dos Dijkstra por landmark, que se ejecutan en paralelo.
+ */
+public class LandmarkIndex {
+
+    public static final int DEFAULT_LANDMARKS = 16;
+
+    private final RoutingGraph graph;
+    private final int[] landmarks;       // Índices compactos de las paradas landmark
+    private final float[] fromLandmark;  // fromLandmark[k * n + v] = d(L_k, v)
+    private final float[] toLandmark;    // toLandmark[k * n + v] = d(v, L_k)
+    private final ThreadLocal<Query> queries;
+
+    private LandmarkIndex(RoutingGraph graph, int[] landmarks, float[] fromLandmark, float[] toLandmark) {
+        this.graph = graph;
+        this.landmarks = landmarks;
+        this.fromLandmark = fromLandmark;
+        this.toLandmark = toLandmark;
+        this.queries = ThreadLocal.withInitial(Query::new);
+    }
+
+    /**
+     * Selecciona landmarks bien distribuidos y calcula sus tablas de distancias
+     *
+     * @param graph Grafo compacto con los pesos actuales
+     * @param numLandmarks Número de landmarks (típicamente 16)
+     * @param numThreads Threads para el cálculo de las tablas
+     */
+    public static LandmarkIndex build(RoutingGraph graph, int numLandmarks, int numThreads)
+            throws InterruptedException {
+        return build(graph, selectLandmarks(graph, numLandmarks), numThreads);
+    }
+
+    /**
+     * Recalcula las tablas conservando los mismos landmarks (p. ej. tras un cambio de velocidades)
+     *
+     * @param graph Grafo con los nuevos pesos y la misma topología
+     */
+    public LandmarkIndex reweight(RoutingGraph graph, int numThreads) throws InterruptedException {
+        return build(graph, landmarks, numThreads);
+    }
+
+    private static LandmarkIndex build(RoutingGraph graph, int[] landmarks, int numThreads)
+            throws InterruptedException {
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.println("  CÁLCULO DE TABLAS DE LANDMARKS (ALT)");
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.printf("Landmarks: %d | Paradas: %,d | Threads: %d\n",
+                landmarks.length, graph.getNodeCount(), numThreads);
+
+        long startTime = System.currentTimeMillis();
+        int n = graph.getNodeCount();
+        float[] fromLandmark = new float[landmarks.length * n];
+        float[] toLandmark = new float[landmarks.length * n];
+
+        // Un Dijkstra hacia adelante y otro hacia atrás por landmark
+        ThreadLocal<SingleSourceSearch> searches = ThreadLocal.withInitial(() -> new SingleSourceSearch(graph));
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int k = 0; k < landmarks.length; k++) {
+            int landmark = landmarks[k];
+            int offset = k * n;
+            tasks.add(() -> {
+                SingleSourceSearch search = searches.get();
+                search.run(landmark, true);
+                search.copyDistances(fromLandmark, offset);
+                return null;
+            });
+            tasks.add(() -> {
+                SingleSourceSearch search = searches.get();
+                search.run(landmark, false);
+                search.copyDistances(toLandmark, offset);
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, numThreads));
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error calculando tablas de landmarks", e.getCause());
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        long endTime = System.currentTimeMillis();
+        System.out.printf("Duración: %.2f segundos\n", (endTime - startTime) / 1000.0);
+        System.out.println();
+
+        return new LandmarkIndex(graph, landmarks, fromLandmark, toLandmark);
+    }
+
+    /**
+     * Selección por punto más lejano: cada nuevo landmark es la parada (con arcos)
+     * geográficamente más alejada de los landmarks ya elegidos.
+     */
+    static int[] selectLandmarks(RoutingGraph graph, int numLandmarks) {
+        int n = graph.getNodeCount();
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        boolean[] candidate = new boolean[n];
+        double sumLat = 0;
+        double sumLon = 0;
+        int candidates = 0;
+
+        for (int v = 0; v < n; v++) {
+            Parada parada = graph.getGrafo().getParadas().get(graph.getStopId(v));
+            lat[v] = parada.getDecimalLatitude();
+            lon[v] = parada.getDecimalLongitude();
+            candidate[v] = graph.endOut(v) > graph.firstOut(v) && graph.endIn(v) > graph.firstIn(v);
+            if (candidate[v]) {
+                sumLat += lat[v];
+                sumLon += lon[v];
+                candidates++;
+            }
+        }
+
+        int count = Math.min(numLandmarks, candidates);
+        int[] landmarks = new int[count];
+        if (count == 0) {
+            return landmarks;
+        }
+
+        // Distancia (al cuadrado) de cada parada al landmark más cercano; se inicia con el centroide
+        double centerLat = sumLat / candidates;
+        double centerLon = sumLon / candidates;
+        double[] nearest = new double[n];
+        for (int v = 0; v < n; v++) {
+            nearest[v] = squaredDistance(lat[v], lon[v], centerLat, centerLon);
+        }
+
+        for (int k = 0; k < count; k++) {
+            int farthest = -1;
+            for (int v = 0; v < n; v++) {
+                if (candidate[v] && (farthest < 0 || nearest[v] > nearest[farthest])) {
+                    farthest = v;
+                }
+            }
+
+            landmarks[k] = farthest;
+            candidate[farthest] = false;
+            for (int v = 0; v < n; v++) {
+                double d = squaredDistance(lat[v], lon[v], lat[farthest], lon[farthest]);
+                // El centroide solo sirve para elegir el primero
+                nearest[v] = k == 0 ? d : Math.min(nearest[v], d);
+            }
+        }
+
+        return landmarks;
+    }
+
+    private static double squaredDistance(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = lat1 - lat2;
+        double dLon = (lon1 - lon2) * Math.cos(Math.toRadians(lat1));
+        return dLat * dLat + dLon * dLon;
+    }
+
+    /**
+     * Calcula la secuencia de arcos del camino de menor costo entre dos paradas usando A*
+     *
+     * @return Arcos del camino en orden (vacío si no hay ruta)
+     */
+    public List<Arco> findPath(int originId, int destinationId) {
+        int source = graph.indexOf(originId);
+        int target = graph.indexOf(destinationId);
+
+        if (source < 0 || target < 0 || source == target) {
+            return Collections.emptyList();
+        }
+
+        return queries.get().run(source, target);
+    }
+
+    /**
+     * Cota inferior de d(v, t) según la desigualdad triangular
+     */
+    float lowerBound(int v, int t) {
+        int n = graph.getNodeCount();
+        float bound = 0f;
+
+        for (int k = 0; k < landmarks.length; k++) {
+            int offset = k * n;
+
+            float fromT = fromLandmark[offset + t];
+            float fromV = fromLandmark[offset + v];
+            if (fromT != Float.POSITIVE_INFINITY && fromV != Float.POSITIVE_INFINITY) {
+                bound = Math.max(bound, fromT - fromV);
+            }
+
+            float toV = toLandmark[offset + v];
+            float toT = toLandmark[offset + t];
+            if (toV != Float.POSITIVE_INFINITY && toT != Float.POSITIVE_INFINITY) {
+                bound = Math.max(bound, toV - toT);
+            }
+        }
+
+        return bound;
+    }
+
+    /**
+     * Usa las mismas tablas sobre un grafo con la misma topología y pesos mayores o iguales
+     * (p. ej. con incidentes): las cotas siguen siendo inferiores, así que A* sigue siendo exacto.
+     */
+    public LandmarkIndex withGraph(RoutingGraph heavierGraph) {
+        return new LandmarkIndex(heavierGraph, landmarks, fromLandmark, toLandmark);
+    }
+
+    public RoutingGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * IDs de las paradas elegidas como landmarks
+     */
+    public int[] getLandmarkStopIds() {
+        int[] stopIds = new int[landmarks.length];
+        for (int k = 0; k < landmarks.length; k++) {
+            stopIds[k] = graph.getStopId(landmarks[k]);
+        }
+        return stopIds;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LandmarkIndex[landmarks=%d, paradas=%d, memoria=%,d bytes]",
+                landmarks.length, graph.getNodeCount(), (fromLandmark.length + toLandmark.length) * 4L);
+    }
+
+    /**
+     * Estado de una búsqueda A*, reutilizado entre consultas del mismo thread
+     */
+    private class Query {
+        private final float[] dist;
+        private final int[] predArc;
+        private final int[] stamps;
+        private final NodeHeap heap;
+        private int stamp;
+
+        Query() {
+            int n = graph.getNodeCount();
+            this.dist = new float[n];
+            this.predArc = new int[n];
+            this.stamps = new int[n];
+            this.heap = new NodeHeap();
+            this.stamp = 0;
+        }
+
+        List<Arco> run(int source, int target) {
+            stamp++;
+            if (stamp == Integer.MAX_VALUE) {
+                Arrays.fill(stamps, 0);
+                stamp = 1;
+            }
+            heap.clear();
+
+            dist[source] = 0f;
+            predArc[source] = -1;
+            stamps[source] = stamp;
+            heap.push(source, lowerBound(source, target));
+
+            boolean found = false;
+            int iterations = 0;
+            while (!heap.isEmpty()) {
+                if ((++iterations & QueryCancellation.CHECK_MASK) == 0) QueryCancellation.checkpoint();
+                float key = heap.peekKey();
+                int u = heap.pop();
+                float distU = dist[u];
+                if (key > distU + lowerBound(u, target)) continue; // Entrada obsoleta
+
+                if (u == target) {
+                    found = true;
+                    break;
+                }
+
+                for (int a = graph.firstOut(u); a < graph.endOut(u); a++) {
+                    int v = graph.getHead(a);
+                    float newDist = distU + graph.getWeight(a);
+                    if (newDist == Float.POSITIVE_INFINITY) continue; // Arco cerrado
+                    if (stamps[v] != stamp || newDist < dist[v]) {
+                        dist[v] = newDist;
+                        predArc[v] = a;
+                        stamps[v] = stamp;
+                        heap.push(v, newDist + lowerBound(v, target));
+                    }
+                }
+            }
+
+            if (!found) {
+                return Collections.emptyList();
+            }
+
+            List<Arco> path = new ArrayList<>();
+            for (int v = target; v != source; v = graph.getTail(predArc[v])) {
+                path.add(graph.getArco(predArc[v]));
+            }
+            Collections.reverse(path);
+            return path;
+        }
+    }
+}
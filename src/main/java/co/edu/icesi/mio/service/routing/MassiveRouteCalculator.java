@@ -3,12 +3,18 @@ package co.edu.icesi.mio.service.routing;
 import co.edu.icesi.mio.concurrency.Master;
 import co.edu.icesi.mio.concurrency.route.RouteCalculationResult;
 import co.edu.icesi.mio.concurrency.route.RouteCalculationWorker;
+import co.edu.icesi.mio.concurrency.route.RouteMatrixWorker;
+import co.edu.icesi.mio.concurrency.route.StreamingRouteWorker;
+import co.edu.icesi.mio.infra.csv.Arco;
 import co.edu.icesi.mio.infra.csv.GrafoMIO;
 import co.edu.icesi.mio.infra.csv.Parada;
 import co.edu.icesi.mio.model.routing.CalculatedRoute;
+import co.edu.icesi.mio.model.routing.RouteMatrix;
+import co.edu.icesi.mio.model.routing.RouteMatrixRow;
 import co.edu.icesi.mio.model.routing.RoutePair;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -73,6 +79,169 @@ public class MassiveRouteCalculator {
         return results;
     }
 
+    /**
+     * Calcula rutas para una lista de pares en paralelo entregando cada resultado compacto
+     * al sink apenas se calcula. No se guardan las rutas: la memoria usada no depende del
+     * número de pares y las estadísticas se acumulan en línea por worker.
+     *
+     * @param sink Destino de los resultados (p. ej. RouteResultFileWriter); se invoca desde varios workers
+     * @param includeArcPaths Si cada resultado incluye los índices de sus arcos en grafo.getArcosRuteables()
+     * @return Estadísticas de las rutas encontradas
+     */
+    public RouteStatistics calculateRoutes(List<RoutePair> routePairs, RouteResultSink sink,
+                                           boolean includeArcPaths) throws InterruptedException {
+
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.println("  CÁLCULO MASIVO DE RUTAS (STREAMING)");
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.printf("Pares de rutas: %d\n", routePairs.size());
+        System.out.printf("Workers: %d\n", numWorkers);
+        System.out.println();
+
+        long startTime = System.currentTimeMillis();
+
+        Map<Arco, Integer> arcIndex = null;
+        if (includeArcPaths) {
+            List<Arco> arcos = grafo.getArcosRuteables();
+            arcIndex = new IdentityHashMap<>(arcos.size() * 2);
+            for (int i = 0; i < arcos.size(); i++) {
+                arcIndex.put(arcos.get(i), i);
+            }
+        }
+        Map<Arco, Integer> workerArcIndex = arcIndex;
+
+        Master<RoutePair, StatisticsAccumulator, StatisticsAccumulator> master =
+                new Master<>(
+                        numWorkers,
+                        workerId -> new StreamingRouteWorker(workerId, routeService, sink, workerArcIndex),
+                        this::mergeStatistics
+                );
+
+        StatisticsAccumulator statistics = master.process(routePairs);
+        master.shutdown();
+
+        long endTime = System.currentTimeMillis();
+        double durationSeconds = (endTime - startTime) / 1000.0;
+        long processed = statistics.getRoutes() + statistics.getFailures();
+
+        System.out.println("\n═══════════════════════════════════════════════════════════");
+        System.out.println("  CÁLCULO MASIVO COMPLETADO");
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.printf("Duración total: %.2f segundos\n", durationSeconds);
+        System.out.printf("✓ Rutas exitosas: %d\n", statistics.getRoutes());
+        System.out.printf("✗ Rutas fallidas: %d\n", statistics.getFailures());
+        System.out.printf("Rutas/segundo: %.1f\n", processed / Math.max(durationSeconds, 0.001));
+        System.out.println();
+
+        return statistics.toStatistics();
+    }
+
+    private StatisticsAccumulator mergeStatistics(List<StatisticsAccumulator> workerResults) {
+        StatisticsAccumulator total = new StatisticsAccumulator();
+        for (StatisticsAccumulator statistics : workerResults) {
+            total.merge(statistics);
+        }
+        return total;
+    }
+
+    /**
+     * Calcula la matriz de rutas para los pares dados (modo matriz).
+     * Agrupa los pares por origen y ejecuta una sola búsqueda por origen hacia todos
+     * los destinos, en lugar de una búsqueda completa por par. La matriz es densa:
+     * incluye todos los orígenes contra todos los destinos presentes en los pares.
+     *
+     * @param routePairs Lista de pares a procesar
+     * @return Matriz de tiempos, distancias y transbordos
+     */
+    public RouteMatrix calculateMatrix(List<RoutePair> routePairs) throws InterruptedException {
+        int[] originIds = distinctOrigins(routePairs);
+        int[] destinationIds = distinctDestinations(routePairs);
+
+        RouteMatrix matrix = new RouteMatrix(originIds, destinationIds);
+        for (RouteMatrixRow row : calculateMatrixRows(originIds, destinationIds, null)) {
+            matrix.setRow(row);
+        }
+
+        System.out.println(matrix);
+        System.out.println();
+        return matrix;
+    }
+
+    /**
+     * Calcula la matriz de rutas entregando cada fila al consumidor apenas se calcula,
+     * sin mantener la matriz completa en memoria.
+     *
+     * @param rowConsumer Consumidor de filas; se invoca desde varios workers a la vez
+     * @return IDs de los destinos, en el orden de las columnas de cada fila
+     */
+    public int[] calculateMatrix(List<RoutePair> routePairs, Consumer<RouteMatrixRow> rowConsumer)
+            throws InterruptedException {
+        int[] destinationIds = distinctDestinations(routePairs);
+        calculateMatrixRows(distinctOrigins(routePairs), destinationIds, rowConsumer);
+        return destinationIds;
+    }
+
+    private List<RouteMatrixRow> calculateMatrixRows(int[] originIds, int[] destinationIds,
+                                                     Consumer<RouteMatrixRow> rowConsumer)
+            throws InterruptedException {
+
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.println("  CÁLCULO DE MATRIZ DE RUTAS (PARALELO)");
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.printf("Orígenes: %d | Destinos: %d\n", originIds.length, destinationIds.length);
+        System.out.printf("Workers: %d\n", numWorkers);
+        System.out.println();
+
+        long startTime = System.currentTimeMillis();
+
+        // Cada worker tiene su propio estado de búsqueda sobre el mismo grafo compacto
+        Master<Integer, List<RouteMatrixRow>, List<RouteMatrixRow>> master =
+                new Master<>(
+                        numWorkers,
+                        workerId -> new RouteMatrixWorker(workerId,
+                                routeService.createOneToManySearch(destinationIds), rowConsumer),
+                        this::aggregateRows
+                );
+
+        List<Integer> origins = new ArrayList<>();
+        for (int originId : originIds) {
+            origins.add(originId);
+        }
+
+        List<RouteMatrixRow> rows = master.process(origins);
+        master.shutdown();
+
+        long endTime = System.currentTimeMillis();
+        double durationSeconds = (endTime - startTime) / 1000.0;
+        long cells = (long) originIds.length * destinationIds.length;
+
+        System.out.println("\n═══════════════════════════════════════════════════════════");
+        System.out.println("  MATRIZ DE RUTAS COMPLETADA");
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.printf("Duración total: %.2f segundos\n", durationSeconds);
+        System.out.printf("Celdas calculadas: %,d\n", cells);
+        System.out.printf("Celdas/segundo: %,.0f\n", cells / Math.max(durationSeconds, 0.001));
+        System.out.println();
+
+        return rows;
+    }
+
+    private List<RouteMatrixRow> aggregateRows(List<List<RouteMatrixRow>> workerResults) {
+        List<RouteMatrixRow> rows = new ArrayList<>();
+        for (List<RouteMatrixRow> results : workerResults) {
+            rows.addAll(results);
+        }
+        return rows;
+    }
+
+    private int[] distinctOrigins(List<RoutePair> routePairs) {
+        return routePairs.stream().mapToInt(RoutePair::getOriginStopId).distinct().toArray();
+    }
+
+    private int[] distinctDestinations(List<RoutePair> routePairs) {
+        return routePairs.stream().mapToInt(RoutePair::getDestinationStopId).distinct().toArray();
+    }
+
     /**
      * Genera pares aleatorios de paradas para pruebas
      *
@@ -187,52 +356,83 @@ public class MassiveRouteCalculator {
     }
 
     /**
-     * Genera estadísticas de las rutas calculadas
+     * Genera estadísticas de las rutas calculadas en una sola pasada
      */
     public RouteStatistics generateStatistics(Map<String, RouteCalculationResult> results) {
-        List<CalculatedRoute> successfulRoutes = results.values().stream()
-                .filter(RouteCalculationResult::isSuccess)
-                .map(RouteCalculationResult::getRoute)
-                .collect(Collectors.toList());
-
-        if (successfulRoutes.isEmpty()) {
-            return new RouteStatistics(0, 0, 0, 0, 0, 0, 0, 0);
+        StatisticsAccumulator statistics = new StatisticsAccumulator();
+        for (RouteCalculationResult result : results.values()) {
+            if (!result.isSuccess()) {
+                statistics.addFailure();
+                continue;
+            }
+            CalculatedRoute route = result.getRoute();
+            statistics.add(route.getTotalTime(), route.getTotalDistance(),
+                    route.getTransferCount(), route.getSegmentCount());
         }
+        return statistics.toStatistics();
+    }
 
-        double avgTime = successfulRoutes.stream()
-                .mapToDouble(CalculatedRoute::getTotalTime)
-                .average().orElse(0);
-
-        double avgDistance = successfulRoutes.stream()
-                .mapToDouble(CalculatedRoute::getTotalDistance)
-                .average().orElse(0);
-
-        double avgTransfers = successfulRoutes.stream()
-                .mapToInt(CalculatedRoute::getTransferCount)
-                .average().orElse(0);
-
-        double avgSegments = successfulRoutes.stream()
-                .mapToInt(CalculatedRoute::getSegmentCount)
-                .average().orElse(0);
+    /**
+     * Acumulador en línea de las estadísticas de rutas: sumas y máximos, sin guardar las rutas.
+     * No es thread-safe; cada worker usa el suyo y al final se combinan con merge().
+     */
+    public static class StatisticsAccumulator {
+        private long routes;
+        private long failures;
+        private double totalTime;
+        private double totalDistance;
+        private long totalTransfers;
+        private long totalSegments;
+        private double maxTime;
+        private double maxDistance;
+        private int maxTransfers;
+        private int maxSegments;
+
+        public void add(double time, double distance, int transfers, int segments) {
+            routes++;
+            totalTime += time;
+            totalDistance += distance;
+            totalTransfers += transfers;
+            totalSegments += segments;
+            maxTime = Math.max(maxTime, time);
+            maxDistance = Math.max(maxDistance, distance);
+            maxTransfers = Math.max(maxTransfers, transfers);
+            maxSegments = Math.max(maxSegments, segments);
+        }
 
-        double maxTime = successfulRoutes.stream()
-                .mapToDouble(CalculatedRoute::getTotalTime)
-                .max().orElse(0);
+        public void addFailure() {
+            failures++;
+        }
 
-        double maxDistance = successfulRoutes.stream()
-                .mapToDouble(CalculatedRoute::getTotalDistance)
-                .max().orElse(0);
+        public void merge(StatisticsAccumulator other) {
+            routes += other.routes;
+            failures += other.failures;
+            totalTime += other.totalTime;
+            totalDistance += other.totalDistance;
+            totalTransfers += other.totalTransfers;
+            totalSegments += other.totalSegments;
+            maxTime = Math.max(maxTime, other.maxTime);
+            maxDistance = Math.max(maxDistance, other.maxDistance);
+            maxTransfers = Math.max(maxTransfers, other.maxTransfers);
+            maxSegments = Math.max(maxSegments, other.maxSegments);
+        }
 
-        int maxTransfers = successfulRoutes.stream()
-                .mapToInt(CalculatedRoute::getTransferCount)
-                .max().orElse(0);
+        public long getRoutes() {
+            return routes;
+        }
 
-        int maxSegments = successfulRoutes.stream()
-                .mapToInt(CalculatedRoute::getSegmentCount)
-                .max().orElse(0);
+        public long getFailures() {
+            return failures;
+        }
 
-        return new RouteStatistics(avgTime, avgDistance, avgTransfers, avgSegments,
-                                   maxTime, maxDistance, maxTransfers, maxSegments);
+        public RouteStatistics toStatistics() {
+            if (routes == 0) {
+                return new RouteStatistics(0, 0, 0, 0, 0, 0, 0, 0);
+            }
+            return new RouteStatistics(totalTime / routes, totalDistance / routes,
+                    totalTransfers / (double) routes, totalSegments / (double) routes,
+                    maxTime, maxDistance, maxTransfers, maxSegments);
+        }
     }
 
     /**
@@ -0,0 +1,100 @@
+package co.edu.icesi.mio.service.routing;
+
+import java.util.Arrays;
+
+/**
+ * Cola de prioridad mínima de nodos con claves float, sobre arreglos primitivos.
+ * Admite entradas repetidas de un mismo nodo (el llamador descarta las obsoletas),
+ * lo que evita crear objetos por cada relajación en las búsquedas.
+ * No es thread-safe: cada búsqueda usa su propia instancia.
+ */
+public class NodeHeap {
+
+    private int[] nodes;
+    private float[] keys;
+    private int size;
+
+    public NodeHeap() {
+        this(64);
+    }
+
+    public NodeHeap(int initialCapacity) {
+        this.nodes = new int[Math.max(initialCapacity, 4)];
+        this.keys = new float[nodes.length];
+        this.size = 0;
+    }
+
+    public void push(int node, float key) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+
+        // Subir el nuevo elemento
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] <= key) break;
+            nodes[i] = nodes[parent];
+            keys[i] = keys[parent];
+            i = parent;
+        }
+        nodes[i] = node;
+        keys[i] = key;
+    }
+
+    /**
+     * Clave mínima (sin retirar). Requiere que la cola no esté vacía.
+     */
+    public float peekKey() {
+        return keys[0];
+    }
+
+    /**
+     * Nodo con la clave mínima (sin retirar). Requiere que la cola no esté vacía.
+     */
+    public int peekNode() {
+        return nodes[0];
+    }
+
+    /**
+     * Retira el nodo con la clave mínima y lo retorna
+     */
+    public int pop() {
+        int top = nodes[0];
+        size--;
+        if (size > 0) {
+            int node = nodes[size];
+            float key = keys[size];
+
+            // Bajar el último elemento desde la raíz
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (key <= keys[child]) break;
+                nodes[i] = nodes[child];
+                keys[i] = keys[child];
+                i = child;
+            }
+            nodes[i] = node;
+            keys[i] = key;
+        }
+        return top;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,103 @@
+package co.edu.icesi.mio.service.routing;
+
+import co.edu.icesi.mio.infra.csv.Arco;
+import co.edu.icesi.mio.model.routing.RouteMatrixRow;
+
+import java.util.Arrays;
+
+/**
+ * Calcula una fila de la matriz de rutas: desde un origen hacia un conjunto fijo de destinos,
+ * con una sola búsqueda que termina cuando todos los destinos están asentados.
+ * Para cada destino entrega el tiempo, la distancia y los transbordos de la ruta más rápida.
+ *
+ * No es thread-safe: cada worker usa su propia instancia.
+ */
+public class OneToManySearch {
+
+    private final RoutingGraph timeGraph;
+    private final RoutingGraph distanceGraph;   // Misma topología, pesos en metros
+    private final int[] destinationIds;
+    private final int[] destinations;           // Índices compactos (-1 si la parada no existe)
+    private final int[] validDestinations;
+    private final SingleSourceSearch search;
+
+    // Acumulados sobre el árbol de caminos mínimos
+    private final float[] pathDistance;
+    private final int[] pathTransfers;
+    private final int[] pathLine;               // Última línea de bus del camino (-1 si solo se caminó)
+
+    public OneToManySearch(RoutingGraph timeGraph, RoutingGraph distanceGraph, int[] destinationIds) {
+        this.timeGraph = timeGraph;
+        this.distanceGraph = distanceGraph;
+        this.destinationIds = destinationIds.clone();
+        this.destinations = new int[destinationIds.length];
+        for (int j = 0; j < destinationIds.length; j++) {
+            destinations[j] = timeGraph.indexOf(destinationIds[j]);
+        }
+        this.validDestinations = Arrays.stream(destinations).filter(v -> v >= 0).toArray();
+        this.search = new SingleSourceSearch(timeGraph);
+        this.pathDistance = new float[timeGraph.getNodeCount()];
+        this.pathTransfers = new int[timeGraph.getNodeCount()];
+        this.pathLine = new int[timeGraph.getNodeCount()];
+    }
+
+    /**
+     * Calcula la fila del origen indicado (valores infinitos si el destino no es alcanzable)
+     */
+    public RouteMatrixRow computeRow(int originId) {
+        int columns = destinations.length;
+        float[] times = new float[columns];
+        float[] distances = new float[columns];
+        float[] transfers = new float[columns];
+        Arrays.fill(times, Float.POSITIVE_INFINITY);
+        Arrays.fill(distances, Float.POSITIVE_INFINITY);
+        Arrays.fill(transfers, Float.POSITIVE_INFINITY);
+
+        int source = timeGraph.indexOf(originId);
+        if (source < 0) {
+            return new RouteMatrixRow(originId, times, distances, transfers);
+        }
+
+        search.run(source, true, validDestinations);
+
+        // Cada parada se asienta después de su predecesora: un recorrido en ese orden basta
+        for (int i = 0; i < search.getSettledCount(); i++) {
+            int v = search.settledNode(i);
+            int arc = search.predecessorArc(v);
+            if (arc < 0) {
+                pathDistance[v] = 0f;
+                pathTransfers[v] = 0;
+                pathLine[v] = Arco.LINEA_PEATONAL;
+                continue;
+            }
+
+            // Los tramos a pie conservan la línea anterior: el transbordo se cuenta al subir
+            int tail = timeGraph.getTail(arc);
+            Arco arco = timeGraph.getArco(arc);
+            boolean transfer = !arco.isWalking() && pathLine[tail] != Arco.LINEA_PEATONAL
+                    && pathLine[tail] != arco.getLineId();
+
+            pathDistance[v] = pathDistance[tail] + distanceGraph.getWeight(arc);
+            pathTransfers[v] = pathTransfers[tail] + (transfer ? 1 : 0);
+            pathLine[v] = arco.isWalking() ? pathLine[tail] : arco.getLineId();
+        }
+
+        for (int j = 0; j < columns; j++) {
+            int v = destinations[j];
+            if (v < 0) continue;
+
+            float time = search.distance(v);
+            if (time != Float.POSITIVE_INFINITY) {
+                times[j] = time;
+                distances[j] = pathDistance[v];
+                transfers[j] = pathTransfers[v];
+            }
+        }
+
+        return new RouteMatrixRow(originId, times, distances, transfers);
+    }
+
+    public int[] getDestinationIds() {
+        return destinationIds.clone();
+    }
+}
@@ -0,0 +1,118 @@
+package co.edu.icesi.mio.service.routing;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Cancelación cooperativa de las búsquedas de rutas.
+ *
+ * Un pedido asíncrono asocia un token al thread que ejecuta la búsqueda y los ciclos de las
+ * búsquedas llaman a checkpoint() cada cierto número de iteraciones: si el pedido fue
+ * cancelado o venció su plazo, la búsqueda se aborta con CancellationException. Sin token
+ * asociado checkpoint() no hace nada, así que las consultas síncronas no cambian.
+ *
+ * Los preprocesamientos (jerarquía, landmarks, perfiles) no se verifican: su resultado se
+ * comparte con las consultas siguientes y no conviene descartarlo.
+ */
+final class QueryCancellation {
+
+    // Iteraciones entre verificaciones en los ciclos de búsqueda (potencia de 2 menos 1)
+    static final int CHECK_MASK = 255;
+
+    // Intervalo máximo entre verificaciones al esperar el cálculo de otro pedido
+    private static final long AWAIT_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final ThreadLocal<Token> CURRENT = new ThreadLocal<>();
+
+    private QueryCancellation() {
+    }
+
+    /**
+     * Estado de cancelación de un pedido
+     */
+    static final class Token {
+        private final long deadlineNanos;
+        private volatile boolean cancelled;
+
+        /**
+         * @param deadlineNanos Instante límite según System.nanoTime()
+         */
+        Token(long deadlineNanos) {
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+
+        boolean isExpired(long nowNanos) {
+            return nowNanos - deadlineNanos > 0;
+        }
+    }
+
+    /**
+     * Asocia el token al thread actual hasta la llamada a detach()
+     */
+    static void attach(Token token) {
+        CURRENT.set(token);
+    }
+
+    static void detach() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Aborta la búsqueda del thread actual si su pedido fue cancelado o venció
+     *
+     * @throws CancellationException si la búsqueda no debe continuar
+     */
+    static void checkpoint() {
+        Token token = CURRENT.get();
+        if (token == null) return;
+
+        if (token.isCancelled()) {
+            throw new CancellationException("Consulta de ruta cancelada");
+        }
+        if (token.isExpired(System.nanoTime())) {
+            throw new CancellationException("Consulta de ruta fuera de plazo");
+        }
+    }
+
+    /**
+     * Espera el resultado de un cálculo hecho por otro pedido sin pasar el plazo del pedido
+     * del thread actual (ni seguir esperando si se cancela). Sin token asociado espera sin límite.
+     *
+     * @throws CancellationException si este pedido venció o se canceló mientras esperaba, o si
+     *                               se canceló el cálculo esperado
+     * @throws CompletionException si el cálculo esperado falló
+     */
+    static <T> T await(CompletableFuture<T> future) {
+        Token token = CURRENT.get();
+        if (token == null) {
+            return future.join();
+        }
+
+        while (true) {
+            checkpoint();
+            long remaining = token.deadlineNanos - System.nanoTime();
+            try {
+                return future.get(Math.min(remaining, AWAIT_POLL_NANOS), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // Volver a verificar el plazo y la cancelación
+            } catch (ExecutionException e) {
+                throw new CompletionException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Consulta de ruta interrumpida");
+            }
+        }
+    }
+}
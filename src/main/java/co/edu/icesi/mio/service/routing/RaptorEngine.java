@@ -0,0 +1,475 @@
+package co.edu.icesi.mio.service.routing;
+
+import co.edu.icesi.mio.infra.csv.Arco;
+import co.edu.icesi.mio.infra.csv.GrafoMIO;
+
+import java.util.*;
+
+/**
+ * Motor de viajes por rondas al estilo RAPTOR.
+ *
+ * Cada línea y orientación forma un patrón: la secuencia ordenada de sus paradas
+ * (tomada de GrafoMIO). La ronda k recorre los patrones que pasan por paradas mejoradas
+ * en la ronda anterior y calcula el mejor tiempo de llegada usando exactamente k buses,
+ * de modo que al terminar se obtiene el conjunto de Pareto (tiempo, transbordos).
+ *
+ * Como el sistema no tiene horarios, abordar un bus no tiene espera: el tiempo entre dos
+ * paradas de un patrón es la suma de los tiempos de sus arcos según el grafo compacto.
+ *
+ * Al final de cada ronda se relajan los tramos a pie desde las paradas mejoradas, de modo
+ * que el siguiente bus puede abordarse en una parada cercana. Caminar no cuenta como viaje.
+ *
+ * La estructura es inmutable y puede compartirse entre threads.
+ */
+public class RaptorEngine {
+
+    private final RoutingGraph graph;
+
+    // Paradas de cada patrón: posiciones [patternFirst[p], patternFirst[p + 1])
+    private final int[] patternFirst;
+    private final int[] patternStops;      // Índice compacto de la parada en cada posición
+    private final int[] patternHopArc;     // Arco hacia la siguiente posición (-1 en la última)
+    private final float[] patternTime;     // Tiempo acumulado desde el inicio del patrón
+
+    // Apariciones de cada parada en los patrones: [stopFirst[v], stopFirst[v + 1])
+    private final int[] stopFirst;
+    private final int[] stopPatterns;
+    private final int[] stopPositions;     // Posición global dentro de patternStops
+
+    // Tramos a pie salientes de cada parada: [walkFirst[v], walkFirst[v + 1])
+    private final int[] walkFirst;
+    private final int[] walkArcs;
+
+    private final ThreadLocal<Query> queries;
+
+    private RaptorEngine(RoutingGraph graph, int[] patternFirst, int[] patternStops, int[] patternHopArc,
+                         float[] patternTime, int[] stopFirst, int[] stopPatterns, int[] stopPositions,
+                         int[] walkFirst, int[] walkArcs) {
+        this.graph = graph;
+        this.patternFirst = patternFirst;
+        this.patternStops = patternStops;
+        this.patternHopArc = patternHopArc;
+        this.patternTime = patternTime;
+        this.stopFirst = stopFirst;
+        this.stopPatterns = stopPatterns;
+        this.stopPositions = stopPositions;
+        this.walkFirst = walkFirst;
+        this.walkArcs = walkArcs;
+        this.queries = ThreadLocal.withInitial(Query::new);
+    }
+
+    /**
+     * Construye los patrones a partir de las paradas ordenadas de cada línea
+     *
+     * @param graph Grafo compacto con pesos de tiempo
+     */
+    public static RaptorEngine build(RoutingGraph graph) {
+        GrafoMIO grafo = graph.getGrafo();
+        int n = graph.getNodeCount();
+
+        // Arco de cada tramo (línea, orientación, origen, destino)
+        Map<String, Integer> arcByHop = new HashMap<>();
+        for (int a = 0; a < graph.getArcCount(); a++) {
+            Arco arco = graph.getArco(a);
+            arcByHop.putIfAbsent(hopKey(arco.getLineId(), arco.getOrientation(),
+                    graph.getTail(a), graph.getHead(a)), a);
+        }
+
+        List<Integer> lineIds = new ArrayList<>(grafo.getLineasConParadas());
+        Collections.sort(lineIds);
+
+        List<int[]> stopsList = new ArrayList<>();
+        List<int[]> hopsList = new ArrayList<>();
+        for (int lineId : lineIds) {
+            for (int orientation = 0; orientation <= 1; orientation++) {
+                List<Integer> stopIds = grafo.getParadasOrdenadas(lineId, orientation);
+                if (stopIds.size() < 2) continue;
+
+                int[] stops = new int[stopIds.size()];
+                int[] hops = new int[stopIds.size()];
+                for (int i = 0; i < stops.length; i++) {
+                    stops[i] = graph.indexOf(stopIds.get(i));
+                }
+                for (int i = 0; i < stops.length - 1; i++) {
+                    Integer arc = arcByHop.get(hopKey(lineId, orientation, stops[i], stops[i + 1]));
+                    if (arc == null) {
+                        throw new IllegalStateException("Tramo sin arco en la línea " + lineId);
+                    }
+                    hops[i] = arc;
+                }
+                hops[stops.length - 1] = -1;
+
+                stopsList.add(stops);
+                hopsList.add(hops);
+            }
+        }
+
+        int patterns = stopsList.size();
+        int[] patternFirst = new int[patterns + 1];
+        for (int p = 0; p < patterns; p++) {
+            patternFirst[p + 1] = patternFirst[p] + stopsList.get(p).length;
+        }
+
+        int positions = patternFirst[patterns];
+        int[] patternStops = new int[positions];
+        int[] patternHopArc = new int[positions];
+        int[] stopFirst = new int[n + 1];
+        for (int p = 0; p < patterns; p++) {
+            System.arraycopy(stopsList.get(p), 0, patternStops, patternFirst[p], stopsList.get(p).length);
+            System.arraycopy(hopsList.get(p), 0, patternHopArc, patternFirst[p], hopsList.get(p).length);
+        }
+        for (int i = 0; i < positions; i++) {
+            stopFirst[patternStops[i] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            stopFirst[v + 1] += stopFirst[v];
+        }
+
+        int[] stopPatterns = new int[positions];
+        int[] stopPositions = new int[positions];
+        int[] next = Arrays.copyOf(stopFirst, n);
+        for (int p = 0; p < patterns; p++) {
+            for (int i = patternFirst[p]; i < patternFirst[p + 1]; i++) {
+                int slot = next[patternStops[i]]++;
+                stopPatterns[slot] = p;
+                stopPositions[slot] = i;
+            }
+        }
+
+        // Tramos a pie agrupados por parada de origen
+        int[] walkFirst = new int[n + 1];
+        int walks = 0;
+        for (int a = 0; a < graph.getArcCount(); a++) {
+            if (graph.getArco(a).isWalking()) {
+                walkFirst[graph.getTail(a) + 1]++;
+                walks++;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            walkFirst[v + 1] += walkFirst[v];
+        }
+        int[] walkArcs = new int[walks];
+        int[] nextWalk = Arrays.copyOf(walkFirst, n);
+        for (int a = 0; a < graph.getArcCount(); a++) {
+            if (graph.getArco(a).isWalking()) {
+                walkArcs[nextWalk[graph.getTail(a)]++] = a;
+            }
+        }
+
+        return new RaptorEngine(graph, patternFirst, patternStops, patternHopArc,
+                cumulativeTimes(graph, patternFirst, patternHopArc), stopFirst, stopPatterns, stopPositions,
+                walkFirst, walkArcs);
+    }
+
+    private static String hopKey(int lineId, int orientation, int tail, int head) {
+        return lineId + "_" + orientation + "_" + tail + "_" + head;
+    }
+
+    private static float[] cumulativeTimes(RoutingGraph graph, int[] patternFirst, int[] patternHopArc) {
+        float[] times = new float[patternHopArc.length];
+        for (int p = 0; p < patternFirst.length - 1; p++) {
+            float time = 0f;
+            for (int i = patternFirst[p]; i < patternFirst[p + 1]; i++) {
+                times[i] = time;
+                // Los tramos cerrados no suman tiempo: el recorrido se corta en ellos al buscar
+                if (patternHopArc[i] >= 0 && graph.getWeight(patternHopArc[i]) != Float.POSITIVE_INFINITY) {
+                    time += graph.getWeight(patternHopArc[i]);
+                }
+            }
+        }
+        return times;
+    }
+
+    /**
+     * Crea un motor con los mismos patrones sobre un grafo con nuevos pesos
+     */
+    public RaptorEngine reweight(RoutingGraph graph) {
+        return new RaptorEngine(graph, patternFirst, patternStops, patternHopArc,
+                cumulativeTimes(graph, patternFirst, patternHopArc), stopFirst, stopPatterns, stopPositions,
+                walkFirst, walkArcs);
+    }
+
+    /**
+     * Calcula los viajes óptimos de Pareto entre dos paradas
+     *
+     * @param maxTransfers Número máximo de transbordos (se usan hasta maxTransfers + 1 buses)
+     * @return Viajes ordenados por número de buses (0 si basta caminar); cada uno llega antes que el anterior
+     */
+    public List<Journey> findJourneys(int originId, int destinationId, int maxTransfers) {
+        int source = graph.indexOf(originId);
+        int target = graph.indexOf(destinationId);
+
+        if (source < 0 || target < 0 || source == target || maxTransfers < 0) {
+            return Collections.emptyList();
+        }
+
+        return queries.get().run(source, target, maxTransfers + 1);
+    }
+
+    public RoutingGraph getGraph() {
+        return graph;
+    }
+
+    public int getPatternCount() {
+        return patternFirst.length - 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RaptorEngine[patrones=%d, paradas=%d, posiciones=%d]",
+                getPatternCount(), graph.getNodeCount(), patternStops.length);
+    }
+
+    /**
+     * Resultado de una ronda que mejoró la llegada al destino
+     */
+    public static class Journey {
+        private final List<Arco> arcs;
+        private final int trips;
+        private final float travelTime;
+
+        Journey(List<Arco> arcs, int trips, float travelTime) {
+            this.arcs = arcs;
+            this.trips = trips;
+            this.travelTime = travelTime;
+        }
+
+        public List<Arco> getArcs() {
+            return arcs;
+        }
+
+        public int getTrips() {
+            return trips;
+        }
+
+        public float getTravelTime() {
+            return travelTime;
+        }
+    }
+
+    /**
+     * Etiquetas por ronda de una consulta, reutilizadas entre consultas del mismo thread
+     */
+    private class Query {
+        private float[] arrival = new float[0];   // arrival[k * n + v]: mejor llegada con <= k buses
+        private int[] boardPosition = new int[0]; // Posición de abordaje del tramo que mejoró (k, v)
+        private int[] alightPosition = new int[0];
+        private int[] walkArc = new int[0];       // Tramo a pie que mejoró (k, v) (-1 si no)
+        private final float[] best;
+        private final boolean[] marked;
+        private final int[] markedStops;
+        private final int[] walkQueue;            // Cola circular de paradas pendientes de caminar
+        private final boolean[] queuedWalk;
+        private final int[] patternStart;         // Primera posición marcada de cada patrón en la ronda
+        private final int[] queuedPatterns;
+
+        Query() {
+            int n = graph.getNodeCount();
+            int patterns = getPatternCount();
+            this.best = new float[n];
+            this.marked = new boolean[n];
+            this.markedStops = new int[n];
+            this.walkQueue = new int[n];
+            this.queuedWalk = new boolean[n];
+            this.patternStart = new int[patterns];
+            this.queuedPatterns = new int[patterns];
+            Arrays.fill(patternStart, -1);
+        }
+
+        List<Journey> run(int source, int target, int maxTrips) {
+            int n = graph.getNodeCount();
+            int rounds = maxTrips + 1;
+            if (arrival.length < rounds * n) {
+                arrival = new float[rounds * n];
+                boardPosition = new int[rounds * n];
+                alightPosition = new int[rounds * n];
+                walkArc = new int[rounds * n];
+            }
+
+            Arrays.fill(arrival, 0, n, Float.POSITIVE_INFINITY);
+            Arrays.fill(boardPosition, 0, n, -1);
+            Arrays.fill(walkArc, 0, n, -1);
+            Arrays.fill(best, Float.POSITIVE_INFINITY);
+            arrival[source] = 0f;
+            best[source] = 0f;
+
+            int markedCount = 0;
+            markedStops[markedCount++] = source;
+            marked[source] = true;
+
+            // Ronda 0: paradas alcanzables caminando desde el origen
+            markedCount = relaxFootpaths(0, target, markedCount);
+
+            List<Journey> journeys = new ArrayList<>();
+            if (arrival[target] != Float.POSITIVE_INFINITY) {
+                journeys.add(new Journey(reconstruct(target, 0), 0, arrival[target]));
+            }
+
+            for (int k = 1; k < rounds && markedCount > 0; k++) {
+                QueryCancellation.checkpoint();
+                int prev = (k - 1) * n;
+                int cur = k * n;
+                System.arraycopy(arrival, prev, arrival, cur, n);
+                Arrays.fill(boardPosition, cur, cur + n, -1);
+                Arrays.fill(walkArc, cur, cur + n, -1);
+
+                // Patrones que pasan por paradas marcadas, desde la primera aparición marcada
+                int queued = 0;
+                for (int m = 0; m < markedCount; m++) {
+                    int v = markedStops[m];
+                    marked[v] = false;
+                    for (int i = stopFirst[v]; i < stopFirst[v + 1]; i++) {
+                        int p = stopPatterns[i];
+                        int position = stopPositions[i];
+                        if (patternStart[p] < 0) {
+                            queuedPatterns[queued++] = p;
+                            patternStart[p] = position;
+                        } else if (position < patternStart[p]) {
+                            patternStart[p] = position;
+                        }
+                    }
+                }
+                markedCount = 0;
+
+                for (int q = 0; q < queued; q++) {
+                    int p = queuedPatterns[q];
+                    int boardAt = -1;
+                    float boardOffset = 0f; // Llegada al abordaje menos el tiempo acumulado del patrón
+
+                    for (int i = patternStart[p]; i < patternFirst[p + 1]; i++) {
+                        int v = patternStops[i];
+
+                        if (boardAt >= 0) {
+                            float time = boardOffset + patternTime[i];
+                            if (time < best[v] && time < best[target]) {
+                                arrival[cur + v] = time;
+                                best[v] = time;
+                                boardPosition[cur + v] = boardAt;
+                                alightPosition[cur + v] = i;
+                                walkArc[cur + v] = -1;
+                                if (!marked[v]) {
+                                    marked[v] = true;
+                                    markedStops[markedCount++] = v;
+                                }
+                            }
+                        }
+
+                        float previous = arrival[prev + v];
+                        if (previous != Float.POSITIVE_INFINITY
+                                && (boardAt < 0 || previous - patternTime[i] < boardOffset)) {
+                            boardAt = i;
+                            boardOffset = previous - patternTime[i];
+                        }
+
+                        // Tramo cerrado: el bus no puede seguir, hay que volver a abordar más adelante
+                        if (boardAt >= 0 && patternHopArc[i] >= 0
+                                && graph.getWeight(patternHopArc[i]) == Float.POSITIVE_INFINITY) {
+                            boardAt = -1;
+                        }
+                    }
+                    patternStart[p] = -1;
+                }
+
+                markedCount = relaxFootpaths(cur, target, markedCount);
+
+                if (arrival[cur + target] < arrival[prev + target]) {
+                    journeys.add(new Journey(reconstruct(target, k), k, arrival[cur + target]));
+                }
+            }
+
+            // Limpiar marcas si se cortó por el límite de rondas
+            for (int m = 0; m < markedCount; m++) {
+                marked[markedStops[m]] = false;
+            }
+
+            return journeys;
+        }
+
+        /**
+         * Relaja los tramos a pie desde las paradas marcadas en la ronda que empieza en offset,
+         * encadenando caminatas; las paradas mejoradas quedan marcadas para la ronda siguiente
+         *
+         * @return Nuevo número de paradas marcadas
+         */
+        private int relaxFootpaths(int offset, int target, int markedCount) {
+            if (walkArcs.length == 0) return markedCount;
+
+            int n = graph.getNodeCount();
+            int head = 0;
+            int size = 0;
+            for (int m = 0; m < markedCount; m++) {
+                int v = markedStops[m];
+                walkQueue[(head + size++) % n] = v;
+                queuedWalk[v] = true;
+            }
+
+            while (size > 0) {
+                int u = walkQueue[head];
+                head = (head + 1) % n;
+                size--;
+                queuedWalk[u] = false;
+
+                float from = arrival[offset + u];
+                for (int i = walkFirst[u]; i < walkFirst[u + 1]; i++) {
+                    int a = walkArcs[i];
+                    float weight = graph.getWeight(a);
+                    if (weight == Float.POSITIVE_INFINITY) continue; // Tramo cerrado
+
+                    int w = graph.getHead(a);
+                    float time = from + weight;
+                    if (time < best[w] && time < best[target]) {
+                        arrival[offset + w] = time;
+                        best[w] = time;
+                        boardPosition[offset + w] = -1;
+                        walkArc[offset + w] = a;
+                        if (!marked[w]) {
+                            marked[w] = true;
+                            markedStops[markedCount++] = w;
+                        }
+                        if (!queuedWalk[w]) {
+                            queuedWalk[w] = true;
+                            walkQueue[(head + size++) % n] = w;
+                        }
+                    }
+                }
+            }
+            return markedCount;
+        }
+
+        private List<Arco> reconstruct(int target, int round) {
+            int n = graph.getNodeCount();
+            List<Arco> path = new ArrayList<>();
+            int v = target;
+
+            for (int k = round; k > 0; k--) {
+                v = followWalks(k * n, v, path);
+                int label = k * n + v;
+                if (boardPosition[label] < 0) continue; // Llegada heredada de una ronda anterior
+
+                int board = boardPosition[label];
+                for (int i = alightPosition[label] - 1; i >= board; i--) {
+                    path.add(graph.getArco(patternHopArc[i]));
+                }
+                v = patternStops[board];
+            }
+            followWalks(0, v, path);
+
+            Collections.reverse(path);
+            return path;
+        }
+
+        /**
+         * Agrega (en orden inverso) la caminata que llevó a v en la ronda que empieza en offset
+         *
+         * @return Parada donde empezó la caminata
+         */
+        private int followWalks(int offset, int v, List<Arco> path) {
+            while (walkArc[offset + v] >= 0) {
+                int a = walkArc[offset + v];
+                path.add(graph.getArco(a));
+                v = graph.getTail(a);
+            }
+            return v;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package co.edu.icesi.mio.service.routing;
+
+import co.edu.icesi.mio.infra.csv.Arco;
+import co.edu.icesi.mio.infra.csv.Parada;
+import co.edu.icesi.mio.model.analytics.ResilienceImpact;
+import co.edu.icesi.mio.model.analytics.ResilienceReport;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulación de resiliencia: cuánto aumenta el tiempo de viaje de la ciudad si se cierra
+ * un arco (corredor) o una parada (estación).
+ *
+ * Se muestrea un conjunto de paradas y se calcula la matriz origen-destino entre ellas en la
+ * red completa. Luego, para cada candidato, se vuelve a calcular la matriz con sus arcos
+ * ocultos por una máscara de remoción sobre el grafo compacto (sin copiarlo). Solo se repiten
+ * los orígenes cuyo árbol de caminos base usa algún arco removido: para los demás la matriz
+ * no cambia. Los candidatos se evalúan en paralelo.
+ */
+public class ResilienceAnalyzer {
+
+    // Penalización por cada par que queda sin ruta al cerrar el elemento
+    public static final double UNREACHABLE_PENALTY_MINUTES = 120.0;
+
+    // Diferencia mínima (minutos) para contar un par como afectado
+    private static final double CHANGE_EPSILON = 1e-3;
+
+    private final RouteCalculatorService routeService;
+    private final ThreadLocal<SingleSourceSearch> searches;
+
+    public ResilienceAnalyzer(RouteCalculatorService routeService) {
+        this.routeService = routeService;
+        this.searches = new ThreadLocal<>();
+    }
+
+    /**
+     * Evalúa el cierre de cada arco candidato
+     *
+     * @param arcos Arcos a cerrar, uno a la vez (de grafo.getArcosRuteables())
+     * @param sampleSize Número de paradas de la matriz origen-destino
+     * @param seed Semilla del muestreo, para poder repetir la simulación
+     */
+    public ResilienceReport analyzeArcs(List<Arco> arcos, int sampleSize, long seed, int numThreads)
+            throws InterruptedException {
+        RoutingGraph graph = routeService.getTimeRoutingGraph();
+
+        // Arco del grafo del MIO -> arco compacto
+        Map<Arco, Integer> compactArc = new IdentityHashMap<>();
+        for (int a = 0; a < graph.getArcCount(); a++) {
+            compactArc.put(graph.getArco(a), a);
+        }
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (Arco arco : arcos) {
+            Integer a = compactArc.get(arco);
+            if (a == null) continue;
+            candidates.add(new Candidate(new int[]{a}, -1, arco, null));
+        }
+
+        return analyze(graph, candidates, sampleSize, seed, numThreads, "ARCOS");
+    }
+
+    /**
+     * Evalúa el cierre de cada parada candidata (todos sus arcos de entrada y salida).
+     * Los pares que empiezan o terminan en la parada cerrada no se cuentan.
+     */
+    public ResilienceReport analyzeStops(List<Integer> stopIds, int sampleSize, long seed, int numThreads)
+            throws InterruptedException {
+        RoutingGraph graph = routeService.getTimeRoutingGraph();
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (int stopId : stopIds) {
+            int v = graph.indexOf(stopId);
+            if (v < 0) continue;
+
+            int outDegree = graph.endOut(v) - graph.firstOut(v);
+            int[] arcs = new int[outDegree + graph.endIn(v) - graph.firstIn(v)];
+            int count = 0;
+            for (int a = graph.firstOut(v); a < graph.endOut(v); a++) {
+                arcs[count++] = a;
+            }
+            for (int i = graph.firstIn(v); i < graph.endIn(v); i++) {
+                arcs[count++] = graph.inArc(i);
+            }
+            candidates.add(new Candidate(arcs, v, null, graph.getGrafo().getParadas().get(stopId)));
+        }
+
+        return analyze(graph, candidates, sampleSize, seed, numThreads, "PARADAS");
+    }
+
+    private ResilienceReport analyze(RoutingGraph graph, List<Candidate> candidates, int sampleSize,
+                                     long seed, int numThreads, String label) throws InterruptedException {
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.println("  SIMULACIÓN DE RESILIENCIA - CIERRE DE " + label);
+        System.out.println("═══════════════════════════════════════════════════════════");
+        System.out.printf("Candidatos: %d | Paradas muestreadas: %d | Threads: %d\n",
+                candidates.size(), Math.min(sampleSize, graph.getNodeCount()), numThreads);
+
+        long startTime = System.currentTimeMillis();
+
+        Baseline baseline = computeBaseline(graph, sampleSize, seed);
+        System.out.printf("Matriz base: %d pares con ruta, %.0f min en total\n",
+                baseline.connectedPairs, baseline.totalMinutes);
+
+        List<Callable<ResilienceImpact>> tasks = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            tasks.add(() -> evaluate(graph, baseline, candidate));
+        }
+
+        List<ResilienceImpact> impacts = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, numThreads));
+        try {
+            for (Future<ResilienceImpact> future : executor.invokeAll(tasks)) {
+                impacts.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error en la simulación de resiliencia", e.getCause());
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        long endTime = System.currentTimeMillis();
+        System.out.printf("Duración: %.2f segundos\n", (endTime - startTime) / 1000.0);
+        System.out.println();
+
+        return new ResilienceReport(baseline.sample.length, baseline.connectedPairs,
+                baseline.totalMinutes, impacts);
+    }
+
+    /**
+     * Muestrea las paradas y calcula la matriz base junto con los arcos que usa cada origen
+     */
+    private Baseline computeBaseline(RoutingGraph graph, int sampleSize, long seed) {
+        int n = graph.getNodeCount();
+        int k = Math.min(sampleSize, n);
+
+        // Muestreo sin reemplazo (Fisher-Yates parcial)
+        int[] nodes = new int[n];
+        for (int v = 0; v < n; v++) {
+            nodes[v] = v;
+        }
+        Random random = new Random(seed);
+        for (int i = 0; i < k; i++) {
+            int j = i + random.nextInt(n - i);
+            int tmp = nodes[i];
+            nodes[i] = nodes[j];
+            nodes[j] = tmp;
+        }
+        int[] sample = new int[k];
+        System.arraycopy(nodes, 0, sample, 0, k);
+
+        float[][] distances = new float[k][k];
+        BitSet[] usedArcs = new BitSet[k];
+        int connectedPairs = 0;
+        double totalMinutes = 0;
+
+        SingleSourceSearch search = searchFor(graph);
+        for (int i = 0; i < k; i++) {
+            search.run(sample[i], true, sample);
+            usedArcs[i] = new BitSet(graph.getArcCount());
+
+            for (int j = 0; j < k; j++) {
+                float d = search.distance(sample[j]);
+                distances[i][j] = d;
+                if (i == j || d == Float.POSITIVE_INFINITY) continue;
+
+                connectedPairs++;
+                totalMinutes += d;
+
+                // Marcar los arcos del camino; al llegar a uno ya marcado el resto también lo está
+                for (int a = search.predecessorArc(sample[j]); a >= 0 && !usedArcs[i].get(a);
+                     a = search.predecessorArc(graph.getTail(a))) {
+                    usedArcs[i].set(a);
+                }
+            }
+        }
+
+        return new Baseline(sample, distances, usedArcs, connectedPairs, totalMinutes);
+    }
+
+    /**
+     * Recalcula la matriz con el candidato removido y mide el cambio respecto a la base
+     */
+    private ResilienceImpact evaluate(RoutingGraph graph, Baseline baseline, Candidate candidate) {
+        BitSet removed = new BitSet(graph.getArcCount());
+        for (int a : candidate.arcs) {
+            removed.set(a);
+        }
+
+        SingleSourceSearch search = searchFor(graph);
+        search.setRemovedArcs(removed);
+
+        int affectedPairs = 0;
+        int disconnectedPairs = 0;
+        double addedMinutes = 0;
+        try {
+            int[] sample = baseline.sample;
+            for (int i = 0; i < sample.length; i++) {
+                if (sample[i] == candidate.node) continue;
+                if (!baseline.usedArcs[i].intersects(removed)) continue; // Ningún camino base cambia
+
+                search.run(sample[i], true, sample);
+                float[] base = baseline.distances[i];
+                for (int j = 0; j < sample.length; j++) {
+                    if (i == j || sample[j] == candidate.node || base[j] == Float.POSITIVE_INFINITY) continue;
+
+                    float d = search.distance(sample[j]);
+                    if (d == Float.POSITIVE_INFINITY) {
+                        disconnectedPairs++;
+                    } else if (d - base[j] > CHANGE_EPSILON) {
+                        affectedPairs++;
+                        addedMinutes += d - base[j];
+                    }
+                }
+            }
+        } finally {
+            search.setRemovedArcs(null);
+        }
+
+        double impactScore = addedMinutes + disconnectedPairs * UNREACHABLE_PENALTY_MINUTES;
+        return candidate.arco != null
+                ? ResilienceImpact.forArc(candidate.arco, affectedPairs, disconnectedPairs, addedMinutes, impactScore)
+                : ResilienceImpact.forStop(candidate.parada, affectedPairs, disconnectedPairs, addedMinutes, impactScore);
+    }
+
+    /**
+     * Búsqueda del thread actual; se recrea si el grafo cambió (nuevas velocidades)
+     */
+    private SingleSourceSearch searchFor(RoutingGraph graph) {
+        SingleSourceSearch search = searches.get();
+        if (search == null || search.getGraph() != graph) {
+            search = new SingleSourceSearch(graph);
+            searches.set(search);
+        }
+        return search;
+    }
+
+    /**
+     * Elemento a cerrar: sus arcos compactos y, si es una parada, su índice
+     */
+    private static final class Candidate {
+        final int[] arcs;
+        final int node;                    // -1 si es un arco
+        final Arco arco;
+        final Parada parada;
+
+        Candidate(int[] arcs, int node, Arco arco, Parada parada) {
+            this.arcs = arcs;
+            this.node = node;
+            this.arco = arco;
+            this.parada = parada;
+        }
+    }
+
+    /**
+     * Matriz origen-destino de la red completa
+     */
+    private static final class Baseline {
+        final int[] sample;
+        final float[][] distances;         // [origen][destino] en el orden de sample
+        final BitSet[] usedArcs;           // Arcos de los caminos base de cada origen
+        final int connectedPairs;
+        final double totalMinutes;
+
+        Baseline(int[] sample, float[][] distances, BitSet[] usedArcs, int connectedPairs, double totalMinutes) {
+            this.sample = sample;
+            this.distances = distances;
+            this.usedArcs = usedArcs;
+            this.connectedPairs = connectedPairs;
+            this.totalMinutes = totalMinutes;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package co.edu.icesi.mio.service.routing;
+
+import co.edu.icesi.mio.model.routing.CalculatedRoute;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Caché concurrente y acotada de rutas calculadas.
+ *
+ * Las entradas se identifican por (origen, destino, criterio, época de velocidades). Cuando
+ * el repositorio de velocidades cambia de versión, todas las entradas se descartan. Si varios
+ * threads piden la misma ruta a la vez, solo uno la calcula y los demás esperan su resultado
+ * (los pedidos asíncronos, como mucho hasta su plazo).
+ * Al superar la capacidad se eliminan las entradas más antiguas.
+ *
+ * El mapa guarda también el orden de inserción, así que las entradas y el orden de
+ * expulsión no pueden desincronizarse. Se protege con el monitor de la caché; bajo el lock
+ * solo se buscan y agregan futures, los cálculos se hacen fuera de él.
+ */
+public class RouteCache {
+
+    private final int maxEntries;
+    private final LongSupplier epochSupplier;
+    private final LinkedHashMap<Key, CompletableFuture<CalculatedRoute>> entries; // Protegido por this
+    private long currentEpoch;                                                     // Protegido por this
+
+    // Métricas
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * @param maxEntries Número máximo de rutas en caché
+     * @param epochSupplier Versión actual del modelo de velocidades
+     */
+    public RouteCache(int maxEntries, LongSupplier epochSupplier) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("La capacidad de la caché debe ser positiva");
+        }
+        this.maxEntries = maxEntries;
+        this.epochSupplier = epochSupplier;
+        this.entries = new LinkedHashMap<>();
+        this.currentEpoch = epochSupplier.getAsLong();
+    }
+
+    /**
+     * Obtiene la ruta de la caché o la calcula con el proveedor dado
+     *
+     * @param calculator Cálculo de la ruta si no está en caché (se ejecuta una sola vez por clave)
+     */
+    public CalculatedRoute get(int originId, int destinationId, RouteStrategy strategy,
+                               Supplier<CalculatedRoute> calculator) {
+        long epoch = epochSupplier.getAsLong();
+        Key key = new Key(originId, destinationId, strategy, epoch);
+        CompletableFuture<CalculatedRoute> existing;
+        CompletableFuture<CalculatedRoute> future = null;
+
+        synchronized (this) {
+            if (epoch > currentEpoch) {
+                clearEntries();
+                currentEpoch = epoch;
+            }
+            // Si otro thread ya vio una época más nueva, la ruta se calcula sin guardarla
+            existing = epoch < currentEpoch ? null : entries.get(key);
+            if (existing == null && epoch == currentEpoch) {
+                future = new CompletableFuture<>();
+                entries.put(key, future);
+                evictIfNeeded();
+            }
+        }
+
+        if (existing == null) {
+            misses.incrementAndGet();
+            return future != null ? compute(key, future, calculator) : calculator.get();
+        }
+
+        if (existing.isDone()) {
+            hits.incrementAndGet();
+        } else {
+            coalesced.incrementAndGet(); // Otro thread la está calculando
+        }
+
+        try {
+            // Un pedido asíncrono no espera más allá de su propio plazo
+            return QueryCancellation.await(existing);
+        } catch (CancellationException e) {
+            QueryCancellation.checkpoint(); // Venció o se canceló este pedido: no reintentar
+            // Se canceló el pedido que la estaba calculando (y ya se retiró): calcularla aquí
+            return get(originId, destinationId, strategy, calculator);
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private CalculatedRoute compute(Key key, CompletableFuture<CalculatedRoute> future,
+                                    Supplier<CalculatedRoute> calculator) {
+        try {
+            CalculatedRoute route = calculator.get();
+            future.complete(route);
+            return route;
+        } catch (Throwable e) {
+            // No guardar fallos (tampoco errores como StackOverflowError): el siguiente pedido
+            // vuelve a intentar y quienes esperan este cálculo no se quedan bloqueados
+            synchronized (this) {
+                entries.remove(key, future);
+            }
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private RuntimeException unwrap(CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return cause instanceof RuntimeException ? (RuntimeException) cause : e;
+    }
+
+    /**
+     * Elimina las entradas más antiguas hasta respetar la capacidad (con el lock tomado).
+     * Quien espera una entrada expulsada que aún se calcula sigue recibiendo su resultado.
+     */
+    private void evictIfNeeded() {
+        Iterator<Key> oldest = entries.keySet().iterator();
+        while (entries.size() > maxEntries && oldest.hasNext()) {
+            oldest.next();
+            oldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void clearEntries() {
+        entries.clear();
+        invalidations.incrementAndGet();
+    }
+
+    /**
+     * Descarta todas las entradas (p. ej. tras un cambio de velocidades)
+     */
+    public synchronized void invalidateAll() {
+        clearEntries();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public Stats getStats() {
+        return new Stats(hits.get(), misses.get(), coalesced.get(), evictions.get(),
+                invalidations.get(), size(), maxEntries);
+    }
+
+    /**
+     * Clave de una entrada de la caché
+     */
+    private static final class Key {
+        private final int originId;
+        private final int destinationId;
+        private final RouteStrategy strategy;
+        private final long epoch;
+
+        Key(int originId, int destinationId, RouteStrategy strategy, long epoch) {
+            this.originId = originId;
+            this.destinationId = destinationId;
+            this.strategy = strategy;
+            this.epoch = epoch;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return originId == key.originId && destinationId == key.destinationId
+                    && strategy == key.strategy && epoch == key.epoch;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(originId, destinationId, strategy, epoch);
+        }
+    }
+
+    /**
+     * Métricas de uso de la caché
+     */
+    public static class Stats {
+        private final long hits;
+        private final long misses;
+        private final long coalesced;
+        private final long evictions;
+        private final long invalidations;
+        private final int size;
+        private final int capacity;
+
+        public Stats(long hits, long misses, long coalesced, long evictions,
+                     long invalidations, int size, int capacity) {
+            this.hits = hits;
+            this.misses = misses;
+            this.coalesced = coalesced;
+            this.evictions = evictions;
+            this.invalidations = invalidations;
+            this.size = size;
+            this.capacity = capacity;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getCoalesced() {
+            return coalesced;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public long getInvalidations() {
+            return invalidations;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Fracción de pedidos que no requirieron un cálculo nuevo
+         */
+        public double getHitRate() {
+            long total = hits + misses + coalesced;
+            return total == 0 ? 0 : (hits + coalesced) / (double) total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "Caché de Rutas:\n" +
+                            "  Entradas: %,d / %,d\n" +
+                            "  Aciertos: %,d | Fallos: %,d | Coalescidos: %,d\n" +
+                            "  Tasa de aciertos: %.1f%%\n" +
+                            "  Expulsiones: %,d | Invalidaciones: %,d",
+                    size, capacity, hits, misses, coalesced,
+                    getHitRate() * 100, evictions, invalidations
+            );
+        }
+    }
+}
@@ -6,9 +6,17 @@ import co.edu.icesi.mio.infra.csv.Parada;
 import co.edu.icesi.mio.model.analytics.ArcIdentifier;
 import co.edu.icesi.mio.model.analytics.ArcVelocityStats;
 import co.edu.icesi.mio.model.routing.CalculatedRoute;
+import co.edu.icesi.mio.model.routing.ParetoJourney;
 import co.edu.icesi.mio.model.routing.RouteSegment;
 import co.edu.icesi.mio.repository.ArcVelocityRepository;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
 /**
  * Servicio principal para cálculo de rutas óptimas.
  * Integra el grafo del MIO con las estadísticas de velocidad calculadas.
@@ -17,21 +25,116 @@ public class RouteCalculatorService {
 
     private final GrafoMIO grafo;
     private final ArcVelocityRepository velocityRepository;
+    private final RouteCache routeCache;
+
+    // Incidentes reportados (trancones, marchas, choques) que encarecen o cierran arcos
+    private final IncidentLayer incidentLayer;
+
+    // Grafo compacto con pesos de tiempo según las velocidades (base de los preprocesamientos)
+    private volatile RoutingGraph baseTimeGraph;
+    private volatile long timeGraphVelocityVersion = -1;
+
+    // Grafo de tiempo vigente: el grafo base con los multiplicadores de los incidentes activos
+    private volatile RoutingGraph timeGraph;
+    private volatile RoutingGraph timeGraphBase;
+    private volatile long timeGraphIncidentVersion = -1;
+
+    // Jerarquía de contracción para consultas rápidas (se construye bajo demanda).
+    // Se construye con su propio lock para no bloquear las consultas mientras tanto.
+    private final ReentrantLock hierarchyLock = new ReentrantLock();
+    private volatile ContractionHierarchy contractionHierarchy;
+    private volatile long hierarchyVelocityVersion = -1;
+
+    // Tablas de landmarks para A* (se construyen bajo demanda, con su propio lock para no
+    // bloquear las demás consultas mientras tanto)
+    private final Object landmarkLock = new Object();
+    private volatile LandmarkIndex landmarkIndex;
+    private volatile long landmarkVelocityVersion = -1;
+
+    // Mismas tablas de landmarks sobre el grafo con incidentes
+    private volatile LandmarkIndex incidentLandmarkIndex;
+
+    // Mismo grafo compacto con pesos en metros (no depende de las velocidades)
+    private volatile RoutingGraph distanceGraph;
+
+    // Grafo expandido por línea para rutas con penalización por transbordo
+    private volatile TransferAwarePathfinder transferPathfinder;
+
+    // Buscador de rutas alternativas (Yen) sobre el grafo de tiempos
+    private volatile AlternativeRoutesFinder alternativesFinder;
+
+    // Patrones de línea para consultas por rondas (RAPTOR)
+    private volatile RaptorEngine raptorEngine;
+
+    // Perfiles de tiempo por franja horaria para rutas dependientes de la hora de salida
+    private volatile TimeDependentPathfinder timeDependentPathfinder;
+    private volatile long profilesVelocityVersion = -1;
+    private volatile TimeDependentPathfinder incidentTimeDependentPathfinder;
 
     // Constantes
     private static final double DEFAULT_VELOCITY_KMH = 25.0; // Velocidad por defecto si no hay datos
+    private static final double WALKING_VELOCITY_KMH = 4.5; // Velocidad en arcos peatonales
     private static final double TRANSFER_PENALTY_MINUTES = 3.0; // Penalización por transbordo
+    public static final int DEFAULT_MAX_TRANSFERS = 4; // Transbordos máximos en viajes de Pareto
+    public static final int DEFAULT_CACHE_SIZE = 1000; // Rutas guardadas en caché
+    public static final double DEFAULT_MAX_OVERLAP = 0.7; // Fracción máxima compartida entre alternativas
 
     public RouteCalculatorService(GrafoMIO grafo, ArcVelocityRepository velocityRepository) {
+        this(grafo, velocityRepository, DEFAULT_CACHE_SIZE);
+    }
+
+    public RouteCalculatorService(GrafoMIO grafo, ArcVelocityRepository velocityRepository, int cacheSize) {
         this.grafo = grafo;
         this.velocityRepository = velocityRepository;
+        this.incidentLayer = new IncidentLayer(grafo);
+        // Las rutas guardadas se invalidan al cambiar las velocidades o los incidentes
+        this.routeCache = new RouteCache(cacheSize,
+                () -> velocityRepository.getVersion() + incidentLayer.getVersion());
+    }
+
+    /**
+     * Capa de incidentes del servicio. Puede registrarse como listener de eventos de buses:
+     * los eventos de trancón, marcha, choque e incidente afectan las rutas de inmediato.
+     */
+    public IncidentLayer getIncidentLayer() {
+        return incidentLayer;
+    }
+
+    /**
+     * Calcula una ruta con el criterio indicado usando la caché de rutas.
+     * Las rutas se reutilizan mientras no cambien las velocidades; pedidos simultáneos
+     * de la misma ruta se resuelven con un solo cálculo.
+     */
+    public CalculatedRoute calculateRoute(int originId, int destinationId, RouteStrategy strategy) {
+        return routeCache.get(originId, destinationId, strategy, () -> {
+            switch (strategy) {
+                case SHORTEST:
+                    return calculateShortestRoute(originId, destinationId);
+                case FEWEST_TRANSFERS:
+                    return calculateFewestTransfersRoute(originId, destinationId);
+                default:
+                    return calculateFastestRouteCH(originId, destinationId);
+            }
+        });
+    }
+
+    /**
+     * Métricas de la caché de rutas
+     */
+    public RouteCache.Stats getRouteCacheStats() {
+        return routeCache.getStats();
+    }
+
+    public void clearRouteCache() {
+        routeCache.invalidateAll();
     }
 
     /**
      * Calcula la ruta más rápida (minimiza tiempo de viaje)
      */
     public CalculatedRoute calculateFastestRoute(int originId, int destinationId) {
-        DijkstraPathfinder pathfinder = new DijkstraPathfinder(grafo, new TimeCostStrategy());
+        DijkstraPathfinder pathfinder = new DijkstraPathfinder(grafo,
+                new TimeCostStrategy(incidentLayer.getArcFactors()));
         return pathfinder.findRoute(originId, destinationId);
     }
 
@@ -39,17 +142,444 @@ public class RouteCalculatorService {
      * Calcula la ruta más corta (minimiza distancia)
      */
     public CalculatedRoute calculateShortestRoute(int originId, int destinationId) {
-        DijkstraPathfinder pathfinder = new DijkstraPathfinder(grafo, new DistanceCostStrategy());
+        DijkstraPathfinder pathfinder = new DijkstraPathfinder(grafo,
+                new DistanceCostStrategy(incidentLayer.getArcFactors()));
         return pathfinder.findRoute(originId, destinationId);
     }
 
     /**
-     * Calcula la ruta con menos transbordos
+     * Calcula la ruta con menos transbordos: minimiza el tiempo de viaje más una
+     * penalización por cada cambio de línea. El tiempo total de la ruta no incluye
+     * las penalizaciones.
      */
     public CalculatedRoute calculateFewestTransfersRoute(int originId, int destinationId) {
-        DijkstraPathfinder pathfinder = new DijkstraPathfinder(grafo,
-                new TimeCostWithTransferPenaltyStrategy());
-        return pathfinder.findRoute(originId, destinationId);
+        TransferAwarePathfinder pathfinder = getTransferPathfinder();
+        return buildTimeRoute(originId, destinationId, pathfinder.findPath(originId, destinationId));
+    }
+
+    /**
+     * Obtiene el buscador con penalización por transbordo para las velocidades actuales.
+     * Se comparte entre threads; tras un cambio de velocidades solo se actualizan los pesos.
+     */
+    private TransferAwarePathfinder getTransferPathfinder() {
+        TransferAwarePathfinder pathfinder = transferPathfinder;
+        if (pathfinder != null && isCurrentTimeGraph(pathfinder.getGraph())) {
+            return pathfinder;
+        }
+
+        synchronized (this) {
+            RoutingGraph graph = getTimeRoutingGraph();
+            if (transferPathfinder == null) {
+                transferPathfinder = TransferAwarePathfinder.build(graph, TRANSFER_PENALTY_MINUTES);
+            } else if (transferPathfinder.getGraph() != graph) {
+                transferPathfinder = transferPathfinder.reweight(graph);
+            }
+            return transferPathfinder;
+        }
+    }
+
+    /**
+     * Calcula hasta k rutas alternativas significativamente distintas, de la más rápida a la
+     * más lenta. La primera es la ruta más rápida.
+     *
+     * @param maxOverlap Fracción máxima (0-1) del tiempo de una alternativa que puede
+     *                   compartir tramos con otra alternativa ya elegida
+     */
+    public List<CalculatedRoute> calculateAlternativeRoutes(int originId, int destinationId,
+                                                            int k, double maxOverlap) {
+        RoutingGraph graph = getTimeRoutingGraph();
+        AlternativeRoutesFinder finder = alternativesFinder;
+        if (finder == null || finder.getGraph() != graph) {
+            finder = new AlternativeRoutesFinder(graph);
+            alternativesFinder = finder;
+        }
+
+        List<CalculatedRoute> routes = new ArrayList<>();
+        for (List<Arco> path : finder.findAlternatives(originId, destinationId, k, maxOverlap)) {
+            routes.add(buildTimeRoute(originId, destinationId, path));
+        }
+        return routes;
+    }
+
+    public List<CalculatedRoute> calculateAlternativeRoutes(int originId, int destinationId, int k) {
+        return calculateAlternativeRoutes(originId, destinationId, k, DEFAULT_MAX_OVERLAP);
+    }
+
+    /**
+     * Calcula los viajes óptimos de Pareto (tiempo de viaje vs. transbordos) entre dos paradas.
+     * El primer viaje es el de menos transbordos; cada viaje siguiente usa un bus más
+     * y llega antes que el anterior.
+     *
+     * @param maxTransfers Número máximo de transbordos a considerar
+     */
+    public List<ParetoJourney> calculateParetoJourneys(int originId, int destinationId, int maxTransfers) {
+        RaptorEngine engine = getRaptorEngine();
+        List<ParetoJourney> journeys = new ArrayList<>();
+
+        for (RaptorEngine.Journey journey : engine.findJourneys(originId, destinationId, maxTransfers)) {
+            CalculatedRoute route = buildTimeRoute(originId, destinationId, journey.getArcs());
+            journeys.add(new ParetoJourney(route, journey.getTrips(), route.getTotalTime()));
+        }
+
+        return journeys;
+    }
+
+    public List<ParetoJourney> calculateParetoJourneys(int originId, int destinationId) {
+        return calculateParetoJourneys(originId, destinationId, DEFAULT_MAX_TRANSFERS);
+    }
+
+    /**
+     * Obtiene el motor RAPTOR para las velocidades actuales (solo se recalculan los tiempos
+     * acumulados de los patrones cuando cambian las velocidades)
+     */
+    private RaptorEngine getRaptorEngine() {
+        RaptorEngine engine = raptorEngine;
+        if (engine != null && isCurrentTimeGraph(engine.getGraph())) {
+            return engine;
+        }
+
+        synchronized (this) {
+            RoutingGraph graph = getTimeRoutingGraph();
+            if (raptorEngine == null) {
+                raptorEngine = RaptorEngine.build(graph);
+            } else if (raptorEngine.getGraph() != graph) {
+                raptorEngine = raptorEngine.reweight(graph);
+            }
+            return raptorEngine;
+        }
+    }
+
+    /**
+     * Calcula la ruta más rápida saliendo del origen a la hora indicada.
+     * Cada arco usa el tiempo de viaje de la franja de 15 minutos en que se entra a él,
+     * de modo que la ruta y el tiempo total dependen de la hora de salida.
+     */
+    public CalculatedRoute calculateFastestRoute(int originId, int destinationId, LocalDateTime departureTime) {
+        Parada origin = grafo.getParadas().get(originId);
+        Parada destination = grafo.getParadas().get(destinationId);
+        if (origin == null || destination == null) {
+            return new CalculatedRoute(origin, destination, new ArrayList<>());
+        }
+
+        double departureMinute = departureTime.getHour() * 60 + departureTime.getMinute()
+                + departureTime.getSecond() / 60.0;
+        TimeDependentPathfinder.Result result = getTimeDependentPathfinder(incidentLayer.getArcFactors())
+                .findPath(originId, destinationId, departureMinute);
+
+        List<RouteSegment> segments = new ArrayList<>();
+        for (int i = 0; i < result.getArcs().size(); i++) {
+            Arco arco = result.getArcs().get(i);
+            double distance = calculateDistance(arco.getParadaOrigen(), arco.getParadaDestino());
+            double time = result.getSegmentTime(i);
+            double velocity = time > 0 ? (distance / 1000.0) / (time / 60.0) : getArcVelocity(arco);
+            segments.add(new RouteSegment(arco, time, distance, velocity));
+        }
+
+        return new CalculatedRoute(origin, destination, segments);
+    }
+
+    /**
+     * Obtiene el buscador dependiente del tiempo para las velocidades actuales.
+     * Los perfiles se recalculan solo cuando cambian las velocidades del repositorio;
+     * los incidentes se aplican como multiplicadores sobre los mismos perfiles.
+     *
+     * @param incidentFactors Multiplicadores vigentes de la capa de incidentes (o null)
+     */
+    private TimeDependentPathfinder getTimeDependentPathfinder(float[] incidentFactors) {
+        TimeDependentPathfinder pathfinder = timeDependentPathfinder;
+        if (pathfinder == null || profilesVelocityVersion != velocityRepository.getVersion()) {
+            synchronized (this) {
+                long version = velocityRepository.getVersion();
+                if (timeDependentPathfinder == null || profilesVelocityVersion != version) {
+                    RoutingGraph graph = getBaseTimeRoutingGraph();
+                    timeDependentPathfinder = new TimeDependentPathfinder(
+                            TravelTimeProfiles.build(graph, (arc, profile) -> fillTravelTimeProfile(graph.getArco(arc), profile)));
+                    profilesVelocityVersion = version;
+                }
+                pathfinder = timeDependentPathfinder;
+            }
+        }
+
+        if (incidentFactors == null) {
+            return pathfinder;
+        }
+
+        TimeDependentPathfinder withIncidents = incidentTimeDependentPathfinder;
+        if (withIncidents == null || withIncidents.getProfiles() != pathfinder.getProfiles()
+                || withIncidents.getArcFactors() != incidentFactors) {
+            withIncidents = pathfinder.withArcFactors(incidentFactors);
+            incidentTimeDependentPathfinder = withIncidents;
+        }
+        return withIncidents;
+    }
+
+    /**
+     * Minutos de viaje del arco en cada franja: usa la velocidad observada en la franja
+     * (del arco o, si no tiene perfil propio, de su línea) y, si no hay datos para ella,
+     * la velocidad típica del arco. Los arcos peatonales no dependen de la hora.
+     */
+    private void fillTravelTimeProfile(Arco arco, float[] profile) {
+        double distance = calculateDistance(arco.getParadaOrigen(), arco.getParadaDestino());
+        double typicalVelocity = getArcVelocity(arco);
+        float[] velocities = arco.isWalking() ? null : velocityRepository.findProfile(arcIdentifierOf(arco))
+                .or(() -> velocityRepository.findLineProfile(arco.getLineId()))
+                .orElse(null);
+
+        for (int b = 0; b < profile.length; b++) {
+            double velocity = velocities != null && velocities[b] > 0 ? velocities[b] : typicalVelocity;
+            profile[b] = (float) ((distance / 1000.0) / velocity * 60.0);
+        }
+    }
+
+    /**
+     * Calcula la ruta más rápida con el algoritmo indicado.
+     * Todos los algoritmos minimizan el mismo costo de tiempo y producen rutas equivalentes.
+     */
+    public CalculatedRoute calculateFastestRoute(int originId, int destinationId, RoutingAlgorithm algorithm) {
+        switch (algorithm) {
+            case CONTRACTION_HIERARCHY:
+                return calculateFastestRouteCH(originId, destinationId);
+            case ALT:
+                return calculateFastestRouteALT(originId, destinationId);
+            default:
+                return calculateFastestRoute(originId, destinationId);
+        }
+    }
+
+    /**
+     * Calcula la ruta más rápida usando la jerarquía de contracción.
+     * Produce el mismo resultado que {@link #calculateFastestRoute(int, int)} pero en una
+     * fracción del tiempo. Si las velocidades cambiaron desde la última construcción,
+     * la jerarquía se reconstruye antes de responder.
+     *
+     * Mientras haya incidentes activos la consulta se resuelve con ALT, cuyas tablas siguen
+     * siendo válidas con pesos mayores, en lugar de reconstruir la jerarquía. Lo mismo ocurre
+     * mientras otro thread reconstruye la jerarquía.
+     */
+    public CalculatedRoute calculateFastestRouteCH(int originId, int destinationId) {
+        if (incidentLayer.getArcFactors() != null) {
+            return calculateFastestRouteALT(originId, destinationId);
+        }
+
+        ContractionHierarchy hierarchy = contractionHierarchy;
+
+        if (hierarchy == null || isContractionHierarchyStale()) {
+            // Solo la primera consulta reconstruye; las que llegan mientras tanto no esperan
+            if (!hierarchyLock.tryLock()) {
+                return calculateFastestRouteALT(originId, destinationId);
+            }
+            try {
+                hierarchy = rebuildContractionHierarchy();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return calculateFastestRoute(originId, destinationId);
+            } finally {
+                hierarchyLock.unlock();
+            }
+        }
+
+        return buildTimeRoute(originId, destinationId, hierarchy.findPath(originId, destinationId));
+    }
+
+    /**
+     * Calcula la ruta más rápida usando A* con landmarks (ALT).
+     * Si las velocidades cambiaron, las tablas de landmarks se recalculan antes de responder,
+     * lo que es mucho más barato que reconstruir la jerarquía de contracción. Los incidentes
+     * no requieren recalcularlas: solo se cambia el grafo sobre el que se busca.
+     */
+    public CalculatedRoute calculateFastestRouteALT(int originId, int destinationId) {
+        // La versión se lee antes que las tablas: se publican en el orden inverso
+        boolean current = landmarkVelocityVersion == velocityRepository.getVersion();
+        LandmarkIndex index = landmarkIndex;
+
+        if (index == null || !current) {
+            try {
+                index = rebuildLandmarkIndex();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return calculateFastestRoute(originId, destinationId);
+            }
+        }
+
+        RoutingGraph graph = getTimeRoutingGraph();
+        if (index.getGraph() != graph) {
+            LandmarkIndex withIncidents = incidentLandmarkIndex;
+            if (withIncidents == null || withIncidents.getGraph() != graph) {
+                withIncidents = index.withGraph(graph);
+                incidentLandmarkIndex = withIncidents;
+            }
+            index = withIncidents;
+        }
+
+        return buildTimeRoute(originId, destinationId, index.findPath(originId, destinationId));
+    }
+
+    /**
+     * Recalcula las tablas de landmarks con las velocidades actuales.
+     * Los landmarks se conservan entre reconstrucciones; solo cambian las distancias.
+     *
+     * Solo se serializan las reconstrucciones entre sí: las demás consultas (transbordos,
+     * RAPTOR, isócronas) no esperan, y las tablas nuevas se publican al terminar.
+     */
+    public LandmarkIndex rebuildLandmarkIndex() throws InterruptedException {
+        synchronized (landmarkLock) {
+            long version = velocityRepository.getVersion();
+            LandmarkIndex current = landmarkIndex;
+            if (current != null && landmarkVelocityVersion == version) {
+                return current; // Otro thread ya las recalculó
+            }
+
+            RoutingGraph graph = getBaseTimeRoutingGraph();
+            int threads = Runtime.getRuntime().availableProcessors();
+
+            LandmarkIndex index = current == null
+                    ? LandmarkIndex.build(graph, LandmarkIndex.DEFAULT_LANDMARKS, threads)
+                    : current.reweight(graph, threads);
+            landmarkIndex = index;
+            landmarkVelocityVersion = version;
+            return index;
+        }
+    }
+
+    /**
+     * Obtiene el grafo compacto con pesos de tiempo para las velocidades actuales y los
+     * incidentes activos. Tras un cambio de velocidades o de incidentes solo se recalculan
+     * los pesos; la topología se comparte.
+     */
+    synchronized RoutingGraph getTimeRoutingGraph() {
+        RoutingGraph base = getBaseTimeRoutingGraph();
+        long incidentVersion = incidentLayer.getVersion();
+        if (timeGraph == null || timeGraphBase != base || timeGraphIncidentVersion != incidentVersion) {
+            float[] factors = incidentLayer.getArcFactors();
+            timeGraph = factors == null ? base : base.withArcFactors(factors);
+            timeGraphBase = base;
+            timeGraphIncidentVersion = incidentVersion;
+        }
+        return timeGraph;
+    }
+
+    /**
+     * Obtiene el grafo compacto con pesos de tiempo según las velocidades, sin incidentes.
+     * Es la base de las estructuras precalculadas (jerarquía, landmarks, perfiles).
+     */
+    private synchronized RoutingGraph getBaseTimeRoutingGraph() {
+        long version = velocityRepository.getVersion();
+        if (baseTimeGraph == null) {
+            baseTimeGraph = RoutingGraph.build(grafo, new TimeCostStrategy(null));
+        } else if (timeGraphVelocityVersion != version) {
+            baseTimeGraph = baseTimeGraph.reweight(new TimeCostStrategy(null));
+        }
+        timeGraphVelocityVersion = version;
+        return baseTimeGraph;
+    }
+
+    /**
+     * Indica si el grafo es el grafo de tiempo vigente (mismas velocidades e incidentes)
+     */
+    private boolean isCurrentTimeGraph(RoutingGraph graph) {
+        return graph == timeGraph
+                && timeGraphVelocityVersion == velocityRepository.getVersion()
+                && timeGraphIncidentVersion == incidentLayer.getVersion();
+    }
+
+    /**
+     * Crea una búsqueda uno-a-muchos hacia los destinos indicados, con las velocidades actuales.
+     * Cada thread debe usar su propia instancia.
+     */
+    public OneToManySearch createOneToManySearch(int[] destinationIds) {
+        RoutingGraph graph = getTimeRoutingGraph();
+        RoutingGraph distances = distanceGraph;
+        if (distances == null) {
+            distances = graph.reweight(new DistanceCostStrategy(null));
+            distanceGraph = distances;
+        }
+        return new OneToManySearch(graph, distances, destinationIds);
+    }
+
+    /**
+     * Convierte una secuencia de arcos en una ruta con los segmentos de la estrategia de tiempo
+     */
+    private CalculatedRoute buildTimeRoute(int originId, int destinationId, List<Arco> path) {
+        Parada origin = grafo.getParadas().get(originId);
+        Parada destination = grafo.getParadas().get(destinationId);
+        if (origin == null || destination == null) {
+            return new CalculatedRoute(origin, destination, new ArrayList<>());
+        }
+
+        TimeCostStrategy strategy = new TimeCostStrategy(incidentLayer.getArcFactors());
+        List<RouteSegment> segments = new ArrayList<>();
+        for (Arco arco : path) {
+            if (strategy.isClosed(arco)) {
+                // Un incidente cerró un tramo después de calcular el camino: no hay ruta
+                return new CalculatedRoute(origin, destination, new ArrayList<>());
+            }
+            segments.add(strategy.createSegment(arco));
+        }
+
+        return new CalculatedRoute(origin, destination, segments);
+    }
+
+    /**
+     * Reconstruye la jerarquía de contracción con las velocidades actuales.
+     * Debe invocarse (o se invoca automáticamente en la siguiente consulta) cuando
+     * cambian los datos del repositorio de velocidades.
+     *
+     * Solo se serializan las reconstrucciones entre sí: las demás consultas siguen
+     * respondiendo (con ALT o Dijkstra) y la jerarquía nueva se publica al terminar.
+     */
+    public ContractionHierarchy rebuildContractionHierarchy() throws InterruptedException {
+        hierarchyLock.lockInterruptibly();
+        try {
+            long version = velocityRepository.getVersion();
+            ContractionHierarchy current = contractionHierarchy;
+            if (current != null && hierarchyVelocityVersion == version) {
+                return current; // Otro thread ya la reconstruyó
+            }
+
+            RoutingGraph graph = getBaseTimeRoutingGraph();
+            ContractionHierarchyBuilder builder = new ContractionHierarchyBuilder(graph,
+                    Runtime.getRuntime().availableProcessors());
+
+            ContractionHierarchy hierarchy = builder.build();
+            contractionHierarchy = hierarchy;
+            hierarchyVelocityVersion = version;
+            return hierarchy;
+        } finally {
+            hierarchyLock.unlock();
+        }
+    }
+
+    /**
+     * Indica si la jerarquía fue construida con velocidades que ya cambiaron
+     */
+    public boolean isContractionHierarchyStale() {
+        return hierarchyVelocityVersion != velocityRepository.getVersion();
+    }
+
+    /**
+     * Guarda la jerarquía actual en un archivo (la construye si no existe)
+     */
+    public void saveContractionHierarchy(Path file) throws IOException, InterruptedException {
+        ContractionHierarchy hierarchy = contractionHierarchy;
+        if (hierarchy == null || isContractionHierarchyStale()) {
+            hierarchy = rebuildContractionHierarchy();
+        }
+        hierarchy.save(file);
+    }
+
+    /**
+     * Carga una jerarquía preprocesada. Se asume que fue construida con las
+     * velocidades que contiene actualmente el repositorio.
+     */
+    public void loadContractionHierarchy(Path file) throws IOException {
+        ContractionHierarchy hierarchy = ContractionHierarchy.load(file, grafo);
+        hierarchyLock.lock();
+        try {
+            contractionHierarchy = hierarchy;
+            hierarchyVelocityVersion = velocityRepository.getVersion();
+        } finally {
+            hierarchyLock.unlock();
+        }
     }
 
     /**
@@ -80,91 +610,126 @@ public class RouteCalculatorService {
      * Obtiene la velocidad estimada para un arco (usando estadísticas o valor por defecto)
      */
     private double getArcVelocity(Arco arco) {
-        // Identificar arco por paradas específicas para mayor precisión
-        ArcIdentifier arcId = ArcIdentifier.forStops(
+        if (arco.isWalking()) {
+            return WALKING_VELOCITY_KMH;
+        }
+        return velocityRepository.findByArc(arcIdentifierOf(arco))
+                .map(ArcVelocityStats::getTypicalVelocity)
+                .orElse(DEFAULT_VELOCITY_KMH);
+    }
+
+    /**
+     * Identifica el arco por paradas específicas para mayor precisión
+     */
+    private ArcIdentifier arcIdentifierOf(Arco arco) {
+        return ArcIdentifier.forStops(
                 arco.getLineId(),
                 arco.getLineId(),
                 arco.getParadaOrigen().getStopId(),
                 arco.getParadaDestino().getStopId()
         );
-
-        return velocityRepository.findByArc(arcId)
-                .map(ArcVelocityStats::getTypicalVelocity)
-                .orElse(DEFAULT_VELOCITY_KMH);
     }
 
     /**
-     * Estrategia basada en tiempo (usa velocidades históricas)
+     * Estrategia basada en tiempo (usa velocidades históricas y, si se indican, los
+     * multiplicadores de los incidentes activos)
      */
     private class TimeCostStrategy implements DijkstraPathfinder.CostStrategy {
+        private final float[] incidentFactors;
+
+        TimeCostStrategy(float[] incidentFactors) {
+            this.incidentFactors = incidentFactors;
+        }
+
         @Override
         public double calculateCost(Arco arco) {
-            double distance = calculateDistance(arco.getParadaOrigen(), arco.getParadaDestino());
-            double velocity = getArcVelocity(arco);
+            double factor = incidentFactor(arco);
+            if (factor == Double.POSITIVE_INFINITY) {
+                return factor; // Arco cerrado
+            }
 
             // Tiempo = distancia / velocidad
             // Convertir: (metros / (km/h)) → minutos
-            return (distance / 1000.0) / velocity * 60.0;
+            double distance = calculateDistance(arco.getParadaOrigen(), arco.getParadaDestino());
+            double velocity = getArcVelocity(arco);
+            return (distance / 1000.0) / velocity * 60.0 * factor;
         }
 
+        /**
+         * Los arcos cerrados no se pueden recorrer ni convertir en segmentos
+         */
         @Override
         public RouteSegment createSegment(Arco arco) {
+            double factor = incidentFactor(arco);
+            if (factor == Double.POSITIVE_INFINITY) {
+                throw new IllegalStateException("Arco cerrado por un incidente: "
+                        + arco.getParadaOrigen().getStopId() + " -> " + arco.getParadaDestino().getStopId());
+            }
+
             double distance = calculateDistance(arco.getParadaOrigen(), arco.getParadaDestino());
             double velocity = getArcVelocity(arco);
-            double time = (distance / 1000.0) / velocity * 60.0;
+            double time = (distance / 1000.0) / velocity * 60.0 * factor;
+
+            return new RouteSegment(arco, time, distance, velocity / factor);
+        }
 
-            return new RouteSegment(arco, time, distance, velocity);
+        boolean isClosed(Arco arco) {
+            return incidentFactor(arco) == Double.POSITIVE_INFINITY;
+        }
+
+        private double incidentFactor(Arco arco) {
+            return RouteCalculatorService.this.incidentFactor(incidentFactors, arco);
         }
     }
 
     /**
-     * Estrategia basada en distancia
+     * Estrategia basada en distancia. Los incidentes no cambian la longitud de un arco, pero
+     * los arcos cerrados quedan fuera y los demás multiplicadores se reflejan en el tiempo.
      */
     private class DistanceCostStrategy implements DijkstraPathfinder.CostStrategy {
+        private final float[] incidentFactors;
+
+        DistanceCostStrategy(float[] incidentFactors) {
+            this.incidentFactors = incidentFactors;
+        }
+
         @Override
         public double calculateCost(Arco arco) {
+            if (incidentFactor(incidentFactors, arco) == Double.POSITIVE_INFINITY) {
+                return Double.POSITIVE_INFINITY; // Arco cerrado
+            }
             return calculateDistance(arco.getParadaOrigen(), arco.getParadaDestino());
         }
 
+        /**
+         * Los arcos cerrados no se pueden recorrer ni convertir en segmentos
+         */
         @Override
         public RouteSegment createSegment(Arco arco) {
+            double factor = incidentFactor(incidentFactors, arco);
+            if (factor == Double.POSITIVE_INFINITY) {
+                throw new IllegalStateException("Arco cerrado por un incidente: "
+                        + arco.getParadaOrigen().getStopId() + " -> " + arco.getParadaDestino().getStopId());
+            }
+
             double distance = calculateDistance(arco.getParadaOrigen(), arco.getParadaDestino());
             double velocity = getArcVelocity(arco);
-            double time = (distance / 1000.0) / velocity * 60.0;
+            double time = (distance / 1000.0) / velocity * 60.0 * factor;
 
-            return new RouteSegment(arco, time, distance, velocity);
+            return new RouteSegment(arco, time, distance, velocity / factor);
         }
     }
 
     /**
-     * Estrategia basada en tiempo con penalización por transbordos
+     * Multiplicador del incidente vigente sobre el arco (1 si no hay incidentes o el arco no
+     * pertenece al grafo ruteable)
      */
-    private class TimeCostWithTransferPenaltyStrategy implements DijkstraPathfinder.CostStrategy {
-        private int previousLineId = -1;
-
-        @Override
-        public double calculateCost(Arco arco) {
-            double distance = calculateDistance(arco.getParadaOrigen(), arco.getParadaDestino());
-            double velocity = getArcVelocity(arco);
-            double timeCost = (distance / 1000.0) / velocity * 60.0;
-
-            // Agregar penalización si cambia de línea
-            if (previousLineId != -1 && previousLineId != arco.getLineId()) {
-                timeCost += TRANSFER_PENALTY_MINUTES;
-            }
-
-            previousLineId = arco.getLineId();
-            return timeCost;
-        }
-
-        @Override
-        public RouteSegment createSegment(Arco arco) {
-            double distance = calculateDistance(arco.getParadaOrigen(), arco.getParadaDestino());
-            double velocity = getArcVelocity(arco);
-            double time = (distance / 1000.0) / velocity * 60.0;
-
-            return new RouteSegment(arco, time, distance, velocity);
+    private double incidentFactor(float[] incidentFactors, Arco arco) {
+        if (incidentFactors == null) {
+            return 1.0;
         }
+        int index = incidentLayer.indexOf(arco);
+        return index >= 0 ? incidentFactors[index] : 1.0;
     }
 
     /**
@@ -0,0 +1,247 @@
+package co.edu.icesi.mio.service.routing;
+
+import co.edu.icesi.mio.model.routing.RouteSummary;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Escribe resultados de rutas a un archivo a medida que se calculan.
+ *
+ * Los workers dejan cada resultado en una cola acotada y un thread escritor la vacía hacia
+ * el archivo, de modo que la memoria usada no depende del número de pares. Si la cola se
+ * llena, los workers esperan al escritor.
+ *
+ * Formato binario: magic, bandera de caminos y luego un registro por ruta con
+ * origen, destino, tiempo, distancia, transbordos, segmentos, largo del camino y los
+ * índices de sus arcos (todo int/float big-endian). Formato CSV: una línea por ruta con
+ * el camino como índices separados por espacios.
+ */
+public class RouteResultFileWriter implements RouteResultSink, Closeable {
+
+    public enum Format { BINARY, CSV }
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 4096;
+    private static final int FILE_MAGIC = 0x4D494F52; // "MIOR"
+    private static final String CSV_HEADER =
+            "origin_stop_id,destination_stop_id,found,travel_time_min,distance_m,transfers,segments,arc_path";
+
+    // Marca de fin de la cola
+    private static final RouteSummary END = RouteSummary.notFound(-1, -1);
+
+    private final Format format;
+    private final boolean includeArcPaths;
+    private final BlockingQueue<RouteSummary> queue;
+    private final Thread writerThread;
+    private final DataOutputStream binaryOut;
+    private final BufferedWriter csvOut;
+
+    private volatile IOException failure;
+    private volatile long written;
+    private boolean closed;
+
+    /**
+     * @param includeArcPaths Si se escriben los índices de los arcos de cada ruta
+     */
+    public RouteResultFileWriter(Path file, Format format, boolean includeArcPaths) throws IOException {
+        this(file, format, includeArcPaths, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public RouteResultFileWriter(Path file, Format format, boolean includeArcPaths,
+                                 int queueCapacity) throws IOException {
+        this.format = format;
+        this.includeArcPaths = includeArcPaths;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        if (format == Format.BINARY) {
+            this.binaryOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+            this.csvOut = null;
+            binaryOut.writeInt(FILE_MAGIC);
+            binaryOut.writeBoolean(includeArcPaths);
+        } else {
+            this.binaryOut = null;
+            this.csvOut = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+            csvOut.write(CSV_HEADER);
+            csvOut.newLine();
+        }
+
+        this.writerThread = new Thread(this::drain, "escritor-resultados-rutas");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Encola un resultado; espera si la cola está llena
+     *
+     * @throws UncheckedIOException si el escritor ya falló
+     */
+    @Override
+    public void accept(RouteSummary summary) {
+        IOException error = failure;
+        if (error != null) {
+            throw new UncheckedIOException("Falló la escritura de resultados", error);
+        }
+        try {
+            queue.put(summary);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando la cola de resultados", e);
+        }
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                RouteSummary summary = queue.take();
+                if (summary == END) break;
+                if (failure != null) continue; // Tras un error se sigue vaciando para no bloquear a los workers
+
+                try {
+                    if (format == Format.BINARY) {
+                        writeBinary(summary);
+                    } else {
+                        writeCsv(summary);
+                    }
+                    written++;
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeBinary(RouteSummary summary) throws IOException {
+        binaryOut.writeInt(summary.getOriginStopId());
+        binaryOut.writeInt(summary.getDestinationStopId());
+        binaryOut.writeFloat(summary.getTravelTime());
+        binaryOut.writeFloat(summary.getDistance());
+        binaryOut.writeInt(summary.getTransfers());
+        binaryOut.writeInt(summary.getSegments());
+
+        if (includeArcPaths) {
+            int[] path = summary.getArcPath();
+            int length = path != null ? path.length : 0;
+            binaryOut.writeInt(length);
+            for (int i = 0; i < length; i++) {
+                binaryOut.writeInt(path[i]);
+            }
+        }
+    }
+
+    private void writeCsv(RouteSummary summary) throws IOException {
+        StringBuilder line = new StringBuilder(64);
+        line.append(summary.getOriginStopId()).append(',')
+                .append(summary.getDestinationStopId()).append(',')
+                .append(summary.isFound()).append(',');
+        if (summary.isFound()) {
+            line.append(summary.getTravelTime()).append(',')
+                    .append(summary.getDistance()).append(',');
+        } else {
+            line.append(",,");
+        }
+        line.append(summary.getTransfers()).append(',')
+                .append(summary.getSegments()).append(',');
+
+        int[] path = summary.getArcPath();
+        if (includeArcPaths && path != null) {
+            for (int i = 0; i < path.length; i++) {
+                if (i > 0) line.append(' ');
+                line.append(path[i]);
+            }
+        }
+
+        csvOut.write(line.toString());
+        csvOut.newLine();
+    }
+
+    /**
+     * Número de resultados escritos hasta ahora
+     */
+    public long getWrittenCount() {
+        return written;
+    }
+
+    /**
+     * Resultados esperando en la cola
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Espera a que se escriban los resultados pendientes y cierra el archivo
+     *
+     * @throws IOException si falló alguna escritura
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+
+        try {
+            queue.put(END);
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrumpido esperando al escritor de resultados");
+        } finally {
+            if (binaryOut != null) {
+                binaryOut.close();
+            } else {
+                csvOut.close();
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Lee un archivo binario escrito por esta clase y entrega cada resultado al consumidor
+     *
+     * @return Número de resultados leídos
+     */
+    public static long readBinary(Path file, Consumer<RouteSummary> consumer) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != FILE_MAGIC) {
+                throw new IOException("Archivo de resultados de rutas inválido: " + file);
+            }
+            boolean hasArcPaths = in.readBoolean();
+
+            long count = 0;
+            while (true) {
+                int originStopId;
+                try {
+                    originStopId = in.readInt();
+                } catch (EOFException e) {
+                    return count;
+                }
+                int destinationStopId = in.readInt();
+                float travelTime = in.readFloat();
+                float distance = in.readFloat();
+                int transfers = in.readInt();
+                int segments = in.readInt();
+
+                int[] path = null;
+                if (hasArcPaths) {
+                    path = new int[in.readInt()];
+                    for (int i = 0; i < path.length; i++) {
+                        path[i] = in.readInt();
+                    }
+                }
+
+                consumer.accept(new RouteSummary(originStopId, destinationStopId, travelTime, distance,
+                        transfers, segments, path));
+                count++;
+            }
+        }
+    }
+}
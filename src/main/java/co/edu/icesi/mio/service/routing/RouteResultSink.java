@@ -0,0 +1,14 @@
+package co.edu.icesi.mio.service.routing;
+
+import co.edu.icesi.mio.model.routing.RouteSummary;
+
+/**
+ * Destino de los resultados de un cálculo masivo de rutas.
+ * Recibe cada resultado apenas se calcula; se invoca desde varios workers a la vez,
+ * así que las implementaciones deben ser thread-safe.
+ */
+@FunctionalInterface
+public interface RouteResultSink {
+
+    void accept(RouteSummary summary);
+}
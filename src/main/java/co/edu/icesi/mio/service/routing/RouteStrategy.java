@@ -0,0 +1,20 @@
+package co.edu.icesi.mio.service.routing;
+
+/**
+ * Criterio de optimización de una ruta
+ */
+public enum RouteStrategy {
+    FASTEST("Más rápida"),
+    SHORTEST("Más corta"),
+    FEWEST_TRANSFERS("Menos transbordos");
+
+    private final String description;
+
+    RouteStrategy(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,20 @@
+package co.edu.icesi.mio.service.routing;
+
+/**
+ * Algoritmo usado para responder una consulta de ruta más rápida.
+ */
+public enum RoutingAlgorithm {
+    DIJKSTRA("Dijkstra"),                                 // Sin preprocesamiento
+    CONTRACTION_HIERARCHY("Jerarquía de contracción"),    // Consultas más rápidas, reconstrucción costosa
+    ALT("A* con landmarks");                              // Reconstrucción barata tras cambios de velocidad
+
+    private final String description;
+
+    RoutingAlgorithm(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,216 @@
+package co.edu.icesi.mio.service.routing;
+
+import co.edu.icesi.mio.infra.csv.Arco;
+import co.edu.icesi.mio.infra.csv.GrafoMIO;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Representación compacta del grafo del MIO para los algoritmos de rutas.
+ * Las paradas se indexan de 0 a n-1 y los arcos se guardan en arreglos primitivos
+ * agrupados por parada origen (formato CSR), con el peso dado por una estrategia de costo.
+ * Es inmutable y puede compartirse entre threads.
+ */
+public class RoutingGraph {
+
+    private final GrafoMIO grafo;
+    private final int[] stopIds;                    // índice -> stopId
+    private final Map<Integer, Integer> indexByStopId;
+
+    // Arcos salientes: los arcos de la parada u están en [firstOut[u], firstOut[u + 1])
+    private final int[] firstOut;
+    private final int[] arcTail;
+    private final int[] arcHead;
+    private final float[] arcWeight;
+    private final int[] arcSource;                  // posición del Arco en grafo.getArcosRuteables()
+
+    // Arcos entrantes: ids de arco agrupados por parada destino
+    private final int[] firstIn;
+    private final int[] inArc;
+
+    private RoutingGraph(GrafoMIO grafo, int[] stopIds, Map<Integer, Integer> indexByStopId,
+                         int[] firstOut, int[] arcTail, int[] arcHead, float[] arcWeight,
+                         int[] arcSource, int[] firstIn, int[] inArc) {
+        this.grafo = grafo;
+        this.stopIds = stopIds;
+        this.indexByStopId = indexByStopId;
+        this.firstOut = firstOut;
+        this.arcTail = arcTail;
+        this.arcHead = arcHead;
+        this.arcWeight = arcWeight;
+        this.arcSource = arcSource;
+        this.firstIn = firstIn;
+        this.inArc = inArc;
+    }
+
+    /**
+     * Construye el grafo compacto a partir del grafo del MIO
+     *
+     * @param grafo Grafo cargado desde los CSV
+     * @param costStrategy Estrategia que define el peso de cada arco
+     * @return Grafo compacto
+     */
+    public static RoutingGraph build(GrafoMIO grafo, DijkstraPathfinder.CostStrategy costStrategy) {
+        int[] stopIds = grafo.getParadas().keySet().stream()
+                .mapToInt(Integer::intValue)
+                .sorted()
+                .toArray();
+
+        Map<Integer, Integer> indexByStopId = new HashMap<>();
+        for (int i = 0; i < stopIds.length; i++) {
+            indexByStopId.put(stopIds[i], i);
+        }
+
+        int n = stopIds.length;
+        List<Arco> arcos = grafo.getArcosRuteables();
+
+        // Contar arcos por origen y por destino
+        int[] firstOut = new int[n + 1];
+        int[] firstIn = new int[n + 1];
+        int m = 0;
+        for (Arco arco : arcos) {
+            Integer tail = indexByStopId.get(arco.getParadaOrigen().getStopId());
+            Integer head = indexByStopId.get(arco.getParadaDestino().getStopId());
+            if (tail == null || head == null) continue;
+            firstOut[tail + 1]++;
+            firstIn[head + 1]++;
+            m++;
+        }
+        for (int i = 0; i < n; i++) {
+            firstOut[i + 1] += firstOut[i];
+            firstIn[i + 1] += firstIn[i];
+        }
+
+        // Llenar arreglos
+        int[] arcTail = new int[m];
+        int[] arcHead = new int[m];
+        float[] arcWeight = new float[m];
+        int[] arcSource = new int[m];
+        int[] inArc = new int[m];
+        int[] nextOut = Arrays.copyOf(firstOut, n);
+        int[] nextIn = Arrays.copyOf(firstIn, n);
+
+        for (int i = 0; i < arcos.size(); i++) {
+            Arco arco = arcos.get(i);
+            Integer tail = indexByStopId.get(arco.getParadaOrigen().getStopId());
+            Integer head = indexByStopId.get(arco.getParadaDestino().getStopId());
+            if (tail == null || head == null) continue;
+
+            int a = nextOut[tail]++;
+            arcTail[a] = tail;
+            arcHead[a] = head;
+            arcWeight[a] = (float) costStrategy.calculateCost(arco);
+            arcSource[a] = i;
+            inArc[nextIn[head]++] = a;
+        }
+
+        return new RoutingGraph(grafo, stopIds, indexByStopId, firstOut, arcTail, arcHead,
+                arcWeight, arcSource, firstIn, inArc);
+    }
+
+    /**
+     * Crea un grafo con la misma topología y nuevos pesos, sin reconstruir los índices.
+     * Útil cuando cambian las velocidades de los arcos.
+     */
+    public RoutingGraph reweight(DijkstraPathfinder.CostStrategy costStrategy) {
+        List<Arco> arcos = grafo.getArcosRuteables();
+        float[] weights = new float[arcWeight.length];
+        for (int a = 0; a < weights.length; a++) {
+            weights[a] = (float) costStrategy.calculateCost(arcos.get(arcSource[a]));
+        }
+
+        return new RoutingGraph(grafo, stopIds, indexByStopId, firstOut, arcTail, arcHead,
+                weights, arcSource, firstIn, inArc);
+    }
+
+    /**
+     * Crea un grafo con la misma topología y los pesos actuales multiplicados por un factor
+     * por arco (p. ej. incidentes). Un factor infinito cierra el arco.
+     *
+     * @param factorsBySource Factor de cada arco según su posición en grafo.getArcosRuteables()
+     */
+    public RoutingGraph withArcFactors(float[] factorsBySource) {
+        float[] weights = new float[arcWeight.length];
+        for (int a = 0; a < weights.length; a++) {
+            float factor = factorsBySource[arcSource[a]];
+            // Un arco cerrado queda con peso infinito aunque su peso base sea 0
+            weights[a] = factor == Float.POSITIVE_INFINITY ? factor : arcWeight[a] * factor;
+        }
+
+        return new RoutingGraph(grafo, stopIds, indexByStopId, firstOut, arcTail, arcHead,
+                weights, arcSource, firstIn, inArc);
+    }
+
+    public GrafoMIO getGrafo() {
+        return grafo;
+    }
+
+    public int getNodeCount() {
+        return stopIds.length;
+    }
+
+    public int getArcCount() {
+        return arcHead.length;
+    }
+
+    /**
+     * Obtiene el índice compacto de una parada (-1 si no existe)
+     */
+    public int indexOf(int stopId) {
+        Integer index = indexByStopId.get(stopId);
+        return index != null ? index : -1;
+    }
+
+    public int getStopId(int node) {
+        return stopIds[node];
+    }
+
+    public int firstOut(int node) {
+        return firstOut[node];
+    }
+
+    public int endOut(int node) {
+        return firstOut[node + 1];
+    }
+
+    public int firstIn(int node) {
+        return firstIn[node];
+    }
+
+    public int endIn(int node) {
+        return firstIn[node + 1];
+    }
+
+    /**
+     * Id del arco en la posición i de la lista de entrantes (entre firstIn y endIn)
+     */
+    public int inArc(int i) {
+        return inArc[i];
+    }
+
+    public int getTail(int arc) {
+        return arcTail[arc];
+    }
+
+    public int getHead(int arc) {
+        return arcHead[arc];
+    }
+
+    public float getWeight(int arc) {
+        return arcWeight[arc];
+    }
+
+    /**
+     * Posición del arco en la lista grafo.getArcosRuteables()
+     */
+    public int getSourceIndex(int arc) {
+        return arcSource[arc];
+    }
+
+    public Arco getArco(int arc) {
+        return grafo.getArcosRuteables().get(arcSource[arc]);
+    }
+}
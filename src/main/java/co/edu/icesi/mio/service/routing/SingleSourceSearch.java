@@ -0,0 +1,185 @@
+package co.edu.icesi.mio.service.routing;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Dijkstra de un origen hacia todas las paradas sobre el grafo compacto.
+ * Puede recorrer los arcos hacia adelante (distancias desde el origen) o hacia atrás
+ * (distancias hasta el origen) y acotarse por costo máximo o por un conjunto de destinos.
+ * Opcionalmente ignora un conjunto de arcos (máscara de remoción) sin copiar el grafo.
+ *
+ * No es thread-safe: cada thread usa su propia instancia, que se reutiliza entre búsquedas.
+ */
+public class SingleSourceSearch {
+
+    private final RoutingGraph graph;
+    private final float[] dist;
+    private final int[] predArc;
+    private final int[] stamps;
+    private final int[] settledOrder;      // Paradas en el orden en que fueron asentadas
+    private final int[] targetStamps;
+    private final NodeHeap heap;
+    private BitSet removedArcs;            // Arcos ignorados (null si no hay máscara)
+    private int stamp;
+    private int settledCount;
+
+    public SingleSourceSearch(RoutingGraph graph) {
+        this.graph = graph;
+        int n = graph.getNodeCount();
+        this.dist = new float[n];
+        this.predArc = new int[n];
+        this.stamps = new int[n];
+        this.settledOrder = new int[n];
+        this.targetStamps = new int[n];
+        this.heap = new NodeHeap();
+        this.stamp = 0;
+    }
+
+    /**
+     * Define los arcos que las siguientes búsquedas deben ignorar, como si no existieran.
+     * El conjunto se lee en cada búsqueda, así que puede modificarse entre búsquedas.
+     *
+     * @param removedArcs Ids de arcos removidos, o null para usar el grafo completo
+     */
+    public void setRemovedArcs(BitSet removedArcs) {
+        this.removedArcs = removedArcs;
+    }
+
+    /**
+     * Ejecuta la búsqueda completa desde source
+     *
+     * @param source Índice compacto del origen
+     * @param forward true para seguir los arcos en su sentido, false para recorrerlos al revés
+     */
+    public void run(int source, boolean forward) {
+        run(source, forward, Float.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Ejecuta la búsqueda desde source sin asentar paradas con costo mayor a maxDist
+     */
+    public void run(int source, boolean forward, float maxDist) {
+        search(source, forward, maxDist, null);
+    }
+
+    /**
+     * Ejecuta la búsqueda desde source y se detiene cuando todos los destinos están asentados
+     *
+     * @param targets Índices compactos de los destinos
+     */
+    public void run(int source, boolean forward, int[] targets) {
+        search(source, forward, Float.POSITIVE_INFINITY, targets);
+    }
+
+    private void search(int source, boolean forward, float maxDist, int[] targets) {
+        nextStamp();
+        heap.clear();
+        settledCount = 0;
+
+        int pendingTargets = 0;
+        if (targets != null) {
+            for (int target : targets) {
+                if (targetStamps[target] != stamp) {
+                    targetStamps[target] = stamp;
+                    pendingTargets++;
+                }
+            }
+        }
+
+        dist[source] = 0f;
+        predArc[source] = -1;
+        stamps[source] = stamp;
+        heap.push(source, 0f);
+        if (targets != null && pendingTargets == 0) {
+            return;
+        }
+
+        while (!heap.isEmpty()) {
+            float key = heap.peekKey();
+            int u = heap.pop();
+            if (key > dist[u]) continue; // Entrada obsoleta
+            if (key > maxDist) break;
+            settledOrder[settledCount++] = u;
+
+            if (targets != null && targetStamps[u] == stamp && --pendingTargets == 0) {
+                break;
+            }
+
+            if (forward) {
+                for (int a = graph.firstOut(u); a < graph.endOut(u); a++) {
+                    if (removedArcs != null && removedArcs.get(a)) continue;
+                    relax(graph.getHead(a), key + graph.getWeight(a), a);
+                }
+            } else {
+                for (int i = graph.firstIn(u); i < graph.endIn(u); i++) {
+                    int a = graph.inArc(i);
+                    if (removedArcs != null && removedArcs.get(a)) continue;
+                    relax(graph.getTail(a), key + graph.getWeight(a), a);
+                }
+            }
+        }
+    }
+
+    private void relax(int v, float newDist, int arc) {
+        if (newDist == Float.POSITIVE_INFINITY) return; // Arco cerrado
+        if (stamps[v] != stamp || newDist < dist[v]) {
+            dist[v] = newDist;
+            predArc[v] = arc;
+            stamps[v] = stamp;
+            heap.push(v, newDist);
+        }
+    }
+
+    /**
+     * Costo hasta la parada (infinito si no fue alcanzada). En búsquedas acotadas,
+     * las paradas no asentadas pueden tener un costo provisional mayor al límite.
+     */
+    public float distance(int node) {
+        return stamps[node] == stamp ? dist[node] : Float.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Arco por el que se alcanzó la parada en el árbol de caminos mínimos (-1 en el origen)
+     */
+    public int predecessorArc(int node) {
+        return stamps[node] == stamp ? predArc[node] : -1;
+    }
+
+    /**
+     * Número de paradas asentadas en la última búsqueda
+     */
+    public int getSettledCount() {
+        return settledCount;
+    }
+
+    /**
+     * Parada asentada en la posición i (0 <= i < getSettledCount()); cada parada se asienta
+     * después de la parada origen de su arco predecesor
+     */
+    public int settledNode(int i) {
+        return settledOrder[i];
+    }
+
+    /**
+     * Copia las distancias de la última búsqueda en destination[offset..offset+n)
+     */
+    public void copyDistances(float[] destination, int offset) {
+        for (int v = 0; v < dist.length; v++) {
+            destination[offset + v] = distance(v);
+        }
+    }
+
+    public RoutingGraph getGraph() {
+        return graph;
+    }
+
+    private void nextStamp() {
+        stamp++;
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            Arrays.fill(targetStamps, 0);
+            stamp = 1;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package co.edu.icesi.mio.service.routing;
+
+import co.edu.icesi.mio.infra.csv.Arco;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Dijkstra dependiente del tiempo: calcula la llegada más temprana a un destino saliendo
+ * del origen en un minuto del día dado.
+ *
+ * El costo de cada arco es el tiempo de viaje de su perfil en la franja en que se entra al
+ * arco. Se asume que esperar en una parada no adelanta la llegada (propiedad FIFO), que se
+ * cumple de forma aproximada con perfiles por franjas de 15 minutos.
+ *
+ * La estructura puede compartirse entre threads; cada thread usa su propio estado de búsqueda.
+ */
+public class TimeDependentPathfinder {
+
+    private final TravelTimeProfiles profiles;
+    private final RoutingGraph graph;
+    private final float[] arcFactors;      // Multiplicadores por posición en grafo.getArcosRuteables() (o null)
+    private final ThreadLocal<Query> queries;
+
+    public TimeDependentPathfinder(TravelTimeProfiles profiles) {
+        this(profiles, null);
+    }
+
+    private TimeDependentPathfinder(TravelTimeProfiles profiles, float[] arcFactors) {
+        this.profiles = profiles;
+        this.graph = profiles.getGraph();
+        this.arcFactors = arcFactors;
+        this.queries = ThreadLocal.withInitial(Query::new);
+    }
+
+    /**
+     * Crea un buscador con los mismos perfiles y los tiempos multiplicados por un factor por
+     * arco (p. ej. incidentes). Un factor infinito cierra el arco.
+     *
+     * @param factorsBySource Factor de cada arco según su posición en grafo.getArcosRuteables()
+     */
+    public TimeDependentPathfinder withArcFactors(float[] factorsBySource) {
+        return new TimeDependentPathfinder(profiles, factorsBySource);
+    }
+
+    /**
+     * Busca la ruta de llegada más temprana
+     *
+     * @param departureMinute Minuto del día de salida desde el origen (0-1439)
+     * @return Ruta con el tiempo de cada arco; vacía si no hay ruta
+     */
+    public Result findPath(int originId, int destinationId, double departureMinute) {
+        int source = graph.indexOf(originId);
+        int target = graph.indexOf(destinationId);
+
+        if (source < 0 || target < 0 || source == target) {
+            return new Result(Collections.emptyList(), new float[0]);
+        }
+
+        return queries.get().run(source, target, departureMinute);
+    }
+
+    public TravelTimeProfiles getProfiles() {
+        return profiles;
+    }
+
+    public float[] getArcFactors() {
+        return arcFactors;
+    }
+
+    /**
+     * Ruta encontrada: arcos en orden y minutos de viaje por cada uno según la hora de entrada
+     */
+    public static class Result {
+        private final List<Arco> arcs;
+        private final float[] segmentTimes;
+
+        Result(List<Arco> arcs, float[] segmentTimes) {
+            this.arcs = arcs;
+            this.segmentTimes = segmentTimes;
+        }
+
+        public List<Arco> getArcs() {
+            return arcs;
+        }
+
+        public float getSegmentTime(int i) {
+            return segmentTimes[i];
+        }
+
+        public boolean isEmpty() {
+            return arcs.isEmpty();
+        }
+
+        /**
+         * Minutos desde la salida hasta la llegada al destino
+         */
+        public double getTravelTime() {
+            double total = 0;
+            for (float time : segmentTimes) {
+                total += time;
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Estado de búsqueda reutilizado entre consultas del mismo thread
+     */
+    private class Query {
+        private final float[] arrival;     // Minutos transcurridos desde la salida
+        private final int[] predArc;
+        private final int[] stamps;
+        private final NodeHeap heap;
+        private int stamp;
+
+        Query() {
+            int n = graph.getNodeCount();
+            this.arrival = new float[n];
+            this.predArc = new int[n];
+            this.stamps = new int[n];
+            this.heap = new NodeHeap();
+        }
+
+        Result run(int source, int target, double departureMinute) {
+            nextStamp();
+            heap.clear();
+
+            arrival[source] = 0f;
+            predArc[source] = -1;
+            stamps[source] = stamp;
+            heap.push(source, 0f);
+
+            int iterations = 0;
+            while (!heap.isEmpty()) {
+                if ((++iterations & QueryCancellation.CHECK_MASK) == 0) QueryCancellation.checkpoint();
+                float key = heap.peekKey();
+                int u = heap.pop();
+                if (key > arrival[u]) continue; // Entrada obsoleta
+                if (u == target) {
+                    return buildResult(source, target);
+                }
+
+                double now = departureMinute + key;
+                for (int a = graph.firstOut(u); a < graph.endOut(u); a++) {
+                    int v = graph.getHead(a);
+                    float travelTime = profiles.travelTime(a, now);
+                    if (arcFactors != null) {
+                        float factor = arcFactors[graph.getSourceIndex(a)];
+                        if (factor == Float.POSITIVE_INFINITY) continue; // Arco cerrado
+                        travelTime *= factor;
+                    }
+
+                    float newArrival = key + travelTime;
+                    if (stamps[v] != stamp || newArrival < arrival[v]) {
+                        arrival[v] = newArrival;
+                        predArc[v] = a;
+                        stamps[v] = stamp;
+                        heap.push(v, newArrival);
+                    }
+                }
+            }
+
+            return new Result(Collections.emptyList(), new float[0]);
+        }
+
+        private Result buildResult(int source, int target) {
+            List<Integer> path = new ArrayList<>();
+            for (int v = target; v != source; v = graph.getTail(predArc[v])) {
+                path.add(predArc[v]);
+            }
+            Collections.reverse(path);
+
+            List<Arco> arcs = new ArrayList<>(path.size());
+            float[] segmentTimes = new float[path.size()];
+            for (int i = 0; i < path.size(); i++) {
+                int a = path.get(i);
+                arcs.add(graph.getArco(a));
+                segmentTimes[i] = arrival[graph.getHead(a)] - arrival[graph.getTail(a)];
+            }
+            return new Result(arcs, segmentTimes);
+        }
+
+        private void nextStamp() {
+            stamp++;
+            if (stamp == Integer.MAX_VALUE) {
+                Arrays.fill(stamps, 0);
+                stamp = 1;
+            }
+        }
+    }
+}
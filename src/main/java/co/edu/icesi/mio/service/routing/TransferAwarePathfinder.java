@@ -0,0 +1,304 @@
+package co.edu.icesi.mio.service.routing;
+
+import co.edu.icesi.mio.infra.csv.Arco;
+
+import java.util.*;
+
+/**
+ * Búsqueda de rutas con penalización por transbordo sobre un grafo expandido por línea.
+ *
+ * Cada estado de la búsqueda es (parada, línea actual): los arcos del MIO solo conectan
+ * estados de la misma línea, y cambiar de línea exige bajarse en la parada (costo 0) y
+ * volver a subir (costo transferPenalty). Así la penalización depende del camino real y
+ * no del orden en que se relajan los arcos.
+ *
+ * Los tramos a pie entre paradas cercanas unen paradas "a pie". Caminar desde el origen
+ * antes del primer bus no es un transbordo, así que esas paradas tienen una copia propia
+ * ("antes de abordar") desde la que subir no se penaliza.
+ *
+ * Los nodos del grafo expandido se numeran así:
+ *   [0, n)              -> parada v "a pie" (sin línea)
+ *   [n, n + S)          -> estado (parada, línea)
+ *   [n + S, 2n + S)     -> parada v "antes de abordar" (solo se ha caminado desde el origen)
+ *
+ * La estructura es inmutable y puede compartirse entre threads; cada thread reutiliza
+ * su propio estado de búsqueda.
+ */
+public class TransferAwarePathfinder {
+
+    private final RoutingGraph graph;
+    private final float transferPenalty;
+
+    // Estados (parada, línea) de la parada v: [stateFirst[v], stateFirst[v + 1])
+    private final int[] stateFirst;
+    private final int[] stateStop;
+    private final int[] stateLine;
+
+    // Arcos salientes de cada estado (misma línea): [stateArcFirst[s], stateArcFirst[s + 1])
+    private final int[] stateArcFirst;
+    private final int[] stateArcs;
+    private final int[] arcTargetState;   // Estado (cabeza, línea) al que llega cada arco (-1 si es a pie)
+
+    // Tramos a pie salientes de cada parada: [walkFirst[v], walkFirst[v + 1])
+    private final int[] walkFirst;
+    private final int[] walkArcs;
+
+    private final ThreadLocal<Query> queries;
+
+    private TransferAwarePathfinder(RoutingGraph graph, float transferPenalty, int[] stateFirst,
+                                    int[] stateStop, int[] stateLine, int[] stateArcFirst,
+                                    int[] stateArcs, int[] arcTargetState, int[] walkFirst,
+                                    int[] walkArcs) {
+        this.graph = graph;
+        this.transferPenalty = transferPenalty;
+        this.stateFirst = stateFirst;
+        this.stateStop = stateStop;
+        this.stateLine = stateLine;
+        this.stateArcFirst = stateArcFirst;
+        this.stateArcs = stateArcs;
+        this.arcTargetState = arcTargetState;
+        this.walkFirst = walkFirst;
+        this.walkArcs = walkArcs;
+        this.queries = ThreadLocal.withInitial(Query::new);
+    }
+
+    /**
+     * Construye el grafo expandido por línea
+     *
+     * @param graph Grafo compacto con pesos de tiempo
+     * @param transferPenaltyMinutes Costo de cambiar de línea
+     */
+    public static TransferAwarePathfinder build(RoutingGraph graph, double transferPenaltyMinutes) {
+        int n = graph.getNodeCount();
+        int m = graph.getArcCount();
+
+        // Líneas presentes en cada parada (como origen o destino de algún arco)
+        List<SortedSet<Integer>> linesByStop = new ArrayList<>(n);
+        for (int v = 0; v < n; v++) {
+            linesByStop.add(new TreeSet<>());
+        }
+        for (int a = 0; a < m; a++) {
+            if (graph.getArco(a).isWalking()) continue;
+            int lineId = graph.getArco(a).getLineId();
+            linesByStop.get(graph.getTail(a)).add(lineId);
+            linesByStop.get(graph.getHead(a)).add(lineId);
+        }
+
+        int[] stateFirst = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            stateFirst[v + 1] = stateFirst[v] + linesByStop.get(v).size();
+        }
+
+        int states = stateFirst[n];
+        int[] stateStop = new int[states];
+        int[] stateLine = new int[states];
+        for (int v = 0; v < n; v++) {
+            int s = stateFirst[v];
+            for (int lineId : linesByStop.get(v)) {
+                stateStop[s] = v;
+                stateLine[s] = lineId;
+                s++;
+            }
+        }
+
+        // Asignar cada arco al estado de su origen y de su destino; los tramos a pie van aparte
+        int[] arcSourceState = new int[m];
+        int[] arcTargetState = new int[m];
+        int[] stateArcFirst = new int[states + 1];
+        int[] walkFirst = new int[n + 1];
+        int busArcs = 0;
+        for (int a = 0; a < m; a++) {
+            if (graph.getArco(a).isWalking()) {
+                arcSourceState[a] = -1;
+                arcTargetState[a] = -1;
+                walkFirst[graph.getTail(a) + 1]++;
+                continue;
+            }
+            busArcs++;
+            int lineId = graph.getArco(a).getLineId();
+            arcSourceState[a] = findState(stateFirst, stateLine, graph.getTail(a), lineId);
+            arcTargetState[a] = findState(stateFirst, stateLine, graph.getHead(a), lineId);
+            stateArcFirst[arcSourceState[a] + 1]++;
+        }
+        for (int s = 0; s < states; s++) {
+            stateArcFirst[s + 1] += stateArcFirst[s];
+        }
+        for (int v = 0; v < n; v++) {
+            walkFirst[v + 1] += walkFirst[v];
+        }
+
+        int[] stateArcs = new int[busArcs];
+        int[] walkArcs = new int[m - busArcs];
+        int[] next = Arrays.copyOf(stateArcFirst, states);
+        int[] nextWalk = Arrays.copyOf(walkFirst, n);
+        for (int a = 0; a < m; a++) {
+            if (arcSourceState[a] < 0) {
+                walkArcs[nextWalk[graph.getTail(a)]++] = a;
+            } else {
+                stateArcs[next[arcSourceState[a]]++] = a;
+            }
+        }
+
+        return new TransferAwarePathfinder(graph, (float) transferPenaltyMinutes, stateFirst,
+                stateStop, stateLine, stateArcFirst, stateArcs, arcTargetState, walkFirst, walkArcs);
+    }
+
+    private static int findState(int[] stateFirst, int[] stateLine, int stop, int lineId) {
+        int index = Arrays.binarySearch(stateLine, stateFirst[stop], stateFirst[stop + 1], lineId);
+        if (index < 0) {
+            throw new IllegalStateException("Estado inexistente para parada " + stop + ", línea " + lineId);
+        }
+        return index;
+    }
+
+    /**
+     * Crea un buscador con la misma topología sobre un grafo con nuevos pesos
+     * (p. ej. tras un cambio de velocidades)
+     */
+    public TransferAwarePathfinder reweight(RoutingGraph graph) {
+        return new TransferAwarePathfinder(graph, transferPenalty, stateFirst, stateStop, stateLine,
+                stateArcFirst, stateArcs, arcTargetState, walkFirst, walkArcs);
+    }
+
+    /**
+     * Calcula el camino de menor costo (tiempo + penalizaciones por transbordo)
+     *
+     * @return Arcos del camino en orden (vacío si no hay ruta)
+     */
+    public List<Arco> findPath(int originId, int destinationId) {
+        int source = graph.indexOf(originId);
+        int target = graph.indexOf(destinationId);
+
+        if (source < 0 || target < 0 || source == target) {
+            return Collections.emptyList();
+        }
+
+        return queries.get().run(source, target);
+    }
+
+    public RoutingGraph getGraph() {
+        return graph;
+    }
+
+    public int getStateCount() {
+        return stateStop.length;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TransferAwarePathfinder[paradas=%d, estados=%d, penalización=%.1f min]",
+                graph.getNodeCount(), stateStop.length, transferPenalty);
+    }
+
+    /**
+     * Estado de un Dijkstra sobre el grafo expandido, reutilizado entre consultas del mismo thread
+     */
+    private class Query {
+        private final float[] dist;
+        private final int[] predNode;
+        private final int[] predArc;      // Arco usado para llegar, en bus o a pie (-1 si fue subir o bajar)
+        private final int[] stamps;
+        private final NodeHeap heap;
+        private int stamp;
+
+        Query() {
+            int size = 2 * graph.getNodeCount() + stateStop.length;
+            this.dist = new float[size];
+            this.predNode = new int[size];
+            this.predArc = new int[size];
+            this.stamps = new int[size];
+            this.heap = new NodeHeap();
+            this.stamp = 0;
+        }
+
+        List<Arco> run(int source, int target) {
+            stamp++;
+            if (stamp == Integer.MAX_VALUE) {
+                Arrays.fill(stamps, 0);
+                stamp = 1;
+            }
+            heap.clear();
+
+            int n = graph.getNodeCount();
+            int preBoarding = n + stateStop.length;
+
+            // En el origen (y en las paradas a las que se camina desde él) se puede subir a
+            // cualquier línea sin penalización
+            relax(preBoarding + source, 0f, -1, -1);
+
+            int found = -1;
+            int iterations = 0;
+            while (!heap.isEmpty()) {
+                if ((++iterations & QueryCancellation.CHECK_MASK) == 0) QueryCancellation.checkpoint();
+                float key = heap.peekKey();
+                int u = heap.pop();
+                if (key > dist[u]) continue; // Entrada obsoleta
+
+                if (u == target || u == preBoarding + target) {
+                    found = u;
+                    break;
+                }
+
+                if (u >= preBoarding) {
+                    // Aún no se ha abordado: subir no es un transbordo
+                    int v = u - preBoarding;
+                    for (int s = stateFirst[v]; s < stateFirst[v + 1]; s++) {
+                        relax(n + s, key, u, -1);
+                    }
+                    relaxWalking(v, key, u, preBoarding);
+                } else if (u < n) {
+                    // A pie en la parada: subir a otra línea es un transbordo
+                    for (int s = stateFirst[u]; s < stateFirst[u + 1]; s++) {
+                        relax(n + s, key + transferPenalty, u, -1);
+                    }
+                    relaxWalking(u, key, u, 0);
+                } else {
+                    int s = u - n;
+
+                    // Bajarse del bus
+                    relax(stateStop[s], key, u, -1);
+
+                    // Seguir en la misma línea
+                    for (int i = stateArcFirst[s]; i < stateArcFirst[s + 1]; i++) {
+                        int a = stateArcs[i];
+                        relax(n + arcTargetState[a], key + graph.getWeight(a), u, a);
+                    }
+                }
+            }
+
+            if (found < 0) {
+                return Collections.emptyList();
+            }
+
+            List<Arco> path = new ArrayList<>();
+            for (int v = found; v >= 0; v = predNode[v]) {
+                if (predArc[v] >= 0) {
+                    path.add(graph.getArco(predArc[v]));
+                }
+            }
+            Collections.reverse(path);
+            return path;
+        }
+
+        /**
+         * Relaja los tramos a pie de la parada stop hacia la misma capa (offset 0 o "antes de abordar")
+         */
+        private void relaxWalking(int stop, float key, int fromNode, int layerOffset) {
+            for (int i = walkFirst[stop]; i < walkFirst[stop + 1]; i++) {
+                int a = walkArcs[i];
+                relax(layerOffset + graph.getHead(a), key + graph.getWeight(a), fromNode, a);
+            }
+        }
+
+        private void relax(int node, float newDist, int fromNode, int arc) {
+            if (newDist == Float.POSITIVE_INFINITY) return; // Arco cerrado
+            if (stamps[node] != stamp || newDist < dist[node]) {
+                dist[node] = newDist;
+                predNode[node] = fromNode;
+                predArc[node] = arc;
+                stamps[node] = stamp;
+                heap.push(node, newDist);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package co.edu.icesi.mio.service.routing;
+
+/**
+ * Perfiles de tiempo de viaje por hora de salida para los arcos del grafo compacto.
+ *
+ * El día se divide en franjas de 15 minutos y cada arco guarda un tiempo de viaje constante
+ * por franja (función escalonada). Los perfiles se almacenan en un solo arreglo de
+ * arcCount * 96 floats: los del arco a ocupan [a * 96, (a + 1) * 96).
+ *
+ * La estructura es inmutable y puede compartirse entre threads.
+ */
+public class TravelTimeProfiles {
+
+    public static final int BUCKET_MINUTES = 15;
+    public static final int BUCKETS_PER_DAY = 24 * 60 / BUCKET_MINUTES;
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final RoutingGraph graph;
+    private final float[] travelTimes;     // Minutos por (arco, franja)
+
+    /**
+     * Fuente de los tiempos de viaje de un arco del grafo compacto
+     */
+    @FunctionalInterface
+    public interface ProfileSource {
+        /**
+         * Llena profile[0..BUCKETS_PER_DAY) con los minutos de viaje del arco en cada franja
+         */
+        void fill(int arc, float[] profile);
+    }
+
+    private TravelTimeProfiles(RoutingGraph graph, float[] travelTimes) {
+        this.graph = graph;
+        this.travelTimes = travelTimes;
+    }
+
+    /**
+     * Construye los perfiles de todos los arcos del grafo
+     */
+    public static TravelTimeProfiles build(RoutingGraph graph, ProfileSource source) {
+        int m = graph.getArcCount();
+        float[] travelTimes = new float[m * BUCKETS_PER_DAY];
+        float[] profile = new float[BUCKETS_PER_DAY];
+
+        for (int a = 0; a < m; a++) {
+            source.fill(a, profile);
+            for (int b = 0; b < BUCKETS_PER_DAY; b++) {
+                if (!(profile[b] >= 0f) || Float.isInfinite(profile[b])) {
+                    throw new IllegalArgumentException("Tiempo de viaje inválido para el arco " + a
+                            + " en la franja " + b + ": " + profile[b]);
+                }
+            }
+            System.arraycopy(profile, 0, travelTimes, a * BUCKETS_PER_DAY, BUCKETS_PER_DAY);
+        }
+
+        return new TravelTimeProfiles(graph, travelTimes);
+    }
+
+    /**
+     * Franja del día que contiene el minuto indicado (se admite cualquier minuto, incluso
+     * de días siguientes)
+     */
+    public static int bucketOf(double minuteOfDay) {
+        int minute = (int) Math.floor(minuteOfDay) % MINUTES_PER_DAY;
+        if (minute < 0) {
+            minute += MINUTES_PER_DAY;
+        }
+        return minute / BUCKET_MINUTES;
+    }
+
+    /**
+     * Minutos de viaje por el arco saliendo en el minuto del día indicado
+     */
+    public float travelTime(int arc, double departureMinute) {
+        return travelTimes[arc * BUCKETS_PER_DAY + bucketOf(departureMinute)];
+    }
+
+    /**
+     * Minutos de viaje por el arco en una franja específica
+     */
+    public float travelTimeInBucket(int arc, int bucket) {
+        return travelTimes[arc * BUCKETS_PER_DAY + bucket];
+    }
+
+    public RoutingGraph getGraph() {
+        return graph;
+    }
+}
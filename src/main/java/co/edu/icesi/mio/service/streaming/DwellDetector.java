@@ -0,0 +1,527 @@
+package co.edu.icesi.mio.service.streaming;
+
+import co.edu.icesi.mio.infra.csv.Parada;
+import co.edu.icesi.mio.model.events.BusEvent;
+import co.edu.icesi.mio.model.events.EventType;
+import co.edu.icesi.mio.model.realtime.BusPosition;
+import co.edu.icesi.mio.model.realtime.LineSequence;
+import co.edu.icesi.mio.service.realtime.LineSequenceIndex;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Detector con estado de paradas de buses: en lugar de un evento por cada datagrama con
+ * velocidad baja, genera una llegada cuando el bus se detiene cerca de una parada de su línea
+ * y una salida (con el tiempo de permanencia) cuando se aleja o retoma la marcha.
+ *
+ * Las detenciones lejos de las paradas (trancones, semáforos) generan un solo BUS_STOPPED al
+ * empezar. Como los datagramas llegan cada varios segundos, la llegada y la salida se estiman
+ * en el punto medio entre el último fix en un estado y el primero en el siguiente.
+ *
+ * El estado de cada bus vive en arreglos paralelos indexados por un puesto (una entrada por
+ * bus, sin objetos por bus); el puesto se busca en una tabla de enteros con direccionamiento
+ * abierto y la parada cercana en una grilla por línea, así que procesar un fix no crea objetos. El mismo detector sirve para el stream (eventos) y para el modo
+ * por lotes sobre el histórico (ver DwellTimeAnalyzer), donde cada permanencia se entrega a un
+ * DwellListener.
+ */
+public class DwellDetector {
+
+    public static final double DEFAULT_STOP_RADIUS_METERS = 40.0;
+    public static final double STOPPED_SPEED_KMH = 5.0;       // Por debajo: detenido
+    public static final double MOVING_SPEED_KMH = 10.0;       // Por encima: en marcha
+    public static final long MAX_GAP_MS = 10 * 60_000L;       // Hueco que cierra la permanencia
+    public static final long MAX_INTERPOLATION_GAP_MS = 2 * 60_000L;
+
+    private static final double EXIT_RADIUS_FACTOR = 1.5;     // Sale de la parada a 1.5x el radio
+    private static final double METERS_PER_DEGREE = 6371000.0 * Math.PI / 180.0;
+    private static final int INITIAL_BUSES = 256;
+
+    private static final byte MOVING = 0;
+    private static final byte AT_STOP = 1;
+    private static final byte HALTED = 2;                     // Detenido lejos de las paradas
+
+    private static final int ARRIVED = 1;
+    private static final int DEPARTED = 2;
+    private static final int STOPPED_AWAY = 4;
+
+    /**
+     * Recibe cada permanencia cerrada en el modo por lotes
+     */
+    public interface DwellListener {
+        void onDwell(int busId, int lineId, int stopId, long arrivalMillis, long departureMillis);
+    }
+
+    private final double stopRadius;
+    private final double exitRadius;
+    private final LineStops[] stopsByLineId;  // lineId -> paradas (null si la línea no tiene)
+
+    // Estado por bus (puesto = índice)
+    private final BusSlotTable slotByBus;
+    private int buses;
+    private int[] busIds;
+    private byte[] state;
+    private int[] lineIds;
+    private int[] stopIndexes;                // Índice de la parada en LineStops de la línea
+    private long[] arrivalMillis;
+    private long[] lastAtStopMillis;
+    private long[] lastFixMillis;
+
+    // Resultado de la última actualización
+    private int closedLineId;
+    private int closedStopId;
+    private long closedArrival;
+    private long closedDeparture;
+
+    private long arrivals;
+    private long departures;
+    private long haltsAwayFromStops;
+    private long dwellMillisTotal;
+
+    public DwellDetector(LineSequenceIndex lineIndex) {
+        this(lineIndex, DEFAULT_STOP_RADIUS_METERS);
+    }
+
+    /**
+     * @param stopRadiusMeters Distancia máxima a una parada de la línea para contar la detención
+     *                         como llegada a esa parada
+     */
+    public DwellDetector(LineSequenceIndex lineIndex, double stopRadiusMeters) {
+        this.stopRadius = stopRadiusMeters;
+        this.exitRadius = stopRadiusMeters * EXIT_RADIUS_FACTOR;
+        this.slotByBus = new BusSlotTable();
+        this.busIds = new int[INITIAL_BUSES];
+        this.state = new byte[INITIAL_BUSES];
+        this.lineIds = new int[INITIAL_BUSES];
+        this.stopIndexes = new int[INITIAL_BUSES];
+        this.arrivalMillis = new long[INITIAL_BUSES];
+        this.lastAtStopMillis = new long[INITIAL_BUSES];
+        this.lastFixMillis = new long[INITIAL_BUSES];
+
+        // Paradas de cada línea (ambas orientaciones, sin repetir)
+        Map<Integer, Map<Integer, Parada>> byLine = new HashMap<>();
+        for (LineSequence sequence : lineIndex.getSequences()) {
+            Map<Integer, Parada> stops = byLine.computeIfAbsent(sequence.getLineId(), k -> new LinkedHashMap<>());
+            for (int i = 0; i < sequence.size(); i++) {
+                stops.putIfAbsent(sequence.getStop(i).getStopId(), sequence.getStop(i));
+            }
+        }
+        int maxLineId = byLine.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1);
+        this.stopsByLineId = new LineStops[maxLineId + 1];
+        byLine.forEach((lineId, stops) ->
+                stopsByLineId[lineId] = new LineStops(new ArrayList<>(stops.values()), stopRadiusMeters));
+    }
+
+    /**
+     * Procesa una posición del stream y agrega a events la llegada, la salida o la detención
+     * fuera de parada que haya producido.
+     *
+     * @return Número de eventos agregados
+     */
+    public synchronized int onPosition(BusPosition position, List<BusEvent> events) {
+        long millis = position.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli();
+        int flags = update(position.getBusId(), position.getLineId(), position.getLatitude(),
+                position.getLongitude(), position.getVelocity(), millis);
+        if (flags == 0) {
+            return 0;
+        }
+
+        int before = events.size();
+        if ((flags & DEPARTED) != 0) {
+            long seconds = Math.round((closedDeparture - closedArrival) / 1000.0);
+            BusEvent departure = event(position, EventType.BUS_STOP_DEPARTURE,
+                    String.format("Bus sale de la parada %d tras %d s", closedStopId, seconds));
+            if (closedLineId != position.getLineId()) {
+                // Un cambio de línea cerró la permanencia: la salida es de la línea anterior
+                departure.setLineId(closedLineId);
+                departure.setRouteId(-1);
+            }
+            events.add(departure);
+        }
+        if ((flags & ARRIVED) != 0) {
+            int slot = slotByBus.get(position.getBusId());
+            int stopId = stopsByLineId[lineIds[slot]].stopIds[stopIndexes[slot]];
+            events.add(event(position, EventType.BUS_STOP_ARRIVAL,
+                    String.format("Bus llega a la parada %d", stopId)));
+        }
+        if ((flags & STOPPED_AWAY) != 0) {
+            events.add(event(position, EventType.BUS_STOPPED, "Bus detenido fuera de parada"));
+        }
+        return events.size() - before;
+    }
+
+    /**
+     * Procesa un fix del histórico; las permanencias cerradas se entregan al listener.
+     * Los fixes de cada bus deben llegar en orden cronológico.
+     */
+    public synchronized void onFix(int busId, int lineId, double latitude, double longitude,
+                                   double velocity, long epochMillis, DwellListener listener) {
+        int flags = update(busId, lineId, latitude, longitude, velocity, epochMillis);
+        if ((flags & DEPARTED) != 0) {
+            listener.onDwell(busId, closedLineId, closedStopId, closedArrival, closedDeparture);
+        }
+    }
+
+    /**
+     * Cierra las permanencias que siguen abiertas (p. ej. al terminar el histórico) con el
+     * último fix observado en la parada y las entrega al listener
+     */
+    public synchronized void flush(DwellListener listener) {
+        for (int slot = 0; slot < buses; slot++) {
+            if (state[slot] == AT_STOP) {
+                close(slot, lastAtStopMillis[slot]);
+                listener.onDwell(busIds[slot], closedLineId, closedStopId, closedArrival, closedDeparture);
+            }
+        }
+    }
+
+    /**
+     * Avanza la máquina de estados del bus
+     *
+     * @return Combinación de ARRIVED, DEPARTED y STOPPED_AWAY
+     */
+    private int update(int busId, int lineId, double lat, double lon, double velocity, long millis) {
+        if (!Double.isFinite(lat) || !Double.isFinite(lon) || (lat == 0 && lon == 0)) {
+            return 0;
+        }
+        int slot = slotOf(busId);
+        long lastFix = lastFixMillis[slot];
+        if (millis <= lastFix) {
+            return 0; // Repetido o fuera de orden
+        }
+        long gap = lastFix == Long.MIN_VALUE ? Long.MAX_VALUE : millis - lastFix;
+        boolean slow = velocity >= 0 && velocity < STOPPED_SPEED_KMH;
+        int flags = 0;
+
+        // Un hueco largo o un cambio de línea cierra la permanencia con lo último observado
+        if (state[slot] == AT_STOP && (gap > MAX_GAP_MS || lineIds[slot] != lineId)) {
+            close(slot, lastAtStopMillis[slot]);
+            flags |= DEPARTED;
+        } else if (state[slot] == HALTED && (gap > MAX_GAP_MS || lineIds[slot] != lineId)) {
+            state[slot] = MOVING;
+        }
+
+        if (state[slot] == AT_STOP) {
+            LineStops stops = stopsByLineId[lineIds[slot]];
+            double distance = stops.distance(stopIndexes[slot], lat, lon);
+            if (distance > exitRadius || velocity > MOVING_SPEED_KMH) {
+                close(slot, gap <= MAX_INTERPOLATION_GAP_MS ? (lastAtStopMillis[slot] + millis) / 2
+                        : lastAtStopMillis[slot]);
+                flags |= DEPARTED;
+            } else {
+                lastAtStopMillis[slot] = millis;
+            }
+        } else if (state[slot] == HALTED && velocity > MOVING_SPEED_KMH) {
+            state[slot] = MOVING;
+        }
+
+        if (state[slot] != AT_STOP && slow) {
+            LineStops stops = lineId >= 0 && lineId < stopsByLineId.length ? stopsByLineId[lineId] : null;
+            int nearest = stops == null ? -1 : stops.nearest(lat, lon, stopRadius);
+            if (nearest >= 0) {
+                state[slot] = AT_STOP;
+                stopIndexes[slot] = nearest;
+                arrivalMillis[slot] = gap <= MAX_INTERPOLATION_GAP_MS ? (lastFix + millis) / 2 : millis;
+                lastAtStopMillis[slot] = millis;
+                arrivals++;
+                flags |= ARRIVED;
+            } else if (state[slot] == MOVING) {
+                state[slot] = HALTED;
+                haltsAwayFromStops++;
+                flags |= STOPPED_AWAY;
+            }
+        }
+
+        lineIds[slot] = lineId;
+        lastFixMillis[slot] = millis;
+        return flags;
+    }
+
+    private void close(int slot, long departure) {
+        closedLineId = lineIds[slot];
+        closedStopId = stopsByLineId[lineIds[slot]].stopIds[stopIndexes[slot]];
+        closedArrival = arrivalMillis[slot];
+        closedDeparture = Math.max(departure, arrivalMillis[slot]);
+        dwellMillisTotal += closedDeparture - closedArrival;
+        departures++;
+        state[slot] = MOVING;
+    }
+
+    private int slotOf(int busId) {
+        int slot = slotByBus.get(busId);
+        if (slot >= 0) {
+            return slot;
+        }
+        if (buses == state.length) {
+            int capacity = buses * 2;
+            busIds = Arrays.copyOf(busIds, capacity);
+            state = Arrays.copyOf(state, capacity);
+            lineIds = Arrays.copyOf(lineIds, capacity);
+            stopIndexes = Arrays.copyOf(stopIndexes, capacity);
+            arrivalMillis = Arrays.copyOf(arrivalMillis, capacity);
+            lastAtStopMillis = Arrays.copyOf(lastAtStopMillis, capacity);
+            lastFixMillis = Arrays.copyOf(lastFixMillis, capacity);
+        }
+        int newSlot = buses++;
+        busIds[newSlot] = busId;
+        state[newSlot] = MOVING;
+        lastFixMillis[newSlot] = Long.MIN_VALUE;
+        slotByBus.put(busId, newSlot);
+        return newSlot;
+    }
+
+    private static BusEvent event(BusPosition position, EventType type, String description) {
+        BusEvent event = new BusEvent(
+                position.getBusId(),
+                type,
+                type.getCategory(),
+                type.getPriority(),
+                description,
+                position.getTimestamp(),
+                position.getLatitude(),
+                position.getLongitude()
+        );
+        event.setRouteId(position.getRouteId());
+        event.setLineId(position.getLineId());
+        return event;
+    }
+
+    /**
+     * Obtiene estadísticas del detector
+     */
+    public synchronized Stats getStats() {
+        int atStop = 0;
+        for (int slot = 0; slot < buses; slot++) {
+            if (state[slot] == AT_STOP) atStop++;
+        }
+        double averageDwell = departures > 0 ? dwellMillisTotal / 1000.0 / departures : 0;
+        return new Stats(buses, atStop, arrivals, departures, haltsAwayFromStops, averageDwell);
+    }
+
+    /**
+     * Paradas de una línea proyectadas a metros alrededor de su primera parada, agrupadas en
+     * una grilla de celdas del tamaño del radio de parada: la parada más cercana se busca solo
+     * en la celda del fix y sus 8 vecinas.
+     * Las paradas de la celda c están en cellStops[cellFirst[c]..cellFirst[c + 1]).
+     */
+    private static final class LineStops {
+        private final int[] stopIds;
+        private final double[] xs;
+        private final double[] ys;
+        private final double originLat;
+        private final double originLon;
+        private final double metersPerDegreeLon;
+
+        private final double cellSize;
+        private final double minX;
+        private final double minY;
+        private final int cols;
+        private final int rows;
+        private final int[] cellFirst;
+        private final int[] cellStops;
+
+        LineStops(List<Parada> stops, double cellSizeMeters) {
+            this.stopIds = new int[stops.size()];
+            this.xs = new double[stops.size()];
+            this.ys = new double[stops.size()];
+            this.originLat = stops.get(0).getDecimalLatitude();
+            this.originLon = stops.get(0).getDecimalLongitude();
+            this.metersPerDegreeLon = METERS_PER_DEGREE * Math.cos(Math.toRadians(originLat));
+            double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+            double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+            for (int i = 0; i < stops.size(); i++) {
+                stopIds[i] = stops.get(i).getStopId();
+                xs[i] = (stops.get(i).getDecimalLongitude() - originLon) * metersPerDegreeLon;
+                ys[i] = (stops.get(i).getDecimalLatitude() - originLat) * METERS_PER_DEGREE;
+                minX = Math.min(minX, xs[i]);
+                minY = Math.min(minY, ys[i]);
+                maxX = Math.max(maxX, xs[i]);
+                maxY = Math.max(maxY, ys[i]);
+            }
+
+            this.cellSize = Math.max(cellSizeMeters, 1.0);
+            this.minX = minX;
+            this.minY = minY;
+            this.cols = (int) ((maxX - minX) / cellSize) + 1;
+            this.rows = (int) ((maxY - minY) / cellSize) + 1;
+            this.cellFirst = new int[cols * rows + 1];
+            int[] cell = new int[stopIds.length];
+            for (int i = 0; i < stopIds.length; i++) {
+                cell[i] = (int) ((ys[i] - minY) / cellSize) * cols + (int) ((xs[i] - minX) / cellSize);
+                cellFirst[cell[i] + 1]++;
+            }
+            for (int c = 0; c < cols * rows; c++) {
+                cellFirst[c + 1] += cellFirst[c];
+            }
+            this.cellStops = new int[stopIds.length];
+            int[] next = Arrays.copyOf(cellFirst, cols * rows);
+            for (int i = 0; i < stopIds.length; i++) {
+                cellStops[next[cell[i]]++] = i;
+            }
+        }
+
+        double distance(int index, double lat, double lon) {
+            double dx = (lon - originLon) * metersPerDegreeLon - xs[index];
+            double dy = (lat - originLat) * METERS_PER_DEGREE - ys[index];
+            return Math.sqrt(dx * dx + dy * dy);
+        }
+
+        /**
+         * Parada más cercana a no más de radius metros (radius no mayor que el tamaño de celda), o -1
+         */
+        int nearest(double lat, double lon, double radius) {
+            double x = (lon - originLon) * metersPerDegreeLon;
+            double y = (lat - originLat) * METERS_PER_DEGREE;
+            int col = (int) Math.floor((x - minX) / cellSize);
+            int row = (int) Math.floor((y - minY) / cellSize);
+            if (col < -1 || row < -1 || col > cols || row > rows) {
+                return -1; // Más de una celda fuera del área de la línea
+            }
+
+            int nearest = -1;
+            double best = radius * radius;
+            for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+                for (int c = Math.max(0, col - 1); c <= Math.min(cols - 1, col + 1); c++) {
+                    int cell = r * cols + c;
+                    for (int k = cellFirst[cell]; k < cellFirst[cell + 1]; k++) {
+                        int i = cellStops[k];
+                        double dx = xs[i] - x;
+                        double dy = ys[i] - y;
+                        double d2 = dx * dx + dy * dy;
+                        // A igual distancia gana la última parada de la línea
+                        if (d2 < best || (d2 == best && i > nearest)) {
+                            best = d2;
+                            nearest = i;
+                        }
+                    }
+                }
+            }
+            return nearest;
+        }
+    }
+
+    /**
+     * Tabla busId -> puesto con direccionamiento abierto, sin objetos por consulta.
+     * Solo crece (y asigna memoria) cuando aparecen buses nuevos.
+     */
+    private static final class BusSlotTable {
+        private static final int EMPTY = Integer.MIN_VALUE;
+
+        private int[] keys = new int[INITIAL_BUSES * 2];
+        private int[] values = new int[INITIAL_BUSES * 2];
+        private int size;
+
+        BusSlotTable() {
+            Arrays.fill(keys, EMPTY);
+        }
+
+        int get(int busId) {
+            int mask = keys.length - 1;
+            for (int i = mix(busId) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == busId) return values[i];
+            }
+            return -1;
+        }
+
+        void put(int busId, int slot) {
+            int mask = keys.length - 1;
+            int i = mix(busId) & mask;
+            while (keys[i] != EMPTY) {
+                if (keys[i] == busId) {
+                    values[i] = slot;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = busId;
+            values[i] = slot;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) put(oldKeys[i], oldValues[i]);
+            }
+        }
+
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /**
+     * Estadísticas del detector de paradas
+     */
+    public static class Stats {
+        private final int busesTracked;
+        private final int busesAtStop;
+        private final long arrivals;
+        private final long departures;
+        private final long haltsAwayFromStops;
+        private final double averageDwellSeconds;
+
+        public Stats(int busesTracked, int busesAtStop, long arrivals, long departures,
+                     long haltsAwayFromStops, double averageDwellSeconds) {
+            this.busesTracked = busesTracked;
+            this.busesAtStop = busesAtStop;
+            this.arrivals = arrivals;
+            this.departures = departures;
+            this.haltsAwayFromStops = haltsAwayFromStops;
+            this.averageDwellSeconds = averageDwellSeconds;
+        }
+
+        public int getBusesTracked() {
+            return busesTracked;
+        }
+
+        public int getBusesAtStop() {
+            return busesAtStop;
+        }
+
+        public long getArrivals() {
+            return arrivals;
+        }
+
+        public long getDepartures() {
+            return departures;
+        }
+
+        public long getHaltsAwayFromStops() {
+            return haltsAwayFromStops;
+        }
+
+        public double getAverageDwellSeconds() {
+            return averageDwellSeconds;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "DwellStats[\n" +
+                    "  Buses monitoreados:     %,d\n" +
+                    "  En parada ahora:        %,d\n" +
+                    "  Llegadas:               %,d\n" +
+                    "  Salidas:                %,d\n" +
+                    "  Detenciones fuera:      %,d\n" +
+                    "  Permanencia promedio:   %.1f s\n" +
+                    "]",
+                    busesTracked, busesAtStop, arrivals, departures,
+                    haltsAwayFromStops, averageDwellSeconds
+            );
+        }
+    }
+}
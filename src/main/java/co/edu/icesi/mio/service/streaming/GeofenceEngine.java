@@ -0,0 +1,460 @@
+package co.edu.icesi.mio.service.streaming;
+
+import co.edu.icesi.mio.model.analytics.Geofence;
+import co.edu.icesi.mio.model.events.BusEvent;
+import co.edu.icesi.mio.model.events.EventPriority;
+import co.edu.icesi.mio.model.events.EventType;
+import co.edu.icesi.mio.model.realtime.BusPosition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Motor de geocercas del stream: genera eventos cuando un bus entra o sale de una geocerca.
+ *
+ * Al construirse, las geocercas se rasterizan sobre una grilla que cubre su área. Cada celda
+ * queda clasificada por geocerca como "adentro" (la celda entera está dentro del polígono),
+ * "borde" (algún lado del polígono la cruza) o "afuera". Las celdas con la misma clasificación
+ * comparten una sola clase, de modo que la grilla es un arreglo de enteros y hay pocas clases.
+ *
+ * Revisar una posición cuesta O(1) en promedio sin importar cuántas geocercas haya: se ubica la
+ * celda, se copian los bits de las geocercas que la contienen por completo y solo se prueban
+ * exactamente las pocas geocercas de borde de esa celda. El conjunto de geocercas de cada bus se
+ * guarda como un bitset de longs y se compara palabra por palabra con el anterior; los buses
+ * que no están en ninguna geocerca no ocupan memoria.
+ */
+public class GeofenceEngine {
+
+    public static final double DEFAULT_CELL_METERS = 100.0;
+
+    private static final double METERS_PER_DEGREE = 6371000.0 * Math.PI / 180.0;
+    private static final long MAX_GRID_CELLS = 4_000_000L;
+    private static final BitSet EMPTY_BITS = new BitSet();
+
+    private final Geofence[] fences;
+    private final int words;                  // Longs por bitset
+
+    // Grilla
+    private final double originLatitude;
+    private final double originLongitude;
+    private final double cellLatitude;        // Alto de celda en grados
+    private final double cellLongitude;       // Ancho de celda en grados
+    private final int rows;
+    private final int cols;
+    private final int[] cellClass;            // Celda -> clase (0 = sin geocercas)
+    private final long[][] classInside;       // Clase -> bitset de geocercas que cubren la celda
+    private final int[][] classBoundary;      // Clase -> geocercas a probar exactamente
+    private final int boundaryCells;
+
+    private final Map<Integer, long[]> fencesByBus;
+    private final ThreadLocal<long[]> scratch;
+
+    private final AtomicLong positionsChecked;
+    private final AtomicLong exactTests;
+    private final AtomicLong enterEvents;
+    private final AtomicLong exitEvents;
+
+    public GeofenceEngine(List<Geofence> fences) {
+        this(fences, DEFAULT_CELL_METERS);
+    }
+
+    /**
+     * @param cellMeters Lado aproximado de las celdas de la grilla en metros
+     */
+    public GeofenceEngine(List<Geofence> fences, double cellMeters) {
+        if (cellMeters <= 0) {
+            throw new IllegalArgumentException("El tamaño de celda debe ser positivo: " + cellMeters);
+        }
+        this.fences = fences.toArray(new Geofence[0]);
+        this.words = Math.max(1, (this.fences.length + 63) / 64);
+        this.fencesByBus = new ConcurrentHashMap<>();
+        this.scratch = ThreadLocal.withInitial(() -> new long[words]);
+        this.positionsChecked = new AtomicLong(0);
+        this.exactTests = new AtomicLong(0);
+        this.enterEvents = new AtomicLong(0);
+        this.exitEvents = new AtomicLong(0);
+
+        if (this.fences.length == 0) {
+            originLatitude = originLongitude = 0;
+            cellLatitude = cellLongitude = 1;
+            rows = cols = 0;
+            cellClass = new int[0];
+            classInside = new long[][]{new long[words]};
+            classBoundary = new int[][]{new int[0]};
+            boundaryCells = 0;
+            return;
+        }
+
+        double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+        double minLon = Double.MAX_VALUE, maxLon = -Double.MAX_VALUE;
+        for (Geofence fence : this.fences) {
+            minLat = Math.min(minLat, fence.getMinLatitude());
+            maxLat = Math.max(maxLat, fence.getMaxLatitude());
+            minLon = Math.min(minLon, fence.getMinLongitude());
+            maxLon = Math.max(maxLon, fence.getMaxLongitude());
+        }
+
+        // Celdas de cellMeters en la latitud media, agrandadas si la grilla resulta muy grande
+        double metersPerDegreeLon = METERS_PER_DEGREE * Math.cos(Math.toRadians((minLat + maxLat) / 2));
+        double cellLat = cellMeters / METERS_PER_DEGREE;
+        double cellLon = cellMeters / metersPerDegreeLon;
+        long cells = gridCells(maxLat - minLat, maxLon - minLon, cellLat, cellLon);
+        while (cells > MAX_GRID_CELLS) {
+            cellLat *= 2;
+            cellLon *= 2;
+            cells = gridCells(maxLat - minLat, maxLon - minLon, cellLat, cellLon);
+        }
+
+        this.originLatitude = minLat;
+        this.originLongitude = minLon;
+        this.cellLatitude = cellLat;
+        this.cellLongitude = cellLon;
+        this.rows = (int) Math.floor((maxLat - minLat) / cellLat) + 1;
+        this.cols = (int) Math.floor((maxLon - minLon) / cellLon) + 1;
+        this.cellClass = new int[rows * cols];
+
+        // Rasterizar: por celda tocada, geocercas que la cubren y geocercas de borde
+        Map<Integer, BitSet> insideByCell = new HashMap<>();
+        Map<Integer, BitSet> boundaryByCell = new HashMap<>();
+        for (int f = 0; f < this.fences.length; f++) {
+            rasterize(f, insideByCell, boundaryByCell);
+        }
+
+        // Agrupar celdas con la misma clasificación
+        Map<List<BitSet>, Integer> classIds = new HashMap<>();
+        List<long[]> insideList = new ArrayList<>();
+        List<int[]> boundaryList = new ArrayList<>();
+        insideList.add(new long[words]);
+        boundaryList.add(new int[0]);
+        classIds.put(List.of(new BitSet(), new BitSet()), 0);
+
+        int withBoundary = 0;
+        for (int cell = 0; cell < cellClass.length; cell++) {
+            BitSet inside = insideByCell.getOrDefault(cell, EMPTY_BITS);
+            BitSet boundary = boundaryByCell.getOrDefault(cell, EMPTY_BITS);
+            if (inside.isEmpty() && boundary.isEmpty()) continue;
+            if (!boundary.isEmpty()) withBoundary++;
+
+            Integer classId = classIds.get(List.of(inside, boundary));
+            if (classId == null) {
+                classId = insideList.size();
+                classIds.put(List.of(inside, boundary), classId);
+                insideList.add(Arrays.copyOf(inside.toLongArray(), words));
+                boundaryList.add(boundary.stream().toArray());
+            }
+            cellClass[cell] = classId;
+        }
+        this.classInside = insideList.toArray(new long[0][]);
+        this.classBoundary = boundaryList.toArray(new int[0][]);
+        this.boundaryCells = withBoundary;
+    }
+
+    private static long gridCells(double latSpan, double lonSpan, double cellLat, double cellLon) {
+        return ((long) Math.floor(latSpan / cellLat) + 1) * ((long) Math.floor(lonSpan / cellLon) + 1);
+    }
+
+    /**
+     * Clasifica las celdas del rectángulo envolvente de una geocerca. Si ningún lado del polígono
+     * cruza la celda, la celda está entera adentro o entera afuera y basta probar su centro.
+     */
+    private void rasterize(int f, Map<Integer, BitSet> insideByCell, Map<Integer, BitSet> boundaryByCell) {
+        Geofence fence = fences[f];
+        int fromRow = rowOf(fence.getMinLatitude()), toRow = rowOf(fence.getMaxLatitude());
+        int fromCol = colOf(fence.getMinLongitude()), toCol = colOf(fence.getMaxLongitude());
+
+        for (int row = fromRow; row <= toRow; row++) {
+            double south = originLatitude + row * cellLatitude;
+            double north = south + cellLatitude;
+            for (int col = fromCol; col <= toCol; col++) {
+                double west = originLongitude + col * cellLongitude;
+                double east = west + cellLongitude;
+                int cell = row * cols + col;
+
+                if (crossesCell(fence, south, north, west, east)) {
+                    boundaryByCell.computeIfAbsent(cell, c -> new BitSet()).set(f);
+                } else if (fence.contains((south + north) / 2, (west + east) / 2)) {
+                    insideByCell.computeIfAbsent(cell, c -> new BitSet()).set(f);
+                }
+            }
+        }
+    }
+
+    /**
+     * Verifica si algún lado del polígono toca el rectángulo de la celda (recorte de Liang-Barsky)
+     */
+    private static boolean crossesCell(Geofence fence, double south, double north, double west, double east) {
+        int n = fence.getVertexCount();
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            if (segmentTouchesRect(fence.getLongitude(j), fence.getLatitude(j),
+                    fence.getLongitude(i), fence.getLatitude(i), west, south, east, north)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean segmentTouchesRect(double x0, double y0, double x1, double y1,
+                                              double minX, double minY, double maxX, double maxY) {
+        double dx = x1 - x0, dy = y1 - y0;
+        double[] p = {-dx, dx, -dy, dy};
+        double[] q = {x0 - minX, maxX - x0, y0 - minY, maxY - y0};
+        double t0 = 0, t1 = 1;
+        for (int k = 0; k < 4; k++) {
+            if (p[k] == 0) {
+                if (q[k] < 0) return false;
+            } else {
+                double t = q[k] / p[k];
+                if (p[k] < 0) {
+                    if (t > t1) return false;
+                    if (t > t0) t0 = t;
+                } else {
+                    if (t < t0) return false;
+                    if (t < t1) t1 = t;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Revisa una posición y agrega a events las entradas y salidas de geocercas del bus.
+     * Las posiciones sin coordenadas válidas se ignoran y el bus conserva sus geocercas.
+     *
+     * @return Número de eventos agregados
+     */
+    public int onPosition(BusPosition position, List<BusEvent> events) {
+        double lat = position.getLatitude();
+        double lon = position.getLongitude();
+        if (!Double.isFinite(lat) || !Double.isFinite(lon) || (lat == 0 && lon == 0)) {
+            return 0;
+        }
+        positionsChecked.incrementAndGet();
+
+        long[] current = scratch.get();
+        boolean insideAny = locate(lat, lon, current);
+        int before = events.size();
+
+        // compute serializa las actualizaciones de un mismo bus
+        fencesByBus.compute(position.getBusId(), (busId, previous) -> {
+            if (previous == null && !insideAny) {
+                return null;
+            }
+            if (previous != null && Arrays.equals(previous, current)) {
+                return previous;
+            }
+            for (int w = 0; w < words; w++) {
+                long old = previous == null ? 0 : previous[w];
+                emit(position, current[w] & ~old, w, EventType.GEOFENCE_ENTER, events);
+                emit(position, old & ~current[w], w, EventType.GEOFENCE_EXIT, events);
+            }
+            return insideAny ? current.clone() : null;
+        });
+        return events.size() - before;
+    }
+
+    /**
+     * Calcula en bits las geocercas que contienen el punto
+     *
+     * @return true si el punto está en alguna geocerca
+     */
+    private boolean locate(double lat, double lon, long[] bits) {
+        Arrays.fill(bits, 0);
+        int row = (int) Math.floor((lat - originLatitude) / cellLatitude);
+        int col = (int) Math.floor((lon - originLongitude) / cellLongitude);
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            return false;
+        }
+        int classId = cellClass[row * cols + col];
+        if (classId == 0) {
+            return false;
+        }
+
+        long[] inside = classInside[classId];
+        boolean any = false;
+        for (int w = 0; w < words; w++) {
+            bits[w] = inside[w];
+            any |= inside[w] != 0;
+        }
+        int[] boundary = classBoundary[classId];
+        if (boundary.length > 0) {
+            exactTests.addAndGet(boundary.length);
+            for (int f : boundary) {
+                if (fences[f].contains(lat, lon)) {
+                    bits[f >>> 6] |= 1L << f;
+                    any = true;
+                }
+            }
+        }
+        return any;
+    }
+
+    private void emit(BusPosition position, long changed, int word, EventType type, List<BusEvent> events) {
+        while (changed != 0) {
+            int f = (word << 6) + Long.numberOfTrailingZeros(changed);
+            changed &= changed - 1;
+
+            Geofence fence = fences[f];
+            boolean enter = type == EventType.GEOFENCE_ENTER;
+            EventPriority priority = fence.getKind() == Geofence.Kind.ZONA_RESTRINGIDA
+                    ? EventPriority.ALTA : type.getPriority();
+            BusEvent event = new BusEvent(
+                    position.getBusId(),
+                    type,
+                    type.getCategory(),
+                    priority,
+                    String.format("Bus %s %s: %s", enter ? "entra a" : "sale de",
+                            fence.getKind().getDescription(), fence.getName()),
+                    position.getTimestamp(),
+                    position.getLatitude(),
+                    position.getLongitude()
+            );
+            event.setRouteId(position.getRouteId());
+            event.setLineId(position.getLineId());
+            events.add(event);
+            (enter ? enterEvents : exitEvents).incrementAndGet();
+        }
+    }
+
+    /**
+     * Geocercas en las que está un bus según su última posición
+     */
+    public List<Geofence> getFencesOf(int busId) {
+        List<Geofence> result = new ArrayList<>();
+        long[] bits = fencesByBus.get(busId);
+        if (bits != null) {
+            BitSet.valueOf(bits).stream().forEach(f -> result.add(fences[f]));
+        }
+        return result;
+    }
+
+    /**
+     * Buses que están dentro de una geocerca
+     */
+    public List<Integer> getBusesInside(String fenceId) {
+        List<Integer> result = new ArrayList<>();
+        for (int f = 0; f < fences.length; f++) {
+            if (!fences[f].getFenceId().equals(fenceId)) continue;
+            int word = f >>> 6;
+            long mask = 1L << f;
+            fencesByBus.forEach((busId, bits) -> {
+                if ((bits[word] & mask) != 0) result.add(busId);
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Olvida el estado de un bus (sin generar eventos de salida)
+     */
+    public void removeBus(int busId) {
+        fencesByBus.remove(busId);
+    }
+
+    public List<Geofence> getFences() {
+        return List.of(fences);
+    }
+
+    /**
+     * Obtiene estadísticas del motor
+     */
+    public Stats getStats() {
+        return new Stats(fences.length, rows * cols, classInside.length, boundaryCells,
+                positionsChecked.get(), exactTests.get(), enterEvents.get(), exitEvents.get(),
+                fencesByBus.size());
+    }
+
+    private int rowOf(double lat) {
+        return Math.min(rows - 1, Math.max(0, (int) Math.floor((lat - originLatitude) / cellLatitude)));
+    }
+
+    private int colOf(double lon) {
+        return Math.min(cols - 1, Math.max(0, (int) Math.floor((lon - originLongitude) / cellLongitude)));
+    }
+
+    /**
+     * Estadísticas del motor de geocercas
+     */
+    public static class Stats {
+        private final int fences;
+        private final int gridCells;
+        private final int cellClasses;
+        private final int boundaryCells;
+        private final long positionsChecked;
+        private final long exactTests;
+        private final long enterEvents;
+        private final long exitEvents;
+        private final int busesInside;
+
+        public Stats(int fences, int gridCells, int cellClasses, int boundaryCells, long positionsChecked,
+                     long exactTests, long enterEvents, long exitEvents, int busesInside) {
+            this.fences = fences;
+            this.gridCells = gridCells;
+            this.cellClasses = cellClasses;
+            this.boundaryCells = boundaryCells;
+            this.positionsChecked = positionsChecked;
+            this.exactTests = exactTests;
+            this.enterEvents = enterEvents;
+            this.exitEvents = exitEvents;
+            this.busesInside = busesInside;
+        }
+
+        public int getFences() {
+            return fences;
+        }
+
+        public int getGridCells() {
+            return gridCells;
+        }
+
+        public int getCellClasses() {
+            return cellClasses;
+        }
+
+        public int getBoundaryCells() {
+            return boundaryCells;
+        }
+
+        public long getPositionsChecked() {
+            return positionsChecked;
+        }
+
+        public long getExactTests() {
+            return exactTests;
+        }
+
+        public long getEnterEvents() {
+            return enterEvents;
+        }
+
+        public long getExitEvents() {
+            return exitEvents;
+        }
+
+        public int getBusesInside() {
+            return busesInside;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "GeofenceStats[\n" +
+                    "  Geocercas:              %,d\n" +
+                    "  Celdas de la grilla:    %,d (%,d de borde, %,d clases)\n" +
+                    "  Posiciones revisadas:   %,d\n" +
+                    "  Pruebas exactas:        %,d\n" +
+                    "  Entradas:               %,d\n" +
+                    "  Salidas:                %,d\n" +
+                    "  Buses en geocercas:     %,d\n" +
+                    "]",
+                    fences, gridCells, boundaryCells, cellClasses, positionsChecked,
+                    exactTests, enterEvents, exitEvents, busesInside
+            );
+        }
+    }
+}
@@ -0,0 +1,457 @@
+package co.edu.icesi.mio.service.streaming;
+
+import co.edu.icesi.mio.model.events.BusEvent;
+import co.edu.icesi.mio.model.events.EventType;
+import co.edu.icesi.mio.model.realtime.BusPosition;
+import co.edu.icesi.mio.model.realtime.Headway;
+import co.edu.icesi.mio.model.realtime.LineSequence;
+import co.edu.icesi.mio.service.realtime.LineSequenceIndex;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operador con estado que vigila los intervalos entre buses de una misma línea.
+ *
+ * Por cada recorrido (línea, orientación) mantiene los buses ordenados por su avance sobre la
+ * línea en arreglos primitivos. Una posición nueva ubica al bus por búsqueda binaria y lo
+ * corre solo los puestos que adelantó o perdió (casi siempre ninguno), y luego recalcula
+ * únicamente los intervalos que cambiaron: el del bus con el que va adelante, el del que lo
+ * sigue y, si cambió de puesto, el del que lo seguía antes. Cuesta O(log n) más los buses
+ * adelantados, sin recorrer la línea completa.
+ *
+ * Los eventos se emiten al entrar en agrupamiento (intervalo bajo el umbral) o en hueco
+ * (intervalo sobre el umbral), con histéresis para no repetirlos mientras el intervalo
+ * oscila cerca del límite. Los buses sin posiciones recientes salen del orden.
+ */
+public class HeadwayMonitor {
+
+    public static final double DEFAULT_BUNCHING_MINUTES = 2.0;
+    public static final double DEFAULT_GAP_MINUTES = 20.0;
+    public static final double DEFAULT_COMMERCIAL_SPEED_KMH = 20.0;
+    public static final long DEFAULT_STALE_AFTER_MS = 5 * 60_000L;
+
+    private static final double EXIT_BUNCHING_FACTOR = 1.5;   // Sale del agrupamiento con 1.5x el umbral
+    private static final double EXIT_GAP_FACTOR = 0.8;        // Sale del hueco con 0.8x el umbral
+
+    private static final int NORMAL = 0;
+    private static final int BUNCHED = 1;
+    private static final int GAP = 2;
+
+    private final LineSequenceIndex lineIndex;
+    private final double bunchingMinutes;
+    private final double gapMinutes;
+    private final double metersPerMinute;
+    private final long staleAfterMs;
+
+    private final Map<Long, LineOrder> orders;        // (lineId << 1) | orientation -> buses ordenados
+    private final Map<Integer, BusState> buses;
+
+    private long updates;
+    private long bunchingEvents;
+    private long gapEvents;
+
+    public HeadwayMonitor(LineSequenceIndex lineIndex) {
+        this(lineIndex, DEFAULT_BUNCHING_MINUTES, DEFAULT_GAP_MINUTES, DEFAULT_COMMERCIAL_SPEED_KMH,
+                DEFAULT_STALE_AFTER_MS);
+    }
+
+    /**
+     * @param bunchingMinutes Intervalo por debajo del cual dos buses se consideran agrupados
+     * @param gapMinutes Intervalo por encima del cual se reporta un hueco
+     * @param commercialSpeedKmh Velocidad para pasar distancia por la línea a minutos
+     * @param staleAfterMs Tiempo sin posiciones tras el cual un bus sale del orden
+     */
+    public HeadwayMonitor(LineSequenceIndex lineIndex, double bunchingMinutes, double gapMinutes,
+                          double commercialSpeedKmh, long staleAfterMs) {
+        this.lineIndex = lineIndex;
+        this.bunchingMinutes = bunchingMinutes;
+        this.gapMinutes = gapMinutes;
+        this.metersPerMinute = commercialSpeedKmh * 1000 / 60;
+        this.staleAfterMs = staleAfterMs;
+        this.orders = new HashMap<>();
+        this.buses = new HashMap<>();
+    }
+
+    /**
+     * Actualiza el orden con una posición y agrega a events los eventos de agrupamiento o
+     * hueco que produzca. Las posiciones sin paradas se ignoran.
+     *
+     * @return Número de eventos agregados
+     */
+    public synchronized int onPosition(BusPosition position, List<BusEvent> events) {
+        if (!position.hasStops() || position.getTimestamp() == null) {
+            return 0;
+        }
+        LineSequence sequence = lineIndex.find(position.getLineId(),
+                position.getCurrentStopId(), position.getNextStopId());
+        if (sequence == null) {
+            return 0;
+        }
+        int nextPosition = sequence.locateNextStop(position.getCurrentStopId(), position.getNextStopId());
+        if (nextPosition <= 0) {
+            return 0;
+        }
+
+        double progress = Math.max(0, Math.min(1, position.getProgress()));
+        double along = sequence.getCumulativeDistance(nextPosition - 1)
+                + progress * sequence.distanceBetween(nextPosition - 1, nextPosition);
+        long now = position.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli();
+        int busId = position.getBusId();
+        updates++;
+
+        LineOrder order = orders.computeIfAbsent(key(sequence.getLineId(), sequence.getOrientation()),
+                k -> new LineOrder(sequence.getLineId(), sequence.getOrientation()));
+        BusState state = buses.get(busId);
+        int before = events.size();
+
+        // Cambio de recorrido (otra línea, orientación contraria o fin de vuelta)
+        if (state != null && state.order != order) {
+            removeBus(state, now, events);
+            state = null;
+        }
+
+        int slot;
+        int previousFollower = -1;
+        if (state == null) {
+            state = new BusState(busId, order);
+            buses.put(busId, state);
+            slot = order.insert(along, busId, now);
+        } else {
+            int oldSlot = order.slotOf(state.along, busId);
+            previousFollower = oldSlot > 0 ? order.busIds[oldSlot - 1] : -1;
+            slot = order.move(oldSlot, along, now);
+            if (slot == oldSlot) previousFollower = -1; // Mismo puesto: el seguidor no cambió
+        }
+        state.along = along;
+        state.updatedMillis = now;
+        state.routeId = position.getRouteId();
+        state.latitude = position.getLatitude();
+        state.longitude = position.getLongitude();
+
+        // Intervalos que cambiaron
+        evaluate(state, now, events);
+        if (slot > 0) {
+            evaluate(buses.get(order.busIds[slot - 1]), now, events);
+        }
+        if (previousFollower >= 0 && buses.containsKey(previousFollower)) {
+            evaluate(buses.get(previousFollower), now, events);
+        }
+
+        return events.size() - before;
+    }
+
+    /**
+     * Quita un bus del monitoreo (p. ej. fuera de servicio)
+     */
+    public synchronized void removeBus(int busId) {
+        BusState state = buses.get(busId);
+        if (state != null) {
+            removeBus(state, state.updatedMillis, new ArrayList<>());
+        }
+    }
+
+    /**
+     * Intervalos actuales de un recorrido, del bus más atrasado al más adelantado
+     */
+    public synchronized List<Headway> getHeadways(int lineId, int orientation) {
+        List<Headway> headways = new ArrayList<>();
+        LineOrder order = orders.get(key(lineId, orientation));
+        if (order == null) {
+            return headways;
+        }
+        for (int i = 0; i + 1 < order.size; i++) {
+            double meters = order.along[i + 1] - order.along[i];
+            headways.add(new Headway(lineId, orientation, order.busIds[i], order.busIds[i + 1],
+                    meters, meters / metersPerMinute));
+        }
+        return headways;
+    }
+
+    /**
+     * Buses que hoy están agrupados con el bus de adelante
+     */
+    public synchronized int getBunchedCount() {
+        int count = 0;
+        for (BusState state : buses.values()) {
+            if (state.headwayState == BUNCHED) count++;
+        }
+        return count;
+    }
+
+    public synchronized Stats getStats() {
+        int activeOrders = 0;
+        for (LineOrder order : orders.values()) {
+            if (order.size > 0) activeOrders++;
+        }
+        int bunched = 0, gaps = 0;
+        for (BusState state : buses.values()) {
+            if (state.headwayState == BUNCHED) bunched++;
+            else if (state.headwayState == GAP) gaps++;
+        }
+        return new Stats(buses.size(), activeOrders, updates, bunchingEvents, gapEvents, bunched, gaps);
+    }
+
+    /**
+     * Revisa el intervalo del bus con el que va adelante y emite un evento si cambió de estado.
+     * Los buses sin posiciones recientes que aparezcan adelante salen del orden.
+     */
+    private void evaluate(BusState follower, long now, List<BusEvent> events) {
+        if (follower == null) return;
+        LineOrder order = follower.order;
+
+        if (now - follower.updatedMillis > staleAfterMs) {
+            removeBus(follower, now, events);
+            return;
+        }
+
+        int slot = order.slotOf(follower.along, follower.busId);
+        while (slot + 1 < order.size && now - order.updatedMillis[slot + 1] > staleAfterMs) {
+            BusState stale = buses.remove(order.busIds[slot + 1]);
+            order.removeAt(slot + 1);
+            if (stale != null) stale.order = null;
+        }
+
+        if (slot + 1 >= order.size) {
+            follower.headwayState = NORMAL; // Va adelante de todos: no tiene intervalo
+            return;
+        }
+
+        int leaderId = order.busIds[slot + 1];
+        double meters = order.along[slot + 1] - follower.along;
+        double minutes = meters / metersPerMinute;
+
+        int newState = follower.headwayState;
+        if (minutes < bunchingMinutes) {
+            newState = BUNCHED;
+        } else if (minutes > gapMinutes) {
+            newState = GAP;
+        } else if ((follower.headwayState == BUNCHED && minutes > bunchingMinutes * EXIT_BUNCHING_FACTOR)
+                || (follower.headwayState == GAP && minutes < gapMinutes * EXIT_GAP_FACTOR)) {
+            newState = NORMAL;
+        }
+
+        if (newState != follower.headwayState) {
+            follower.headwayState = newState;
+            if (newState == BUNCHED) {
+                bunchingEvents++;
+                events.add(createEvent(follower, EventType.BUS_BUNCHING, now, String.format(
+                        "Bus agrupado con el bus %d: %.0f m (%.1f min) en la línea %d",
+                        leaderId, meters, minutes, order.lineId)));
+            } else if (newState == GAP) {
+                gapEvents++;
+                events.add(createEvent(follower, EventType.HEADWAY_GAP, now, String.format(
+                        "Intervalo de %.1f min (%.0f m) con el bus %d en la línea %d",
+                        minutes, meters, leaderId, order.lineId)));
+            }
+        }
+    }
+
+    /**
+     * Saca un bus de su orden; el que lo seguía queda detrás del que iba adelante
+     */
+    private void removeBus(BusState state, long now, List<BusEvent> events) {
+        LineOrder order = state.order;
+        buses.remove(state.busId);
+        state.order = null;
+        if (order == null) return;
+
+        int slot = order.slotOf(state.along, state.busId);
+        if (slot < 0) return;
+        order.removeAt(slot);
+        if (slot > 0) {
+            evaluate(buses.get(order.busIds[slot - 1]), now, events);
+        }
+    }
+
+    private BusEvent createEvent(BusState state, EventType type, long now, String description) {
+        BusEvent event = new BusEvent(
+                state.busId,
+                type,
+                type.getCategory(),
+                type.getPriority(),
+                description,
+                LocalDateTime.ofEpochSecond(now / 1000, 0, ZoneOffset.UTC),
+                state.latitude,
+                state.longitude
+        );
+        event.setRouteId(state.routeId);
+        event.setLineId(state.order != null ? state.order.lineId : -1);
+        return event;
+    }
+
+    private static long key(int lineId, int orientation) {
+        return ((long) lineId << 1) | orientation;
+    }
+
+    /**
+     * Buses de un recorrido ordenados por (avance, busId) en arreglos paralelos
+     */
+    private static final class LineOrder {
+        final int lineId;
+        final int orientation;
+        double[] along = new double[8];
+        int[] busIds = new int[8];
+        long[] updatedMillis = new long[8];
+        int size;
+
+        LineOrder(int lineId, int orientation) {
+            this.lineId = lineId;
+            this.orientation = orientation;
+        }
+
+        /**
+         * Primera posición cuya clave es >= (a, busId)
+         */
+        int lowerBound(double a, int busId) {
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (along[mid] < a || (along[mid] == a && busIds[mid] < busId)) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        int slotOf(double a, int busId) {
+            int slot = lowerBound(a, busId);
+            return slot < size && busIds[slot] == busId ? slot : -1;
+        }
+
+        int insert(double a, int busId, long millis) {
+            if (size == along.length) {
+                along = Arrays.copyOf(along, size * 2);
+                busIds = Arrays.copyOf(busIds, size * 2);
+                updatedMillis = Arrays.copyOf(updatedMillis, size * 2);
+            }
+            int slot = lowerBound(a, busId);
+            System.arraycopy(along, slot, along, slot + 1, size - slot);
+            System.arraycopy(busIds, slot, busIds, slot + 1, size - slot);
+            System.arraycopy(updatedMillis, slot, updatedMillis, slot + 1, size - slot);
+            set(slot, a, busId, millis);
+            size++;
+            return slot;
+        }
+
+        void removeAt(int slot) {
+            System.arraycopy(along, slot + 1, along, slot, size - slot - 1);
+            System.arraycopy(busIds, slot + 1, busIds, slot, size - slot - 1);
+            System.arraycopy(updatedMillis, slot + 1, updatedMillis, slot, size - slot - 1);
+            size--;
+        }
+
+        /**
+         * Cambia el avance del bus en slot y lo corre solo los puestos necesarios
+         *
+         * @return Nuevo puesto
+         */
+        int move(int slot, double a, long millis) {
+            int busId = busIds[slot];
+            while (slot + 1 < size && (along[slot + 1] < a || (along[slot + 1] == a && busIds[slot + 1] < busId))) {
+                set(slot, along[slot + 1], busIds[slot + 1], updatedMillis[slot + 1]);
+                slot++;
+            }
+            while (slot > 0 && (along[slot - 1] > a || (along[slot - 1] == a && busIds[slot - 1] > busId))) {
+                set(slot, along[slot - 1], busIds[slot - 1], updatedMillis[slot - 1]);
+                slot--;
+            }
+            set(slot, a, busId, millis);
+            return slot;
+        }
+
+        private void set(int slot, double a, int busId, long millis) {
+            along[slot] = a;
+            busIds[slot] = busId;
+            updatedMillis[slot] = millis;
+        }
+    }
+
+    private static final class BusState {
+        final int busId;
+        LineOrder order;
+        double along;
+        long updatedMillis;
+        int headwayState = NORMAL;
+        int routeId;
+        double latitude;
+        double longitude;
+
+        BusState(int busId, LineOrder order) {
+            this.busId = busId;
+            this.order = order;
+        }
+    }
+
+    /**
+     * Estadísticas del monitor de intervalos
+     */
+    public static class Stats {
+        private final int busesTracked;
+        private final int activeLines;
+        private final long updates;
+        private final long bunchingEvents;
+        private final long gapEvents;
+        private final int bunchedNow;
+        private final int gapsNow;
+
+        public Stats(int busesTracked, int activeLines, long updates, long bunchingEvents,
+                     long gapEvents, int bunchedNow, int gapsNow) {
+            this.busesTracked = busesTracked;
+            this.activeLines = activeLines;
+            this.updates = updates;
+            this.bunchingEvents = bunchingEvents;
+            this.gapEvents = gapEvents;
+            this.bunchedNow = bunchedNow;
+            this.gapsNow = gapsNow;
+        }
+
+        public int getBusesTracked() {
+            return busesTracked;
+        }
+
+        public int getActiveLines() {
+            return activeLines;
+        }
+
+        public long getUpdates() {
+            return updates;
+        }
+
+        public long getBunchingEvents() {
+            return bunchingEvents;
+        }
+
+        public long getGapEvents() {
+            return gapEvents;
+        }
+
+        public int getBunchedNow() {
+            return bunchedNow;
+        }
+
+        public int getGapsNow() {
+            return gapsNow;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "HeadwayStats[\n" +
+                    "  Buses monitoreados:     %,d\n" +
+                    "  Recorridos activos:     %,d\n" +
+                    "  Posiciones procesadas:  %,d\n" +
+                    "  Eventos agrupamiento:   %,d\n" +
+                    "  Eventos de hueco:       %,d\n" +
+                    "  Agrupados ahora:        %,d\n" +
+                    "  Huecos ahora:           %,d\n" +
+                    "]",
+                    busesTracked, activeLines, updates, bunchingEvents, gapEvents, bunchedNow, gapsNow
+            );
+        }
+    }
+}
@@ -6,6 +6,7 @@ import co.edu.icesi.mio.model.events.EventPriority;
 import co.edu.icesi.mio.model.events.EventType;
 import co.edu.icesi.mio.model.realtime.BusPosition;
 import co.edu.icesi.mio.model.streaming.Datagram;
+import co.edu.icesi.mio.service.realtime.PositionSnapper;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
@@ -27,6 +28,20 @@ public class RealtimeStreamProcessor implements Runnable {
     private final AtomicBoolean running;
     private final AtomicLong processedCount;
     private final AtomicLong eventCount;
+    private final AtomicLong snappedCount;
+
+    // Ubicación de cada fix sobre su línea (opcional); el resultado se reutiliza entre datagramas
+    private final PositionSnapper positionSnapper;
+    private final PositionSnapper.SnapResult snapResult;
+
+    // Intervalos entre buses de una misma línea (opcional; requiere positionSnapper)
+    private final HeadwayMonitor headwayMonitor;
+
+    // Entradas y salidas de terminales, patios y zonas restringidas (opcional)
+    private final GeofenceEngine geofenceEngine;
+
+    // Llegadas y salidas de paradas con su permanencia (opcional; reemplaza BUS_STOPPED por datagrama)
+    private final DwellDetector dwellDetector;
 
     // Configuración de simulación temporal
     private final double timeAccelerationFactor; // Factor de aceleración (1.0 = tiempo real, 2.0 = 2x más rápido)
@@ -49,12 +64,40 @@ public class RealtimeStreamProcessor implements Runnable {
                                     double timeAccelerationFactor,
                                     boolean realTimeSimulation,
                                     int batchSize) {
+        this(consumer, eventConsumer, positionConsumer, timeAccelerationFactor, realTimeSimulation, batchSize,
+                null, null, null, null);
+    }
+
+    /**
+     * @param positionSnapper Ubica cada posición sobre su línea para conocer la parada actual y
+     *                        la próxima; null para dejarlas en -1
+     * @param headwayMonitor Genera eventos de agrupamiento y huecos entre buses; null para omitirlos
+     * @param geofenceEngine Genera eventos de entrada y salida de geocercas; null para omitirlos
+     * @param dwellDetector Genera llegadas y salidas de paradas en lugar de un BUS_STOPPED por cada
+     *                      datagrama lento; null para el comportamiento por datagrama
+     */
+    public RealtimeStreamProcessor(StreamingDatagramConsumer consumer,
+                                    Consumer<BusEvent> eventConsumer,
+                                    Consumer<BusPosition> positionConsumer,
+                                    double timeAccelerationFactor,
+                                    boolean realTimeSimulation,
+                                    int batchSize,
+                                    PositionSnapper positionSnapper,
+                                    HeadwayMonitor headwayMonitor,
+                                    GeofenceEngine geofenceEngine,
+                                    DwellDetector dwellDetector) {
         this.consumer = consumer;
         this.eventConsumer = eventConsumer;
         this.positionConsumer = positionConsumer;
         this.running = new AtomicBoolean(false);
         this.processedCount = new AtomicLong(0);
         this.eventCount = new AtomicLong(0);
+        this.snappedCount = new AtomicLong(0);
+        this.positionSnapper = positionSnapper;
+        this.snapResult = new PositionSnapper.SnapResult();
+        this.headwayMonitor = headwayMonitor;
+        this.geofenceEngine = geofenceEngine;
+        this.dwellDetector = dwellDetector;
         this.timeAccelerationFactor = timeAccelerationFactor;
         this.realTimeSimulation = realTimeSimulation;
         this.batchSize = batchSize;
@@ -120,6 +163,9 @@ public class RealtimeStreamProcessor implements Runnable {
             System.out.println("═══════════════════════════════════════════════════════════");
             System.out.printf("Total procesados: %,d datagramas\n", processedCount.get());
             System.out.printf("Eventos generados: %,d\n", eventCount.get());
+            if (positionSnapper != null) {
+                System.out.printf("Posiciones ubicadas en su línea: %,d\n", snappedCount.get());
+            }
             System.out.printf("Duración: %.2f segundos\n", durationSeconds);
             System.out.printf("Velocidad: %.0f datagramas/segundo\n", processedCount.get() / Math.max(durationSeconds, 1));
             System.out.println();
@@ -139,7 +185,14 @@ public class RealtimeStreamProcessor implements Runnable {
      * Procesa un datagrama individual
      */
     private void processDatagram(Datagram datagram) {
-        // 1. Crear posición de bus
+        // 1. Ubicar el fix sobre la línea (el datagrama no trae paradas)
+        boolean snapped = positionSnapper != null && positionSnapper.snap(datagram.getBusCode(),
+                datagram.getLineId(), datagram.getLatitude(), datagram.getLongitude(), snapResult);
+        if (snapped) {
+            snappedCount.incrementAndGet();
+        }
+
+        // 2. Crear posición de bus
         BusPosition position = new BusPosition(
                 datagram.getBusCode(),
                 datagram.getRouteId(),
@@ -147,8 +200,9 @@ public class RealtimeStreamProcessor implements Runnable {
                 datagram.getLatitude(),
                 datagram.getLongitude(),
                 datagram.getVelocity(),
-                -1,  // currentStopId - no disponible en datagram básico
-                -1,  // nextStopId - no disponible en datagram básico
+                snapped ? snapResult.getCurrentStopId() : -1,
+                snapped ? snapResult.getNextStopId() : -1,
+                snapped ? snapResult.getProgress() : -1,
                 datagram.getTimestamp()
         );
 
@@ -157,8 +211,17 @@ public class RealtimeStreamProcessor implements Runnable {
             positionConsumer.accept(position);
         }
 
-        // 2. Generar eventos basados en condiciones
+        // 3. Generar eventos basados en condiciones
         List<BusEvent> events = generateEvents(datagram);
+        if (headwayMonitor != null) {
+            headwayMonitor.onPosition(position, events);
+        }
+        if (geofenceEngine != null) {
+            geofenceEngine.onPosition(position, events);
+        }
+        if (dwellDetector != null) {
+            dwellDetector.onPosition(position, events);
+        }
         for (BusEvent event : events) {
             if (eventConsumer != null) {
                 eventConsumer.accept(event);
@@ -190,8 +253,10 @@ public class RealtimeStreamProcessor implements Runnable {
             events.add(event);
         }
 
-        // Evento de bus detenido (si tiene velocidad muy baja pero está "en servicio")
-        if (datagram.getVelocity() < STOPPED_VELOCITY_THRESHOLD && datagram.getVelocity() >= 0) {
+        // Evento de bus detenido (si tiene velocidad muy baja pero está "en servicio");
+        // con detector de paradas se reporta una vez por detención
+        if (dwellDetector == null
+                && datagram.getVelocity() < STOPPED_VELOCITY_THRESHOLD && datagram.getVelocity() >= 0) {
             BusEvent event = new BusEvent(
                     datagram.getBusCode(),
                     EventType.BUS_STOPPED,
@@ -264,7 +329,7 @@ public class RealtimeStreamProcessor implements Runnable {
      * Obtiene estadísticas
      */
     public ProcessorStats getStats() {
-        return new ProcessorStats(processedCount.get(), eventCount.get());
+        return new ProcessorStats(processedCount.get(), eventCount.get(), snappedCount.get());
     }
 
     /**
@@ -273,10 +338,16 @@ public class RealtimeStreamProcessor implements Runnable {
     public static class ProcessorStats {
         private final long processedCount;
         private final long eventCount;
+        private final long snappedCount;
 
         public ProcessorStats(long processedCount, long eventCount) {
+            this(processedCount, eventCount, 0);
+        }
+
+        public ProcessorStats(long processedCount, long eventCount, long snappedCount) {
             this.processedCount = processedCount;
             this.eventCount = eventCount;
+            this.snappedCount = snappedCount;
         }
 
         public long getProcessedCount() {
@@ -287,9 +358,14 @@ public class RealtimeStreamProcessor implements Runnable {
             return eventCount;
         }
 
+        public long getSnappedCount() {
+            return snappedCount;
+        }
+
         @Override
         public String toString() {
-            return String.format("ProcessorStats[processed=%,d, events=%,d]", processedCount, eventCount);
+            return String.format("ProcessorStats[processed=%,d, events=%,d, snapped=%,d]",
+                    processedCount, eventCount, snappedCount);
         }
     }
 }
@@ -1,16 +1,23 @@
 package co.edu.icesi.mio.service.streaming;
 
 import co.edu.icesi.mio.model.events.BusEvent;
+import co.edu.icesi.mio.model.events.BusEventListener;
 import co.edu.icesi.mio.model.events.BusEventStore;
 import co.edu.icesi.mio.model.realtime.BusPosition;
+import co.edu.icesi.mio.model.realtime.NearbyBus;
 import co.edu.icesi.mio.service.notifications.NotificationService;
+import co.edu.icesi.mio.service.realtime.BusSpatialIndex;
+import co.edu.icesi.mio.service.realtime.PositionSnapper;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /**
  * Servicio orquestador de streaming en tiempo real.
@@ -28,12 +35,19 @@ public class RealtimeStreamingService {
 
     private final AtomicBoolean running;
     private final Map<Integer, BusPosition> latestPositions; // busId -> última posición
+    private final BusSpatialIndex spatialIndex;             // Últimas posiciones por celda de la ciudad
+    private final List<Consumer<BusPosition>> positionListeners;
+    private final List<BusEventListener> eventListeners;
 
     // Configuración
     private double timeAccelerationFactor = 10.0; // 10x más rápido por defecto
     private boolean realTimeSimulation = true;
     private int queueSize = 10000;
     private int batchSize = 100;
+    private PositionSnapper positionSnapper;      // null: posiciones sin paradas
+    private HeadwayMonitor headwayMonitor;        // null: sin eventos de agrupamiento
+    private GeofenceEngine geofenceEngine;        // null: sin eventos de geocercas
+    private DwellDetector dwellDetector;          // null: BUS_STOPPED por cada datagrama lento
 
     public RealtimeStreamingService(String streamingFilePath,
                                      BusEventStore eventStore,
@@ -43,6 +57,9 @@ public class RealtimeStreamingService {
         this.notificationService = notificationService;
         this.running = new AtomicBoolean(false);
         this.latestPositions = new ConcurrentHashMap<>();
+        this.spatialIndex = new BusSpatialIndex();
+        this.positionListeners = new CopyOnWriteArrayList<>();
+        this.eventListeners = new CopyOnWriteArrayList<>();
     }
 
     /**
@@ -75,7 +92,11 @@ public class RealtimeStreamingService {
                 this::handleBusPosition,
                 timeAccelerationFactor,
                 realTimeSimulation,
-                batchSize
+                batchSize,
+                positionSnapper,
+                headwayMonitor,
+                geofenceEngine,
+                dwellDetector
         );
 
         // Crear executor para ambos threads
@@ -96,6 +117,11 @@ public class RealtimeStreamingService {
         // Agregar al store de eventos
         eventStore.add(event);
 
+        // Reenviar a los suscriptores (p. ej. capa de incidentes)
+        for (BusEventListener listener : eventListeners) {
+            listener.onBusEvent(event);
+        }
+
         // Notificar a través del servicio de notificaciones
         notificationService.notifyEvent(event);
     }
@@ -106,6 +132,11 @@ public class RealtimeStreamingService {
     private void handleBusPosition(BusPosition position) {
         // Actualizar última posición conocida
         latestPositions.put(position.getBusId(), position);
+        spatialIndex.update(position);
+
+        for (Consumer<BusPosition> listener : positionListeners) {
+            listener.accept(position);
+        }
     }
 
     /**
@@ -164,6 +195,27 @@ public class RealtimeStreamingService {
         return new ConcurrentHashMap<>(latestPositions);
     }
 
+    /**
+     * Obtiene los k buses más cercanos a un punto (p. ej. una parada o un incidente)
+     */
+    public List<NearbyBus> findNearestBuses(double latitude, double longitude, int k) {
+        return spatialIndex.findNearest(latitude, longitude, k);
+    }
+
+    /**
+     * Obtiene los buses a no más de radiusMeters de un punto, ordenados por distancia
+     */
+    public List<NearbyBus> findBusesWithin(double latitude, double longitude, double radiusMeters) {
+        return spatialIndex.findWithin(latitude, longitude, radiusMeters);
+    }
+
+    /**
+     * Índice espacial de las últimas posiciones, para consultas de cercanía sin copiar el mapa
+     */
+    public BusSpatialIndex getSpatialIndex() {
+        return spatialIndex;
+    }
+
     /**
      * Obtiene el número de buses siendo rastreados
      */
@@ -214,6 +266,48 @@ public class RealtimeStreamingService {
         this.batchSize = size;
     }
 
+    /**
+     * Ubica las posiciones sobre su línea para obtener la parada actual y la próxima
+     */
+    public void setPositionSnapper(PositionSnapper positionSnapper) {
+        this.positionSnapper = positionSnapper;
+    }
+
+    /**
+     * Vigila los intervalos entre buses de cada línea (requiere setPositionSnapper)
+     */
+    public void setHeadwayMonitor(HeadwayMonitor headwayMonitor) {
+        this.headwayMonitor = headwayMonitor;
+    }
+
+    /**
+     * Genera eventos de entrada y salida de terminales, patios y zonas restringidas
+     */
+    public void setGeofenceEngine(GeofenceEngine geofenceEngine) {
+        this.geofenceEngine = geofenceEngine;
+    }
+
+    /**
+     * Genera llegadas y salidas de paradas con el tiempo de permanencia
+     */
+    public void setDwellDetector(DwellDetector dwellDetector) {
+        this.dwellDetector = dwellDetector;
+    }
+
+    /**
+     * Registra un suscriptor de las posiciones procesadas (p. ej. tableros de llegadas)
+     */
+    public void addPositionListener(Consumer<BusPosition> listener) {
+        positionListeners.add(listener);
+    }
+
+    /**
+     * Registra un suscriptor de los eventos generados (p. ej. la capa de incidentes de rutas)
+     */
+    public void addEventListener(BusEventListener listener) {
+        eventListeners.add(listener);
+    }
+
     /**
      * Clase para estadísticas del servicio
      */